@@ -0,0 +1,73 @@
+package com.gdt.chess.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gdt.chess.model.CompactGame;
+import com.gdt.chess.model.Fen;
+import com.gdt.chess.model.Game;
+import com.gdt.chess.model.GameBinary;
+import com.gdt.chess.movegen.MoveGenerator;
+import com.gdt.chess.movegen.MoveList;
+
+/**
+ * Cost of each form of {@code GET /games/{gameId}} for a game of 40 plies,
+ * from the snapshot the controller works on to the bytes sent. Run with
+ * {@code -prof gc} to see the allocation per response as well.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameRepresentationBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Game game;
+
+    @Setup
+    public void setUp() {
+        game = new Game();
+        Random random = new Random(42);
+        MoveList moves = new MoveList();
+        for (int ply = 0; ply < 40; ply++) {
+            moves.clear();
+            MoveGenerator.generateLegalMoves(game.getBoard(), moves);
+            game.makeMove(moves.get(random.nextInt(moves.size())));
+        }
+    }
+
+    @Benchmark
+    public byte[] fullJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(game);
+    }
+
+    @Benchmark
+    public byte[] compactJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(CompactGame.of(game));
+    }
+
+    @Benchmark
+    public String fen() {
+        return Fen.toFen(game.getBoard());
+    }
+
+    @Benchmark
+    public byte[] binary() {
+        return GameBinary.encode(game);
+    }
+}
@@ -0,0 +1,83 @@
+package com.gdt.chess.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gdt.chess.model.Bitboards;
+import com.gdt.chess.model.Board;
+import com.gdt.chess.model.Game;
+import com.gdt.chess.model.Move;
+import com.gdt.chess.model.Position;
+import com.gdt.chess.model.enums.PieceType;
+import com.gdt.chess.service.MoveValidationService;
+
+/**
+ * Allocation per call on the move request path. Run with {@code -prof gc}
+ * and read {@code gc.alloc.rate.norm}, the bytes allocated per operation.
+ * {@code playMove} repeats what {@code ChessService.makeMove} does between
+ * the repository lookup and save, then takes the move back.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoveAllocationBenchmark {
+
+    private MoveValidationService moveValidationService;
+    private Game game;
+    private Position knight;
+    private int historyEntry;
+
+    @Setup
+    public void setUp() {
+        moveValidationService = new MoveValidationService();
+        game = new Game();
+        knight = Position.fromChessNotation("g1");
+        Game played = new Game();
+        historyEntry = played.makeMove(moveValidationService.findLegalMove(played.getBoard(),
+                Bitboards.square(Position.fromChessNotation("e2")), Bitboards.square(Position.fromChessNotation("e4")),
+                PieceType.QUEEN));
+    }
+
+    @Benchmark
+    public int playMove() {
+        Position from = Position.fromChessNotation("g1");
+        Position to = Position.fromChessNotation("f3");
+        Board board = game.getBoard();
+        if (!board.isPositionValid(from) || !board.isPositionValid(to)) {
+            throw new IllegalStateException();
+        }
+        int packed = moveValidationService.findLegalMove(board, Bitboards.square(from), Bitboards.square(to), PieceType.QUEEN);
+        game.makeMove(packed);
+        return game.unmakeMove();
+    }
+
+    @Benchmark
+    public List<Position> getValidMoves() {
+        return moveValidationService.getValidMoves(game, knight);
+    }
+
+    /** The REST view of a history entry; the Move and its pieces are the response itself. */
+    @Benchmark
+    public Move moveView() {
+        return Move.fromHistory(historyEntry);
+    }
+
+    @Benchmark
+    public String notation() {
+        return knight.toChessNotation();
+    }
+}
@@ -0,0 +1,91 @@
+package com.gdt.chess.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gdt.chess.model.Bitboards;
+import com.gdt.chess.model.Game;
+import com.gdt.chess.model.Move;
+import com.gdt.chess.model.PackedMove;
+import com.gdt.chess.model.Position;
+import com.gdt.chess.model.enums.PieceType;
+import com.gdt.chess.movegen.MoveGenerator;
+import com.gdt.chess.movegen.MoveList;
+import com.gdt.chess.service.MoveValidationService;
+
+/**
+ * Per-call latency of the two validation entry points behind the REST API.
+ * Sample-time mode makes JMH report the p50/p90/p99/p99.9 distribution.
+ * The last two compare the status check run after every move with
+ * generating every move.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoveValidationBenchmark {
+
+    // Italian game: both sides developed, White can castle
+    private static final String[] OPENING = { "e2", "e4", "e7", "e5", "g1", "f3", "b8", "c6", "f1", "c4", "g8", "f6" };
+
+    private MoveValidationService moveValidationService;
+    private Game game;
+    private Position knight;
+    private Move castling;
+    private final MoveList moves = new MoveList();
+
+    @Setup
+    public void setUp() {
+        moveValidationService = new MoveValidationService();
+        game = new Game();
+        for (int i = 0; i < OPENING.length; i += 2) {
+            game.makeMove(legalMove(OPENING[i], OPENING[i + 1]));
+        }
+        knight = Position.fromChessNotation("f3");
+        castling = legalMove("e1", "g1");
+    }
+
+    private Move legalMove(String from, String to) {
+        int packed = moveValidationService.findLegalMove(game.getBoard(),
+                Bitboards.square(Position.fromChessNotation(from)),
+                Bitboards.square(Position.fromChessNotation(to)), PieceType.QUEEN);
+        if (packed == PackedMove.NONE) {
+            throw new IllegalStateException("Illegal opening move " + from + to);
+        }
+        return Move.of(game.getBoard(), packed);
+    }
+
+    @Benchmark
+    public List<Position> getValidMoves() {
+        return moveValidationService.getValidMoves(game, knight);
+    }
+
+    @Benchmark
+    public boolean isValidMove() {
+        return moveValidationService.isValidMove(game, castling);
+    }
+
+    @Benchmark
+    public boolean hasLegalMove() {
+        return MoveGenerator.hasLegalMove(game.getBoard());
+    }
+
+    @Benchmark
+    public int generateLegalMoves() {
+        MoveGenerator.generateLegalMoves(game.getBoard(), moves);
+        return moves.size();
+    }
+}
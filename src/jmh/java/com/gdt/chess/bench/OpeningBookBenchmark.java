@@ -0,0 +1,116 @@
+package com.gdt.chess.bench;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gdt.chess.engine.PolyglotBook;
+import com.gdt.chess.engine.PolyglotKey;
+import com.gdt.chess.model.Board;
+import com.gdt.chess.model.San;
+import com.gdt.chess.movegen.MoveList;
+
+/**
+ * Opening book lookups in a memory-mapped book of {@code entries} random
+ * positions (16 bytes each, so the default is a 128 MB book) plus the
+ * start position's two moves. Run with -prof gc to see that probes do not
+ * allocate: the book is searched in place.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OpeningBookBenchmark {
+
+    @Param("8000000")
+    private int entries;
+
+    private Path path;
+    private PolyglotBook book;
+    private Board inBook;
+    private Board outOfBook;
+    private final MoveList moves = new MoveList();
+    private final int[] weights = new int[MoveList.CAPACITY];
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        inBook = new Board();
+        outOfBook = new Board();
+        outOfBook.makeMove(San.parse(outOfBook, "a4", moves));
+
+        PolyglotKey keys = PolyglotKey.standard();
+        long start = keys.hash(inBook);
+        long[] sorted = new long[entries];
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < entries; i++) {
+            // Flipping the sign bit makes a signed sort order the keys as unsigned numbers
+            sorted[i] = (i < 2 ? start : random.nextLong()) ^ Long.MIN_VALUE;
+        }
+        Arrays.sort(sorted);
+
+        path = Files.createTempFile("book", ".bin");
+        int e2e4 = PolyglotBook.encodeMove(San.parse(inBook, "e4", moves));
+        int d2d4 = PolyglotBook.encodeMove(San.parse(inBook, "d4", moves));
+        boolean first = true;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            for (long key : sorted) {
+                key ^= Long.MIN_VALUE;
+                int move = key == start ? (first ? e2e4 : d2d4) : e2e4;
+                first &= key != start;
+                buffer.putLong(key).putShort((short) move).putShort((short) 1).putInt(0);
+                if (!buffer.hasRemaining()) {
+                    buffer.flip();
+                    channel.write(buffer);
+                    buffer.clear();
+                }
+            }
+            buffer.flip();
+            channel.write(buffer);
+        }
+        book = PolyglotBook.open(path, keys);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        book.close();
+        Files.deleteIfExists(path);
+    }
+
+    @Benchmark
+    public long hash() {
+        return PolyglotKey.standard().hash(inBook);
+    }
+
+    @Benchmark
+    public int probeInBook() {
+        return book.probe(inBook, moves, weights);
+    }
+
+    @Benchmark
+    public int probeOutOfBook() {
+        return book.probe(outOfBook, moves, weights);
+    }
+}
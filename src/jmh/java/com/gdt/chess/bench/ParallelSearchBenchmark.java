@@ -0,0 +1,98 @@
+package com.gdt.chess.bench;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gdt.chess.engine.ParallelSearch;
+import com.gdt.chess.engine.SearchLimits;
+import com.gdt.chess.engine.SearchResult;
+import com.gdt.chess.engine.TranspositionTable;
+import com.gdt.chess.model.Board;
+import com.gdt.chess.model.Fen;
+
+/**
+ * Lazy SMP scaling: searches to a fixed depth from an empty transposition
+ * table, per thread count. The primary score is searches per second, whose
+ * reciprocal is the time to depth, and the {@code nodes} counter is reported
+ * as nodes per second over all threads. Thread counts above the machine's
+ * core count only measure oversubscription.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ParallelSearchBenchmark {
+
+    @Param({ "1", "2", "4", "8", "16" })
+    public int threads;
+
+    // Quiet middlegame and Kiwipete, a tactical one
+    @Param({ "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N2N2/PP2BPPP/R2QKB1R w KQ - 0 9",
+             "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1" })
+    public String fen;
+
+    @Param({ "8" })
+    public int depth;
+
+    private Board board;
+    private TranspositionTable table;
+    private ExecutorService helperPool;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Nodes {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = Fen.parse(fen);
+        table = new TranspositionTable(64);
+        helperPool = Executors.newFixedThreadPool(Math.max(1, threads - 1), runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        table.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        helperPool.shutdownNow();
+    }
+
+    @Benchmark
+    public SearchResult timeToDepth(Nodes counter) {
+        SearchResult result = ParallelSearch.search(board, new long[0], table, SearchLimits.depth(depth),
+                threads - 1, helperPool);
+        counter.nodes += result.getNodes();
+        return result;
+    }
+}
@@ -0,0 +1,74 @@
+package com.gdt.chess.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gdt.chess.model.Board;
+import com.gdt.chess.model.Fen;
+import com.gdt.chess.movegen.Perft;
+import com.gdt.chess.movegen.PerftPosition;
+
+/**
+ * Perft throughput from the standard positions. The trial refuses to start
+ * unless the node count matches the published value, and the {@code nodes}
+ * counter is reported by JMH as nodes per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PerftBenchmark {
+
+    @Param({ "START", "KIWIPETE", "POSITION_3", "POSITION_4", "POSITION_5", "POSITION_6" })
+    public PerftPosition position;
+
+    private Board board;
+    private Perft perft;
+    private int depth;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Nodes {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = Fen.parse(position.fen());
+        perft = new Perft();
+        // One level short of the deepest published count keeps an invocation in the millisecond range
+        depth = position.maxDepth() - 1;
+        long nodes = perft.count(board, depth);
+        if (nodes != position.nodes(depth)) {
+            throw new IllegalStateException(position + " perft(" + depth + ") = " + nodes
+                    + ", expected " + position.nodes(depth));
+        }
+    }
+
+    @Benchmark
+    public long perft(Nodes counter) {
+        long nodes = perft.count(board, depth);
+        counter.nodes += nodes;
+        return nodes;
+    }
+}
@@ -0,0 +1,119 @@
+package com.gdt.chess.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gdt.chess.model.Board;
+import com.gdt.chess.model.Fen;
+import com.gdt.chess.tablebase.Material;
+import com.gdt.chess.tablebase.TablebaseGenerator;
+import com.gdt.chess.tablebase.Tablebases;
+
+/**
+ * Endgame tablebases: probes of the memory-mapped tables, from a {@link Board}
+ * to a score, and the best move of a position, which probes every move.
+ * Run with -prof gc to see that probes do not allocate. {@code generate}
+ * builds all four tables in memory with {@code threads} threads, once per
+ * iteration; the files it would write are 37 KB (KQK), 44 KB (KRK), 130 KB
+ * (KPK) and 3.3 MB (KBNK).
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TablebaseBenchmark {
+
+    @Param("1")
+    private int threads;
+
+    private Path directory;
+    private ExecutorService pool;
+    private Tablebases tablebases;
+    private final Board kqk = Fen.parse("8/8/3k4/8/8/8/8/KQ6 b - - 0 1");
+    private final Board kpk = Fen.parse("8/8/8/4k3/8/8/4P3/4K3 w - - 0 1");
+    // Black is the strong side here, so the probe turns the board around
+    private final Board kbnk = Fen.parse("k7/8/4K3/8/8/8/8/5bn1 w - - 0 1");
+    private final Board middlegame = Fen.parse("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3");
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        directory = Files.createTempDirectory("tablebases");
+        pool = Executors.newFixedThreadPool(threads);
+        tablebases = new Tablebases();
+        tablebases.load(directory, EnumSet.allOf(Material.class), pool, threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        tablebases.stop();
+        pool.shutdownNow();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public int probeKqk() {
+        return tablebases.probe(kqk);
+    }
+
+    @Benchmark
+    public int probeKpk() {
+        return tablebases.probe(kpk);
+    }
+
+    @Benchmark
+    public int probeKbnk() {
+        return tablebases.probe(kbnk);
+    }
+
+    /** Most probes are of positions no table covers and must be turned away at once. */
+    @Benchmark
+    public int probeMiss() {
+        return tablebases.probe(middlegame);
+    }
+
+    @Benchmark
+    public int bestMoveKbnk() {
+        return tablebases.bestMove(kbnk);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public byte[][][] generate() throws InterruptedException {
+        byte[][][] values = new byte[Material.values().length][][];
+        for (Material material : Material.values()) {
+            values[material.ordinal()] = new TablebaseGenerator(material, pool, threads,
+                    (other, side, index) -> values[other.ordinal()][side.ordinal()][index] & 0xFF).generate();
+        }
+        return values;
+    }
+}
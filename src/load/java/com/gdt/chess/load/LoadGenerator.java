@@ -0,0 +1,326 @@
+package com.gdt.chess.load;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gdt.chess.ChessApplication;
+
+/**
+ * Closed-loop load generator: each simulated player creates a game, then
+ * repeatedly asks for the legal moves, picks one at random and plays it,
+ * until the game is over or reaches the ply limit, and starts the next
+ * game. A player waits for each response (plus the think time) before its
+ * next request, so throughput is what the server sustains at that
+ * concurrency; raising {@code players} until throughput stops growing
+ * while latency climbs finds the node's saturation point.
+ *
+ * Without {@code url} the application is started in this JVM on a free
+ * port, and heap growth is measured after a full GC, players included;
+ * with it, heap comes from the target's {@code jvm.memory.used} metric.
+ * Run with:
+ *   mvn -Ploadtest verify
+ *   mvn -Ploadtest verify -Dload.args="players=64 duration=120 think-ms=50"
+ *
+ * Options, each {@code name=value} or {@code --name=value}:
+ *   players     concurrent players (16)
+ *   duration    measured seconds (30)
+ *   warmup      seconds played before measuring (10)
+ *   think-ms    pause before each move, in milliseconds (0)
+ *   max-plies   plies after which a game is abandoned (200)
+ *   seed        random seed, for repeatable games (1)
+ *   url         server to load instead of an embedded one, e.g. http://host:5000
+ *   delete      delete each game when it ends (true)
+ */
+public final class LoadGenerator {
+
+    private static final String[] ENDPOINTS = { "create", "legal-moves", "move", "delete" };
+    private static final int CREATE = 0;
+    private static final int LEGAL_MOVES = 1;
+    private static final int MOVE = 2;
+    private static final int DELETE = 3;
+
+    // Latencies up to a minute, to 3 significant digits
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final int players;
+    private final long durationMs;
+    private final long warmupMs;
+    private final long thinkMs;
+    private final int maxPlies;
+    private final long seed;
+    private final boolean delete;
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Recorder[] latencies = new Recorder[ENDPOINTS.length];
+    private final LongAdder[] errors = new LongAdder[ENDPOINTS.length];
+    private final LongAdder gamesFinished = new LongAdder();
+    private final LongAdder movesPlayed = new LongAdder();
+    private String api;
+    private volatile boolean running = true;
+
+    private LoadGenerator(Map<String, String> options) {
+        players = Integer.parseInt(options.getOrDefault("players", "16"));
+        durationMs = TimeUnit.SECONDS.toMillis(Long.parseLong(options.getOrDefault("duration", "30")));
+        warmupMs = TimeUnit.SECONDS.toMillis(Long.parseLong(options.getOrDefault("warmup", "10")));
+        thinkMs = Long.parseLong(options.getOrDefault("think-ms", "0"));
+        maxPlies = Integer.parseInt(options.getOrDefault("max-plies", "200"));
+        seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        delete = Boolean.parseBoolean(options.getOrDefault("delete", "true"));
+        for (int i = 0; i < ENDPOINTS.length; i++) {
+            latencies[i] = new Recorder(MAX_LATENCY_NANOS, 3);
+            errors[i] = new LongAdder();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        LoadGenerator generator = new LoadGenerator(options);
+        String url = options.get("url");
+        ConfigurableApplicationContext context = null;
+        if (url == null) {
+            // Devtools would restart main() in a new class loader, without our arguments
+            System.setProperty("spring.devtools.restart.enabled", "false");
+            context = SpringApplication.run(ChessApplication.class,
+                    "--server.port=0", "--logging.level.root=WARN", "--spring.main.banner-mode=off");
+            url = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        }
+        try {
+            generator.run(url, context != null);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int equals = option.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Expected name=value, got " + arg);
+            }
+            options.put(option.substring(0, equals), option.substring(equals + 1));
+        }
+        return options;
+    }
+
+    private void run(String url, boolean embedded) throws Exception {
+        api = url + "/api/chess";
+        System.out.printf("%d players against %s, think time %d ms, at most %d plies per game%n",
+                players, url, thinkMs, maxPlies);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            SplittableRandom random = new SplittableRandom(seed * 1_000_003L + i);
+            Thread thread = new Thread(() -> play(random), "player-" + i);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+
+        Thread.sleep(warmupMs);
+        long heapBefore = heapUsed(url, embedded);
+        for (Recorder recorder : latencies) {
+            recorder.reset();
+        }
+        for (LongAdder count : errors) {
+            count.reset();
+        }
+        gamesFinished.reset();
+        movesPlayed.reset();
+
+        long start = System.nanoTime();
+        Histogram[] totals = new Histogram[ENDPOINTS.length];
+        long[] errorTotals = new long[ENDPOINTS.length];
+        for (int i = 0; i < totals.length; i++) {
+            totals[i] = new Histogram(MAX_LATENCY_NANOS, 3);
+        }
+        // Throughput every 5 seconds, to see whether the run settled
+        long end = start + TimeUnit.MILLISECONDS.toNanos(durationMs);
+        Histogram[] intervals = new Histogram[ENDPOINTS.length];
+        while (System.nanoTime() < end) {
+            Thread.sleep(Math.min(5000, Math.max(1, TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime()))));
+            long requests = 0;
+            for (int i = 0; i < totals.length; i++) {
+                intervals[i] = latencies[i].getIntervalHistogram(intervals[i]);
+                totals[i].add(intervals[i]);
+                requests += intervals[i].getTotalCount();
+            }
+            System.out.printf("  %5.0f s  %8d requests%n", (System.nanoTime() - start) / 1e9, requests);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        for (int i = 0; i < errorTotals.length; i++) {
+            errorTotals[i] = errors[i].sum();
+        }
+        long games = gamesFinished.sum();
+        long moves = movesPlayed.sum();
+        running = false;
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        long heapAfter = heapUsed(url, embedded);
+
+        report(totals, errorTotals, seconds, games, moves, heapBefore, heapAfter);
+    }
+
+    private void report(Histogram[] totals, long[] errorTotals, double seconds, long games, long moves,
+            long heapBefore, long heapAfter) {
+        System.out.printf("%n%-12s %10s %10s %9s %9s %9s %9s %8s%n",
+                "endpoint", "requests", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+        long requests = 0;
+        long failed = 0;
+        for (int i = 0; i < ENDPOINTS.length; i++) {
+            Histogram histogram = totals[i];
+            long count = histogram.getTotalCount();
+            requests += count;
+            failed += errorTotals[i];
+            System.out.printf("%-12s %10d %10.1f %9.3f %9.3f %9.3f %9.3f %8d%n",
+                    ENDPOINTS[i], count, count / seconds,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()), errorTotals[i]);
+        }
+        System.out.printf("%nThroughput  %.1f requests/s, %.1f moves/s, %.2f games/s%n",
+                requests / seconds, moves / seconds, games / seconds);
+        System.out.printf("Error rate  %.3f%% (%d of %d)%n", requests == 0 ? 0.0 : 100.0 * failed / requests, failed, requests);
+        System.out.printf("Heap        %.1f MB -> %.1f MB (%+.1f MB)%n",
+                heapBefore / 1e6, heapAfter / 1e6, (heapAfter - heapBefore) / 1e6);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /** One player's loop: play games back to back until the run ends. */
+    private void play(SplittableRandom random) {
+        while (running) {
+            String gameId = null;
+            try {
+                JsonNode game = call(CREATE, HttpRequest.newBuilder(URI.create(api + "/games"))
+                        .POST(HttpRequest.BodyPublishers.noBody()));
+                if (game == null) {
+                    continue;
+                }
+                gameId = game.get("id").asText();
+                playGame(gameId, random);
+                gamesFinished.increment();
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                // Counted by call(); start over with a new game
+            }
+            if (delete && gameId != null) {
+                try {
+                    call(DELETE, HttpRequest.newBuilder(URI.create(api + "/games/" + gameId)).DELETE());
+                } catch (InterruptedException e) {
+                    return;
+                } catch (IOException e) {
+                    // Counted by call()
+                }
+            }
+        }
+    }
+
+    private void playGame(String gameId, SplittableRandom random) throws IOException, InterruptedException {
+        for (int ply = 0; ply < maxPlies && running; ply++) {
+            JsonNode legal = call(LEGAL_MOVES, HttpRequest.newBuilder(URI.create(api + "/games/" + gameId + "/legal-moves")).GET());
+            if (legal == null) {
+                return;
+            }
+            JsonNode moves = legal.get("moves");
+            if (moves.size() == 0) {
+                return;
+            }
+            String[] move = pick(moves, random);
+            if (thinkMs > 0) {
+                Thread.sleep(thinkMs);
+            }
+            String body = "{\"from\":\"" + move[0] + "\",\"to\":\"" + move[1] + "\"}";
+            JsonNode played = call(MOVE, HttpRequest.newBuilder(URI.create(api + "/games/" + gameId + "/moves"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body)));
+            if (played == null) {
+                return;
+            }
+            movesPlayed.increment();
+        }
+    }
+
+    /** A uniformly random move, from the legal moves grouped by origin square. */
+    private static String[] pick(JsonNode moves, SplittableRandom random) {
+        int count = 0;
+        for (JsonNode targets : moves) {
+            count += targets.size();
+        }
+        int index = random.nextInt(count);
+        Iterator<Map.Entry<String, JsonNode>> origins = moves.fields();
+        while (true) {
+            Map.Entry<String, JsonNode> origin = origins.next();
+            if (index < origin.getValue().size()) {
+                return new String[] { origin.getKey(), origin.getValue().get(index).asText() };
+            }
+            index -= origin.getValue().size();
+        }
+    }
+
+    /**
+     * Sends a request and records its latency under the endpoint. Returns the
+     * JSON body of a 2xx response, or null after counting an error.
+     */
+    private JsonNode call(int endpoint, HttpRequest.Builder request) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<byte[]> response;
+        try {
+            response = client.send(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            errors[endpoint].increment();
+            throw e;
+        } finally {
+            latencies[endpoint].recordValue(Math.min(System.nanoTime() - start, MAX_LATENCY_NANOS));
+        }
+        if (response.statusCode() / 100 != 2) {
+            errors[endpoint].increment();
+            return null;
+        }
+        byte[] body = response.body();
+        return body.length == 0 ? mapper.nullNode() : mapper.readTree(body);
+    }
+
+    private long heapUsed(String url, boolean embedded) throws IOException, InterruptedException {
+        if (embedded) {
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            memory.gc();
+            return memory.getHeapMemoryUsage().getUsed();
+        }
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                URI.create(url + "/actuator/metrics/jvm.memory.used?tag=area:heap")).build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            return 0;
+        }
+        return (long) mapper.readTree(response.body()).get("measurements").get(0).get("value").asDouble();
+    }
+}
@@ -1,26 +1,56 @@
 package com.gdt.chess.controller;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.gdt.chess.engine.BookMove;
+import com.gdt.chess.engine.OpeningBook;
+import com.gdt.chess.engine.SearchEngine;
+import com.gdt.chess.engine.SearchLimits;
+import com.gdt.chess.engine.SearchResult;
+import com.gdt.chess.model.CompactGame;
+import com.gdt.chess.model.Fen;
 import com.gdt.chess.model.Game;
+import com.gdt.chess.model.GameBinary;
 import com.gdt.chess.model.Move;
 import com.gdt.chess.model.Position;
 import com.gdt.chess.service.ChessService;
+import com.gdt.chess.service.GameEventBroadcaster;
+import com.gdt.chess.service.ChessMetrics;
+import com.gdt.chess.service.ChessMetrics.Validation;
+import com.gdt.chess.service.LegalMoves;
+import com.gdt.chess.service.MoveBatchService;
+import com.gdt.chess.service.MoveCommand;
+import com.gdt.chess.service.MoveError;
+import com.gdt.chess.service.MoveEvent;
+import com.gdt.chess.service.MoveHistoryPage;
+import com.gdt.chess.service.MoveResult;
 import com.gdt.chess.service.IllegalMoveException;
 import com.gdt.chess.service.MoveValidationService;
+import com.gdt.chess.service.PgnImportResult;
+import com.gdt.chess.service.PgnService;
+import com.gdt.chess.tablebase.TablebaseResult;
+import com.gdt.chess.tablebase.Tablebases;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -30,17 +60,56 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
 @RestController
 @RequestMapping("/api/chess")
 @Tag(name = "Chess Controller", description = "Endpoints for managing chess games and moves")
 public class ChessController {
 
+    /** Media type of the FEN form of a game. */
+    public static final String FEN_VALUE = "application/x-chess-fen";
+    /** Media type of the {@link CompactGame} form of a game. */
+    public static final String COMPACT_JSON_VALUE = "application/vnd.chess.compact+json";
+    /** Media type of the {@link GameBinary} form of a game. */
+    public static final String BINARY_VALUE = "application/vnd.chess.binary";
+    /** Media type of PGN, for one game or an archive of many. */
+    public static final String PGN_VALUE = "application/x-chess-pgn";
+
     @Autowired
     private ChessService chessService;
     
     @Autowired
     private MoveValidationService moveValidationService;
 
+    @Autowired
+    private SearchEngine searchEngine;
+
+    @Autowired
+    private OpeningBook openingBook;
+
+    @Autowired
+    private Tablebases tablebases;
+
+    @Autowired
+    private GameEventBroadcaster eventBroadcaster;
+
+    @Autowired
+    private MoveBatchService moveBatchService;
+
+    @Autowired
+    private PgnService pgnService;
+
+    @Autowired
+    private ChessMetrics metrics;
+
+    @Value("${chess.stream.timeout-ms:1800000}")
+    private long streamTimeoutMs;
+
+    @Value("${chess.history.max-wait-ms:30000}")
+    private long maxWaitMs;
+
     @Value("${api.base.url}")
     private String apiBaseUrl;
     
@@ -61,21 +130,111 @@ public class ChessController {
         return ResponseEntity.ok("Chess API is running. API Base URL: " + apiBaseUrl);        
     }
     
-    @Operation(summary = "Get game by ID", description = "Fetches a chess game by its unique identifier.")
+    @Operation(summary = "Get game by ID", description = "Fetches a chess game by its unique identifier. "
+            + "Besides this full JSON form, the game is available as FEN (" + FEN_VALUE + "), compact JSON ("
+            + COMPACT_JSON_VALUE + "), binary (" + BINARY_VALUE + ") and PGN (" + PGN_VALUE + ") through the Accept header. "
+            + "Every form carries an ETag; a matching If-None-Match gets 304 Not Modified.")
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "Game found",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Game.class))),
+        @ApiResponse(responseCode = "200", description = "Game found", content = {
+            @Content(mediaType = "application/json", schema = @Schema(implementation = Game.class)),
+            @Content(mediaType = FEN_VALUE, schema = @Schema(type = "string")),
+            @Content(mediaType = COMPACT_JSON_VALUE, schema = @Schema(implementation = CompactGame.class)),
+            @Content(mediaType = BINARY_VALUE, schema = @Schema(type = "string", format = "binary")),
+            @Content(mediaType = PGN_VALUE, schema = @Schema(type = "string")) }),
+        @ApiResponse(responseCode = "304", description = "Game unchanged since the ETag given in If-None-Match", content = @Content),
         @ApiResponse(responseCode = "404", description = "Game not found", content = @Content)
     })
-    @GetMapping("/games/{gameId}")
+    @GetMapping(value = "/games/{gameId}", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<Game> getGame(
             @Parameter(description = "Unique identifier of the game", example = "12345")
-            @PathVariable String gameId) {
+            @PathVariable String gameId,
+            WebRequest request) {
+        return conditionalGet(gameId, "json", request, game -> game);
+    }
+
+    @Operation(hidden = true)
+    @GetMapping(value = "/games/{gameId}", produces = FEN_VALUE)
+    public ResponseEntity<String> getGameFen(@PathVariable String gameId, WebRequest request) {
+        return conditionalGet(gameId, "fen", request, game -> Fen.toFen(game.getBoard()));
+    }
+
+    @Operation(hidden = true)
+    @GetMapping(value = "/games/{gameId}", produces = COMPACT_JSON_VALUE)
+    public ResponseEntity<CompactGame> getGameCompact(@PathVariable String gameId, WebRequest request) {
+        return conditionalGet(gameId, "compact", request, CompactGame::of);
+    }
+
+    @Operation(hidden = true)
+    @GetMapping(value = "/games/{gameId}", produces = BINARY_VALUE)
+    public ResponseEntity<byte[]> getGameBinary(@PathVariable String gameId, WebRequest request) {
+        return conditionalGet(gameId, "binary", request, GameBinary::encode);
+    }
+
+    @Operation(hidden = true)
+    @GetMapping(value = "/games/{gameId}", produces = PGN_VALUE)
+    public ResponseEntity<String> getGamePgn(@PathVariable String gameId, WebRequest request) {
+        return conditionalGet(gameId, "pgn", request, pgnService::toPgn);
+    }
+
+    @Operation(summary = "Import games from PGN", description = "Creates one game per game of a PGN archive, "
+            + "checking every move. The archive is read as it arrives, and one JSON line per game, in archive order, "
+            + "is streamed back with the new game's id or the reason it was rejected. A rejected game does not stop the import; "
+            + "games from a set-up position (FEN tag) are rejected.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Archive processed; see each line",
+            content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, schema = @Schema(implementation = PgnImportResult.class)))
+    })
+    @PostMapping(value = "/games/import", consumes = { PGN_VALUE, MediaType.TEXT_PLAIN_VALUE },
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void importGames(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "PGN archive", required = true,
+                content = @Content(mediaType = PGN_VALUE, schema = @Schema(type = "string")))
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        pgnService.importGames(request.getInputStream(), response.getOutputStream());
+    }
+
+    @Operation(summary = "Export games as PGN", description = "Streams the games with the given ids as one PGN archive, "
+            + "in the order given. Ids of games that do not exist are skipped.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "PGN archive",
+            content = @Content(mediaType = PGN_VALUE, schema = @Schema(type = "string")))
+    })
+    @PostMapping(value = "/games/export", consumes = MediaType.APPLICATION_JSON_VALUE, produces = PGN_VALUE)
+    public void exportGames(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Ids of the games to export", required = true,
+                content = @Content(mediaType = "application/json", schema = @Schema(example = "[\"12345\", \"67890\"]")))
+            @RequestBody List<String> gameIds,
+            HttpServletResponse response) throws IOException {
+        response.setContentType(PGN_VALUE + ";charset=UTF-8");
+        pgnService.exportGames(gameIds, response.getOutputStream());
+    }
+
+    /**
+     * Answers a GET for one form of a game. The ETag is the game's version
+     * plus the form, checked against If-None-Match before the game is even
+     * copied; the body and its ETag then come from the same snapshot.
+     */
+    private <T> ResponseEntity<T> conditionalGet(String gameId, String form, WebRequest request, Function<Game, T> body) {
+        String version = chessService.getGameVersion(gameId).orElse(null);
+        if (version == null) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = etag(version, form);
+        if (request.checkNotModified(etag)) {
+            // checkNotModified already set the status and ETag
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
         return chessService.getGame(gameId)
-                .map(ResponseEntity::ok)
+                .map(game -> ResponseEntity.ok().eTag(etag(game.getVersion(), form)).body(body.apply(game)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    private static String etag(String version, String form) {
+        return "\"" + version + "-" + form + "\"";
+    }
+
     @Operation(summary = "Delete game by ID", description = "Deletes a chess game by its ID.")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "204", description = "Game deleted successfully", content = @Content)
@@ -100,16 +259,17 @@ public class ChessController {
             @Parameter(description = "Unique identifier of the game", example = "12345")
             @PathVariable String gameId,
             @io.swagger.v3.oas.annotations.parameters.RequestBody(
-                description = "Move request payload with 'from' and 'to' positions",
+                description = "Move request payload with 'from' and 'to' positions and an optional 'promotion' piece (q, r, b, n)",
                 required = true,
                 content = @Content(mediaType = "application/json", schema = @Schema(example = "{ \"from\": \"e2\", \"to\": \"e4\" }"))
             )
             @RequestBody Map<String, String> moveRequest) {
         String from = moveRequest.get("from");
         String to = moveRequest.get("to");
+        String promotion = moveRequest.get("promotion");
         
         try {
-            Move move = chessService.makeMove(gameId, from, to);
+            Move move = chessService.makeMove(gameId, from, to, promotion);
             return ResponseEntity.ok(move);
         } catch (IllegalMoveException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -118,19 +278,146 @@ public class ChessController {
         }
     }
 
-    @Operation(summary = "Get move history", description = "Retrieves the list of moves made in a given game.")
+    @Operation(summary = "Make moves in many games", description = "Plays a batch of moves, each naming its game. "
+            + "Moves of the same game are played in the order given; different games are played in parallel. "
+            + "The results are in the order of the moves, each with the move played or an error code; "
+            + "after a failed move, the later moves of that game are SKIPPED.")
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "Moves retrieved successfully",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Move.class))),
+        @ApiResponse(responseCode = "200", description = "Batch processed; see each result",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = MoveResult.class))),
+        @ApiResponse(responseCode = "400", description = "Too many moves in one batch", content = @Content)
+    })
+    @PostMapping("/moves/batch")
+    public ResponseEntity<?> makeMoves(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                description = "Moves with 'gameId', 'from', 'to' and an optional 'promotion' piece (q, r, b, n)",
+                required = true,
+                content = @Content(mediaType = "application/json",
+                    schema = @Schema(example = "[{ \"gameId\": \"12345\", \"from\": \"e2\", \"to\": \"e4\" }]"))
+            )
+            @RequestBody List<MoveCommand> commands) {
+        try {
+            return ResponseEntity.ok(moveBatchService.makeMoves(commands));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Make a sequence of moves", description = "Plays the moves in order on one game. "
+            + "After a failed move, the later moves are SKIPPED.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Batch processed; see each result",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = MoveResult.class))),
+        @ApiResponse(responseCode = "400", description = "Too many moves in one batch", content = @Content),
+        @ApiResponse(responseCode = "404", description = "Game not found", content = @Content)
+    })
+    @PostMapping("/games/{gameId}/moves/batch")
+    public ResponseEntity<?> makeMoves(
+            @Parameter(description = "Unique identifier of the game", example = "12345")
+            @PathVariable String gameId,
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                description = "Moves with 'from', 'to' and an optional 'promotion' piece (q, r, b, n)",
+                required = true,
+                content = @Content(mediaType = "application/json",
+                    schema = @Schema(example = "[{ \"from\": \"e2\", \"to\": \"e4\" }, { \"from\": \"e7\", \"to\": \"e5\" }]"))
+            )
+            @RequestBody List<MoveCommand> commands) {
+        try {
+            List<MoveResult> results = moveBatchService.makeMoves(gameId, commands);
+            if (!results.isEmpty() && results.get(0).getError() == MoveError.GAME_NOT_FOUND) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Get move history", description = "Retrieves the list of moves made in a given game. "
+            + "With 'since', returns only the moves from that ply on, together with the current move count to pass as the next 'since'.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Moves retrieved successfully", content = {
+            @Content(mediaType = "application/json", schema = @Schema(implementation = Move.class)),
+            @Content(mediaType = "application/json", schema = @Schema(implementation = MoveHistoryPage.class)) }),
+        @ApiResponse(responseCode = "400", description = "Negative 'since' or 'wait'", content = @Content),
         @ApiResponse(responseCode = "404", description = "Game not found", content = @Content)
     })
     @GetMapping("/games/{gameId}/moves")
-    public ResponseEntity<List<Move>> getMoveHistory(
+    public ResponseEntity<?> getMoveHistory(
             @Parameter(description = "Unique identifier of the game", example = "12345")
-            @PathVariable String gameId) {
+            @PathVariable String gameId,
+            @Parameter(description = "Ply of the first move to return; the move count of the previous response", example = "10")
+            @RequestParam(required = false) Integer since) {
+        if (since == null) {
+            try {
+                List<Move> moves = chessService.getMoveHistory(gameId);
+                return ResponseEntity.ok(moves);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.notFound().build();
+            }
+        }
+        if (since < 0) {
+            return ResponseEntity.badRequest().body("since must not be negative");
+        }
+        return moveHistoryPage(gameId, since);
+    }
+
+    @Operation(summary = "Wait for moves", description = "Long-polling form of the move history: when there are no moves from 'since' on, "
+            + "waits up to 'wait' milliseconds (capped by the server) and answers as soon as the next move is played. "
+            + "On timeout the page has no moves.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "New moves, or none on timeout",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = MoveHistoryPage.class))),
+        @ApiResponse(responseCode = "400", description = "Negative 'since' or 'wait'", content = @Content),
+        @ApiResponse(responseCode = "404", description = "Game not found", content = @Content)
+    })
+    @GetMapping(value = "/games/{gameId}/moves", params = "wait")
+    public DeferredResult<ResponseEntity<?>> waitForMoves(
+            @Parameter(description = "Unique identifier of the game", example = "12345")
+            @PathVariable String gameId,
+            @Parameter(description = "Ply of the first move to return; the move count of the previous response", example = "10")
+            @RequestParam(required = false, defaultValue = "0") int since,
+            @Parameter(description = "Longest time to wait for a move, in milliseconds", example = "25000")
+            @RequestParam long wait) {
+        long timeoutMs = Math.min(wait, maxWaitMs);
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(Math.max(timeoutMs, 1L),
+                () -> moveHistoryPage(gameId, since));
+        if (since < 0 || wait < 0) {
+            result.setResult(ResponseEntity.badRequest().body("since and wait must not be negative"));
+            return result;
+        }
+        MoveHistoryPage page;
+        try {
+            page = chessService.getMoveHistory(gameId, since);
+        } catch (IllegalArgumentException e) {
+            result.setResult(ResponseEntity.notFound().build());
+            return result;
+        }
+        if (!page.getMoves().isEmpty() || timeoutMs == 0) {
+            result.setResult(ResponseEntity.ok(page));
+            return result;
+        }
+
+        // The subscription replays moves from "since" first, so a move played since the read above still wakes us
+        GameEventBroadcaster.Subscription subscription = eventBroadcaster.subscribe(gameId, since,
+                new GameEventBroadcaster.EventSink() {
+                    @Override
+                    public void send(MoveEvent event) {
+                        result.setResult(moveHistoryPage(gameId, since));
+                    }
+
+                    @Override
+                    public void close() {
+                        result.setResult(ResponseEntity.notFound().build());
+                    }
+                });
+        result.onCompletion(subscription::cancel);
+        return result;
+    }
+
+    private ResponseEntity<?> moveHistoryPage(String gameId, int since) {
         try {
-            List<Move> moves = chessService.getMoveHistory(gameId);
-            return ResponseEntity.ok(moves);
+            return ResponseEntity.ok(chessService.getMoveHistory(gameId, since));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
         }
@@ -153,11 +440,158 @@ public class ChessController {
                     .orElseThrow(() -> new IllegalArgumentException("Game not found"));
             
             Position pos = Position.fromChessNotation(position);
+            long start = System.nanoTime();
             List<Position> validMoves = moveValidationService.getValidMoves(game, pos);
+            metrics.validated(Validation.VALID_MOVES, start);
             
             return ResponseEntity.ok(validMoves);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(null);
         }
     }
+
+    @Operation(summary = "Get all legal moves", description = "Returns every legal move of the side to move, as target squares "
+            + "grouped by origin square, and whether that side is in check, checkmated or stalemated, or the game is drawn. "
+            + "Supports If-None-Match like the game itself.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Legal moves retrieved successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = LegalMoves.class))),
+        @ApiResponse(responseCode = "304", description = "Unchanged since the ETag given in If-None-Match", content = @Content),
+        @ApiResponse(responseCode = "404", description = "Game not found", content = @Content)
+    })
+    @GetMapping("/games/{gameId}/legal-moves")
+    public ResponseEntity<LegalMoves> getLegalMoves(
+            @Parameter(description = "Unique identifier of the game", example = "12345")
+            @PathVariable String gameId,
+            WebRequest request) {
+        return conditionalGet(gameId, "legal-moves", request, game -> {
+            if (game.getStatus() == Game.GameStatus.DRAW) {
+                return LegalMoves.drawn(game.getCurrentTurn());
+            }
+            long start = System.nanoTime();
+            LegalMoves legalMoves = moveValidationService.getLegalMoves(game.getBoard());
+            metrics.validated(Validation.LEGAL_MOVES, start);
+            return legalMoves;
+        });
+    }
+
+    @Operation(summary = "Get opening book moves", description = "Lists the moves of the opening book for the current position of a game, "
+            + "most played first, with their weights and the chance the engine plays each. Empty when the position is out of book "
+            + "or no book is configured.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Book moves retrieved successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = BookMove.class))),
+        @ApiResponse(responseCode = "304", description = "Unchanged since the ETag given in If-None-Match", content = @Content),
+        @ApiResponse(responseCode = "404", description = "Game not found", content = @Content)
+    })
+    @GetMapping("/games/{gameId}/book-moves")
+    public ResponseEntity<List<BookMove>> getBookMoves(
+            @Parameter(description = "Unique identifier of the game", example = "12345")
+            @PathVariable String gameId,
+            WebRequest request) {
+        return conditionalGet(gameId, "book-moves", request, game -> openingBook.getMoves(game.getBoard()));
+    }
+
+    @Operation(summary = "Get the tablebase verdict", description = "Looks the current position of a game up in the endgame tablebases "
+            + "(KQK, KRK, KPK, KBNK): whether the side to move wins, draws or loses with perfect play and in how many plies it mates "
+            + "or is mated, and the same for every legal move, best first. 'found' is false when no table covers the position.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Tablebase verdict retrieved successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = TablebaseResult.class))),
+        @ApiResponse(responseCode = "304", description = "Unchanged since the ETag given in If-None-Match", content = @Content),
+        @ApiResponse(responseCode = "404", description = "Game not found", content = @Content)
+    })
+    @GetMapping("/games/{gameId}/tablebase")
+    public ResponseEntity<TablebaseResult> getTablebaseResult(
+            @Parameter(description = "Unique identifier of the game", example = "12345")
+            @PathVariable String gameId,
+            WebRequest request) {
+        // Tables are loaded in the background, so the answer also changes as they arrive
+        return conditionalGet(gameId, "tablebase-" + tablebases.getLoadedCount(), request,
+                game -> tablebases.getResult(game.getBoard()));
+    }
+
+    @Operation(summary = "Get the best move", description = "Searches the current position of a game and returns the engine's best move, its score and the nodes searched. Without limits the search runs for the configured default move time. "
+            + "A position in the opening book is answered with a book move instead, without a search, unless 'book' is false; "
+            + "a position in the endgame tablebases is always answered from them.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Search completed",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = SearchResult.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid limits or no legal moves in the position", content = @Content),
+        @ApiResponse(responseCode = "404", description = "Game not found", content = @Content)
+    })
+    @GetMapping("/games/{gameId}/best-move")
+    public ResponseEntity<?> getBestMove(
+            @Parameter(description = "Unique identifier of the game", example = "12345")
+            @PathVariable String gameId,
+            @Parameter(description = "Maximum search depth in plies", example = "8")
+            @RequestParam(required = false, defaultValue = "0") int depth,
+            @Parameter(description = "Maximum search time in milliseconds", example = "1000")
+            @RequestParam(required = false, defaultValue = "0") long movetime,
+            @Parameter(description = "Maximum number of nodes to search", example = "1000000")
+            @RequestParam(required = false, defaultValue = "0") long nodes,
+            @Parameter(description = "Search threads; capped by the server's configured maximum", example = "4")
+            @RequestParam(required = false, defaultValue = "0") int threads,
+            @Parameter(description = "Answer from the opening book when the position is in it", example = "true")
+            @RequestParam(required = false, defaultValue = "true") boolean book) {
+        Game game = chessService.getGame(gameId).orElse(null);
+        if (game == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(searchEngine.findBestMove(game, SearchLimits.of(depth, movetime, nodes), threads, book));
+        } catch (IllegalMoveException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Stream moves", description = "Server-Sent Events stream with one 'move' event per move played in the game. "
+            + "The event id is the ply of the move; reconnecting with Last-Event-ID, or with 'from', resumes after it. "
+            + "Without either, the stream starts with the next move.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Event stream opened",
+            content = @Content(mediaType = "text/event-stream", schema = @Schema(implementation = MoveEvent.class))),
+        @ApiResponse(responseCode = "404", description = "Game not found", content = @Content)
+    })
+    @GetMapping(value = "/games/{gameId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamMoves(
+            @Parameter(description = "Unique identifier of the game", example = "12345")
+            @PathVariable String gameId,
+            @Parameter(description = "Ply of the first move to send; earlier moves already played are replayed", example = "0")
+            @RequestParam(required = false) Integer from,
+            @Parameter(description = "Id of the last event received before a reconnect", example = "11")
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Game game = chessService.getGame(gameId).orElse(null);
+        if (game == null) {
+            return ResponseEntity.notFound().build();
+        }
+        int fromPly = game.getMoveCount();
+        if (from != null) {
+            fromPly = from;
+        } else if (lastEventId != null) {
+            try {
+                fromPly = Integer.parseInt(lastEventId.trim()) + 1;
+            } catch (NumberFormatException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        GameEventBroadcaster.Subscription subscription = eventBroadcaster.subscribe(gameId, Math.min(fromPly, game.getMoveCount()),
+                new GameEventBroadcaster.EventSink() {
+                    @Override
+                    public void send(MoveEvent event) throws IOException {
+                        emitter.send(SseEmitter.event().id(Integer.toString(event.getPly())).name("move").data(event));
+                    }
+
+                    @Override
+                    public void close() {
+                        emitter.complete();
+                    }
+                });
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(error -> subscription.cancel());
+        return ResponseEntity.ok(emitter);
+    }
 }
@@ -0,0 +1,21 @@
+package com.gdt.chess.engine;
+
+import lombok.Getter;
+
+/** A move of the opening book for a position, with how often the book plays it. */
+@Getter
+public class BookMove {
+    /** Long algebraic notation of the move, e.g. "e2e4" or "e1g1". */
+    private final String move;
+    private final String san;
+    private final int weight;
+    /** Share of the position's total weight, the chance the engine plays this move. */
+    private final double probability;
+
+    public BookMove(String move, String san, int weight, double probability) {
+        this.move = move;
+        this.san = san;
+        this.weight = weight;
+        this.probability = probability;
+    }
+}
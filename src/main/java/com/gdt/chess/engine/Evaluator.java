@@ -0,0 +1,138 @@
+package com.gdt.chess.engine;
+
+import com.gdt.chess.model.Bitboards;
+import com.gdt.chess.model.Board;
+import com.gdt.chess.model.enums.PieceType;
+
+/**
+ * Static evaluation: material plus piece-square tables, with the king table
+ * blended between middlegame and endgame by the remaining non-pawn material.
+ * Tables are written from White's point of view with a8 first, which is the
+ * board's own square order; Black's squares are mirrored vertically.
+ */
+public final class Evaluator {
+
+    public static final int[] PIECE_VALUES = { 100, 320, 330, 500, 900, 0 };
+
+    private static final int[] PHASE_WEIGHTS = { 0, 1, 1, 2, 4, 0 };
+    private static final int MAX_PHASE = 24;
+
+    private static final int[] PAWN_TABLE = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+         50,  50,  50,  50,  50,  50,  50,  50,
+         10,  10,  20,  30,  30,  20,  10,  10,
+          5,   5,  10,  25,  25,  10,   5,   5,
+          0,   0,   0,  20,  20,   0,   0,   0,
+          5,  -5, -10,   0,   0, -10,  -5,   5,
+          5,  10,  10, -20, -20,  10,  10,   5,
+          0,   0,   0,   0,   0,   0,   0,   0
+    };
+
+    private static final int[] KNIGHT_TABLE = {
+        -50, -40, -30, -30, -30, -30, -40, -50,
+        -40, -20,   0,   0,   0,   0, -20, -40,
+        -30,   0,  10,  15,  15,  10,   0, -30,
+        -30,   5,  15,  20,  20,  15,   5, -30,
+        -30,   0,  15,  20,  20,  15,   0, -30,
+        -30,   5,  10,  15,  15,  10,   5, -30,
+        -40, -20,   0,   5,   5,   0, -20, -40,
+        -50, -40, -30, -30, -30, -30, -40, -50
+    };
+
+    private static final int[] BISHOP_TABLE = {
+        -20, -10, -10, -10, -10, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,  10,  10,   5,   0, -10,
+        -10,   5,   5,  10,  10,   5,   5, -10,
+        -10,   0,  10,  10,  10,  10,   0, -10,
+        -10,  10,  10,  10,  10,  10,  10, -10,
+        -10,   5,   0,   0,   0,   0,   5, -10,
+        -20, -10, -10, -10, -10, -10, -10, -20
+    };
+
+    private static final int[] ROOK_TABLE = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+          5,  10,  10,  10,  10,  10,  10,   5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+          0,   0,   0,   5,   5,   0,   0,   0
+    };
+
+    private static final int[] QUEEN_TABLE = {
+        -20, -10, -10,  -5,  -5, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,   5,   5,   5,   0, -10,
+         -5,   0,   5,   5,   5,   5,   0,  -5,
+          0,   0,   5,   5,   5,   5,   0,  -5,
+        -10,   5,   5,   5,   5,   5,   0, -10,
+        -10,   0,   5,   0,   0,   0,   0, -10,
+        -20, -10, -10,  -5,  -5, -10, -10, -20
+    };
+
+    private static final int[] KING_MIDDLEGAME_TABLE = {
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -20, -30, -30, -40, -40, -30, -30, -20,
+        -10, -20, -20, -20, -20, -20, -20, -10,
+         20,  20,   0,   0,   0,   0,  20,  20,
+         20,  30,  10,   0,   0,  10,  30,  20
+    };
+
+    private static final int[] KING_ENDGAME_TABLE = {
+        -50, -40, -30, -20, -20, -30, -40, -50,
+        -30, -20, -10,   0,   0, -10, -20, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -30,   0,   0,   0,   0, -30, -30,
+        -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    private static final int[][] TABLES = { PAWN_TABLE, KNIGHT_TABLE, BISHOP_TABLE, ROOK_TABLE, QUEEN_TABLE };
+    private static final int KING = PieceType.KING.ordinal();
+
+    private Evaluator() {
+    }
+
+    /** Score in centipawns from the point of view of the side to move. */
+    public static int evaluate(Board board) {
+        int score = 0;
+        int phase = 0;
+        int whiteKing = 0;
+        int blackKing = 0;
+        long occupied = board.occupancy();
+        while (occupied != 0) {
+            int square = Long.numberOfTrailingZeros(occupied);
+            occupied &= occupied - 1;
+            int pieceCode = board.pieceAt(square);
+            int type = Bitboards.typeIndex(pieceCode);
+            int color = Bitboards.colorIndex(pieceCode);
+            if (type == KING) {
+                if (color == 0) {
+                    whiteKing = square;
+                } else {
+                    blackKing = square;
+                }
+                continue;
+            }
+            int tableSquare = color == 0 ? square : square ^ 56;
+            int value = PIECE_VALUES[type] + TABLES[type][tableSquare];
+            score += color == 0 ? value : -value;
+            phase += PHASE_WEIGHTS[type];
+        }
+
+        phase = Math.min(phase, MAX_PHASE);
+        score += kingScore(whiteKing, phase) - kingScore(blackKing ^ 56, phase);
+        return board.getSideToMove().ordinal() == 0 ? score : -score;
+    }
+
+    private static int kingScore(int tableSquare, int phase) {
+        return (KING_MIDDLEGAME_TABLE[tableSquare] * phase + KING_ENDGAME_TABLE[tableSquare] * (MAX_PHASE - phase)) / MAX_PHASE;
+    }
+}
@@ -0,0 +1,128 @@
+package com.gdt.chess.engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.gdt.chess.model.Board;
+import com.gdt.chess.model.PackedMove;
+import com.gdt.chess.model.San;
+import com.gdt.chess.movegen.MoveList;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * The opening book given by {@code chess.book.path}, if any. Without one,
+ * every position is simply out of book.
+ *
+ * The book is hashed with the standard Polyglot table of
+ * {@link PolyglotKey#standard()}, or, for a book written with another one,
+ * with the table in {@code chess.book.random64} (781 big-endian longs).
+ */
+@Service
+public class OpeningBook {
+
+    private static final Logger log = LoggerFactory.getLogger(OpeningBook.class);
+
+    private static final ThreadLocal<Probe> PROBE = ThreadLocal.withInitial(Probe::new);
+
+    /** Scratch space for one probe, one per thread. */
+    private static final class Probe {
+        final MoveList moves = new MoveList();
+        final int[] weights = new int[MoveList.CAPACITY];
+    }
+
+    @Value("${chess.book.path:}")
+    private String path;
+
+    @Value("${chess.book.random64:}")
+    private String random64;
+
+    private PolyglotBook book;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (path.isBlank()) {
+            return;
+        }
+        PolyglotKey keys = random64.isBlank() ? PolyglotKey.standard() : PolyglotKey.load(Path.of(random64));
+        book = PolyglotBook.open(Path.of(path), keys);
+        log.info("Opening book {}: {} entries", path, book.getEntryCount());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (book != null) {
+            try {
+                book.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public boolean isLoaded() {
+        return book != null;
+    }
+
+    /** The book moves of the position, most played first; empty when out of book. */
+    public List<BookMove> getMoves(Board board) {
+        if (book == null) {
+            return Collections.emptyList();
+        }
+        Probe probe = PROBE.get();
+        int count = book.probe(board, probe.moves, probe.weights);
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += probe.weights[i];
+        }
+        List<BookMove> result = new ArrayList<>(count);
+        MoveList scratch = new MoveList();
+        for (int i = 0; i < count; i++) {
+            int move = probe.moves.get(i);
+            result.add(new BookMove(PackedMove.toUci(move), San.toSan(board, move, scratch),
+                    probe.weights[i], total > 0 ? (double) probe.weights[i] / total : 0));
+        }
+        result.sort(Comparator.comparingInt(BookMove::getWeight).reversed());
+        return result;
+    }
+
+    /**
+     * A book move for the position, chosen at random in proportion to the
+     * weights, or {@link PackedMove#NONE} when out of book or when every
+     * move has weight 0. Allocates nothing.
+     */
+    public int pickMove(Board board) {
+        if (book == null) {
+            return PackedMove.NONE;
+        }
+        Probe probe = PROBE.get();
+        int count = book.probe(board, probe.moves, probe.weights);
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += probe.weights[i];
+        }
+        if (total == 0) {
+            return PackedMove.NONE;
+        }
+        long pick = ThreadLocalRandom.current().nextLong(total);
+        for (int i = 0; i < count; i++) {
+            pick -= probe.weights[i];
+            if (pick < 0) {
+                return probe.moves.get(i);
+            }
+        }
+        return PackedMove.NONE;
+    }
+}
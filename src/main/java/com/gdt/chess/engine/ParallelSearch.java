@@ -0,0 +1,60 @@
+package com.gdt.chess.engine;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.gdt.chess.model.Board;
+
+/**
+ * Lazy SMP: several {@link Search} workers search the same position at once,
+ * each on its own copy of the board, and share only the transposition table
+ * and the stop flag. There is no work splitting; the helpers speed up the
+ * main thread by filling the table with results it will probe, and they skip
+ * iterations in a staggered pattern so that they run at different depths.
+ *
+ * The calling thread runs the main worker, which alone applies the time and
+ * node limits and stops the helpers when it finishes. The result comes from
+ * whichever worker completed the deepest iteration.
+ */
+public final class ParallelSearch {
+
+    private ParallelSearch() {
+    }
+
+    /**
+     * @param helpers  number of helper workers to run on {@code executor},
+     *                 which must be able to start them all at once
+     */
+    public static SearchResult search(Board board, long[] positionKeys, TranspositionTable table,
+            SearchLimits limits, int helpers, Executor executor) {
+        long start = System.nanoTime();
+        AtomicBoolean stop = new AtomicBoolean();
+        Search[] workers = new Search[helpers + 1];
+        workers[0] = new Search(board, positionKeys, table, stop, 0);
+
+        SearchLimits helperLimits = SearchLimits.depth(limits.getDepth());
+        CompletableFuture<?>[] running = new CompletableFuture<?>[helpers];
+        for (int i = 1; i <= helpers; i++) {
+            Search helper = new Search(new Board(board), positionKeys, table, stop, i);
+            workers[i] = helper;
+            running[i - 1] = CompletableFuture.runAsync(() -> helper.iterate(helperLimits, start), executor);
+        }
+        try {
+            workers[0].iterate(limits, start);
+        } finally {
+            stop.set(true);
+            CompletableFuture.allOf(running).join();
+        }
+
+        Search best = workers[0];
+        long nodes = 0;
+        for (Search worker : workers) {
+            nodes += worker.getNodes();
+            if (worker.getCompletedDepth() > best.getCompletedDepth()) {
+                best = worker;
+            }
+        }
+        return best.toResult(nodes, (System.nanoTime() - start) / 1_000_000L, workers.length);
+    }
+}
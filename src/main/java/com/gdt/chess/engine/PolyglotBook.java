@@ -0,0 +1,168 @@
+package com.gdt.chess.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.gdt.chess.model.Bitboards;
+import com.gdt.chess.model.Board;
+import com.gdt.chess.model.PackedMove;
+import com.gdt.chess.model.enums.PieceType;
+import com.gdt.chess.movegen.MoveGenerator;
+import com.gdt.chess.movegen.MoveList;
+
+/**
+ * A Polyglot opening book ({@code .bin}), memory-mapped and searched in
+ * place, so a book of any size costs no heap and opens instantly.
+ *
+ * The file is a sequence of 16-byte big-endian entries sorted by key:
+ *
+ * <pre>
+ * long  {@link PolyglotKey} of the position
+ * short move: to file (bits 0-2), to rank (3-5), from file (6-8),
+ *       from rank (9-11), promotion piece (12-14, 1 knight to 4 queen);
+ *       castling is written as the king taking its own rook
+ * short weight, relative to the other moves of the position
+ * int   learning data, unused
+ * </pre>
+ */
+public final class PolyglotBook implements Closeable {
+
+    public static final int ENTRY_BYTES = 16;
+
+    // 2^26 entries of 16 bytes map to 1 GiB, well inside what one buffer can address
+    private static final int SEGMENT_SHIFT = 26;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private static final ThreadLocal<MoveList> SCRATCH = ThreadLocal.withInitial(MoveList::new);
+
+    private final FileChannel channel;
+    private final ByteBuffer[] segments;
+    private final long entryCount;
+    private final PolyglotKey keys;
+
+    private PolyglotBook(FileChannel channel, ByteBuffer[] segments, long entryCount, PolyglotKey keys) {
+        this.channel = channel;
+        this.segments = segments;
+        this.entryCount = entryCount;
+        this.keys = keys;
+    }
+
+    public static PolyglotBook open(Path path, PolyglotKey keys) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size % ENTRY_BYTES != 0) {
+                throw new IOException(path + " is not a Polyglot book: " + size + " bytes is not a whole number of entries");
+            }
+            long entryCount = size / ENTRY_BYTES;
+            ByteBuffer[] segments = new ByteBuffer[(int) ((entryCount + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = ((long) i << SEGMENT_SHIFT) * ENTRY_BYTES;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, (SEGMENT_MASK + 1) * ENTRY_BYTES));
+            }
+            return new PolyglotBook(channel, segments, entryCount, keys);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    public PolyglotKey getKeys() {
+        return keys;
+    }
+
+    /**
+     * Fills {@code moves} with the book moves of the position and
+     * {@code weights} with their weights, at the same indices; returns the
+     * number of moves. Entries that are not legal here, which only a hash
+     * collision or a broken book produces, are left out. Allocates nothing.
+     */
+    public int probe(Board board, MoveList moves, int[] weights) {
+        moves.clear();
+        long key = keys.hash(board);
+        long index = lowerBound(key);
+        if (index == entryCount || key(index) != key) {
+            return 0;
+        }
+        MoveList legal = SCRATCH.get();
+        MoveGenerator.generateLegalMoves(board, legal);
+        for (; index < entryCount && key(index) == key && moves.size() < weights.length; index++) {
+            int move = decodeMove(board, bookMove(index), legal);
+            if (move != PackedMove.NONE && !moves.contains(move)) {
+                weights[moves.size()] = weight(index);
+                moves.add(move);
+            }
+        }
+        return moves.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        // The mappings themselves go when they are garbage collected
+        channel.close();
+    }
+
+    /** The legal move a book move stands for, or {@link PackedMove#NONE}. */
+    public static int decodeMove(Board board, int bookMove, MoveList legal) {
+        int from = Bitboards.square(7 - ((bookMove >>> 9) & 7), (bookMove >>> 6) & 7);
+        int to = Bitboards.square(7 - ((bookMove >>> 3) & 7), bookMove & 7);
+        int promotion = (bookMove >>> 12) & 7;
+        int piece = board.pieceAt(from);
+        int target = board.pieceAt(to);
+        if (piece != Bitboards.NO_PIECE && target != Bitboards.NO_PIECE
+                && Bitboards.typeIndex(piece) == PieceType.KING.ordinal()
+                && Bitboards.typeIndex(target) == PieceType.ROOK.ordinal()
+                && Bitboards.colorIndex(target) == Bitboards.colorIndex(piece)) {
+            // King takes own rook: castling towards that rook
+            to = from + (to > from ? 2 : -2);
+        }
+        return legal.find(from, to, promotion);
+    }
+
+    /** The book form of a legal move, see the class comment. */
+    public static int encodeMove(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        if (PackedMove.isCastling(move)) {
+            to = PackedMove.flags(move) == PackedMove.KING_CASTLE ? from + 3 : from - 4;
+        }
+        int promotion = PackedMove.isPromotion(move) ? PackedMove.promotionTypeIndex(move) : 0;
+        return Bitboards.col(to) | (7 - Bitboards.row(to)) << 3
+                | Bitboards.col(from) << 6 | (7 - Bitboards.row(from)) << 9 | promotion << 12;
+    }
+
+    /** Index of the first entry whose key is not below {@code key}, as an unsigned number. */
+    private long lowerBound(long key) {
+        long low = 0;
+        long high = entryCount;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(key(mid), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long key(long index) {
+        return segments[(int) (index >>> SEGMENT_SHIFT)].getLong((int) (index & SEGMENT_MASK) * ENTRY_BYTES);
+    }
+
+    private int bookMove(long index) {
+        return segments[(int) (index >>> SEGMENT_SHIFT)].getShort((int) (index & SEGMENT_MASK) * ENTRY_BYTES + 8) & 0xFFFF;
+    }
+
+    private int weight(long index) {
+        return segments[(int) (index >>> SEGMENT_SHIFT)].getShort((int) (index & SEGMENT_MASK) * ENTRY_BYTES + 10) & 0xFFFF;
+    }
+}
@@ -0,0 +1,475 @@
+package com.gdt.chess.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.gdt.chess.model.Bitboards;
+import com.gdt.chess.model.Board;
+import com.gdt.chess.model.PackedMove;
+import com.gdt.chess.model.Position;
+import com.gdt.chess.model.enums.PieceType;
+import com.gdt.chess.movegen.MoveGenerator;
+import com.gdt.chess.movegen.MoveList;
+
+/**
+ * Iterative deepening principal variation search over one {@link Board}.
+ *
+ * Each iteration is a negamax alpha-beta search with a quiescence search over
+ * captures and promotions at the leaves, check extensions and null-move
+ * pruning. Moves are tried in the order transposition table move, captures by
+ * MVV-LVA, killer moves, then quiet moves by history score. The search makes
+ * and unmakes moves on the board it is given, which must not be shared, and
+ * leaves it unchanged afterwards. {@link ParallelSearch} runs several of these
+ * over copies of one board with a shared transposition table.
+ */
+public final class Search {
+
+    public static final int MAX_PLY = 128;
+    public static final int MATE = 32000;
+    public static final int INFINITY = MATE + 1;
+    /** Scores beyond this are forced mates; the distance to mate is {@code MATE - |score|} plies. */
+    public static final int MATE_BOUND = MATE - MAX_PLY;
+
+    private static final int CHECK_INTERVAL = 2048;
+    private static final int TT_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 28;
+    private static final int KILLER_SCORE = 1 << 26;
+    private static final int HISTORY_MAX = 1 << 24;
+
+    private static final int PAWN = PieceType.PAWN.ordinal();
+    private static final int KING = PieceType.KING.ordinal();
+
+    // Lazy SMP helpers skip some depths so that they run ahead of the main thread
+    private static final int[] SKIP_SIZE = { 1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4 };
+    private static final int[] SKIP_PHASE = { 0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7 };
+
+    private final Board board;
+    private final TranspositionTable table;
+    private final AtomicBoolean stop;
+
+    // Keys of the game so far followed by the current search path, for repetition detection
+    private final long[] keys;
+    private final int rootKeyIndex;
+
+    private final MoveList[] moveLists = new MoveList[MAX_PLY];
+    private final int[][] moveScores = new int[MAX_PLY][MoveList.CAPACITY];
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][] history = new int[Bitboards.PIECE_CODES][64];
+
+    private final int workerId;
+
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private boolean stopped;
+    private int rootBestMove;
+    private int rootBestScore;
+
+    private int bestMove;
+    private int bestScore;
+    private int completedDepth;
+
+    /**
+     * @param board        position to search, modified during the search
+     * @param positionKeys Zobrist keys of the game's positions, oldest first
+     *                     and ending with the current one; may be empty
+     * @param table        transposition table, possibly shared
+     * @param stop         raised by this search when a limit is hit, and
+     *                     polled so that it can be stopped from outside
+     */
+    public Search(Board board, long[] positionKeys, TranspositionTable table, AtomicBoolean stop) {
+        this(board, positionKeys, table, stop, 0);
+    }
+
+    /**
+     * Search worker for {@link ParallelSearch}. Worker 0 is the main thread;
+     * the others are helpers that share its table and stop flag.
+     */
+    Search(Board board, long[] positionKeys, TranspositionTable table, AtomicBoolean stop, int workerId) {
+        this.board = board;
+        this.table = table;
+        this.stop = stop;
+        this.workerId = workerId;
+        this.rootKeyIndex = Math.max(0, positionKeys.length - 1);
+        this.keys = new long[rootKeyIndex + MAX_PLY + 1];
+        System.arraycopy(positionKeys, 0, keys, 0, Math.min(positionKeys.length, rootKeyIndex));
+        for (int i = 0; i < MAX_PLY; i++) {
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    /** Searches the position within {@code limits}; the position must have at least one legal move. */
+    public SearchResult search(SearchLimits limits) {
+        long start = System.nanoTime();
+        iterate(limits, start);
+        return toResult(nodes, (System.nanoTime() - start) / 1_000_000L, 1);
+    }
+
+    /** Iterative deepening loop; the outcome is read back with {@link #toResult}. */
+    void iterate(SearchLimits limits, long start) {
+        int maxDepth = limits.getDepth() > 0 ? Math.min(limits.getDepth(), MAX_PLY - 1) : MAX_PLY - 1;
+        long moveTimeNanos = limits.getMoveTimeMs() * 1_000_000L;
+        deadline = moveTimeNanos > 0 ? start + moveTimeNanos : Long.MAX_VALUE;
+        nodeLimit = limits.getNodes() > 0 ? limits.getNodes() : Long.MAX_VALUE;
+        nodes = 0;
+        stopped = false;
+        completedDepth = 0;
+
+        MoveList rootMoves = moveLists[0];
+        MoveGenerator.generateLegalMoves(board, rootMoves);
+        if (rootMoves.isEmpty()) {
+            throw new IllegalStateException("No legal moves to search");
+        }
+        bestMove = rootMoves.get(0);
+        bestScore = 0;
+
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            if (workerId > 0 && depth > 1) {
+                int index = (workerId - 1) % SKIP_SIZE.length;
+                if (((depth + SKIP_PHASE[index]) / SKIP_SIZE[index]) % 2 != 0) {
+                    continue;
+                }
+            }
+            rootBestMove = PackedMove.NONE;
+            int score = negamax(depth, 0, -INFINITY, INFINITY, false);
+            // A cut-short iteration still counts if its first move, the previous best, was fully searched
+            if (rootBestMove != PackedMove.NONE) {
+                bestMove = rootBestMove;
+                bestScore = stopped ? rootBestScore : score;
+            }
+            if (stopped) {
+                break;
+            }
+            completedDepth = depth;
+            if (Math.abs(score) >= MATE_BOUND && MATE - Math.abs(score) <= depth) {
+                break; // Forced mate found within the full-width horizon
+            }
+            // The next iteration would take several times longer than all the previous ones
+            if (moveTimeNanos > 0 && System.nanoTime() - start > moveTimeNanos / 2) {
+                break;
+            }
+        }
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    /** Depth of the last iteration this worker finished, 0 if none. */
+    int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta, boolean allowNull) {
+        if ((++nodes & (CHECK_INTERVAL - 1)) == 0) {
+            checkLimits();
+        }
+        if (stopped) {
+            return 0;
+        }
+        boolean pvNode = beta - alpha > 1;
+        long key = board.getZobristKey();
+        keys[rootKeyIndex + ply] = key;
+
+        if (ply > 0) {
+            if (isDraw(ply, key)) {
+                return 0;
+            }
+            if (ply >= MAX_PLY - 1) {
+                return Evaluator.evaluate(board);
+            }
+            // No line from here can beat a mate already found closer to the root
+            alpha = Math.max(alpha, -MATE + ply);
+            beta = Math.min(beta, MATE - ply - 1);
+            if (alpha >= beta) {
+                return alpha;
+            }
+        }
+
+        boolean inCheck = MoveGenerator.isInCheck(board);
+        if (inCheck) {
+            depth++;
+        }
+        if (depth <= 0) {
+            return quiesce(ply, alpha, beta);
+        }
+
+        long entry = table.probe(key);
+        int ttMove = TranspositionTable.move(entry);
+        if (entry != 0 && !pvNode && TranspositionTable.depth(entry) >= depth) {
+            int score = scoreFromTable(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.BOUND_EXACT
+                    || (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+                    || (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+                return score;
+            }
+        }
+
+        // If passing still fails high, a real move almost certainly would too.
+        // Zugzwang makes that false, so skip it with only king and pawns left.
+        if (allowNull && !pvNode && !inCheck && depth >= 3 && hasNonPawnMaterial()
+                && Evaluator.evaluate(board) >= beta) {
+            int reduction = depth > 6 ? 3 : 2;
+            board.makeNullMove();
+            int score = -negamax(depth - 1 - reduction, ply + 1, -beta, -beta + 1, false);
+            board.unmakeNullMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score >= beta) {
+                return score >= MATE_BOUND ? beta : score;
+            }
+        }
+
+        MoveList moves = moveLists[ply];
+        MoveGenerator.generateLegalMoves(board, moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        scoreMoves(moves, ply, ttMove);
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = PackedMove.NONE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = pickMove(moves, ply, i);
+            int movingPiece = board.pieceAt(PackedMove.from(move));
+            board.makeMove(move);
+            int score;
+            if (i == 0) {
+                score = -negamax(depth - 1, ply + 1, -beta, -alpha, true);
+            } else {
+                // Later moves are expected to be worse: prove it with a null window first
+                score = -negamax(depth - 1, ply + 1, -alpha - 1, -alpha, true);
+                if (score > alpha && score < beta) {
+                    score = -negamax(depth - 1, ply + 1, -beta, -alpha, true);
+                }
+            }
+            board.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (ply == 0) {
+                        rootBestMove = move;
+                        rootBestScore = score;
+                    }
+                    if (score >= beta) {
+                        if (!PackedMove.isCapture(move) && !PackedMove.isPromotion(move)) {
+                            recordQuietCutoff(move, movingPiece, depth, ply);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = bestScore >= beta ? TranspositionTable.BOUND_LOWER
+                : bestScore > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        table.store(key, bound == TranspositionTable.BOUND_UPPER ? PackedMove.NONE : bestMove,
+                scoreToTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    private int quiesce(int ply, int alpha, int beta) {
+        if ((++nodes & (CHECK_INTERVAL - 1)) == 0) {
+            checkLimits();
+        }
+        if (stopped) {
+            return 0;
+        }
+        if (ply >= MAX_PLY - 1) {
+            return Evaluator.evaluate(board);
+        }
+
+        // In check every evasion is searched, otherwise the side to move may stand pat
+        boolean inCheck = MoveGenerator.isInCheck(board);
+        int bestScore = -MATE + ply;
+        if (!inCheck) {
+            bestScore = Evaluator.evaluate(board);
+            if (bestScore >= beta) {
+                return bestScore;
+            }
+            alpha = Math.max(alpha, bestScore);
+        }
+
+        MoveList moves = moveLists[ply];
+        MoveGenerator.generateLegalMoves(board, moves);
+        scoreMoves(moves, ply, PackedMove.NONE);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = pickMove(moves, ply, i);
+            if (!inCheck && !PackedMove.isCapture(move) && !PackedMove.isPromotion(move)) {
+                continue;
+            }
+            board.makeMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            board.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (score >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    private void checkLimits() {
+        if (stop.get() || nodes >= nodeLimit || System.nanoTime() >= deadline) {
+            stopped = true;
+            stop.set(true);
+        }
+    }
+
+    /** Fifty-move rule, or the position already occurred since the last capture or pawn move. */
+    private boolean isDraw(int ply, long key) {
+        int halfmoveClock = board.getHalfmoveClock();
+        if (halfmoveClock >= 100) {
+            return true;
+        }
+        int index = rootKeyIndex + ply;
+        int oldest = Math.max(0, index - halfmoveClock);
+        for (int i = index - 4; i >= oldest; i -= 2) {
+            if (keys[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasNonPawnMaterial() {
+        int us = board.getSideToMove().ordinal();
+        long pawnsAndKing = board.pieces(Bitboards.pieceCode(PAWN, us)) | board.pieces(Bitboards.pieceCode(KING, us));
+        return (board.occupancy(us) & ~pawnsAndKing) != 0;
+    }
+
+    private void scoreMoves(MoveList moves, int ply, int ttMove) {
+        int[] scores = moveScores[ply];
+        int[] plyKillers = killers[ply];
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int from = PackedMove.from(move);
+            int to = PackedMove.to(move);
+            int attacker = Bitboards.typeIndex(board.pieceAt(from));
+            if (move == ttMove) {
+                scores[i] = TT_MOVE_SCORE;
+            } else if (PackedMove.isCapture(move) || PackedMove.isPromotion(move)) {
+                // Most valuable victim first, then least valuable attacker
+                int victim = PackedMove.isEnPassant(move) ? PAWN
+                        : PackedMove.isCapture(move) ? Bitboards.typeIndex(board.pieceAt(to)) : 0;
+                int promotion = PackedMove.isPromotion(move) ? Evaluator.PIECE_VALUES[PackedMove.promotionTypeIndex(move)] : 0;
+                scores[i] = CAPTURE_SCORE + (Evaluator.PIECE_VALUES[victim] + promotion) * 8 - attacker;
+            } else if (move == plyKillers[0]) {
+                scores[i] = KILLER_SCORE + 1;
+            } else if (move == plyKillers[1]) {
+                scores[i] = KILLER_SCORE;
+            } else {
+                scores[i] = history[board.pieceAt(from)][to];
+            }
+        }
+    }
+
+    /** Selection sort step: swaps the best remaining move into slot {@code index}. */
+    private int pickMove(MoveList moves, int ply, int index) {
+        int[] scores = moveScores[ply];
+        int best = index;
+        for (int i = index + 1; i < moves.size(); i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = moves.get(best);
+        if (best != index) {
+            moves.set(best, moves.get(index));
+            moves.set(index, move);
+            int score = scores[best];
+            scores[best] = scores[index];
+            scores[index] = score;
+        }
+        return move;
+    }
+
+    private void recordQuietCutoff(int move, int movingPiece, int depth, int ply) {
+        int[] plyKillers = killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        int[] pieceHistory = history[movingPiece];
+        int to = PackedMove.to(move);
+        pieceHistory[to] += depth * depth;
+        if (pieceHistory[to] >= HISTORY_MAX) {
+            for (int[] row : history) {
+                for (int square = 0; square < row.length; square++) {
+                    row[square] >>= 1;
+                }
+            }
+        }
+    }
+
+    // Mate scores are stored relative to the node, not the root, so they stay valid at any ply
+
+    private static int scoreToTable(int score, int ply) {
+        return score >= MATE_BOUND ? score + ply : score <= -MATE_BOUND ? score - ply : score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        return score >= MATE_BOUND ? score - ply : score <= -MATE_BOUND ? score + ply : score;
+    }
+
+    /** Result from this worker's best move, reporting {@code totalNodes} searched by all workers. */
+    SearchResult toResult(long totalNodes, long timeMs, int threads) {
+        int score = bestScore;
+        int depth = Math.max(completedDepth, 1);
+        Integer mateIn = null;
+        if (score >= MATE_BOUND) {
+            mateIn = (MATE - score + 1) / 2;
+        } else if (score <= -MATE_BOUND) {
+            mateIn = -(MATE + score) / 2;
+        }
+        PieceType promotion = PackedMove.promotionType(bestMove);
+        return new SearchResult(PackedMove.toUci(bestMove),
+                notation(PackedMove.from(bestMove)), notation(PackedMove.to(bestMove)),
+                promotion != null ? promotion.name() : null,
+                score, mateIn, depth, totalNodes, timeMs, threads, principalVariation(bestMove, depth));
+    }
+
+    /** Follows the best moves stored in the transposition table, starting with {@code bestMove}. */
+    private List<String> principalVariation(int bestMove, int depth) {
+        List<String> pv = new ArrayList<>();
+        int move = bestMove;
+        int played = 0;
+        while (move != PackedMove.NONE && played < depth) {
+            MoveList legal = moveLists[played];
+            MoveGenerator.generateLegalMoves(board, legal);
+            if (!legal.contains(move)) {
+                break;
+            }
+            pv.add(PackedMove.toUci(move));
+            board.makeMove(move);
+            played++;
+            move = TranspositionTable.move(table.probe(board.getZobristKey()));
+        }
+        while (played-- > 0) {
+            board.unmakeMove();
+        }
+        return pv;
+    }
+
+    private static String notation(int square) {
+        return Position.of(square).toChessNotation();
+    }
+}
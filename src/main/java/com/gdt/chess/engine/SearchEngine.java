@@ -0,0 +1,174 @@
+package com.gdt.chess.engine;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.gdt.chess.model.Board;
+import com.gdt.chess.model.Game;
+import com.gdt.chess.model.PackedMove;
+import com.gdt.chess.movegen.MoveGenerator;
+import com.gdt.chess.movegen.MoveList;
+import com.gdt.chess.service.ChessMetrics;
+import com.gdt.chess.service.IllegalMoveException;
+import com.gdt.chess.service.MoveError;
+import com.gdt.chess.tablebase.Tablebases;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Finds the best move for a game's side to move. Each search runs on a
+ * detached copy of the game's board, so the live game is never touched and
+ * concurrent moves are unaffected. The transposition table is shared by all
+ * searches; its entries are keyed by position, not by game.
+ *
+ * Positions in the {@link OpeningBook} are answered from the book, without
+ * searching, unless the caller asks for a search. Positions in the endgame
+ * {@link Tablebases} are always answered from the tables, which know the
+ * outcome for certain.
+ *
+ * The main search thread is the request thread. Extra threads for parallel
+ * search come from one fixed pool of {@code chess.engine.max-threads - 1}
+ * helpers shared by all requests; a search gets the helpers that are free
+ * when it starts and never waits for more, so analysis traffic cannot grow
+ * beyond the pool or hold up request threads.
+ */
+@Service
+public class SearchEngine {
+
+    @Autowired
+    private ChessMetrics metrics;
+
+    @Autowired
+    private OpeningBook openingBook;
+
+    @Autowired
+    private Tablebases tablebases;
+
+    @Value("${chess.engine.hash-mb:64}")
+    private int hashMb;
+
+    @Value("${chess.engine.default-movetime-ms:1000}")
+    private long defaultMoveTimeMs;
+
+    @Value("${chess.engine.max-movetime-ms:10000}")
+    private long maxMoveTimeMs;
+
+    @Value("${chess.engine.default-threads:1}")
+    private int defaultThreads;
+
+    // 0 means one per available processor
+    @Value("${chess.engine.max-threads:0}")
+    private int maxThreads;
+
+    private TranspositionTable table;
+    private ExecutorService helperPool;
+    private Semaphore helperPermits;
+
+    @PostConstruct
+    void init() {
+        table = new TranspositionTable(hashMb);
+        if (maxThreads <= 0) {
+            maxThreads = Runtime.getRuntime().availableProcessors();
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        helperPool = Executors.newFixedThreadPool(Math.max(1, maxThreads - 1), runnable -> {
+            Thread thread = new Thread(runnable, "search-helper-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        helperPermits = new Semaphore(maxThreads - 1);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        helperPool.shutdownNow();
+    }
+
+    public SearchResult findBestMove(Game game, SearchLimits limits) throws IllegalMoveException {
+        return findBestMove(game, limits, 0);
+    }
+
+    /**
+     * Searches the game's current position. With no limits set the search
+     * runs for the default move time; every search is capped at the maximum
+     * move time so that a depth or node limit cannot tie up a thread forever.
+     * {@code threads} of 0 selects the default thread count; requests above
+     * the configured maximum are capped. Node limits count the main thread's
+     * nodes only.
+     */
+    public SearchResult findBestMove(Game game, SearchLimits limits, int threads) throws IllegalMoveException {
+        return findBestMove(game, limits, threads, true);
+    }
+
+    /**
+     * As {@link #findBestMove(Game, SearchLimits, int)}; with {@code useBook}
+     * a book move, if the position has one, is returned at once, as is the
+     * tablebase move of a position the tablebases cover.
+     */
+    public SearchResult findBestMove(Game game, SearchLimits limits, int threads, boolean useBook) throws IllegalMoveException {
+        if (threads < 0) {
+            throw new IllegalArgumentException("Thread count must not be negative: " + threads);
+        }
+        if (game.getStatus().isOver()) {
+            throw new IllegalMoveException(MoveError.GAME_OVER, "The game is over: " + game.getStatus());
+        }
+        Board board = new Board(game.getBoard());
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegalMoves(board, moves);
+        if (moves.isEmpty()) {
+            throw new IllegalMoveException("No legal moves: the game is over");
+        }
+        if (useBook) {
+            int bookMove = openingBook.pickMove(board);
+            if (bookMove != PackedMove.NONE) {
+                return SearchResult.fromBook(bookMove);
+            }
+        }
+        int tablebaseMove = tablebases.bestMove(board);
+        if (tablebaseMove != PackedMove.NONE) {
+            return SearchResult.fromTablebase(tablebaseMove, tablebases.probe(board));
+        }
+
+        long moveTimeMs;
+        if (limits.getMoveTimeMs() > 0) {
+            moveTimeMs = Math.min(limits.getMoveTimeMs(), maxMoveTimeMs);
+        } else if (limits.getDepth() > 0 || limits.getNodes() > 0) {
+            moveTimeMs = maxMoveTimeMs;
+        } else {
+            moveTimeMs = defaultMoveTimeMs;
+        }
+        SearchLimits capped = SearchLimits.of(limits.getDepth(), moveTimeMs, limits.getNodes());
+
+        int requested = Math.min(threads > 0 ? threads : defaultThreads, maxThreads);
+        int helpers = acquireHelpers(requested - 1);
+        try {
+            table.newSearch();
+            SearchResult result = ParallelSearch.search(board, game.getPositionKeys(), table, capped, helpers, helperPool);
+            metrics.searched(result.getNodes(), result.getNps(), result.getTimeMs());
+            return result;
+        } finally {
+            helperPermits.release(helpers);
+        }
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    /** Takes as many of the wanted helper threads as are free right now. */
+    private int acquireHelpers(int wanted) {
+        for (int count = wanted; count > 0; count--) {
+            if (helperPermits.tryAcquire(count)) {
+                return count;
+            }
+        }
+        return 0;
+    }
+}
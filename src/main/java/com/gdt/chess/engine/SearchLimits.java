@@ -0,0 +1,35 @@
+package com.gdt.chess.engine;
+
+import lombok.Getter;
+
+/**
+ * Budget for one search. The search stops at whichever limit it reaches
+ * first; a limit of 0 means "not set".
+ */
+@Getter
+public final class SearchLimits {
+    private final int depth;
+    private final long moveTimeMs;
+    private final long nodes;
+
+    private SearchLimits(int depth, long moveTimeMs, long nodes) {
+        this.depth = depth;
+        this.moveTimeMs = moveTimeMs;
+        this.nodes = nodes;
+    }
+
+    public static SearchLimits of(int depth, long moveTimeMs, long nodes) {
+        if (depth < 0 || moveTimeMs < 0 || nodes < 0) {
+            throw new IllegalArgumentException("Search limits must not be negative");
+        }
+        return new SearchLimits(depth, moveTimeMs, nodes);
+    }
+
+    public static SearchLimits depth(int depth) {
+        return of(depth, 0, 0);
+    }
+
+    public static SearchLimits moveTime(long moveTimeMs) {
+        return of(0, moveTimeMs, 0);
+    }
+}
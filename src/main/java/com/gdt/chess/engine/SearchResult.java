@@ -0,0 +1,88 @@
+package com.gdt.chess.engine;
+
+import java.util.List;
+
+import com.gdt.chess.model.PackedMove;
+import com.gdt.chess.model.Position;
+import com.gdt.chess.model.enums.PieceType;
+
+import lombok.Getter;
+
+/**
+ * Outcome of a search: the move to play, its score from the point of view of
+ * the side to move, and the effort spent finding it.
+ */
+@Getter
+public class SearchResult {
+    /** Long algebraic notation of the move, e.g. "e2e4" or "e7e8q". */
+    private final String bestMove;
+    private final String from;
+    private final String to;
+    private final String promotion;
+    /** Centipawns for the side to move; see {@code mateIn} for forced mates. */
+    private final int score;
+    /** Moves to mate, negative when the side to move is being mated, null otherwise. */
+    private final Integer mateIn;
+    private final int depth;
+    /** Nodes searched by all threads together. */
+    private final long nodes;
+    private final long timeMs;
+    private final long nps;
+    /** Search threads that took part, which may be fewer than requested when the engine is busy. */
+    private final int threads;
+    private final List<String> pv;
+    /** The move came from the opening book rather than a search. */
+    private final boolean book;
+    /** The move came from the endgame tablebases rather than a search; the score is exact. */
+    private final boolean tablebase;
+
+    public SearchResult(String bestMove, String from, String to, String promotion, int score, Integer mateIn,
+            int depth, long nodes, long timeMs, int threads, List<String> pv) {
+        this(bestMove, from, to, promotion, score, mateIn, depth, nodes, timeMs, threads, pv, false, false);
+    }
+
+    private SearchResult(String bestMove, String from, String to, String promotion, int score, Integer mateIn,
+            int depth, long nodes, long timeMs, int threads, List<String> pv, boolean book, boolean tablebase) {
+        this.bestMove = bestMove;
+        this.from = from;
+        this.to = to;
+        this.promotion = promotion;
+        this.score = score;
+        this.mateIn = mateIn;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.timeMs = timeMs;
+        this.nps = timeMs > 0 ? nodes * 1000 / timeMs : nodes * 1000;
+        this.threads = threads;
+        this.pv = pv;
+        this.book = book;
+        this.tablebase = tablebase;
+    }
+
+    /** A move played from the opening book: nothing was searched, and there is no score. */
+    public static SearchResult fromBook(int move) {
+        PieceType promotion = PackedMove.promotionType(move);
+        String uci = PackedMove.toUci(move);
+        return new SearchResult(uci, Position.of(PackedMove.from(move)).toChessNotation(),
+                Position.of(PackedMove.to(move)).toChessNotation(), promotion != null ? promotion.name() : null,
+                0, null, 0, 0, 0, 0, List.of(uci), true, false);
+    }
+
+    /**
+     * A move from the endgame tablebases: nothing was searched, and the
+     * score, a {@link Search} score, is exact.
+     */
+    public static SearchResult fromTablebase(int move, int score) {
+        PieceType promotion = PackedMove.promotionType(move);
+        String uci = PackedMove.toUci(move);
+        Integer mateIn = null;
+        if (score >= Search.MATE_BOUND) {
+            mateIn = (Search.MATE - score + 1) / 2;
+        } else if (score <= -Search.MATE_BOUND) {
+            mateIn = -(Search.MATE + score) / 2;
+        }
+        return new SearchResult(uci, Position.of(PackedMove.from(move)).toChessNotation(),
+                Position.of(PackedMove.to(move)).toChessNotation(), promotion != null ? promotion.name() : null,
+                score, mateIn, 0, 0, 0, 0, List.of(uci), false, true);
+    }
+}
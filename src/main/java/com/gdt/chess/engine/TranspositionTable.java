@@ -0,0 +1,112 @@
+package com.gdt.chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size hash table of search results keyed by Zobrist key.
+ *
+ * Each entry is two longs, {@code key ^ data} and {@code data}, where data
+ * packs the best move (bits 0-15), the score (bits 16-31, signed), the draft
+ * (bits 32-39), the bound type (bits 40-41) and the search generation (bits
+ * 42-47). A reader accepts an entry only if the two words XOR back to its
+ * key, so an entry torn by a concurrent writer simply reads as a miss and the
+ * table needs no locking.
+ */
+public final class TranspositionTable {
+
+    public static final int BOUND_NONE = 0;
+    public static final int BOUND_LOWER = 1;
+    public static final int BOUND_UPPER = 2;
+    public static final int BOUND_EXACT = 3;
+
+    private static final int ENTRY_BYTES = 16;
+
+    private final long[] table;
+    private final long mask;
+    private int generation;
+
+    public TranspositionTable(int sizeMb) {
+        if (sizeMb < 1) {
+            throw new IllegalArgumentException("Hash size must be at least 1 MB: " + sizeMb);
+        }
+        long entries = Long.highestOneBit((long) sizeMb * 1024 * 1024 / ENTRY_BYTES);
+        // One long[] holds at most 2^30 entries
+        entries = Math.min(entries, 1L << 30);
+        this.table = new long[(int) (entries * 2)];
+        this.mask = entries - 1;
+    }
+
+    public int capacity() {
+        return table.length / 2;
+    }
+
+    /** Starts a new search; entries from older searches become preferred victims. */
+    public void newSearch() {
+        generation = (generation + 1) & 0x3F;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    /** Returns the packed data stored for {@code key}, or 0 on a miss. */
+    public long probe(long key) {
+        int index = (int) (key & mask) << 1;
+        long data = table[index + 1];
+        return (table[index] ^ data) == key ? data : 0L;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = (int) (key & mask) << 1;
+        long oldData = table[index + 1];
+        boolean sameKey = (table[index] ^ oldData) == key;
+        if (sameKey && move == 0) {
+            move = move(oldData); // Keep the best move when storing a bound without one
+        }
+        // Keep a deeper entry for the same position, or from the current search
+        if (bound(oldData) != BOUND_NONE && bound != BOUND_EXACT && depth < depth(oldData)
+                && (sameKey || generation(oldData) == generation)) {
+            return;
+        }
+        long data = (move & 0xFFFFL)
+                | ((score & 0xFFFFL) << 16)
+                | ((long) (depth & 0xFF) << 32)
+                | ((long) bound << 40)
+                | ((long) generation << 42);
+        table[index] = key ^ data;
+        table[index + 1] = data;
+    }
+
+    /** Per mille of entries written by the current search, sampled from the first thousand. */
+    public int hashfull() {
+        int sample = Math.min(1000, capacity());
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            long data = table[2 * i + 1];
+            if (bound(data) != BOUND_NONE && generation(data) == generation) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> 16);
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> 32) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> 40) & 3);
+    }
+
+    private static int generation(long data) {
+        return (int) ((data >>> 42) & 0x3F);
+    }
+}
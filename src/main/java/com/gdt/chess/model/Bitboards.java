@@ -0,0 +1,114 @@
+package com.gdt.chess.model;
+
+import com.gdt.chess.model.enums.Color;
+import com.gdt.chess.model.enums.PieceType;
+
+/**
+ * Square indexing and piece encoding shared by the bitboard {@link Board}.
+ *
+ * Squares are numbered {@code row * 8 + col}, using the same row/col layout as
+ * {@link Position}: square 0 is a8, square 63 is h1. Pieces are encoded as
+ * {@code color * 6 + type}, so that a piece code indexes straight into the
+ * board's twelve piece bitboards.
+ */
+public final class Bitboards {
+
+    public static final int NO_SQUARE = -1;
+    public static final int NO_PIECE = -1;
+    public static final int PIECE_CODES = 12;
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_8 = 0xFFL;
+    public static final long RANK_1 = RANK_8 << 56;
+    /** a8, c8, ..., b7, ...: the squares of a8's colour. */
+    public static final long LIGHT_SQUARES = 0xAA55AA55AA55AA55L;
+
+    private static final PieceType[] TYPES = PieceType.values();
+    private static final Color[] COLORS = Color.values();
+
+    /** Squares strictly between two aligned squares, 0 when they share no line. */
+    private static final long[][] BETWEEN = new long[64][64];
+
+    static {
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                int rowStep = Integer.compare(row(to), row(from));
+                int colStep = Integer.compare(col(to), col(from));
+                int rowDiff = Math.abs(row(to) - row(from));
+                int colDiff = Math.abs(col(to) - col(from));
+                if (from == to || (rowDiff != 0 && colDiff != 0 && rowDiff != colDiff)) {
+                    continue;
+                }
+                long mask = 0L;
+                int r = row(from) + rowStep;
+                int c = col(from) + colStep;
+                while (r != row(to) || c != col(to)) {
+                    mask |= bit(square(r, c));
+                    r += rowStep;
+                    c += colStep;
+                }
+                BETWEEN[from][to] = mask;
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    public static int square(int row, int col) {
+        return (row << 3) | col;
+    }
+
+    public static int square(Position position) {
+        return square(position.getRow(), position.getCol());
+    }
+
+    public static int row(int square) {
+        return square >>> 3;
+    }
+
+    public static int col(int square) {
+        return square & 7;
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    public static boolean isOnBoard(int row, int col) {
+        return row >= 0 && row < Board.SIZE && col >= 0 && col < Board.SIZE;
+    }
+
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    public static int pieceCode(PieceType type, Color color) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    public static int pieceCode(int type, int color) {
+        return color * 6 + type;
+    }
+
+    public static int typeIndex(int pieceCode) {
+        return pieceCode % 6;
+    }
+
+    public static int colorIndex(int pieceCode) {
+        return pieceCode / 6;
+    }
+
+    public static PieceType typeOf(int pieceCode) {
+        return TYPES[pieceCode % 6];
+    }
+
+    public static Color colorOf(int pieceCode) {
+        return COLORS[pieceCode / 6];
+    }
+
+    public static Color color(int colorIndex) {
+        return COLORS[colorIndex];
+    }
+}
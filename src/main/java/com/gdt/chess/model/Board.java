@@ -1,88 +1,463 @@
 package com.gdt.chess.model;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import com.gdt.chess.model.enums.Color;
 import com.gdt.chess.model.enums.PieceType;
-import lombok.Getter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
-@Getter
+/**
+ * Bitboard-backed chess board.
+ *
+ * The position is held in twelve piece bitboards (one per piece code, see
+ * {@link Bitboards}), two colour occupancy masks and a 64-byte mailbox for
+ * O(1) "what is on this square" lookups. {@link Piece} objects are no longer
+ * stored; {@link #getPiece(Position)}, {@link #getSquares()} and
+ * {@link #getPiecesByColor(Color)} build them on demand as a view.
+ *
+ * Besides placement the board carries the rest of the position state needed
+ * for legal move generation: side to move, castling rights and the en passant
+ * target square. The en passant square is only recorded when an enemy pawn
+ * stands next to the double-pushed pawn, so identical positions compare equal.
+ * A {@link Zobrist} key of all of the above is maintained incrementally by
+ * every primitive that changes the position.
+ *
+ * {@link #makeMove(int)} pushes everything it cannot recompute onto an undo
+ * stack of two longs per ply, so {@link #unmakeMove()} restores the previous
+ * position exactly without copying the board or allocating.
+ */
 public class Board {
-    private Piece[][] squares;
     public static final int SIZE = 8;
 
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL_CASTLING = 15;
+
+    // Castling rights kept when a move touches the given square
+    private static final int[] CASTLING_MASK = new int[64];
+
+    // Undo record layout: move | castling | en passant + 1 | captured + 1 | moved bits | halfmove clock
+    private static final int UNDO_CASTLING_SHIFT = 16;
+    private static final int UNDO_EN_PASSANT_SHIFT = 20;
+    private static final int UNDO_CAPTURED_SHIFT = 27;
+    private static final long UNDO_FROM_MOVED = 1L << 31;
+    private static final long UNDO_CAPTURED_MOVED = 1L << 32;
+    private static final int UNDO_HALFMOVE_SHIFT = 33;
+    private static final long[] NO_UNDO = new long[0];
+
+    static {
+        Arrays.fill(CASTLING_MASK, ALL_CASTLING);
+        CASTLING_MASK[Bitboards.square(7, 0)] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[Bitboards.square(7, 7)] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[Bitboards.square(7, 4)] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[Bitboards.square(0, 0)] &= ~BLACK_QUEENSIDE;
+        CASTLING_MASK[Bitboards.square(0, 7)] &= ~BLACK_KINGSIDE;
+        CASTLING_MASK[Bitboards.square(0, 4)] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+    }
+
+    private final long[] pieces = new long[Bitboards.PIECE_CODES];
+    private final long[] colors = new long[2];
+    private final byte[] mailbox = new byte[64];
+    // Squares whose occupant has moved at least once; backs Piece.hasMoved()
+    private long moved;
+    private Color sideToMove = Color.WHITE;
+    private int castlingRights = ALL_CASTLING;
+    private int enPassantSquare = Bitboards.NO_SQUARE;
+    private long zobristKey = Zobrist.castling(ALL_CASTLING);
+    private int halfmoveClock;
+    private int fullmoveNumber = 1;
+
+    // Grown on first use so idle boards stay small
+    private long[] undoInfo = NO_UNDO;
+    private long[] undoKeys = NO_UNDO;
+    private int undoCount;
+
     public Board() {
-        squares = new Piece[SIZE][SIZE];
-        setupInitialPosition();
+        this(true);
+    }
+
+    /**
+     * Detached copy of another board, e.g. for analysis off the live game. The
+     * copy starts with an empty undo stack.
+     */
+    public Board(Board other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+        System.arraycopy(other.colors, 0, colors, 0, colors.length);
+        System.arraycopy(other.mailbox, 0, mailbox, 0, mailbox.length);
+        moved = other.moved;
+        sideToMove = other.sideToMove;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        zobristKey = other.zobristKey;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+    }
+
+    private Board(boolean setup) {
+        Arrays.fill(mailbox, (byte) Bitboards.NO_PIECE);
+        if (setup) {
+            setupInitialPosition();
+        }
+    }
+
+    /** Board with no pieces on it, White to move and no castling rights; see {@link Fen}. */
+    static Board empty() {
+        Board board = new Board(false);
+        board.castlingRights = 0;
+        board.zobristKey = 0L;
+        return board;
     }
 
     private void setupInitialPosition() {
-        // Set up pawns
+        PieceType[] backRank = {
+            PieceType.ROOK, PieceType.KNIGHT, PieceType.BISHOP, PieceType.QUEEN,
+            PieceType.KING, PieceType.BISHOP, PieceType.KNIGHT, PieceType.ROOK
+        };
         for (int col = 0; col < SIZE; col++) {
-            squares[1][col] = new Piece(PieceType.PAWN, Color.BLACK, new Position(1, col));
-            squares[6][col] = new Piece(PieceType.PAWN, Color.WHITE, new Position(6, col));
+            put(Bitboards.square(0, col), Bitboards.pieceCode(backRank[col], Color.BLACK));
+            put(Bitboards.square(1, col), Bitboards.pieceCode(PieceType.PAWN, Color.BLACK));
+            put(Bitboards.square(6, col), Bitboards.pieceCode(PieceType.PAWN, Color.WHITE));
+            put(Bitboards.square(7, col), Bitboards.pieceCode(backRank[col], Color.WHITE));
+        }
+    }
+
+    // Bitboard primitives
+
+    public int pieceAt(int square) {
+        return mailbox[square];
+    }
+
+    public long pieces(int pieceCode) {
+        return pieces[pieceCode];
+    }
+
+    public long pieces(PieceType type, Color color) {
+        return pieces[Bitboards.pieceCode(type, color)];
+    }
+
+    public long occupancy(Color color) {
+        return colors[color.ordinal()];
+    }
+
+    public long occupancy(int colorIndex) {
+        return colors[colorIndex];
+    }
+
+    public long occupancy() {
+        return colors[0] | colors[1];
+    }
+
+    /**
+     * Neither side can ever checkmate: bare kings, a single minor piece, or
+     * only bishops that all stand on squares of one colour.
+     */
+    public boolean hasInsufficientMaterial() {
+        long heavy = pieces[Bitboards.pieceCode(PieceType.PAWN, Color.WHITE)] | pieces[Bitboards.pieceCode(PieceType.PAWN, Color.BLACK)]
+                | pieces[Bitboards.pieceCode(PieceType.ROOK, Color.WHITE)] | pieces[Bitboards.pieceCode(PieceType.ROOK, Color.BLACK)]
+                | pieces[Bitboards.pieceCode(PieceType.QUEEN, Color.WHITE)] | pieces[Bitboards.pieceCode(PieceType.QUEEN, Color.BLACK)];
+        if (heavy != 0) {
+            return false;
+        }
+        long knights = pieces[Bitboards.pieceCode(PieceType.KNIGHT, Color.WHITE)] | pieces[Bitboards.pieceCode(PieceType.KNIGHT, Color.BLACK)];
+        long bishops = pieces[Bitboards.pieceCode(PieceType.BISHOP, Color.WHITE)] | pieces[Bitboards.pieceCode(PieceType.BISHOP, Color.BLACK)];
+        if (Long.bitCount(knights | bishops) <= 1) {
+            return true;
+        }
+        return knights == 0 && ((bishops & Bitboards.LIGHT_SQUARES) == 0 || (bishops & ~Bitboards.LIGHT_SQUARES) == 0);
+    }
+
+    public boolean hasMoved(int square) {
+        return (moved & Bitboards.bit(square)) != 0;
+    }
+
+    public void put(int square, int pieceCode) {
+        remove(square);
+        long bit = Bitboards.bit(square);
+        pieces[pieceCode] |= bit;
+        colors[Bitboards.colorIndex(pieceCode)] |= bit;
+        mailbox[square] = (byte) pieceCode;
+        zobristKey ^= Zobrist.piece(pieceCode, square);
+    }
+
+    public int remove(int square) {
+        int pieceCode = mailbox[square];
+        if (pieceCode != Bitboards.NO_PIECE) {
+            long bit = Bitboards.bit(square);
+            pieces[pieceCode] &= ~bit;
+            colors[Bitboards.colorIndex(pieceCode)] &= ~bit;
+            mailbox[square] = (byte) Bitboards.NO_PIECE;
+            moved &= ~bit;
+            zobristKey ^= Zobrist.piece(pieceCode, square);
+        }
+        return pieceCode;
+    }
+
+    /**
+     * Moves whatever stands on {@code from} to {@code to}, capturing anything
+     * on the destination square. Returns the captured piece code.
+     */
+    public int move(int from, int to) {
+        int pieceCode = remove(from);
+        int captured = remove(to);
+        if (pieceCode != Bitboards.NO_PIECE) {
+            put(to, pieceCode);
+            moved |= Bitboards.bit(to);
+        }
+        return captured;
+    }
+
+    @JsonIgnore
+    public Color getSideToMove() {
+        return sideToMove;
+    }
+
+    @JsonIgnore
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    @JsonIgnore
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    @JsonIgnore
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    /** Plies since the last capture or pawn move, for the fifty-move rule. */
+    @JsonIgnore
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    @JsonIgnore
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /** Number of moves that {@link #unmakeMove()} can take back. */
+    @JsonIgnore
+    public int getUndoDepth() {
+        return undoCount;
+    }
+
+    /** The move {@code pliesAgo + 1} plies back on the undo stack, 0 being the last move played. */
+    public int lastMove(int pliesAgo) {
+        return (int) (undoInfo[undoCount - 1 - pliesAgo] & 0xFFFF);
+    }
+
+    void setState(Color sideToMove, int castlingRights, int enPassantSquare, int halfmoveClock, int fullmoveNumber) {
+        this.sideToMove = sideToMove;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        this.zobristKey = Zobrist.compute(this);
+    }
+
+    /**
+     * Plays a {@link PackedMove} for the side to move, including the rook hop
+     * of castling, the pawn removed by en passant and promotions, then hands
+     * the move to the opponent. The move is assumed to be legal. Returns the
+     * captured piece code, or {@link Bitboards#NO_PIECE}.
+     */
+    public int makeMove(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int flags = PackedMove.flags(move);
+        int us = sideToMove.ordinal();
+        int capturedSquare = flags == PackedMove.EN_PASSANT ? to + (us == 0 ? 8 : -8) : to;
+        int movingPiece = mailbox[from];
+
+        ensureUndoCapacity();
+        undoKeys[undoCount] = zobristKey;
+        undoInfo[undoCount++] = (move & 0xFFFF)
+                | ((long) castlingRights << UNDO_CASTLING_SHIFT)
+                | ((long) (enPassantSquare + 1) << UNDO_EN_PASSANT_SHIFT)
+                | ((long) (mailbox[capturedSquare] + 1) << UNDO_CAPTURED_SHIFT)
+                | (hasMoved(from) ? UNDO_FROM_MOVED : 0L)
+                | (hasMoved(capturedSquare) ? UNDO_CAPTURED_MOVED : 0L)
+                | ((long) halfmoveClock << UNDO_HALFMOVE_SHIFT);
+
+        int captured = remove(capturedSquare);
+        move(from, to);
+        if (PackedMove.isPromotion(move)) {
+            put(to, Bitboards.pieceCode(PackedMove.promotionTypeIndex(move), us));
+            moved |= Bitboards.bit(to);
+        } else if (flags == PackedMove.KING_CASTLE) {
+            move(from + 3, from + 1);
+        } else if (flags == PackedMove.QUEEN_CASTLE) {
+            move(from - 4, from - 1);
         }
 
-        // Set up rooks
-        squares[0][0] = new Piece(PieceType.ROOK, Color.BLACK, new Position(0, 0));
-        squares[0][7] = new Piece(PieceType.ROOK, Color.BLACK, new Position(0, 7));
-        squares[7][0] = new Piece(PieceType.ROOK, Color.WHITE, new Position(7, 0));
-        squares[7][7] = new Piece(PieceType.ROOK, Color.WHITE, new Position(7, 7));
+        zobristKey ^= Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantSquare);
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        enPassantSquare = Bitboards.NO_SQUARE;
+        if (flags == PackedMove.DOUBLE_PAWN_PUSH) {
+            long target = Bitboards.bit(to);
+            long neighbours = ((target << 1) & ~Bitboards.FILE_A) | ((target >>> 1) & ~Bitboards.FILE_H);
+            if ((neighbours & pieces[Bitboards.pieceCode(PieceType.PAWN.ordinal(), us ^ 1)]) != 0) {
+                enPassantSquare = (from + to) >>> 1;
+            }
+        }
+        zobristKey ^= Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantSquare) ^ Zobrist.blackToMove();
 
-        // Set up knights
-        squares[0][1] = new Piece(PieceType.KNIGHT, Color.BLACK, new Position(0, 1));
-        squares[0][6] = new Piece(PieceType.KNIGHT, Color.BLACK, new Position(0, 6));
-        squares[7][1] = new Piece(PieceType.KNIGHT, Color.WHITE, new Position(7, 1));
-        squares[7][6] = new Piece(PieceType.KNIGHT, Color.WHITE, new Position(7, 6));
+        boolean irreversible = captured != Bitboards.NO_PIECE || Bitboards.typeIndex(movingPiece) == PieceType.PAWN.ordinal();
+        halfmoveClock = irreversible ? 0 : halfmoveClock + 1;
+        if (us == Color.BLACK.ordinal()) {
+            fullmoveNumber++;
+        }
+        sideToMove = sideToMove == Color.WHITE ? Color.BLACK : Color.WHITE;
+        return captured;
+    }
 
-        // Set up bishops
-        squares[0][2] = new Piece(PieceType.BISHOP, Color.BLACK, new Position(0, 2));
-        squares[0][5] = new Piece(PieceType.BISHOP, Color.BLACK, new Position(0, 5));
-        squares[7][2] = new Piece(PieceType.BISHOP, Color.WHITE, new Position(7, 2));
-        squares[7][5] = new Piece(PieceType.BISHOP, Color.WHITE, new Position(7, 5));
+    /**
+     * Takes back the last move played with {@link #makeMove(int)}, restoring
+     * placement, castling rights, en passant square, clocks and key exactly.
+     * Returns the move taken back.
+     */
+    public int unmakeMove() {
+        if (undoCount == 0) {
+            throw new IllegalStateException("No move to take back");
+        }
+        long info = undoInfo[--undoCount];
+        int move = (int) (info & 0xFFFF);
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int flags = PackedMove.flags(move);
+        sideToMove = sideToMove == Color.WHITE ? Color.BLACK : Color.WHITE;
+        int us = sideToMove.ordinal();
+
+        if (PackedMove.isPromotion(move)) {
+            remove(to);
+            put(from, Bitboards.pieceCode(PieceType.PAWN.ordinal(), us));
+        } else {
+            move(to, from);
+            // Castling is only possible with an unmoved rook
+            if (flags == PackedMove.KING_CASTLE) {
+                move(from + 1, from + 3);
+                moved &= ~Bitboards.bit(from + 3);
+            } else if (flags == PackedMove.QUEEN_CASTLE) {
+                move(from - 1, from - 4);
+                moved &= ~Bitboards.bit(from - 4);
+            }
+        }
+        moved = (info & UNDO_FROM_MOVED) != 0 ? moved | Bitboards.bit(from) : moved & ~Bitboards.bit(from);
+
+        int captured = (int) ((info >>> UNDO_CAPTURED_SHIFT) & 0xF) - 1;
+        if (captured != Bitboards.NO_PIECE) {
+            int capturedSquare = flags == PackedMove.EN_PASSANT ? to + (us == 0 ? 8 : -8) : to;
+            put(capturedSquare, captured);
+            if ((info & UNDO_CAPTURED_MOVED) != 0) {
+                moved |= Bitboards.bit(capturedSquare);
+            }
+        }
+
+        castlingRights = (int) ((info >>> UNDO_CASTLING_SHIFT) & 0xF);
+        enPassantSquare = (int) ((info >>> UNDO_EN_PASSANT_SHIFT) & 0x7F) - 1;
+        halfmoveClock = (int) (info >>> UNDO_HALFMOVE_SHIFT);
+        if (us == Color.BLACK.ordinal()) {
+            fullmoveNumber--;
+        }
+        zobristKey = undoKeys[undoCount];
+        return move;
+    }
+
+    /**
+     * Passes the turn without moving, for null-move pruning in search. Must be
+     * undone with {@link #unmakeNullMove()}.
+     */
+    public void makeNullMove() {
+        ensureUndoCapacity();
+        undoKeys[undoCount] = zobristKey;
+        undoInfo[undoCount++] = PackedMove.NONE
+                | ((long) castlingRights << UNDO_CASTLING_SHIFT)
+                | ((long) (enPassantSquare + 1) << UNDO_EN_PASSANT_SHIFT)
+                | ((long) halfmoveClock << UNDO_HALFMOVE_SHIFT);
+        zobristKey ^= Zobrist.enPassant(enPassantSquare) ^ Zobrist.blackToMove();
+        enPassantSquare = Bitboards.NO_SQUARE;
+        halfmoveClock++;
+        sideToMove = sideToMove == Color.WHITE ? Color.BLACK : Color.WHITE;
+    }
 
-        // Set up queens
-        squares[0][3] = new Piece(PieceType.QUEEN, Color.BLACK, new Position(0, 3));
-        squares[7][3] = new Piece(PieceType.QUEEN, Color.WHITE, new Position(7, 3));
+    public void unmakeNullMove() {
+        long info = undoInfo[--undoCount];
+        enPassantSquare = (int) ((info >>> UNDO_EN_PASSANT_SHIFT) & 0x7F) - 1;
+        halfmoveClock = (int) (info >>> UNDO_HALFMOVE_SHIFT);
+        zobristKey = undoKeys[undoCount];
+        sideToMove = sideToMove == Color.WHITE ? Color.BLACK : Color.WHITE;
+    }
 
-        // Set up kings
-        squares[0][4] = new Piece(PieceType.KING, Color.BLACK, new Position(0, 4));
-        squares[7][4] = new Piece(PieceType.KING, Color.WHITE, new Position(7, 4));
+    private void ensureUndoCapacity() {
+        if (undoCount == undoInfo.length) {
+            int capacity = Math.max(16, undoCount * 2);
+            undoInfo = Arrays.copyOf(undoInfo, capacity);
+            undoKeys = Arrays.copyOf(undoKeys, capacity);
+        }
+    }
+
+    // Object view
+
+    public Piece[][] getSquares() {
+        Piece[][] squares = new Piece[SIZE][SIZE];
+        long occupied = occupancy();
+        while (occupied != 0) {
+            int square = Long.numberOfTrailingZeros(occupied);
+            occupied &= occupied - 1;
+            squares[Bitboards.row(square)][Bitboards.col(square)] = pieceView(square);
+        }
+        return squares;
     }
 
     public Piece getPiece(Position position) {
-        return squares[position.getRow()][position.getCol()];
+        int square = Bitboards.square(position);
+        return mailbox[square] == Bitboards.NO_PIECE ? null : pieceView(square);
     }
 
     public void setPiece(Position position, Piece piece) {
-        squares[position.getRow()][position.getCol()] = piece;
-        if (piece != null) {
-            piece.setPosition(position);
+        int square = Bitboards.square(position);
+        if (piece == null) {
+            remove(square);
+            return;
+        }
+        put(square, Bitboards.pieceCode(piece.getType(), piece.getColor()));
+        if (piece.hasMoved()) {
+            moved |= Bitboards.bit(square);
         }
+        piece.setPosition(position);
     }
 
     public boolean isPositionValid(Position position) {
-        return position.getRow() >= 0 && position.getRow() < SIZE &&
-               position.getCol() >= 0 && position.getCol() < SIZE;
+        return Bitboards.isOnBoard(position.getRow(), position.getCol());
     }
 
     public List<Piece> getPiecesByColor(Color color) {
-        List<Piece> pieces = new ArrayList<>();
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
-                Piece piece = squares[row][col];
-                if (piece != null && piece.getColor() == color) {
-                    pieces.add(piece);
-                }
-            }
+        long own = colors[color.ordinal()];
+        List<Piece> result = new ArrayList<>(Long.bitCount(own));
+        while (own != 0) {
+            int square = Long.numberOfTrailingZeros(own);
+            own &= own - 1;
+            result.add(pieceView(square));
         }
-        return pieces;
+        return result;
     }
 
     public void movePiece(Move move) {
+        makeMove(PackedMove.of(move));
         Piece piece = move.getPiece();
-        setPiece(move.getFrom(), null);
-        setPiece(move.getTo(), piece);
+        piece.setPosition(move.getTo());
         piece.setHasMoved(true);
     }
+
+    private Piece pieceView(int square) {
+        int pieceCode = mailbox[square];
+        Piece piece = new Piece(Bitboards.typeOf(pieceCode), Bitboards.colorOf(pieceCode), Position.of(square));
+        piece.setHasMoved(hasMoved(square));
+        return piece;
+    }
 }
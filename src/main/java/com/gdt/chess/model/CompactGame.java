@@ -0,0 +1,36 @@
+package com.gdt.chess.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * Small JSON form of a game: the position as FEN and the moves in long
+ * algebraic notation, instead of the board's 64 squares and full
+ * {@link Move} objects.
+ */
+@Getter
+public class CompactGame {
+    private final String id;
+    private final String fen;
+    private final Game.GameStatus status;
+    /** Moves played so far, oldest first, e.g. "e2e4". */
+    private final List<String> moves;
+
+    private CompactGame(String id, String fen, Game.GameStatus status, List<String> moves) {
+        this.id = id;
+        this.fen = fen;
+        this.status = status;
+        this.moves = moves;
+    }
+
+    /** Call on a snapshot, or with the game's lock held. */
+    public static CompactGame of(Game game) {
+        List<String> moves = new ArrayList<>(game.getMoveCount());
+        for (int ply = 0; ply < game.getMoveCount(); ply++) {
+            moves.add(PackedMove.toUci(MoveHistory.packedMove(game.getHistoryEntry(ply))));
+        }
+        return new CompactGame(game.getId(), Fen.toFen(game.getBoard()), game.getStatus(), moves);
+    }
+}
@@ -0,0 +1,139 @@
+package com.gdt.chess.model;
+
+import com.gdt.chess.model.enums.Color;
+import com.gdt.chess.model.enums.PieceType;
+
+/**
+ * Forsyth-Edwards Notation reader and writer for {@link Board}.
+ */
+public final class Fen {
+
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final String PIECE_LETTERS = "PNBRQKpnbrqk";
+
+    private Fen() {
+    }
+
+    public static Board parse(String fen) {
+        if (fen == null) {
+            throw new IllegalArgumentException("Invalid FEN: null");
+        }
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+
+        Board board = Board.empty();
+        String[] ranks = fields[0].split("/");
+        if (ranks.length != Board.SIZE) {
+            throw new IllegalArgumentException("Invalid FEN placement: " + fields[0]);
+        }
+        for (int row = 0; row < Board.SIZE; row++) {
+            int col = 0;
+            for (char c : ranks[row].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    col += c - '0';
+                    continue;
+                }
+                int pieceCode = PIECE_LETTERS.indexOf(c);
+                if (pieceCode < 0 || col >= Board.SIZE) {
+                    throw new IllegalArgumentException("Invalid FEN placement: " + fields[0]);
+                }
+                board.put(Bitboards.square(row, col++), pieceCode);
+            }
+            if (col != Board.SIZE) {
+                throw new IllegalArgumentException("Invalid FEN placement: " + fields[0]);
+            }
+        }
+
+        Color sideToMove;
+        switch (fields[1]) {
+            case "w": sideToMove = Color.WHITE; break;
+            case "b": sideToMove = Color.BLACK; break;
+            default: throw new IllegalArgumentException("Invalid FEN side to move: " + fields[1]);
+        }
+
+        int castling = 0;
+        if (!fields[2].equals("-")) {
+            for (char c : fields[2].toCharArray()) {
+                switch (c) {
+                    case 'K': castling |= Board.WHITE_KINGSIDE; break;
+                    case 'Q': castling |= Board.WHITE_QUEENSIDE; break;
+                    case 'k': castling |= Board.BLACK_KINGSIDE; break;
+                    case 'q': castling |= Board.BLACK_QUEENSIDE; break;
+                    default: throw new IllegalArgumentException("Invalid FEN castling rights: " + fields[2]);
+                }
+            }
+        }
+
+        int enPassant = Bitboards.NO_SQUARE;
+        if (!fields[3].equals("-")) {
+            Position position = Position.fromChessNotation(fields[3]);
+            if (!board.isPositionValid(position)) {
+                throw new IllegalArgumentException("Invalid FEN en passant square: " + fields[3]);
+            }
+            enPassant = Bitboards.square(position);
+        }
+
+        int halfmoveClock = fields.length > 4 ? parseCounter(fields[4], fen) : 0;
+        int fullmoveNumber = fields.length > 5 ? Math.max(1, parseCounter(fields[5], fen)) : 1;
+        board.setState(sideToMove, castling, enPassant, halfmoveClock, fullmoveNumber);
+        return board;
+    }
+
+    public static String toFen(Board board) {
+        StringBuilder sb = new StringBuilder(90);
+        for (int row = 0; row < Board.SIZE; row++) {
+            int empty = 0;
+            for (int col = 0; col < Board.SIZE; col++) {
+                int pieceCode = board.pieceAt(Bitboards.square(row, col));
+                if (pieceCode == Bitboards.NO_PIECE) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append(empty);
+                    empty = 0;
+                }
+                sb.append(PIECE_LETTERS.charAt(pieceCode));
+            }
+            if (empty > 0) {
+                sb.append(empty);
+            }
+            if (row < Board.SIZE - 1) {
+                sb.append('/');
+            }
+        }
+
+        sb.append(board.getSideToMove() == Color.WHITE ? " w " : " b ");
+        int castling = board.getCastlingRights();
+        if (castling == 0) {
+            sb.append('-');
+        } else {
+            if ((castling & Board.WHITE_KINGSIDE) != 0) sb.append('K');
+            if ((castling & Board.WHITE_QUEENSIDE) != 0) sb.append('Q');
+            if ((castling & Board.BLACK_KINGSIDE) != 0) sb.append('k');
+            if ((castling & Board.BLACK_QUEENSIDE) != 0) sb.append('q');
+        }
+
+        int enPassant = board.getEnPassantSquare();
+        sb.append(' ').append(enPassant == Bitboards.NO_SQUARE ? "-"
+                : Position.of(enPassant).toChessNotation());
+        sb.append(' ').append(board.getHalfmoveClock()).append(' ').append(board.getFullmoveNumber());
+        return sb.toString();
+    }
+
+    private static int parseCounter(String field, String fen) {
+        try {
+            return Integer.parseInt(field);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid FEN move counter: " + fen, e);
+        }
+    }
+
+    /** FEN letter of a piece, upper case for white. */
+    public static char letter(PieceType type, Color color) {
+        return PIECE_LETTERS.charAt(Bitboards.pieceCode(type, color));
+    }
+}
@@ -1,29 +1,121 @@
 package com.gdt.chess.model;
 import com.gdt.chess.model.enums.Color;
+import com.gdt.chess.movegen.MoveGenerator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Getter; 
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
 
 @Getter    
 public class Game {
     private String id;
     private Board board;
-    private Color currentTurn;
-    private List<Move> moveHistory;
+    // One packed entry per ply, see MoveHistory; Move objects are built on read
+    @Getter(AccessLevel.NONE)
+    private final MoveHistory history;
     private GameStatus status;
+    // Zobrist key of every position reached, index = ply (0 is the start position)
+    @Getter(AccessLevel.NONE)
+    private long[] positionKeys = new long[64];
+    @Getter(AccessLevel.NONE)
+    private int positionKeyCount;
+    // Serializes writers of this game; readers take optimistic snapshots, see snapshot()
+    @Getter(AccessLevel.NONE)
+    private final StampedLock lock = new StampedLock();
     
     public enum GameStatus {
-        ACTIVE, CHECK, CHECKMATE, STALEMATE, DRAW
+        ACTIVE, CHECK, CHECKMATE, STALEMATE, DRAW;
+
+        /** No more moves can be played. */
+        public boolean isOver() {
+            return this == CHECKMATE || this == STALEMATE || this == DRAW;
+        }
     }
 
     public Game() {
-        this.id = UUID.randomUUID().toString();
-        this.board = new Board();
-        this.currentTurn = Color.WHITE; // White always starts
-        this.moveHistory = new ArrayList<>();
+        this(UUID.randomUUID().toString());
+    }
+
+    /** A new game at the start position with a given id, e.g. when restoring stored games. */
+    public Game(String id) {
+        this.id = id;
+        this.board = new Board(); // White always starts
+        this.history = new MoveHistory();
         this.status = GameStatus.ACTIVE;
+        recordPositionKey();
+    }
+
+    private Game(Game other) {
+        this.id = other.id;
+        this.board = new Board(other.board);
+        this.history = new MoveHistory(other.history);
+        this.status = other.status;
+        this.positionKeyCount = other.positionKeyCount;
+        this.positionKeys = Arrays.copyOf(other.positionKeys, Math.max(positionKeyCount, 1));
+    }
+
+    /**
+     * Lock that serializes changes to this game. {@code Game} itself is not
+     * thread-safe: whoever mutates a shared game holds the write lock.
+     */
+    @JsonIgnore
+    public StampedLock getLock() {
+        return lock;
+    }
+
+    /**
+     * Consistent, detached copy of this game for readers. The copy is taken
+     * under an optimistic read, so it neither blocks nor waits for a writer
+     * unless one changed the game mid-copy; then it retries under the read
+     * lock.
+     */
+    public Game snapshot() {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                Game copy = new Game(this);
+                if (lock.validate(stamp)) {
+                    return copy;
+                }
+            } catch (RuntimeException e) {
+                // A racing writer left the arrays mid-resize; fall through to the read lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return new Game(this);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Tag that changes whenever the game does: move count, position key and
+     * status. Read without blocking, so callers can answer conditional
+     * requests without copying the game.
+     */
+    @JsonIgnore
+    public String getVersion() {
+        long stamp = lock.tryOptimisticRead();
+        int moveCount = history.size();
+        long key = board.getZobristKey();
+        GameStatus current = status;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                moveCount = history.size();
+                key = board.getZobristKey();
+                current = status;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return moveCount + "-" + Long.toHexString(key) + "-" + current.ordinal();
     }
 
     // Getters and setters
@@ -36,11 +128,51 @@ public class Game {
     }
 
     public Color getCurrentTurn() {
-        return currentTurn;
+        return board.getSideToMove();
     }
 
+    /** The moves played so far, oldest first, as new {@link Move} objects. */
     public List<Move> getMoveHistory() {
-        return moveHistory;
+        List<Move> moves = new ArrayList<>(history.size());
+        for (int ply = 0; ply < history.size(); ply++) {
+            moves.add(Move.fromHistory(history.get(ply)));
+        }
+        return moves;
+    }
+
+    /** Number of moves (plies) played so far. */
+    @JsonIgnore
+    public int getMoveCount() {
+        return history.size();
+    }
+
+    /**
+     * The {@link MoveHistory} entries from {@code fromPly} on, read like
+     * {@link #snapshot()} but copying only those entries.
+     */
+    public int[] getHistoryEntries(int fromPly) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                int[] entries = history.toArray(fromPly);
+                if (lock.validate(stamp)) {
+                    return entries;
+                }
+            } catch (RuntimeException e) {
+                // A racing writer; retry under the read lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return history.toArray(fromPly);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** The {@link MoveHistory} entry of the move played at {@code ply}, counting from 0. */
+    public int getHistoryEntry(int ply) {
+        return history.get(ply);
     }
 
     public GameStatus getStatus() {
@@ -51,20 +183,104 @@ public class Game {
         this.status = status;
     }
 
+    /** Zobrist key of the current position; equal keys mean identical positions. */
+    @JsonIgnore
+    public long getZobristKey() {
+        return board.getZobristKey();
+    }
+
+    /** Zobrist keys of every position in the game so far, oldest first. */
+    @JsonIgnore
+    public long[] getPositionKeys() {
+        return Arrays.copyOf(positionKeys, positionKeyCount);
+    }
+
+    public long getPositionKey(int ply) {
+        if (ply < 0 || ply >= positionKeyCount) {
+            throw new IndexOutOfBoundsException("No position at ply " + ply);
+        }
+        return positionKeys[ply];
+    }
+
     // Game logic methods
     public void makeMove(Move move) {
-        board.movePiece(move);
-        moveHistory.add(move);
-        switchTurn();
+        makeMove(PackedMove.of(move));
+    }
+
+    /**
+     * Plays a legal {@link PackedMove} and returns its {@link MoveHistory}
+     * entry.
+     */
+    public int makeMove(int packedMove) {
+        int movedPiece = board.pieceAt(PackedMove.from(packedMove));
+        int capturedPiece = board.makeMove(packedMove);
+        int entry = MoveHistory.entry(packedMove, movedPiece, capturedPiece);
+        history.add(entry);
+        recordPositionKey();
+        updateGameStatus();
+        return entry;
+    }
+
+    /**
+     * Takes back the last move, e.g. for a takeback request. Returns the
+     * {@link MoveHistory} entry removed from the history.
+     */
+    public int unmakeMove() {
+        if (history.isEmpty()) {
+            throw new IllegalStateException("No move to take back");
+        }
+        board.unmakeMove();
+        positionKeyCount--;
+        int entry = history.removeLast();
         updateGameStatus();
+        return entry;
     }
 
-    private void switchTurn() {
-        currentTurn = (currentTurn == Color.WHITE) ? Color.BLACK : Color.WHITE;
+    private void recordPositionKey() {
+        if (positionKeyCount == positionKeys.length) {
+            positionKeys = Arrays.copyOf(positionKeys, positionKeyCount * 2);
+        }
+        positionKeys[positionKeyCount++] = board.getZobristKey();
     }
 
+    /**
+     * Status of the side to move after a move. Runs on every move, so it only
+     * asks whether one legal move exists, see {@link MoveGenerator#hasLegalMove}.
+     * Checkmate and stalemate take precedence over the draw rules.
+     */
     private void updateGameStatus() {
-        // This would be implemented with checks for check, checkmate, etc.
-        // Simplified for now
+        boolean inCheck = MoveGenerator.isInCheck(board);
+        if (!MoveGenerator.hasLegalMove(board)) {
+            status = inCheck ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+        } else if (board.getHalfmoveClock() >= 100 || isThreefoldRepetition() || board.hasInsufficientMaterial()) {
+            status = GameStatus.DRAW;
+        } else {
+            status = inCheck ? GameStatus.CHECK : GameStatus.ACTIVE;
+        }
+    }
+
+    /** Plies since the last capture or pawn move; at 100 the game is drawn. */
+    @JsonIgnore
+    public int getHalfmoveClock() {
+        return board.getHalfmoveClock();
+    }
+
+    /**
+     * Whether the current position occurred twice before. A capture or pawn
+     * move can never be undone, so only the keys since the last one are
+     * looked at, and only every other one, as the same side must be to move.
+     */
+    @JsonIgnore
+    public boolean isThreefoldRepetition() {
+        int current = positionKeyCount - 1;
+        long key = positionKeys[current];
+        int oldest = Math.max(0, current - board.getHalfmoveClock());
+        int seen = 0;
+        for (int ply = current - 4; ply >= oldest; ply -= 2) {
+            if (positionKeys[ply] == key && ++seen == 2) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,56 @@
+package com.gdt.chess.model;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Binary form of a game, big-endian:
+ *
+ * <pre>
+ * byte     format version (1)
+ * byte     status ({@link Game.GameStatus} ordinal)
+ * 16 bytes game id (UUID, most significant half first)
+ * 32 bytes board, 4 bits per square from a8 to h1, high nibble first:
+ *          0 empty, otherwise {@link Bitboards} piece code + 1
+ * byte     side to move (0 white, 1 black)
+ * byte     castling rights ({@link Board#WHITE_KINGSIDE} etc.)
+ * byte     en passant square, 0xFF for none
+ * short    halfmove clock
+ * short    fullmove number
+ * short    move count n
+ * n shorts the {@link PackedMove} of every ply, oldest first
+ * </pre>
+ */
+public final class GameBinary {
+
+    public static final byte VERSION = 1;
+
+    private static final int HEADER_BYTES = 1 + 1 + 16 + 32 + 1 + 1 + 1 + 2 + 2 + 2;
+
+    private GameBinary() {
+    }
+
+    /** Call on a snapshot, or with the game's lock held. */
+    public static byte[] encode(Game game) {
+        Board board = game.getBoard();
+        int moveCount = game.getMoveCount();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 2 * moveCount);
+        buffer.put(VERSION);
+        buffer.put((byte) game.getStatus().ordinal());
+        UUID id = UUID.fromString(game.getId());
+        buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+        for (int square = 0; square < 64; square += 2) {
+            buffer.put((byte) ((board.pieceAt(square) + 1) << 4 | (board.pieceAt(square + 1) + 1)));
+        }
+        buffer.put((byte) board.getSideToMove().ordinal());
+        buffer.put((byte) board.getCastlingRights());
+        buffer.put((byte) board.getEnPassantSquare());
+        buffer.putShort((short) board.getHalfmoveClock());
+        buffer.putShort((short) board.getFullmoveNumber());
+        buffer.putShort((short) moveCount);
+        for (int ply = 0; ply < moveCount; ply++) {
+            buffer.putShort((short) MoveHistory.packedMove(game.getHistoryEntry(ply)));
+        }
+        return buffer.array();
+    }
+}
@@ -1,4 +1,5 @@
 package com.gdt.chess.model;
+import com.gdt.chess.model.enums.PieceType;
 import lombok.Getter; 
 
 @Getter
@@ -8,6 +9,7 @@ public class Move {
     private final Piece piece;
     private final Piece capturedPiece;
     private final boolean isPromotion;
+    private final PieceType promotionType;
     private final boolean isCastling;
     private final boolean isEnPassant;
 
@@ -17,6 +19,7 @@ public class Move {
         this.piece = builder.piece;
         this.capturedPiece = builder.capturedPiece;
         this.isPromotion = builder.isPromotion;
+        this.promotionType = builder.promotionType;
         this.isCastling = builder.isCastling;
         this.isEnPassant = builder.isEnPassant;
     }
@@ -42,6 +45,10 @@ public class Move {
         return isPromotion;
     }
 
+    public PieceType getPromotionType() {
+        return promotionType;
+    }
+
     public boolean isCastling() {
         return isCastling;
     }
@@ -50,6 +57,56 @@ public class Move {
         return isEnPassant;
     }
 
+    /**
+     * Builds the REST view of a {@link PackedMove}. Must be called before the
+     * move is played, while the moving and captured pieces are still on the
+     * board.
+     */
+    public static Move of(Board board, int packedMove) {
+        int capturedSquare = PackedMove.isEnPassant(packedMove)
+                ? Bitboards.square(Bitboards.row(PackedMove.from(packedMove)), Bitboards.col(PackedMove.to(packedMove)))
+                : PackedMove.to(packedMove);
+        Move move = fromHistory(MoveHistory.entry(packedMove, board.pieceAt(PackedMove.from(packedMove)),
+                board.pieceAt(capturedSquare)));
+        move.piece.setPosition(move.from);
+        move.piece.setHasMoved(board.hasMoved(PackedMove.from(packedMove)));
+        return move;
+    }
+
+    /**
+     * Builds the REST view of a {@link MoveHistory} entry. The pieces are new
+     * objects describing the move as played: the moving piece stands on its
+     * destination and the captured piece on the square it was taken from.
+     */
+    public static Move fromHistory(int entry) {
+        int packedMove = MoveHistory.packedMove(entry);
+        int movedPiece = MoveHistory.movedPiece(entry);
+        int capturedPiece = MoveHistory.capturedPiece(entry);
+        int fromSquare = PackedMove.from(packedMove);
+        int toSquare = PackedMove.to(packedMove);
+        Position from = Position.of(fromSquare);
+        Position to = Position.of(toSquare);
+
+        Piece piece = new Piece(Bitboards.typeOf(movedPiece), Bitboards.colorOf(movedPiece), to);
+        piece.setHasMoved(true);
+        Builder builder = new Builder(from, to, piece);
+        if (capturedPiece != Bitboards.NO_PIECE) {
+            // An en passant pawn is taken beside the destination, on the origin's row
+            Position capturedAt = PackedMove.isEnPassant(packedMove) ? Position.of(from.getRow(), to.getCol()) : to;
+            builder.capturedPiece(new Piece(Bitboards.typeOf(capturedPiece), Bitboards.colorOf(capturedPiece), capturedAt));
+        }
+        if (PackedMove.isEnPassant(packedMove)) {
+            builder.enPassant();
+        }
+        if (PackedMove.isPromotion(packedMove)) {
+            builder.promotion(PackedMove.promotionType(packedMove));
+        }
+        if (PackedMove.isCastling(packedMove)) {
+            builder.castling();
+        }
+        return builder.build();
+    }
+
     @Override
     public String toString() {
         return piece.getType() + ": " + from + " -> " + to;
@@ -62,6 +119,7 @@ public class Move {
         private Piece piece;
         private Piece capturedPiece;
         private boolean isPromotion;
+        private PieceType promotionType;
         private boolean isCastling;
         private boolean isEnPassant;
 
@@ -77,7 +135,12 @@ public class Move {
         }
 
         public Builder promotion() {
+            return promotion(PieceType.QUEEN);
+        }
+
+        public Builder promotion(PieceType promotionType) {
             this.isPromotion = true;
+            this.promotionType = promotionType;
             return this;
         }
 
@@ -0,0 +1,88 @@
+package com.gdt.chess.model;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of moves played in a game, one {@code int} per ply.
+ *
+ * Bits 0-15 of an entry hold the {@link PackedMove}, bits 16-19 the code of
+ * the piece that moved and bits 20-23 the code of the captured piece plus one
+ * (0 for no capture). That is everything needed to show the move later, so
+ * {@link Move} objects are only built when the history is read.
+ */
+public final class MoveHistory {
+
+    private static final int MOVED_SHIFT = 16;
+    private static final int CAPTURED_SHIFT = 20;
+
+    private int[] entries;
+    private int size;
+
+    public MoveHistory() {
+        this(16);
+    }
+
+    public MoveHistory(int initialCapacity) {
+        entries = new int[Math.max(1, initialCapacity)];
+    }
+
+    public MoveHistory(MoveHistory other) {
+        this.size = other.size;
+        this.entries = Arrays.copyOf(other.entries, Math.max(size, 1));
+    }
+
+    public static int entry(int packedMove, int movedPiece, int capturedPiece) {
+        return (packedMove & 0xFFFF) | (movedPiece << MOVED_SHIFT) | ((capturedPiece + 1) << CAPTURED_SHIFT);
+    }
+
+    public static int packedMove(int entry) {
+        return entry & 0xFFFF;
+    }
+
+    public static int movedPiece(int entry) {
+        return (entry >>> MOVED_SHIFT) & 0xF;
+    }
+
+    /** Piece code of the captured piece, or {@link Bitboards#NO_PIECE}. */
+    public static int capturedPiece(int entry) {
+        return ((entry >>> CAPTURED_SHIFT) & 0xF) - 1;
+    }
+
+    public void add(int entry) {
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size * 2);
+        }
+        entries[size++] = entry;
+    }
+
+    public int get(int ply) {
+        if (ply < 0 || ply >= size) {
+            throw new IndexOutOfBoundsException("No move at ply " + ply);
+        }
+        return entries[ply];
+    }
+
+    public int removeLast() {
+        if (size == 0) {
+            throw new IllegalStateException("No move to take back");
+        }
+        return entries[--size];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(entries, size);
+    }
+
+    /** The entries from {@code fromPly} on; empty if there are none. */
+    public int[] toArray(int fromPly) {
+        return Arrays.copyOfRange(entries, Math.min(Math.max(fromPly, 0), size), size);
+    }
+}
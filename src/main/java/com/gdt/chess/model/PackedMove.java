@@ -0,0 +1,114 @@
+package com.gdt.chess.model;
+
+import com.gdt.chess.model.enums.PieceType;
+
+/**
+ * 16-bit move encoding used by the move generator and {@link Board#makeMove(int)}.
+ *
+ * Bits 0-5 hold the origin square, bits 6-11 the destination square and bits
+ * 12-15 the move flags below. Bit 14 marks a capture and bit 15 a promotion,
+ * whose low two flag bits select the promotion piece. The value 0 (a8 to a8)
+ * can never be a legal move and doubles as "no move".
+ */
+public final class PackedMove {
+
+    public static final int NONE = 0;
+
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8;
+    public static final int PROMOTION_CAPTURE = 12;
+
+    private static final PieceType[] PROMOTION_TYPES = {
+        PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN
+    };
+
+    private PackedMove() {
+    }
+
+    public static int of(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    public static int promotion(int from, int to, PieceType type, boolean capture) {
+        int flags = (capture ? PROMOTION_CAPTURE : PROMOTION) | (type.ordinal() - PieceType.KNIGHT.ordinal());
+        return of(from, to, flags);
+    }
+
+    /** Encodes a {@link Move} built at the REST boundary, deriving the flags from its fields. */
+    public static int of(Move move) {
+        int from = Bitboards.square(move.getFrom());
+        int to = Bitboards.square(move.getTo());
+        boolean capture = move.getCapturedPiece() != null;
+        if (move.isCastling()) {
+            return of(from, to, to > from ? KING_CASTLE : QUEEN_CASTLE);
+        }
+        if (move.isEnPassant()) {
+            return of(from, to, EN_PASSANT);
+        }
+        if (move.isPromotion()) {
+            return promotion(from, to, move.getPromotionType(), capture);
+        }
+        if (move.getPiece().getType() == PieceType.PAWN && Math.abs(to - from) == 16) {
+            return of(from, to, DOUBLE_PAWN_PUSH);
+        }
+        return of(from, to, capture ? CAPTURE : QUIET);
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return flags(move) == EN_PASSANT;
+    }
+
+    public static boolean isCastling(int move) {
+        int flags = flags(move);
+        return flags == KING_CASTLE || flags == QUEEN_CASTLE;
+    }
+
+    /** Promotion piece type index (see {@link PieceType#ordinal()}), only meaningful for promotions. */
+    public static int promotionTypeIndex(int move) {
+        return PieceType.KNIGHT.ordinal() + (flags(move) & 3);
+    }
+
+    public static PieceType promotionType(int move) {
+        return isPromotion(move) ? PROMOTION_TYPES[flags(move) & 3] : null;
+    }
+
+    /** Long algebraic (UCI style) notation, e.g. "e2e4" or "e7e8q". */
+    public static String toUci(int move) {
+        StringBuilder sb = new StringBuilder(5);
+        appendSquare(sb, from(move));
+        appendSquare(sb, to(move));
+        if (isPromotion(move)) {
+            sb.append("nbrq".charAt(flags(move) & 3));
+        }
+        return sb.toString();
+    }
+
+    private static void appendSquare(StringBuilder sb, int square) {
+        sb.append((char) ('a' + Bitboards.col(square))).append((char) ('8' - Bitboards.row(square)));
+    }
+}
@@ -1,18 +1,56 @@
 package com.gdt.chess.model;
 
-import java.util.Objects;
-
-import java.util.Objects;
-import lombok.Getter; 
+import lombok.AccessLevel;
+import lombok.Getter;
 
+/**
+ * A square given by row (0 is rank 8) and column (0 is file a).
+ *
+ * The 64 squares of the board are interned: {@link #of(int, int)},
+ * {@link #of(int)} and {@link #of(String)} return the same instance for the
+ * same square and allocate nothing. Off-board coordinates still produce a
+ * new instance, so that callers can report them with
+ * {@link Board#isPositionValid(Position)}.
+ */
 @Getter
 public class Position {
+    private static final Position[] SQUARES = new Position[64];
+
+    static {
+        for (int square = 0; square < SQUARES.length; square++) {
+            SQUARES[square] = new Position(Bitboards.row(square), Bitboards.col(square));
+        }
+    }
+
     private final int row;
     private final int col;
+    @Getter(AccessLevel.NONE)
+    private final String notation;
 
+    /** Prefer {@link #of(int, int)}, which returns the interned instance. */
     public Position(int row, int col) {
         this.row = row;
         this.col = col;
+        this.notation = String.valueOf(new char[] { (char) ('a' + col), (char) ('0' + 8 - row) });
+    }
+
+    public static Position of(int row, int col) {
+        return Bitboards.isOnBoard(row, col) ? SQUARES[Bitboards.square(row, col)] : new Position(row, col);
+    }
+
+    /** The square with the given {@link Bitboards} index. */
+    public static Position of(int square) {
+        return SQUARES[square];
+    }
+
+    /** Parses chess notation such as "e4". */
+    public static Position of(String notation) {
+        if (notation == null || notation.length() != 2) {
+            throw new IllegalArgumentException("Invalid chess notation: " + notation);
+        }
+        int col = notation.charAt(0) - 'a';
+        int row = 8 - Character.getNumericValue(notation.charAt(1));
+        return of(row, col);
     }
 
     public int getRow() {
@@ -25,18 +63,11 @@ public class Position {
 
     // Chess notation (e.g., "e4")
     public String toChessNotation() {
-        char file = (char) ('a' + col);
-        int rank = 8 - row;
-        return String.format("%c%d", file, rank);
+        return notation;
     }
 
     public static Position fromChessNotation(String notation) {
-        if (notation == null || notation.length() != 2) {
-            throw new IllegalArgumentException("Invalid chess notation: " + notation);
-        }
-        int col = notation.charAt(0) - 'a';
-        int row = 8 - Character.getNumericValue(notation.charAt(1));
-        return new Position(row, col);
+        return of(notation);
     }
 
     @Override
@@ -49,7 +80,7 @@ public class Position {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, col);
+        return 31 * row + col;
     }
 
     @Override
@@ -57,4 +88,3 @@ public class Position {
         return toChessNotation();
     }
 }
-
@@ -0,0 +1,216 @@
+package com.gdt.chess.model;
+
+import com.gdt.chess.model.enums.PieceType;
+import com.gdt.chess.movegen.MoveGenerator;
+import com.gdt.chess.movegen.MoveList;
+
+/**
+ * Standard Algebraic Notation reader and writer for {@link PackedMove packed
+ * moves}, e.g. "Nbd7", "exd5", "e8=Q+" or "O-O".
+ *
+ * Both directions resolve against the legal moves of the position, so a SAN
+ * that reads is also a legal move. The caller passes a {@link MoveList} to
+ * generate into, which keeps bulk conversions free of allocation.
+ */
+public final class San {
+
+    private static final String PIECE_LETTERS = "PNBRQK";
+
+    private San() {
+    }
+
+    /**
+     * The legal move a SAN names. Check and annotation suffixes ("+", "#",
+     * "!", "?") are ignored, as is a missing "=" before a promotion piece;
+     * castling may be written with zeros.
+     *
+     * @throws IllegalArgumentException if the SAN is malformed, or names no
+     *         legal move or more than one
+     */
+    public static int parse(Board board, CharSequence san, MoveList moves) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        if (end == 0) {
+            throw invalid(san);
+        }
+
+        int king = Bitboards.pieceCode(PieceType.KING, board.getSideToMove());
+        if (san.charAt(0) == 'O' || san.charAt(0) == '0') {
+            boolean kingside = end == 3 && isCastling(san, 3);
+            boolean queenside = end == 5 && isCastling(san, 5);
+            if (!kingside && !queenside) {
+                throw invalid(san);
+            }
+            MoveGenerator.generateLegalMoves(board, moves, board.pieces(king));
+            int flag = kingside ? PackedMove.KING_CASTLE : PackedMove.QUEEN_CASTLE;
+            for (int i = 0; i < moves.size(); i++) {
+                if (PackedMove.flags(moves.get(i)) == flag) {
+                    return moves.get(i);
+                }
+            }
+            throw new IllegalArgumentException("Illegal move: " + san);
+        }
+
+        int pos = 0;
+        int type = PieceType.PAWN.ordinal();
+        int letter = PIECE_LETTERS.indexOf(san.charAt(0));
+        if (letter > 0) {
+            type = letter;
+            pos++;
+        }
+
+        int promotion = -1;
+        if (end - pos >= 3 && PIECE_LETTERS.indexOf(san.charAt(end - 1)) > 0) {
+            promotion = PIECE_LETTERS.indexOf(san.charAt(end - 1));
+            end -= san.charAt(end - 2) == '=' ? 2 : 1;
+            if (type != PieceType.PAWN.ordinal() || promotion == PieceType.KING.ordinal()) {
+                throw invalid(san);
+            }
+        }
+
+        // The destination is always the last two characters; whatever is between names the origin
+        if (end - pos < 2) {
+            throw invalid(san);
+        }
+        int to = square(san.charAt(end - 2), san.charAt(end - 1));
+        if (to == Bitboards.NO_SQUARE) {
+            throw invalid(san);
+        }
+        int fromCol = -1;
+        int fromRow = -1;
+        for (int i = pos; i < end - 2; i++) {
+            char c = san.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromCol = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRow = '8' - c;
+            } else if (c != 'x' && c != ':' && c != '-') {
+                throw invalid(san);
+            }
+        }
+
+        long origins = board.pieces(Bitboards.pieceCode(type, board.getSideToMove().ordinal()));
+        MoveGenerator.generateLegalMoves(board, moves, origins);
+        int found = PackedMove.NONE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int from = PackedMove.from(move);
+            if (PackedMove.to(move) != to || PackedMove.isCastling(move)
+                    || (fromCol >= 0 && Bitboards.col(from) != fromCol)
+                    || (fromRow >= 0 && Bitboards.row(from) != fromRow)
+                    || (PackedMove.isPromotion(move) && PackedMove.promotionTypeIndex(move) != promotion)
+                    || (!PackedMove.isPromotion(move) && promotion >= 0)) {
+                continue;
+            }
+            if (found != PackedMove.NONE) {
+                throw new IllegalArgumentException("Ambiguous move: " + san);
+            }
+            found = move;
+        }
+        if (found == PackedMove.NONE) {
+            // A promotion without its piece also lands here: it matches four moves or none
+            throw new IllegalArgumentException("Illegal move: " + san);
+        }
+        return found;
+    }
+
+    /** SAN of a legal move in the position, with "+" or "#" when it gives check or mate. */
+    public static String toSan(Board board, int move, MoveList moves) {
+        StringBuilder sb = new StringBuilder(8);
+        append(board, move, moves, sb);
+        return sb.toString();
+    }
+
+    /** Appends the SAN of a legal move; {@code moves} is overwritten. */
+    public static void append(Board board, int move, MoveList moves, StringBuilder sb) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int type = Bitboards.typeIndex(board.pieceAt(from));
+
+        if (PackedMove.isCastling(move)) {
+            sb.append(PackedMove.flags(move) == PackedMove.KING_CASTLE ? "O-O" : "O-O-O");
+        } else if (type == PieceType.PAWN.ordinal()) {
+            if (PackedMove.isCapture(move)) {
+                sb.append((char) ('a' + Bitboards.col(from))).append('x');
+            }
+            appendSquare(sb, to);
+            if (PackedMove.isPromotion(move)) {
+                sb.append('=').append(PIECE_LETTERS.charAt(PackedMove.promotionTypeIndex(move)));
+            }
+        } else {
+            sb.append(PIECE_LETTERS.charAt(type));
+            if (type != PieceType.KING.ordinal()) {
+                appendOrigin(board, move, moves, sb);
+            }
+            if (PackedMove.isCapture(move)) {
+                sb.append('x');
+            }
+            appendSquare(sb, to);
+        }
+
+        board.makeMove(move);
+        if (MoveGenerator.isInCheck(board)) {
+            sb.append(MoveGenerator.hasLegalMove(board) ? '+' : '#');
+        }
+        board.unmakeMove();
+    }
+
+    /** File, rank or both of the origin, as far as needed to tell apart pieces of the same type. */
+    private static void appendOrigin(Board board, int move, MoveList moves, StringBuilder sb) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        long others = board.pieces(board.pieceAt(from)) & ~Bitboards.bit(from);
+        if (others == 0) {
+            return;
+        }
+        MoveGenerator.generateLegalMoves(board, moves, others);
+        boolean ambiguous = false;
+        boolean sameCol = false;
+        boolean sameRow = false;
+        for (int i = 0; i < moves.size(); i++) {
+            int other = PackedMove.from(moves.get(i));
+            if (PackedMove.to(moves.get(i)) == to) {
+                ambiguous = true;
+                sameCol |= Bitboards.col(other) == Bitboards.col(from);
+                sameRow |= Bitboards.row(other) == Bitboards.row(from);
+            }
+        }
+        if (!ambiguous) {
+            return;
+        }
+        if (!sameCol) {
+            sb.append((char) ('a' + Bitboards.col(from)));
+        } else if (!sameRow) {
+            sb.append((char) ('8' - Bitboards.row(from)));
+        } else {
+            appendSquare(sb, from);
+        }
+    }
+
+    private static boolean isCastling(CharSequence san, int length) {
+        char zero = san.charAt(0);
+        for (int i = 0; i < length; i++) {
+            if (san.charAt(i) != (i % 2 == 0 ? zero : '-')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int square(char file, char rank) {
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') {
+            return Bitboards.NO_SQUARE;
+        }
+        return Bitboards.square('8' - rank, file - 'a');
+    }
+
+    private static void appendSquare(StringBuilder sb, int square) {
+        sb.append((char) ('a' + Bitboards.col(square))).append((char) ('8' - Bitboards.row(square)));
+    }
+
+    private static IllegalArgumentException invalid(CharSequence san) {
+        return new IllegalArgumentException("Invalid SAN: " + san);
+    }
+}
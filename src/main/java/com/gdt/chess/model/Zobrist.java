@@ -0,0 +1,80 @@
+package com.gdt.chess.model;
+
+import java.util.SplittableRandom;
+
+import com.gdt.chess.model.enums.Color;
+
+/**
+ * Random keys for 64-bit Zobrist position hashing.
+ *
+ * A position's key is the XOR of one key per (piece, square), one for Black
+ * to move, one per castling-rights combination and one for the file of the en
+ * passant square. {@link Board} keeps its key up to date incrementally as
+ * pieces and state change. Keys come from a fixed seed, so they are stable
+ * across restarts and can be persisted.
+ */
+public final class Zobrist {
+
+    private static final long[][] PIECE_SQUARE = new long[Bitboards.PIECE_CODES][64];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT_FILE = new long[Board.SIZE];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x2B992DDFA23249D6L);
+        for (long[] squares : PIECE_SQUARE) {
+            for (int square = 0; square < squares.length; square++) {
+                squares[square] = random.nextLong();
+            }
+        }
+        // Each right gets its own key so that combinations compose by XOR
+        long[] rights = { random.nextLong(), random.nextLong(), random.nextLong(), random.nextLong() };
+        for (int mask = 0; mask < CASTLING.length; mask++) {
+            for (int bit = 0; bit < rights.length; bit++) {
+                if ((mask & (1 << bit)) != 0) {
+                    CASTLING[mask] ^= rights[bit];
+                }
+            }
+        }
+        for (int file = 0; file < EN_PASSANT_FILE.length; file++) {
+            EN_PASSANT_FILE[file] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    public static long piece(int pieceCode, int square) {
+        return PIECE_SQUARE[pieceCode][square];
+    }
+
+    public static long castling(int castlingRights) {
+        return CASTLING[castlingRights];
+    }
+
+    public static long enPassant(int square) {
+        return square == Bitboards.NO_SQUARE ? 0L : EN_PASSANT_FILE[Bitboards.col(square)];
+    }
+
+    public static long blackToMove() {
+        return BLACK_TO_MOVE;
+    }
+
+    /** Full recomputation, for setting up a position and for verifying the incremental key. */
+    public static long compute(Board board) {
+        long key = 0L;
+        long occupied = board.occupancy();
+        while (occupied != 0) {
+            int square = Long.numberOfTrailingZeros(occupied);
+            occupied &= occupied - 1;
+            key ^= piece(board.pieceAt(square), square);
+        }
+        key ^= castling(board.getCastlingRights());
+        key ^= enPassant(board.getEnPassantSquare());
+        if (board.getSideToMove() == Color.BLACK) {
+            key ^= BLACK_TO_MOVE;
+        }
+        return key;
+    }
+}
@@ -0,0 +1,226 @@
+package com.gdt.chess.movegen;
+
+import java.util.SplittableRandom;
+
+import com.gdt.chess.model.Bitboards;
+
+/**
+ * Precomputed attack tables.
+ *
+ * Leaper attacks (knight, king, pawn) are plain per-square lookups. Sliding
+ * attacks use magic bitboards: the relevant blockers of a square are
+ * multiplied by a magic number and the top bits of the product index a
+ * per-square slice of one flat table. Magics are found once at class
+ * initialisation with a fixed seed, so the tables are identical on every run.
+ */
+public final class Attacks {
+
+    private static final int[][] ROOK_DIRECTIONS = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+    private static final int[][] BISHOP_DIRECTIONS = { { -1, -1 }, { -1, 1 }, { 1, -1 }, { 1, 1 } };
+    private static final int[][] KNIGHT_OFFSETS = {
+        { -2, -1 }, { -2, 1 }, { -1, -2 }, { -1, 2 }, { 1, -2 }, { 1, 2 }, { 2, -1 }, { 2, 1 }
+    };
+
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+    private static final long[][] LINE = new long[64][64];
+
+    private static final Magic[] ROOK = new Magic[64];
+    private static final Magic[] BISHOP = new Magic[64];
+    private static final long[] ROOK_TABLE;
+    private static final long[] BISHOP_TABLE;
+
+    private static final class Magic {
+        final long mask;
+        final long magic;
+        final int shift;
+        final int offset;
+
+        Magic(long mask, long magic, int shift, int offset) {
+            this.mask = mask;
+            this.magic = magic;
+            this.shift = shift;
+            this.offset = offset;
+        }
+
+        int index(long occupied) {
+            return offset + (int) (((occupied & mask) * magic) >>> shift);
+        }
+    }
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            int row = Bitboards.row(square);
+            int col = Bitboards.col(square);
+            for (int[] offset : KNIGHT_OFFSETS) {
+                KNIGHT[square] |= bitIfOnBoard(row + offset[0], col + offset[1]);
+            }
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    if (dr != 0 || dc != 0) {
+                        KING[square] |= bitIfOnBoard(row + dr, col + dc);
+                    }
+                }
+            }
+            // White pawns move towards row 0, black pawns towards row 7
+            PAWN[0][square] = bitIfOnBoard(row - 1, col - 1) | bitIfOnBoard(row - 1, col + 1);
+            PAWN[1][square] = bitIfOnBoard(row + 1, col - 1) | bitIfOnBoard(row + 1, col + 1);
+        }
+
+        for (int from = 0; from < 64; from++) {
+            for (int[] direction : concat(ROOK_DIRECTIONS, BISHOP_DIRECTIONS)) {
+                long ray = slide(from, direction, 0L);
+                long backwards = slide(from, new int[] { -direction[0], -direction[1] }, 0L);
+                long line = ray | backwards | Bitboards.bit(from);
+                while (ray != 0) {
+                    int to = Long.numberOfTrailingZeros(ray);
+                    ray &= ray - 1;
+                    LINE[from][to] = line;
+                }
+            }
+        }
+
+        SplittableRandom random = new SplittableRandom(0x5EED_CAFE_F00DL);
+        ROOK_TABLE = initMagics(ROOK, ROOK_DIRECTIONS, random);
+        BISHOP_TABLE = initMagics(BISHOP, BISHOP_DIRECTIONS, random);
+    }
+
+    private Attacks() {
+    }
+
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    /** Squares attacked by a pawn of the given colour index standing on {@code square}. */
+    public static long pawn(int colorIndex, int square) {
+        return PAWN[colorIndex][square];
+    }
+
+    public static long rook(int square, long occupied) {
+        return ROOK_TABLE[ROOK[square].index(occupied)];
+    }
+
+    public static long bishop(int square, long occupied) {
+        return BISHOP_TABLE[BISHOP[square].index(occupied)];
+    }
+
+    public static long queen(int square, long occupied) {
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    /** The full rank, file or diagonal through two squares, 0 when they are not aligned. */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    private static long[] initMagics(Magic[] magics, int[][] directions, SplittableRandom random) {
+        int total = 0;
+        for (int square = 0; square < 64; square++) {
+            total += 1 << Long.bitCount(relevantMask(square, directions));
+        }
+        long[] table = new long[total];
+        int offset = 0;
+        for (int square = 0; square < 64; square++) {
+            long mask = relevantMask(square, directions);
+            int bits = Long.bitCount(mask);
+            int size = 1 << bits;
+            long[] occupancies = new long[size];
+            long[] attacks = new long[size];
+            long subset = 0L;
+            for (int i = 0; i < size; i++) {
+                occupancies[i] = subset;
+                attacks[i] = slidingAttacks(square, directions, subset);
+                subset = (subset - mask) & mask;
+            }
+
+            long magic = findMagic(mask, bits, occupancies, attacks, random);
+            magics[square] = new Magic(mask, magic, 64 - bits, offset);
+            for (int i = 0; i < size; i++) {
+                table[magics[square].index(occupancies[i])] = attacks[i];
+            }
+            offset += size;
+        }
+        return table;
+    }
+
+    private static long findMagic(long mask, int bits, long[] occupancies, long[] attacks, SplittableRandom random) {
+        int size = occupancies.length;
+        long[] used = new long[size];
+        int[] epoch = new int[size];
+        for (int attempt = 1; ; attempt++) {
+            long magic = random.nextLong() & random.nextLong() & random.nextLong();
+            if (Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6) {
+                continue;
+            }
+            boolean ok = true;
+            for (int i = 0; i < size && ok; i++) {
+                int index = (int) ((occupancies[i] * magic) >>> (64 - bits));
+                if (epoch[index] != attempt) {
+                    epoch[index] = attempt;
+                    used[index] = attacks[i];
+                } else if (used[index] != attacks[i]) {
+                    ok = false;
+                }
+            }
+            if (ok) {
+                return magic;
+            }
+        }
+    }
+
+    private static long relevantMask(int square, int[][] directions) {
+        long mask = 0L;
+        for (int[] direction : directions) {
+            int row = Bitboards.row(square) + direction[0];
+            int col = Bitboards.col(square) + direction[1];
+            // The last square of each ray never blocks anything beyond it
+            while (Bitboards.isOnBoard(row + direction[0], col + direction[1])) {
+                mask |= Bitboards.bit(Bitboards.square(row, col));
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static long slidingAttacks(int square, int[][] directions, long occupied) {
+        long attacks = 0L;
+        for (int[] direction : directions) {
+            attacks |= slide(square, direction, occupied);
+        }
+        return attacks;
+    }
+
+    private static long slide(int square, int[] direction, long occupied) {
+        long attacks = 0L;
+        int row = Bitboards.row(square) + direction[0];
+        int col = Bitboards.col(square) + direction[1];
+        while (Bitboards.isOnBoard(row, col)) {
+            long bit = Bitboards.bit(Bitboards.square(row, col));
+            attacks |= bit;
+            if ((occupied & bit) != 0) {
+                break;
+            }
+            row += direction[0];
+            col += direction[1];
+        }
+        return attacks;
+    }
+
+    private static long bitIfOnBoard(int row, int col) {
+        return Bitboards.isOnBoard(row, col) ? Bitboards.bit(Bitboards.square(row, col)) : 0L;
+    }
+
+    private static int[][] concat(int[][] a, int[][] b) {
+        int[][] result = new int[a.length + b.length][];
+        System.arraycopy(a, 0, result, 0, a.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+}
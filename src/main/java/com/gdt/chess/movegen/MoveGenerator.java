@@ -0,0 +1,327 @@
+package com.gdt.chess.movegen;
+
+import com.gdt.chess.model.Bitboards;
+import com.gdt.chess.model.Board;
+import com.gdt.chess.model.PackedMove;
+import com.gdt.chess.model.enums.PieceType;
+
+/**
+ * Strictly legal move generator.
+ *
+ * Moves are produced in one pass without playing and retracting them: the
+ * king's destinations are tested against enemy attacks with the king lifted
+ * off the board, every other piece is restricted to the squares that resolve
+ * the current check (if any) and to its pin ray (if pinned). En passant, whose
+ * legality also depends on the captured pawn leaving its square, is checked
+ * by recomputing the attacks on the king with both pawns moved.
+ */
+public final class MoveGenerator {
+
+    private static final int PAWN = PieceType.PAWN.ordinal();
+    private static final int KNIGHT = PieceType.KNIGHT.ordinal();
+    private static final int BISHOP = PieceType.BISHOP.ordinal();
+    private static final int ROOK = PieceType.ROOK.ordinal();
+    private static final int QUEEN = PieceType.QUEEN.ordinal();
+    private static final int KING = PieceType.KING.ordinal();
+
+    private static final int[] KING_START = { Bitboards.square(7, 4), Bitboards.square(0, 4) };
+    private static final int[] KINGSIDE_RIGHT = { Board.WHITE_KINGSIDE, Board.BLACK_KINGSIDE };
+    private static final int[] QUEENSIDE_RIGHT = { Board.WHITE_QUEENSIDE, Board.BLACK_QUEENSIDE };
+
+    // Fallback generation in hasLegalMove, one per thread
+    private static final ThreadLocal<MoveList> SCRATCH = ThreadLocal.withInitial(MoveList::new);
+
+    private MoveGenerator() {
+    }
+
+    /** Fills {@code moves} with every legal move for the side to move. */
+    public static void generateLegalMoves(Board board, MoveList moves) {
+        generateLegalMoves(board, moves, -1L);
+    }
+
+    /** Fills {@code moves} with the legal moves of the pieces standing on {@code fromMask}. */
+    public static void generateLegalMoves(Board board, MoveList moves, long fromMask) {
+        moves.clear();
+        int us = board.getSideToMove().ordinal();
+        int them = us ^ 1;
+        long own = board.occupancy(us);
+        long enemy = board.occupancy(them);
+        long occupied = own | enemy;
+
+        long kingBoard = board.pieces(Bitboards.pieceCode(KING, us));
+        if (kingBoard == 0) {
+            return;
+        }
+        int kingSquare = Long.numberOfTrailingZeros(kingBoard);
+        long checkers = attackersTo(board, kingSquare, them, occupied);
+
+        if ((fromMask & kingBoard) != 0) {
+            generateKingMoves(board, moves, kingSquare, us, own, enemy, occupied, checkers);
+        }
+        if (Long.bitCount(checkers) > 1) {
+            return; // Double check: only the king may move
+        }
+
+        long target = ~own;
+        if (checkers != 0) {
+            target &= checkers | Bitboards.between(kingSquare, Long.numberOfTrailingZeros(checkers));
+        }
+        long pinned = pinnedPieces(board, kingSquare, us, own, enemy, occupied);
+
+        // A pinned knight can never move along its pin ray
+        long knights = board.pieces(Bitboards.pieceCode(KNIGHT, us)) & ~pinned & fromMask;
+        while (knights != 0) {
+            int from = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1;
+            addMoves(moves, from, Attacks.knight(from) & target, enemy);
+        }
+
+        long queens = board.pieces(Bitboards.pieceCode(QUEEN, us));
+        long diagonal = (board.pieces(Bitboards.pieceCode(BISHOP, us)) | queens) & fromMask;
+        while (diagonal != 0) {
+            int from = Long.numberOfTrailingZeros(diagonal);
+            diagonal &= diagonal - 1;
+            long attacks = Attacks.bishop(from, occupied) & target;
+            if ((pinned & Bitboards.bit(from)) != 0) {
+                attacks &= Attacks.line(kingSquare, from);
+            }
+            addMoves(moves, from, attacks, enemy);
+        }
+
+        long straight = (board.pieces(Bitboards.pieceCode(ROOK, us)) | queens) & fromMask;
+        while (straight != 0) {
+            int from = Long.numberOfTrailingZeros(straight);
+            straight &= straight - 1;
+            long attacks = Attacks.rook(from, occupied) & target;
+            if ((pinned & Bitboards.bit(from)) != 0) {
+                attacks &= Attacks.line(kingSquare, from);
+            }
+            addMoves(moves, from, attacks, enemy);
+        }
+
+        generatePawnMoves(board, moves, kingSquare, us, enemy, occupied, target, pinned, fromMask);
+    }
+
+    /**
+     * Whether the side to move has any legal move, without generating them
+     * all. Out of check, an unpinned piece with a square to go to, a pinned
+     * one that can move along its pin, or a safe king step proves a move
+     * exists, and in a normal position the first knight or pawn usually
+     * does. Only when none of these is found (in check, or with few pieces
+     * left) are the moves generated in full, which also settles en passant.
+     */
+    public static boolean hasLegalMove(Board board) {
+        int us = board.getSideToMove().ordinal();
+        int them = us ^ 1;
+        long own = board.occupancy(us);
+        long enemy = board.occupancy(them);
+        long occupied = own | enemy;
+
+        long kingBoard = board.pieces(Bitboards.pieceCode(KING, us));
+        if (kingBoard == 0) {
+            return false;
+        }
+        int kingSquare = Long.numberOfTrailingZeros(kingBoard);
+        if (attackersTo(board, kingSquare, them, occupied) == 0) {
+            long pinned = pinnedPieces(board, kingSquare, us, own, enemy, occupied);
+
+            long knights = board.pieces(Bitboards.pieceCode(KNIGHT, us)) & ~pinned;
+            while (knights != 0) {
+                int from = Long.numberOfTrailingZeros(knights);
+                knights &= knights - 1;
+                if ((Attacks.knight(from) & ~own) != 0) {
+                    return true;
+                }
+            }
+
+            int forward = us == 0 ? -8 : 8;
+            long pawns = board.pieces(Bitboards.pieceCode(PAWN, us));
+            while (pawns != 0) {
+                int from = Long.numberOfTrailingZeros(pawns);
+                pawns &= pawns - 1;
+                long targets = Attacks.pawn(us, from) & enemy;
+                if ((occupied & Bitboards.bit(from + forward)) == 0) {
+                    targets |= Bitboards.bit(from + forward);
+                }
+                if ((pinned & Bitboards.bit(from)) != 0) {
+                    targets &= Attacks.line(kingSquare, from);
+                }
+                if (targets != 0) {
+                    return true;
+                }
+            }
+
+            long queens = board.pieces(Bitboards.pieceCode(QUEEN, us));
+            long sliders = board.pieces(Bitboards.pieceCode(BISHOP, us)) | board.pieces(Bitboards.pieceCode(ROOK, us)) | queens;
+            while (sliders != 0) {
+                int from = Long.numberOfTrailingZeros(sliders);
+                sliders &= sliders - 1;
+                int piece = Bitboards.typeIndex(board.pieceAt(from));
+                long targets = (piece == ROOK ? 0L : Attacks.bishop(from, occupied))
+                        | (piece == BISHOP ? 0L : Attacks.rook(from, occupied));
+                targets &= ~own;
+                if ((pinned & Bitboards.bit(from)) != 0) {
+                    targets &= Attacks.line(kingSquare, from);
+                }
+                if (targets != 0) {
+                    return true;
+                }
+            }
+
+            long withoutKing = occupied ^ kingBoard;
+            long steps = Attacks.king(kingSquare) & ~own;
+            while (steps != 0) {
+                int to = Long.numberOfTrailingZeros(steps);
+                steps &= steps - 1;
+                if (attackersTo(board, to, them, withoutKing) == 0) {
+                    return true;
+                }
+            }
+        }
+        MoveList moves = SCRATCH.get();
+        generateLegalMoves(board, moves);
+        return !moves.isEmpty();
+    }
+
+    public static boolean isInCheck(Board board) {
+        return checkers(board) != 0;
+    }
+
+    /** Enemy pieces giving check to the side to move. */
+    public static long checkers(Board board) {
+        int us = board.getSideToMove().ordinal();
+        long kingBoard = board.pieces(Bitboards.pieceCode(KING, us));
+        if (kingBoard == 0) {
+            return 0L;
+        }
+        return attackersTo(board, Long.numberOfTrailingZeros(kingBoard), us ^ 1, board.occupancy());
+    }
+
+    public static boolean isSquareAttacked(Board board, int square, int byColor) {
+        return attackersTo(board, square, byColor, board.occupancy()) != 0;
+    }
+
+    /** Pieces of colour {@code byColor} attacking {@code square}, with sliders blocked by {@code occupied}. */
+    public static long attackersTo(Board board, int square, int byColor, long occupied) {
+        long queens = board.pieces(Bitboards.pieceCode(QUEEN, byColor));
+        return (Attacks.pawn(byColor ^ 1, square) & board.pieces(Bitboards.pieceCode(PAWN, byColor)))
+                | (Attacks.knight(square) & board.pieces(Bitboards.pieceCode(KNIGHT, byColor)))
+                | (Attacks.king(square) & board.pieces(Bitboards.pieceCode(KING, byColor)))
+                | (Attacks.bishop(square, occupied) & (board.pieces(Bitboards.pieceCode(BISHOP, byColor)) | queens))
+                | (Attacks.rook(square, occupied) & (board.pieces(Bitboards.pieceCode(ROOK, byColor)) | queens));
+    }
+
+    private static long pinnedPieces(Board board, int kingSquare, int us, long own, long enemy, long occupied) {
+        int them = us ^ 1;
+        long queens = board.pieces(Bitboards.pieceCode(QUEEN, them));
+        // Enemy sliders that would see the king if our own pieces were transparent
+        long snipers = (Attacks.rook(kingSquare, enemy) & (board.pieces(Bitboards.pieceCode(ROOK, them)) | queens))
+                | (Attacks.bishop(kingSquare, enemy) & (board.pieces(Bitboards.pieceCode(BISHOP, them)) | queens));
+        long pinned = 0L;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Bitboards.between(kingSquare, sniper) & occupied;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0 && (blockers & own) != 0) {
+                pinned |= blockers;
+            }
+        }
+        return pinned;
+    }
+
+    private static void generateKingMoves(Board board, MoveList moves, int kingSquare, int us,
+            long own, long enemy, long occupied, long checkers) {
+        int them = us ^ 1;
+        long withoutKing = occupied ^ Bitboards.bit(kingSquare);
+        long targets = Attacks.king(kingSquare) & ~own;
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (attackersTo(board, to, them, withoutKing) == 0) {
+                moves.add(PackedMove.of(kingSquare, to, (enemy & Bitboards.bit(to)) != 0 ? PackedMove.CAPTURE : PackedMove.QUIET));
+            }
+        }
+
+        int rights = board.getCastlingRights();
+        if (checkers != 0 || kingSquare != KING_START[us] || rights == 0) {
+            return;
+        }
+        long rooks = board.pieces(Bitboards.pieceCode(ROOK, us));
+        if ((rights & KINGSIDE_RIGHT[us]) != 0
+                && (rooks & Bitboards.bit(kingSquare + 3)) != 0
+                && (occupied & (Bitboards.bit(kingSquare + 1) | Bitboards.bit(kingSquare + 2))) == 0
+                && attackersTo(board, kingSquare + 1, them, occupied) == 0
+                && attackersTo(board, kingSquare + 2, them, occupied) == 0) {
+            moves.add(PackedMove.of(kingSquare, kingSquare + 2, PackedMove.KING_CASTLE));
+        }
+        if ((rights & QUEENSIDE_RIGHT[us]) != 0
+                && (rooks & Bitboards.bit(kingSquare - 4)) != 0
+                && (occupied & (Bitboards.bit(kingSquare - 1) | Bitboards.bit(kingSquare - 2) | Bitboards.bit(kingSquare - 3))) == 0
+                && attackersTo(board, kingSquare - 1, them, occupied) == 0
+                && attackersTo(board, kingSquare - 2, them, occupied) == 0) {
+            moves.add(PackedMove.of(kingSquare, kingSquare - 2, PackedMove.QUEEN_CASTLE));
+        }
+    }
+
+    private static void generatePawnMoves(Board board, MoveList moves, int kingSquare, int us,
+            long enemy, long occupied, long target, long pinned, long fromMask) {
+        int them = us ^ 1;
+        int forward = us == 0 ? -8 : 8;
+        int startRow = us == 0 ? 6 : 1;
+        int enPassant = board.getEnPassantSquare();
+
+        long pawns = board.pieces(Bitboards.pieceCode(PAWN, us)) & fromMask;
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            long allowed = (pinned & Bitboards.bit(from)) != 0 ? target & Attacks.line(kingSquare, from) : target;
+
+            int to = from + forward;
+            if ((occupied & Bitboards.bit(to)) == 0) {
+                if ((allowed & Bitboards.bit(to)) != 0) {
+                    addPawnMoves(moves, from, to, false);
+                }
+                int doubleTo = to + forward;
+                if (Bitboards.row(from) == startRow && (occupied & Bitboards.bit(doubleTo)) == 0
+                        && (allowed & Bitboards.bit(doubleTo)) != 0) {
+                    moves.add(PackedMove.of(from, doubleTo, PackedMove.DOUBLE_PAWN_PUSH));
+                }
+            }
+
+            long captures = Attacks.pawn(us, from) & enemy & allowed;
+            while (captures != 0) {
+                int captureTo = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                addPawnMoves(moves, from, captureTo, true);
+            }
+
+            if (enPassant != Bitboards.NO_SQUARE && (Attacks.pawn(us, from) & Bitboards.bit(enPassant)) != 0) {
+                int capturedSquare = enPassant - forward;
+                long after = (occupied ^ Bitboards.bit(from) ^ Bitboards.bit(capturedSquare)) | Bitboards.bit(enPassant);
+                if ((attackersTo(board, kingSquare, them, after) & ~Bitboards.bit(capturedSquare)) == 0) {
+                    moves.add(PackedMove.of(from, enPassant, PackedMove.EN_PASSANT));
+                }
+            }
+        }
+    }
+
+    private static void addPawnMoves(MoveList moves, int from, int to, boolean capture) {
+        int row = Bitboards.row(to);
+        if (row == 0 || row == 7) {
+            moves.add(PackedMove.promotion(from, to, PieceType.QUEEN, capture));
+            moves.add(PackedMove.promotion(from, to, PieceType.ROOK, capture));
+            moves.add(PackedMove.promotion(from, to, PieceType.BISHOP, capture));
+            moves.add(PackedMove.promotion(from, to, PieceType.KNIGHT, capture));
+        } else {
+            moves.add(PackedMove.of(from, to, capture ? PackedMove.CAPTURE : PackedMove.QUIET));
+        }
+    }
+
+    private static void addMoves(MoveList moves, int from, long targets, long enemy) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves.add(PackedMove.of(from, to, (enemy & Bitboards.bit(to)) != 0 ? PackedMove.CAPTURE : PackedMove.QUIET));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.gdt.chess.movegen;
+
+import com.gdt.chess.model.PackedMove;
+
+/**
+ * Reusable, fixed-capacity list of {@link PackedMove packed moves}. No legal
+ * chess position has more than 218 moves, so 256 slots never overflow.
+ */
+public final class MoveList {
+
+    public static final int CAPACITY = 256;
+
+    private final int[] moves = new int[CAPACITY];
+    private int size;
+
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the move between two squares, ignoring flags. For promotions the
+     * requested piece type index selects among the four generated moves.
+     */
+    public int find(int from, int to, int promotionTypeIndex) {
+        for (int i = 0; i < size; i++) {
+            int move = moves[i];
+            if (PackedMove.from(move) == from && PackedMove.to(move) == to
+                    && (!PackedMove.isPromotion(move) || PackedMove.promotionTypeIndex(move) == promotionTypeIndex)) {
+                return move;
+            }
+        }
+        return PackedMove.NONE;
+    }
+}
@@ -0,0 +1,45 @@
+package com.gdt.chess.movegen;
+
+import com.gdt.chess.model.Board;
+
+/**
+ * Performance test: counts the leaf nodes of the legal move tree to a fixed
+ * depth. Known counts for standard positions make it the correctness oracle
+ * for {@link MoveGenerator}, {@link Board#makeMove(int)} and
+ * {@link Board#unmakeMove()}. The walk makes and unmakes moves on the board
+ * it is given, which is left unchanged afterwards.
+ */
+public final class Perft {
+
+    private static final int MAX_DEPTH = 16;
+
+    private final MoveList[] moveLists = new MoveList[MAX_DEPTH];
+
+    public Perft() {
+        for (int i = 0; i < MAX_DEPTH; i++) {
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    public long count(Board board, int depth) {
+        if (depth < 1 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Perft depth must be between 1 and " + MAX_DEPTH + ": " + depth);
+        }
+        return count(board, depth, 0);
+    }
+
+    private long count(Board board, int depth, int ply) {
+        MoveList moves = moveLists[ply];
+        MoveGenerator.generateLegalMoves(board, moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            nodes += count(board, depth - 1, ply + 1);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,331 @@
+package com.gdt.chess.pgn;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.gdt.chess.model.Board;
+import com.gdt.chess.model.Fen;
+import com.gdt.chess.model.Game;
+import com.gdt.chess.model.MoveHistory;
+import com.gdt.chess.model.PackedMove;
+import com.gdt.chess.model.San;
+import com.gdt.chess.model.enums.Color;
+import com.gdt.chess.movegen.MoveList;
+
+/**
+ * One game of a PGN archive: its tag pairs, its moves as {@link PackedMove
+ * packed moves} and its result.
+ *
+ * {@link #parse} checks every move against the rules as it reads it, so a
+ * game that parses is a legal game. Comments, NAGs and variations are
+ * skipped and not kept.
+ */
+public final class PgnGame {
+
+    public static final String WHITE_WINS = "1-0";
+    public static final String BLACK_WINS = "0-1";
+    public static final String DRAWN = "1/2-1/2";
+    public static final String UNFINISHED = "*";
+
+    // Tags every exported game carries, in this order
+    private static final String[] SEVEN_TAG_ROSTER = { "Event", "Site", "Date", "Round", "White", "Black", "Result" };
+    private static final String[] SEVEN_TAG_DEFAULTS = { "?", "?", "????.??.??", "?", "?", "?", UNFINISHED };
+
+    // SAN resolution, one per thread
+    private static final ThreadLocal<MoveList> SCRATCH = ThreadLocal.withInitial(MoveList::new);
+
+    private final Map<String, String> tags;
+    private final String startFen;
+    private final int[] moves;
+    private final String result;
+
+    private PgnGame(Map<String, String> tags, String startFen, int[] moves, String result) {
+        this.tags = Collections.unmodifiableMap(tags);
+        this.startFen = startFen;
+        this.moves = moves;
+        this.result = result;
+    }
+
+    /**
+     * Parses the text of one game, UTF-8 encoded.
+     *
+     * @throws IllegalArgumentException if the text is not a well-formed game,
+     *         or one of its moves is illegal
+     */
+    public static PgnGame parse(byte[] text) {
+        if (text == PgnReader.TOO_LONG) {
+            throw new IllegalArgumentException("Game longer than " + PgnReader.MAX_GAME_BYTES + " bytes");
+        }
+        return new Parser(new String(text, StandardCharsets.UTF_8)).parse();
+    }
+
+    public static PgnGame parse(String text) {
+        return new Parser(text).parse();
+    }
+
+    /** The moves and result of a game; call on a snapshot, or with the game's lock held. */
+    public static PgnGame of(Game game) {
+        int[] moves = new int[game.getMoveCount()];
+        for (int ply = 0; ply < moves.length; ply++) {
+            moves[ply] = MoveHistory.packedMove(game.getHistoryEntry(ply));
+        }
+        String result;
+        switch (game.getStatus()) {
+            case CHECKMATE:
+                result = game.getCurrentTurn() == Color.WHITE ? BLACK_WINS : WHITE_WINS;
+                break;
+            case STALEMATE:
+            case DRAW:
+                result = DRAWN;
+                break;
+            default:
+                result = UNFINISHED;
+        }
+        Map<String, String> tags = new LinkedHashMap<>();
+        for (int i = 0; i < SEVEN_TAG_ROSTER.length; i++) {
+            tags.put(SEVEN_TAG_ROSTER[i], SEVEN_TAG_DEFAULTS[i]);
+        }
+        tags.put("Result", result);
+        return new PgnGame(tags, null, moves, result);
+    }
+
+    /**
+     * Plays the moves on a new {@link Game}. Games only start from the
+     * initial position, so a game with a FEN tag cannot be replayed.
+     */
+    public Game toGame() {
+        if (startFen != null) {
+            throw new IllegalArgumentException("Games from a set-up position are not supported");
+        }
+        Game game = new Game();
+        for (int move : moves) {
+            game.makeMove(move);
+        }
+        return game;
+    }
+
+    /** The tag pairs in the order read, e.g. "White" or "Date". */
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    /** FEN of the position the game starts from, or null for the initial position. */
+    public String getStartFen() {
+        return startFen;
+    }
+
+    /** The board the game starts from, a new copy each time. */
+    public Board getStartBoard() {
+        return startFen == null ? new Board() : Fen.parse(startFen);
+    }
+
+    /** The moves, oldest first, as {@link PackedMove packed moves}. */
+    public int[] getMoves() {
+        return moves.clone();
+    }
+
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    /** {@link #WHITE_WINS}, {@link #BLACK_WINS}, {@link #DRAWN} or {@link #UNFINISHED}. */
+    public String getResult() {
+        return result;
+    }
+
+    /** Every tag of the Seven Tag Roster in order, then the rest as read; Result follows the movetext. */
+    Map<String, String> getExportTags() {
+        Map<String, String> export = new LinkedHashMap<>();
+        for (int i = 0; i < SEVEN_TAG_ROSTER.length; i++) {
+            export.put(SEVEN_TAG_ROSTER[i], tags.getOrDefault(SEVEN_TAG_ROSTER[i], SEVEN_TAG_DEFAULTS[i]));
+        }
+        export.putAll(tags);
+        export.put("Result", result);
+        return export;
+    }
+
+    /** A cursor over the text of one game. */
+    private static final class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        PgnGame parse() {
+            Map<String, String> tags = new LinkedHashMap<>();
+            skipSpaceAndComments();
+            while (pos < text.length() && text.charAt(pos) == '[') {
+                readTag(tags);
+                skipSpaceAndComments();
+            }
+
+            String fen = tags.get("FEN");
+            Board board;
+            try {
+                board = fen == null ? new Board() : Fen.parse(fen);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid FEN tag: " + fen, e);
+            }
+            if (fen != null && Fen.toFen(board).equals(Fen.START_POSITION)) {
+                fen = null;
+            }
+
+            MoveList scratch = SCRATCH.get();
+            int[] moves = new int[64];
+            int count = 0;
+            while (true) {
+                skipSpaceAndComments();
+                if (pos >= text.length()) {
+                    throw new IllegalArgumentException("Missing game result after " + count + " moves");
+                }
+                String token = nextToken();
+                if (token.isEmpty()) {
+                    continue; // A move number on its own
+                }
+                if (isResult(token)) {
+                    return new PgnGame(tags, fen, Arrays.copyOf(moves, count), token);
+                }
+                int move;
+                try {
+                    move = San.parse(board, token, scratch);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(e.getMessage() + " at ply " + (count + 1), e);
+                }
+                board.makeMove(move);
+                if (count == moves.length) {
+                    moves = Arrays.copyOf(moves, count * 2);
+                }
+                moves[count++] = move;
+            }
+        }
+
+        private void readTag(Map<String, String> tags) {
+            pos++; // [
+            skipSpace();
+            int nameStart = pos;
+            while (pos < text.length() && isSymbolChar(text.charAt(pos))) {
+                pos++;
+            }
+            String name = text.substring(nameStart, pos);
+            skipSpace();
+            if (name.isEmpty() || pos >= text.length() || text.charAt(pos) != '"') {
+                throw new IllegalArgumentException("Invalid tag pair near \"" + excerpt(nameStart) + "\"");
+            }
+            pos++;
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                if (pos >= text.length()) {
+                    throw new IllegalArgumentException("Unterminated tag " + name);
+                }
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    break;
+                }
+                if (c == '\\' && pos < text.length()) {
+                    c = text.charAt(pos++);
+                }
+                value.append(c);
+            }
+            skipSpace();
+            if (pos >= text.length() || text.charAt(pos) != ']') {
+                throw new IllegalArgumentException("Unterminated tag " + name);
+            }
+            pos++;
+            tags.put(name, value.toString());
+        }
+
+        /**
+         * The next move or result, with its move number ("12." or "12...")
+         * stripped; empty when the token was only a move number.
+         */
+        private String nextToken() {
+            int start = pos;
+            while (pos < text.length() && !isDelimiter(text.charAt(pos))) {
+                pos++;
+            }
+            if (start == pos) {
+                throw new IllegalArgumentException("Unexpected \"" + excerpt(start) + "\"");
+            }
+            int sanStart = start;
+            if (text.charAt(start) >= '1' && text.charAt(start) <= '9') {
+                int digits = start;
+                while (digits < pos && Character.isDigit(text.charAt(digits))) {
+                    digits++;
+                }
+                if (digits < pos && text.charAt(digits) == '.') {
+                    sanStart = digits;
+                    while (sanStart < pos && text.charAt(sanStart) == '.') {
+                        sanStart++;
+                    }
+                }
+            }
+            return text.substring(sanStart, pos);
+        }
+
+        /** Skips whitespace, comments, NAGs, escaped lines and variations. */
+        private void skipSpaceAndComments() {
+            int variations = 0;
+            while (pos < text.length()) {
+                char c = text.charAt(pos);
+                if (c == '{') {
+                    int end = text.indexOf('}', pos);
+                    if (end < 0) {
+                        throw new IllegalArgumentException("Unterminated comment");
+                    }
+                    pos = end + 1;
+                } else if (c == ';' || (c == '%' && (pos == 0 || text.charAt(pos - 1) == '\n'))) {
+                    int end = text.indexOf('\n', pos);
+                    pos = end < 0 ? text.length() : end + 1;
+                } else if (c == '$') {
+                    pos++;
+                    while (pos < text.length() && Character.isDigit(text.charAt(pos))) {
+                        pos++;
+                    }
+                } else if (c == '(') {
+                    variations++;
+                    pos++;
+                } else if (c == ')') {
+                    if (--variations < 0) {
+                        throw new IllegalArgumentException("Unbalanced \")\"");
+                    }
+                    pos++;
+                } else if (Character.isWhitespace(c) || variations > 0) {
+                    pos++;
+                } else {
+                    return;
+                }
+            }
+            if (variations > 0) {
+                throw new IllegalArgumentException("Unterminated variation");
+            }
+        }
+
+        private void skipSpace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private String excerpt(int from) {
+            return text.substring(from, Math.min(text.length(), from + 20));
+        }
+
+        private static boolean isResult(String token) {
+            return token.equals(WHITE_WINS) || token.equals(BLACK_WINS) || token.equals(DRAWN) || token.equals(UNFINISHED);
+        }
+
+        private static boolean isDelimiter(char c) {
+            return Character.isWhitespace(c) || c == '{' || c == '}' || c == '(' || c == ')' || c == ';'
+                    || c == '$' || c == '[' || c == ']' || c == '"';
+        }
+
+        private static boolean isSymbolChar(char c) {
+            return Character.isLetterOrDigit(c) || c == '_' || c == '+' || c == '#' || c == '=' || c == ':' || c == '-';
+        }
+    }
+}
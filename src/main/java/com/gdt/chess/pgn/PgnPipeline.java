@@ -0,0 +1,110 @@
+package com.gdt.chess.pgn;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a per-game step on a pool while keeping the games in order.
+ *
+ * The calling thread reads items from the source in batches and hands each
+ * batch to the pool; it then passes the results of the oldest batch to the
+ * sink, in the order read. At most a few batches per thread are in flight,
+ * so memory stays bounded however long the input is.
+ */
+public final class PgnPipeline {
+
+    /** Where items come from, e.g. {@link PgnReader#next}; null ends the input. */
+    @FunctionalInterface
+    public interface Source<T> {
+        T next() throws IOException;
+    }
+
+    /** The parallel step; {@code index} counts items from 1. */
+    @FunctionalInterface
+    public interface Step<T, R> {
+        R apply(long index, T item);
+    }
+
+    /** Receives the results on the calling thread, in input order. */
+    @FunctionalInterface
+    public interface Sink<R> {
+        void accept(R result) throws IOException;
+    }
+
+    private final ExecutorService pool;
+    private final int batchSize;
+    private final int maxBatchesInFlight;
+
+    public PgnPipeline(ExecutorService pool, int threads, int batchSize) {
+        this.pool = pool;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchesInFlight = 4 * Math.max(1, threads);
+    }
+
+    /** Feeds every item of the source through the step into the sink; returns the item count. */
+    public <T, R> long run(Source<T> source, Step<T, R> step, Sink<R> sink) throws IOException {
+        ArrayDeque<Future<List<R>>> inFlight = new ArrayDeque<>();
+        long read = 0;
+        boolean more = true;
+        try {
+            while (true) {
+                while (more && inFlight.size() < maxBatchesInFlight) {
+                    List<T> batch = new ArrayList<>(batchSize);
+                    T item;
+                    while (batch.size() < batchSize && (item = source.next()) != null) {
+                        batch.add(item);
+                    }
+                    more = batch.size() == batchSize;
+                    if (!batch.isEmpty()) {
+                        long firstIndex = read + 1;
+                        inFlight.add(pool.submit(() -> apply(step, firstIndex, batch)));
+                        read += batch.size();
+                    }
+                }
+                if (inFlight.isEmpty()) {
+                    return read;
+                }
+                for (R result : await(inFlight.peek())) {
+                    sink.accept(result);
+                }
+                inFlight.poll();
+            }
+        } finally {
+            for (Future<List<R>> batch : inFlight) {
+                batch.cancel(true);
+            }
+        }
+    }
+
+    private static <T, R> List<R> apply(Step<T, R> step, long firstIndex, List<T> batch) {
+        List<R> results = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            results.add(step.apply(firstIndex + i, batch.get(i)));
+        }
+        return results;
+    }
+
+    private static <R> List<R> await(Future<List<R>> batch) throws IOException {
+        try {
+            return batch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for games");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
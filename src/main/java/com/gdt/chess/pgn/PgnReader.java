@@ -0,0 +1,216 @@
+package com.gdt.chess.pgn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Splits a PGN stream into the raw text of its games, one at a time, so
+ * archives of any size are read in constant memory. Files are mapped a
+ * window at a time; other streams go through one small buffer.
+ *
+ * Only as much of the syntax is understood as needed to find where a game
+ * ends: a tag pair at the start of a line, once movetext was seen, begins
+ * the next game, unless it is inside a comment. The text itself is parsed
+ * later, by {@link PgnGame#parse}, typically on another thread.
+ */
+public final class PgnReader implements Closeable {
+
+    /** Returned in place of a game longer than {@link #MAX_GAME_BYTES}; its text is skipped. */
+    public static final byte[] TOO_LONG = new byte[0];
+    public static final int MAX_GAME_BYTES = 1 << 22;
+
+    private static final int WINDOW_BYTES = 1 << 26;
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final FileChannel file;
+    private final ReadableByteChannel channel;
+    private long filePosition;
+    private ByteBuffer buffer;
+
+    private byte[] game = new byte[8192];
+    private int length;
+    private boolean tooLong;
+    private long bytesRead;
+
+    // Scanner state, carried across games and buffer refills
+    private boolean lineStart = true;
+    private boolean inComment;
+    private boolean inLineComment;
+    private boolean inTag;
+    private boolean inString;
+    private boolean escaped;
+    private boolean sawMovetext;
+
+    private PgnReader(FileChannel file, ReadableByteChannel channel) {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = file != null ? ByteBuffer.allocate(0) : ByteBuffer.allocate(BUFFER_BYTES).flip();
+    }
+
+    /** Reads a file through memory-mapped windows. */
+    public static PgnReader open(Path path) throws IOException {
+        return new PgnReader(FileChannel.open(path, StandardOpenOption.READ), null);
+    }
+
+    public PgnReader(InputStream in) {
+        this(Channels.newChannel(in));
+    }
+
+    public PgnReader(ReadableByteChannel channel) {
+        this(null, channel);
+    }
+
+    /**
+     * The text of the next game, {@link #TOO_LONG} for a game too long to
+     * hold, or {@code null} at the end of the stream.
+     */
+    public byte[] next() throws IOException {
+        while (true) {
+            if (!buffer.hasRemaining() && !refill()) {
+                return finish();
+            }
+            int b = buffer.get();
+            if (startsNextGame(b)) {
+                byte[] text = finish();
+                append(b);
+                if (text != null) {
+                    return text;
+                }
+                continue;
+            }
+            append(b);
+        }
+    }
+
+    /** Bytes consumed so far. */
+    public long getBytesRead() {
+        return bytesRead - buffer.remaining();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            file.close();
+        } else {
+            channel.close();
+        }
+    }
+
+    /** Tracks where the byte stands and whether it is the "[" of the next game's first tag. */
+    private boolean startsNextGame(int b) {
+        boolean atLineStart = lineStart;
+        lineStart = b == '\n';
+        if (inLineComment) {
+            inLineComment = b != '\n';
+            return false;
+        }
+        if (inComment) {
+            inComment = b != '}';
+            return false;
+        }
+        if (inString) {
+            if (escaped) {
+                escaped = false;
+            } else if (b == '\\') {
+                escaped = true;
+            } else if (b == '"') {
+                inString = false;
+            }
+            return false;
+        }
+        if (inTag) {
+            if (b == '"') {
+                inString = true;
+            } else if (b == ']') {
+                inTag = false;
+            }
+            return false;
+        }
+        switch (b) {
+            case '[':
+                inTag = true;
+                if (atLineStart && sawMovetext) {
+                    sawMovetext = false;
+                    return true;
+                }
+                return false;
+            case '{':
+                inComment = true;
+                return false;
+            case ';':
+                inLineComment = true;
+                return false;
+            case '%':
+                // Escape mechanism: the rest of the line is ignored
+                inLineComment = atLineStart;
+                return false;
+            case ' ': case '\t': case '\r': case '\n':
+                return false;
+            default:
+                sawMovetext = true;
+                return false;
+        }
+    }
+
+    private void append(int b) {
+        if (length == game.length) {
+            if (length >= MAX_GAME_BYTES) {
+                tooLong = true;
+                return;
+            }
+            game = Arrays.copyOf(game, Math.min(length * 2, MAX_GAME_BYTES));
+        }
+        game[length++] = (byte) b;
+    }
+
+    /** The game collected so far, or null if it is only whitespace. */
+    private byte[] finish() {
+        byte[] text = null;
+        if (tooLong) {
+            text = TOO_LONG;
+        } else {
+            for (int i = 0; i < length; i++) {
+                if (game[i] > ' ') {
+                    text = Arrays.copyOf(game, length);
+                    break;
+                }
+            }
+        }
+        length = 0;
+        tooLong = false;
+        return text;
+    }
+
+    private boolean refill() throws IOException {
+        if (file != null) {
+            long size = file.size();
+            if (filePosition >= size) {
+                return false;
+            }
+            long window = Math.min(WINDOW_BYTES, size - filePosition);
+            buffer = file.map(FileChannel.MapMode.READ_ONLY, filePosition, window);
+            filePosition += window;
+            bytesRead += window;
+            return true;
+        }
+        buffer.clear();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        buffer.flip();
+        if (read < 0) {
+            return false;
+        }
+        bytesRead += read;
+        return true;
+    }
+}
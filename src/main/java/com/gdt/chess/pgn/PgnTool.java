@@ -0,0 +1,103 @@
+package com.gdt.chess.pgn;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command line PGN checker and converter, without the server:
+ *
+ * <pre>
+ * java -cp chess.jar -Dloader.main=com.gdt.chess.pgn.PgnTool \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher \
+ *      games.pgn [clean.pgn] [threads=N] [batch=N]
+ * </pre>
+ *
+ * Every game of the input ("-" for standard input) is parsed and its moves
+ * checked, in parallel; rejected games are reported on standard error with
+ * their number and reason. With an output file ("-" for standard output),
+ * the accepted games are written there again in export format and in input
+ * order. The exit status is 1 if any game was rejected.
+ */
+public final class PgnTool {
+
+    /** One game of the input: the game in export format, or why it was rejected. */
+    private static final class Checked {
+        final byte[] pgn;
+        final String error;
+
+        Checked(byte[] pgn, String error) {
+            this.pgn = pgn;
+            this.error = error;
+        }
+    }
+
+    private PgnTool() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        List<String> files = new ArrayList<>();
+        int threads = Runtime.getRuntime().availableProcessors();
+        int batch = 64;
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            if (option.startsWith("threads=")) {
+                threads = Integer.parseInt(option.substring("threads=".length()));
+            } else if (option.startsWith("batch=")) {
+                batch = Integer.parseInt(option.substring("batch=".length()));
+            } else {
+                files.add(arg);
+            }
+        }
+        if (files.isEmpty() || files.size() > 2) {
+            System.err.println("Usage: PgnTool <input.pgn | -> [output.pgn | -] [threads=N] [batch=N]");
+            System.exit(2);
+        }
+
+        boolean write = files.size() == 2;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        long[] rejected = new long[1];
+        long games;
+        long bytes;
+        try (PgnReader reader = files.get(0).equals("-") ? new PgnReader(System.in) : PgnReader.open(Path.of(files.get(0)));
+                OutputStream out = !write ? OutputStream.nullOutputStream()
+                        : new BufferedOutputStream(files.get(1).equals("-") ? System.out
+                                : Files.newOutputStream(Path.of(files.get(1))), 1 << 16)) {
+            games = new PgnPipeline(pool, threads, batch).run(reader::next, (index, text) -> check(index, text, write), checked -> {
+                if (checked.pgn != null) {
+                    out.write(checked.pgn);
+                } else if (checked.error != null) {
+                    rejected[0]++;
+                    System.err.println(checked.error);
+                }
+            });
+            bytes = reader.getBytesRead();
+        } finally {
+            pool.shutdownNow();
+            pool.awaitTermination(1, TimeUnit.SECONDS);
+        }
+
+        double seconds = Math.max(1e-9, (System.nanoTime() - start) / 1e9);
+        System.err.printf(Locale.ROOT, "%d games, %d rejected, %.1f MB in %.2f s: %.0f games/min, %.1f MB/s%n",
+                games, rejected[0], bytes / 1e6, seconds, games * 60 / seconds, bytes / 1e6 / seconds);
+        System.exit(rejected[0] > 0 ? 1 : 0);
+    }
+
+    private static Checked check(long index, byte[] text, boolean write) {
+        try {
+            PgnGame game = PgnGame.parse(text);
+            return new Checked(write ? PgnWriter.toBytes(game) : null, null);
+        } catch (IllegalArgumentException e) {
+            return new Checked(null, "Game " + index + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.gdt.chess.pgn;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import com.gdt.chess.model.Board;
+import com.gdt.chess.model.San;
+import com.gdt.chess.model.enums.Color;
+import com.gdt.chess.movegen.MoveList;
+
+/**
+ * Writes games in the PGN export format: the Seven Tag Roster first, SAN
+ * with check marks, move numbers on White's moves and lines of at most 79
+ * characters. Each game is followed by an empty line, so the output of
+ * consecutive games can simply be concatenated.
+ */
+public final class PgnWriter {
+
+    private static final int MAX_LINE = 79;
+
+    private static final ThreadLocal<MoveList> SCRATCH = ThreadLocal.withInitial(MoveList::new);
+
+    private PgnWriter() {
+    }
+
+    public static String format(PgnGame game) {
+        StringBuilder sb = new StringBuilder(256 + 8 * game.getMoveCount());
+        append(game, sb);
+        return sb.toString();
+    }
+
+    public static byte[] toBytes(PgnGame game) {
+        return format(game).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static void append(PgnGame game, StringBuilder sb) {
+        for (Map.Entry<String, String> tag : game.getExportTags().entrySet()) {
+            sb.append('[').append(tag.getKey()).append(" \"");
+            String value = tag.getValue();
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    sb.append('\\');
+                }
+                sb.append(c);
+            }
+            sb.append("\"]\n");
+        }
+        sb.append('\n');
+
+        Board board = game.getStartBoard();
+        MoveList scratch = SCRATCH.get();
+        int lineStart = sb.length();
+        StringBuilder token = new StringBuilder(16);
+        int[] moves = game.getMoves();
+        for (int ply = 0; ply < moves.length; ply++) {
+            token.setLength(0);
+            if (board.getSideToMove() == Color.WHITE) {
+                token.append(board.getFullmoveNumber()).append(". ");
+            } else if (ply == 0) {
+                token.append(board.getFullmoveNumber()).append("... ");
+            }
+            San.append(board, moves[ply], scratch, token);
+            board.makeMove(moves[ply]);
+            lineStart = appendToken(sb, token, lineStart);
+        }
+        token.setLength(0);
+        token.append(game.getResult());
+        appendToken(sb, token, lineStart);
+        sb.append("\n\n");
+    }
+
+    /** Appends a token after a space, or on a new line if it would not fit; returns the line start. */
+    private static int appendToken(StringBuilder sb, CharSequence token, int lineStart) {
+        if (sb.length() > lineStart) {
+            if (sb.length() - lineStart + 1 + token.length() > MAX_LINE) {
+                sb.append('\n');
+                lineStart = sb.length();
+            } else {
+                sb.append(' ');
+            }
+        }
+        sb.append(token);
+        return lineStart;
+    }
+}
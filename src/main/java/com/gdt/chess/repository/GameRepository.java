@@ -1,27 +1,23 @@
 package com.gdt.chess.repository;
 
-import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-
-import org.springframework.stereotype.Repository;
 
 import com.gdt.chess.model.Game;
 
-@Repository
-public class GameRepository {
-    private final Map<String, Game> games = new ConcurrentHashMap<>();
+/**
+ * Storage for games. The implementation is chosen with the
+ * {@code chess.repository.type} property; every implementation keeps live
+ * games in memory, so {@link #findById} returns the shared instance that
+ * {@code ChessService} locks and mutates.
+ *
+ * {@link #save} is called after every accepted move, under the game's write
+ * lock, and must persist whatever changed since the previous save.
+ */
+public interface GameRepository {
 
-    public Game save(Game game) {
-        games.put(game.getId(), game);
-        return game;
-    }
+    Game save(Game game);
 
-    public Optional<Game> findById(String id) {
-        return Optional.ofNullable(games.get(id));
-    }
+    Optional<Game> findById(String id);
 
-    public void deleteById(String id) {
-        games.remove(id);
-    }
+    void deleteById(String id);
 }
@@ -0,0 +1,49 @@
+package com.gdt.chess.repository;
+
+import java.nio.ByteBuffer;
+
+import com.gdt.chess.model.Game;
+import com.gdt.chess.model.Game.GameStatus;
+import com.gdt.chess.model.MoveHistory;
+
+/**
+ * Compact form of a game that is not in use: the status, the Zobrist key of
+ * the current position and the {@link com.gdt.chess.model.PackedMove} of
+ * every ply, 2 bytes each. Every game starts from the start position, so the
+ * moves alone are enough to rebuild it, including its position keys and
+ * takeback stack; the key only checks the result.
+ */
+final class HibernatedGame {
+
+    private static final int HEADER_BYTES = 1 + 8;
+
+    private HibernatedGame() {
+    }
+
+    /** Call with the game's lock held, or on a game no other thread can see. */
+    static byte[] of(Game game) {
+        int moveCount = game.getMoveCount();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 2 * moveCount);
+        buffer.put((byte) game.getStatus().ordinal());
+        buffer.putLong(game.getZobristKey());
+        for (int ply = 0; ply < moveCount; ply++) {
+            buffer.putShort((short) MoveHistory.packedMove(game.getHistoryEntry(ply)));
+        }
+        return buffer.array();
+    }
+
+    static Game restore(String id, byte[] hibernated) {
+        ByteBuffer buffer = ByteBuffer.wrap(hibernated);
+        GameStatus status = GameStatus.values()[buffer.get()];
+        long zobristKey = buffer.getLong();
+        Game game = new Game(id);
+        while (buffer.hasRemaining()) {
+            game.makeMove(buffer.getShort() & 0xFFFF);
+        }
+        if (game.getZobristKey() != zobristKey) {
+            throw new IllegalStateException("Hibernated game " + id + " does not replay to its position");
+        }
+        game.setStatus(status);
+        return game;
+    }
+}
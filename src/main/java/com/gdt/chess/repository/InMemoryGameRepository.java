@@ -0,0 +1,380 @@
+package com.gdt.chess.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import com.gdt.chess.model.Game;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Games in memory and nowhere else; they are lost on restart. The default.
+ *
+ * At most {@code chess.cache.max-games} games are kept live. Beyond that, and
+ * once a game has not been used for {@code chess.cache.idle-timeout-ms}, the
+ * least recently used games are hibernated into a {@link HibernatedGame} of
+ * a few bytes per move, and {@link #findById} rebuilds them on demand. Live
+ * games are split over stripes, each an access-ordered map with its own
+ * lock, so eviction only ever looks at the oldest entries of a stripe.
+ *
+ * Hibernated games stay on the heap up to {@code chess.cache.max-hibernated-mb};
+ * games hibernated after that go to a {@link SpillStore} in
+ * {@code chess.cache.spill-dir} (a temporary directory if empty), so the heap
+ * stays bounded however many games there are.
+ */
+@Repository
+@ConditionalOnProperty(name = "chess.repository.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryGameRepository implements GameRepository, MeterBinder {
+
+    private static final int STRIPES = 16;
+    // Live games skipped per eviction because a writer holds them
+    private static final int MAX_BUSY_SKIPS = 4;
+    // Heap of a hibernated game besides its bytes: map node, id string and array header, roughly
+    private static final int ENTRY_OVERHEAD = 144;
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryGameRepository.class);
+
+    private static final class Resident {
+        final Game game;
+        long lastAccess;
+
+        Resident(Game game, long now) {
+            this.game = game;
+            this.lastAccess = now;
+        }
+    }
+
+    /** A share of the live games, least recently used first. */
+    private static final class Stripe {
+        final LinkedHashMap<String, Resident> games = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    @Value("${chess.cache.max-games:100000}")
+    private int maxGames;
+
+    @Value("${chess.cache.idle-timeout-ms:1800000}")
+    private long idleTimeoutMs;
+
+    @Value("${chess.cache.max-hibernated-mb:256}")
+    private long maxHibernatedMb;
+
+    @Value("${chess.cache.spill-dir:}")
+    private String spillDir;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    // Written only under the stripe lock of the game's id
+    private final Map<String, byte[]> hibernated = new ConcurrentHashMap<>();
+    private final LongAdder hibernatedBytes = new LongAdder();
+    private long maxHibernatedBytes;
+    // Created when the heap budget first runs out
+    private volatile SpillStore spill;
+    private Path spillDirectory;
+    private int stripeCapacity;
+    private ScheduledExecutorService sweeper;
+
+    public InMemoryGameRepository() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        stripeCapacity = Math.max(1, maxGames / STRIPES);
+        maxHibernatedBytes = maxHibernatedMb * 1024 * 1024;
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-cache-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = idleTimeoutMs > 0 ? Math.max(1000, idleTimeoutMs / 4) : 60_000;
+        sweeper.scheduleWithFixedDelay(this::sweep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        sweeper.shutdownNow();
+        SpillStore store = spill;
+        if (store != null) {
+            store.close();
+            if (spillDir.isBlank()) {
+                Files.deleteIfExists(spillDirectory);
+            }
+        }
+    }
+
+    @Override
+    public Game save(Game game) {
+        Stripe stripe = stripeOf(game.getId());
+        synchronized (stripe) {
+            Resident resident = stripe.games.get(game.getId());
+            if (resident == null || resident.game != game) {
+                stripe.games.put(game.getId(), new Resident(game, System.currentTimeMillis()));
+                forgetHibernated(game.getId());
+                evictOverCapacity(stripe);
+            } else {
+                resident.lastAccess = System.currentTimeMillis();
+            }
+        }
+        return game;
+    }
+
+    @Override
+    public Optional<Game> findById(String id) {
+        Stripe stripe = stripeOf(id);
+        while (true) {
+            byte[] bytes;
+            synchronized (stripe) {
+                Resident resident = stripe.games.get(id);
+                if (resident != null) {
+                    resident.lastAccess = System.currentTimeMillis();
+                    return Optional.of(resident.game);
+                }
+                bytes = hibernated.get(id);
+                if (bytes == null) {
+                    bytes = unspill(id);
+                }
+                if (bytes == null) {
+                    return Optional.empty();
+                }
+            }
+            // Replay outside the lock; only install the game if nobody changed it meanwhile
+            Game game = HibernatedGame.restore(id, bytes);
+            synchronized (stripe) {
+                if (!stripe.games.containsKey(id) && hibernated.get(id) == bytes) {
+                    stripe.games.put(id, new Resident(game, System.currentTimeMillis()));
+                    forgetHibernated(id);
+                    evictOverCapacity(stripe);
+                    return Optional.of(game);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void deleteById(String id) {
+        Stripe stripe = stripeOf(id);
+        synchronized (stripe) {
+            stripe.games.remove(id);
+            forgetHibernated(id);
+        }
+    }
+
+    /** Games in memory as live objects. */
+    public int getLiveCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                count += stripe.games.size();
+            }
+        }
+        return count;
+    }
+
+    /** Hibernated games on the heap and spilled together. */
+    public int getHibernatedCount() {
+        return hibernated.size() + getSpilledCount();
+    }
+
+    /** Size of the hibernated games on the heap together. */
+    public long getHibernatedBytes() {
+        return hibernatedBytes.sum();
+    }
+
+    /** Hibernated games in the spill files, off the heap. */
+    public int getSpilledCount() {
+        SpillStore store = spill;
+        return store == null ? 0 : store.size();
+    }
+
+    /** Size of the spilled games together. */
+    public long getSpilledBytes() {
+        SpillStore store = spill;
+        return store == null ? 0 : store.getBytes();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("chess.games.live", this, InMemoryGameRepository::getLiveCount)
+                .description("Games in memory as live objects")
+                .register(registry);
+        Gauge.builder("chess.games.hibernated", this, InMemoryGameRepository::getHibernatedCount)
+                .description("Games hibernated to a few bytes per move")
+                .register(registry);
+        Gauge.builder("chess.games.hibernated.bytes", this, InMemoryGameRepository::getHibernatedBytes)
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("chess.games.spilled", this, InMemoryGameRepository::getSpilledCount)
+                .description("Hibernated games kept off the heap")
+                .register(registry);
+        Gauge.builder("chess.games.spilled.bytes", this, InMemoryGameRepository::getSpilledBytes)
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private void sweep() {
+        if (idleTimeoutMs > 0) {
+            evictIdle();
+        }
+        SpillStore store = spill;
+        try {
+            if (store != null && store.compact()) {
+                log.debug("Compacted the spill file to {} bytes", store.getFileBytes());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Compacting the spill file failed", e);
+        }
+    }
+
+    /** Hibernates every game not used within the idle timeout. */
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMs;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                evict(stripe, resident -> resident.lastAccess <= cutoff);
+            }
+        }
+    }
+
+    private void evictOverCapacity(Stripe stripe) {
+        evict(stripe, resident -> stripe.games.size() > stripeCapacity);
+    }
+
+    private interface EvictionTest {
+        boolean shouldEvict(Resident eldest);
+    }
+
+    /**
+     * Hibernates the least recently used games of the stripe while the test
+     * holds for the eldest. A game whose lock is held is in use right now: it
+     * is skipped, and after a few of those eviction gives up until next time.
+     */
+    private void evict(Stripe stripe, EvictionTest test) {
+        int busy = 0;
+        Iterator<Map.Entry<String, Resident>> eldest = stripe.games.entrySet().iterator();
+        while (eldest.hasNext()) {
+            Map.Entry<String, Resident> entry = eldest.next();
+            if (!test.shouldEvict(entry.getValue())) {
+                return;
+            }
+            StampedLock lock = entry.getValue().game.getLock();
+            long stamp = lock.tryWriteLock();
+            if (stamp == 0) {
+                if (++busy > MAX_BUSY_SKIPS) {
+                    return;
+                }
+                continue;
+            }
+            try {
+                // Under the write lock, so that a writer that already found this game sees it is gone
+                byte[] bytes = HibernatedGame.of(entry.getValue().game);
+                UUID id = spillId(entry.getKey());
+                // Only UUID ids fit the spill index; others stay on the heap, over budget
+                if (id == null || hibernatedBytes.sum() + (long) (hibernated.size() + 1) * ENTRY_OVERHEAD
+                        + bytes.length <= maxHibernatedBytes) {
+                    hibernated.put(entry.getKey(), bytes);
+                    hibernatedBytes.add(bytes.length);
+                } else {
+                    spillStore().put(id.getMostSignificantBits(), id.getLeastSignificantBits(), bytes);
+                }
+                eldest.remove();
+            } catch (IOException e) {
+                // The game stays live; the cache runs over capacity rather than losing it
+                log.error("Spilling game {} failed", entry.getKey(), e);
+                return;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Moves a spilled game back to the heap, where {@link #findById} restores
+     * it like any other hibernated game, and returns its bytes; null if it is
+     * not spilled. Call with the stripe lock of the id held.
+     */
+    private byte[] unspill(String id) {
+        SpillStore store = spill;
+        UUID uuid = spillId(id);
+        if (store == null || uuid == null) {
+            return null;
+        }
+        try {
+            byte[] bytes = store.get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            if (bytes != null) {
+                store.remove(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+                hibernated.put(id, bytes);
+                hibernatedBytes.add(bytes.length);
+            }
+            return bytes;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read spilled game " + id, e);
+        }
+    }
+
+    /** Call with the stripe lock of the id held. */
+    private void forgetHibernated(String id) {
+        byte[] bytes = hibernated.remove(id);
+        if (bytes != null) {
+            hibernatedBytes.add(-bytes.length);
+            return;
+        }
+        SpillStore store = spill;
+        UUID uuid = spillId(id);
+        if (store != null && uuid != null) {
+            store.remove(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        }
+    }
+
+    /**
+     * The id as a UUID for the spill index, or null if it is not one, e.g. an
+     * id a client made up: such a game is never spilled. Only the canonical
+     * form counts, as UUID.fromString also takes others that would share a key.
+     */
+    private static UUID spillId(String id) {
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private synchronized SpillStore spillStore() throws IOException {
+        if (spill == null) {
+            spillDirectory = spillDir.isBlank() ? Files.createTempDirectory("chess-spill") : Path.of(spillDir);
+            spill = new SpillStore(spillDirectory);
+            log.info("Hibernated games over {} MB of heap spill to {}", maxHibernatedMb, spillDirectory);
+        }
+        return spill;
+    }
+
+    private Stripe stripeOf(String id) {
+        int hash = id.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+}
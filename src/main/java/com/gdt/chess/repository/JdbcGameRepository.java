@@ -0,0 +1,438 @@
+package com.gdt.chess.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.gdt.chess.model.Game;
+import com.gdt.chess.model.Game.GameStatus;
+import com.gdt.chess.model.MoveHistory;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Games kept in memory and written behind to the {@code games} and
+ * {@code moves} tables of the configured datasource (see schema.sql).
+ *
+ * A save only marks the game dirty and queues it once; a single writer
+ * thread collects dirty games for {@code flush-interval-ms}, then writes up
+ * to {@code batch-size} of them in one transaction: the new moves as a batch
+ * insert and the status and move count as a batch update. A game saved many
+ * times in one interval is written once. The queue is bounded by
+ * {@code queue-capacity}; when the database falls behind and it fills up,
+ * saves block until the writer catches up.
+ *
+ * Games not in memory, e.g. after a restart, are loaded by {@link #findById}
+ * and rebuilt by replaying their moves. Deletes are written behind like
+ * saves, whether or not the game is in memory, and until one commits
+ * {@link #findById} treats the game as gone.
+ */
+@Repository
+@ConditionalOnProperty(name = "chess.repository.type", havingValue = "jdbc")
+public class JdbcGameRepository implements GameRepository, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcGameRepository.class);
+
+    private static final class Entry {
+        final Game game;
+        // Guarded by the entry: in the queue, and the plies the database already matches
+        boolean queued;
+        int cleanPly;
+        boolean deleted;
+        // Writer thread only: what the database holds
+        boolean stored;
+        int storedPly;
+        GameStatus storedStatus;
+
+        Entry(Game game) {
+            this.game = game;
+        }
+    }
+
+    /** What the writer takes from a dirty game, under the game's read lock. */
+    private static final class Change {
+        final Entry entry;
+        final int fromPly;
+        final int[] moves;
+        final GameStatus status;
+        final boolean delete;
+
+        Change(Entry entry, int fromPly, int[] moves, GameStatus status, boolean delete) {
+            this.entry = entry;
+            this.fromPly = fromPly;
+            this.moves = moves;
+            this.status = status;
+            this.delete = delete;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${chess.jdbc.batch-size:500}")
+    private int batchSize;
+
+    @Value("${chess.jdbc.flush-interval-ms:50}")
+    private long flushIntervalMs;
+
+    @Value("${chess.jdbc.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private final Map<String, Entry> games = new ConcurrentHashMap<>();
+    // Deleted in memory but maybe not yet in the database; findById must not load them back
+    private final Set<String> pendingDeletes = ConcurrentHashMap.newKeySet();
+    private BlockingQueue<Entry> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    private final AtomicLong backpressureWaits = new AtomicLong();
+    private volatile long flushes;
+    private volatile long writtenMoves;
+    private volatile int lastBatchSize;
+    private volatile long lastFlushMillis;
+    private volatile long maxFlushMillis;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = new Thread(this::writeBehind, "jdbc-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Stops accepting work and writes everything still queued. */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // No interrupt: an interrupted thread can make a JDBC driver close its connection
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    @Override
+    public Game save(Game game) {
+        Entry entry = games.computeIfAbsent(game.getId(), id -> new Entry(game));
+        synchronized (entry) {
+            // A takeback invalidates the stored moves after it
+            entry.cleanPly = Math.min(entry.cleanPly, entry.game.getMoveCount());
+            if (entry.queued) {
+                return entry.game;
+            }
+            entry.queued = true;
+        }
+        enqueue(entry);
+        return entry.game;
+    }
+
+    @Override
+    public Optional<Game> findById(String id) {
+        Entry entry = games.get(id);
+        if (entry != null) {
+            return Optional.of(entry.game);
+        }
+        if (pendingDeletes.contains(id)) {
+            return Optional.empty();
+        }
+        Optional<Entry> loaded = load(id);
+        if (loaded.isEmpty()) {
+            return Optional.empty();
+        }
+        entry = games.computeIfAbsent(id, key -> loaded.get());
+        // A delete that came in while we were loading may have missed this entry
+        if (pendingDeletes.contains(id)) {
+            games.remove(id, entry);
+            return Optional.empty();
+        }
+        return Optional.of(entry.game);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        // Marked first, so that findById cannot load the game back in between; cleared once the delete commits
+        pendingDeletes.add(id);
+        Entry entry = games.remove(id);
+        if (entry == null) {
+            // Not in memory, but perhaps in the database: delete it there all the same
+            entry = new Entry(new Game(id));
+        }
+        synchronized (entry) {
+            entry.deleted = true;
+            if (entry.queued) {
+                return;
+            }
+            entry.queued = true;
+        }
+        enqueue(entry);
+    }
+
+    /** Games waiting to be written. */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /** Saves that had to wait because the queue was full. */
+    public long getBackpressureWaits() {
+        return backpressureWaits.get();
+    }
+
+    /** Transactions written so far. */
+    public long getFlushes() {
+        return flushes;
+    }
+
+    /** Move rows inserted so far. */
+    public long getWrittenMoves() {
+        return writtenMoves;
+    }
+
+    /** Games written by the last transaction. */
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    public long getLastFlushMillis() {
+        return lastFlushMillis;
+    }
+
+    public long getMaxFlushMillis() {
+        return maxFlushMillis;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("chess.games.live", games, Map::size)
+                .description("Games in memory as live objects")
+                .register(registry);
+        Gauge.builder("chess.jdbc.queue.depth", this, JdbcGameRepository::getQueueDepth)
+                .description("Games waiting to be written")
+                .register(registry);
+        FunctionCounter.builder("chess.jdbc.backpressure.waits", this, JdbcGameRepository::getBackpressureWaits)
+                .description("Saves that waited because the write queue was full")
+                .register(registry);
+        FunctionCounter.builder("chess.jdbc.flushes", this, JdbcGameRepository::getFlushes)
+                .register(registry);
+        FunctionCounter.builder("chess.jdbc.moves.written", this, JdbcGameRepository::getWrittenMoves)
+                .register(registry);
+        Gauge.builder("chess.jdbc.batch.size", this, JdbcGameRepository::getLastBatchSize)
+                .description("Games written by the last transaction")
+                .register(registry);
+        Gauge.builder("chess.jdbc.flush.last", this, JdbcGameRepository::getLastFlushMillis)
+                .baseUnit("milliseconds")
+                .register(registry);
+        Gauge.builder("chess.jdbc.flush.max", this, JdbcGameRepository::getMaxFlushMillis)
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    private void enqueue(Entry entry) {
+        if (queue.offer(entry)) {
+            return;
+        }
+        backpressureWaits.incrementAndGet();
+        try {
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the game store", e);
+        }
+    }
+
+    private Optional<Entry> load(String id) {
+        List<String> status = jdbcTemplate.queryForList("SELECT status FROM games WHERE id = ?", String.class, id);
+        if (status.isEmpty()) {
+            return Optional.empty();
+        }
+        List<Integer> moves = jdbcTemplate.queryForList(
+                "SELECT entry FROM moves WHERE game_id = ? ORDER BY ply", Integer.class, id);
+        Game game = new Game(id);
+        for (int entry : moves) {
+            game.makeMove(MoveHistory.packedMove(entry));
+        }
+        game.setStatus(GameStatus.valueOf(status.get(0)));
+
+        Entry entry = new Entry(game);
+        entry.cleanPly = moves.size();
+        entry.stored = true;
+        entry.storedPly = moves.size();
+        entry.storedStatus = game.getStatus();
+        return Optional.of(entry);
+    }
+
+    private void writeBehind() {
+        // Games to write next; after a failed transaction, the same games again
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            if (batch.isEmpty()) {
+                Entry first = pollQuietly();
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Let saves pile up for one interval, so that busy games are written once per interval
+                if (running && queue.size() + 1 < batchSize) {
+                    sleepQuietly(flushIntervalMs);
+                }
+            }
+            queue.drainTo(batch, batchSize - batch.size());
+
+            List<Change> changes = new ArrayList<>(batch.size());
+            for (Entry entry : batch) {
+                changes.add(takeChange(entry));
+            }
+            batch.clear();
+            try {
+                write(changes);
+            } catch (RuntimeException e) {
+                if (!running) {
+                    log.error("Giving up on {} unwritten games at shutdown", changes.size(), e);
+                    return;
+                }
+                log.error("Writing {} games failed, retrying", changes.size(), e);
+                for (Change change : changes) {
+                    retry(change, batch);
+                }
+                sleepQuietly(flushIntervalMs * 10);
+            }
+        }
+    }
+
+    /** Marks the change unwritten again and puts its game back in {@code batch}, unless it is queued anyway. */
+    private static void retry(Change change, List<Entry> batch) {
+        Entry entry = change.entry;
+        synchronized (entry) {
+            entry.cleanPly = Math.min(entry.cleanPly, change.fromPly);
+            if (!entry.queued) {
+                entry.queued = true;
+                batch.add(entry);
+            }
+        }
+    }
+
+    private Change takeChange(Entry entry) {
+        Game game = entry.game;
+        long stamp = game.getLock().readLock();
+        try {
+            synchronized (entry) {
+                entry.queued = false;
+                if (entry.deleted) {
+                    return new Change(entry, 0, new int[0], null, true);
+                }
+                int fromPly = entry.cleanPly;
+                int moveCount = game.getMoveCount();
+                int[] moves = new int[Math.max(0, moveCount - fromPly)];
+                for (int i = 0; i < moves.length; i++) {
+                    moves[i] = game.getHistoryEntry(fromPly + i);
+                }
+                entry.cleanPly = moveCount;
+                return new Change(entry, fromPly, moves, game.getStatus(), false);
+            }
+        } finally {
+            game.getLock().unlockRead(stamp);
+        }
+    }
+
+    private void write(List<Change> changes) {
+        long start = System.nanoTime();
+        List<Object[]> insertGames = new ArrayList<>();
+        List<Object[]> updateGames = new ArrayList<>();
+        List<Object[]> deleteGames = new ArrayList<>();
+        List<Object[]> deleteMoves = new ArrayList<>();
+        List<Object[]> insertMoves = new ArrayList<>();
+        for (Change change : changes) {
+            Entry entry = change.entry;
+            String id = entry.game.getId();
+            if (change.delete) {
+                deleteGames.add(new Object[] { id });
+                continue;
+            }
+            int moveCount = change.fromPly + change.moves.length;
+            if (change.fromPly < entry.storedPly) {
+                deleteMoves.add(new Object[] { id, change.fromPly });
+            }
+            for (int i = 0; i < change.moves.length; i++) {
+                insertMoves.add(new Object[] { id, change.fromPly + i, change.moves[i] });
+            }
+            Object[] row = { change.status.name(), moveCount, id };
+            if (!entry.stored) {
+                insertGames.add(row);
+            } else if (moveCount != entry.storedPly || change.status != entry.storedStatus) {
+                updateGames.add(row);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            batch("DELETE FROM moves WHERE game_id = ?", deleteGames);
+            batch("DELETE FROM games WHERE id = ?", deleteGames);
+            batch("DELETE FROM moves WHERE game_id = ? AND ply >= ?", deleteMoves);
+            batch("INSERT INTO games (status, move_count, id) VALUES (?, ?, ?)", insertGames);
+            batch("UPDATE games SET status = ?, move_count = ? WHERE id = ?", updateGames);
+            batch("INSERT INTO moves (game_id, ply, entry) VALUES (?, ?, ?)", insertMoves);
+        });
+
+        // Committed: the database now holds these changes
+        for (Change change : changes) {
+            Entry entry = change.entry;
+            if (change.delete) {
+                pendingDeletes.remove(entry.game.getId());
+            } else {
+                entry.stored = true;
+                entry.storedPly = change.fromPly + change.moves.length;
+                entry.storedStatus = change.status;
+            }
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000L;
+        flushes++;
+        writtenMoves += insertMoves.size();
+        lastBatchSize = changes.size();
+        lastFlushMillis = millis;
+        maxFlushMillis = Math.max(maxFlushMillis, millis);
+        log.debug("Wrote {} games, {} moves in {} ms, {} queued", changes.size(), insertMoves.size(), millis, queue.size());
+    }
+
+    private void batch(String sql, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, rows);
+        }
+    }
+
+    private Entry pollQuietly() {
+        try {
+            return queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
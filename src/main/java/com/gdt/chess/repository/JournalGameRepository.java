@@ -0,0 +1,383 @@
+package com.gdt.chess.repository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import com.gdt.chess.model.Game;
+import com.gdt.chess.model.MoveHistory;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Games kept in memory and made durable by a {@link MoveJournal}.
+ *
+ * Every save appends the moves played since the previous save; the journal
+ * is fsynced in the background every {@code fsync-interval-ms}, so a save
+ * never waits for the disk and at most that window of moves is lost if the
+ * machine (not just the process) crashes. Periodic snapshots hold the full
+ * move list of every live game and let older journal segments be deleted.
+ *
+ * On startup the newest snapshot and the journal after it are read in one
+ * sequential pass into per-game move lists, and the games are then rebuilt by
+ * replaying their moves in parallel. Replaying, rather than restoring a
+ * stored board, also rebuilds each game's position keys and takeback stack.
+ * The rules give a replayed game its status, except for a draw declared
+ * outside them, e.g. by the tablebases: a DRAW record, and a flag in the
+ * snapshot, keep that.
+ */
+@Repository
+@ConditionalOnProperty(name = "chess.repository.type", havingValue = "journal")
+public class JournalGameRepository implements GameRepository, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalGameRepository.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x43534E50; // "CSNP"
+    // Version 2 added the drawn flag after each game's moves
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    private static final class Entry {
+        final Game game;
+        final long idHigh;
+        final long idLow;
+        // Moves already in the journal; only touched under the game's write lock
+        int journaledPly;
+        // Whether the journal has the game drawn at journaledPly; likewise
+        boolean journaledDraw;
+
+        Entry(Game game, UUID id) {
+            this.game = game;
+            this.idHigh = id.getMostSignificantBits();
+            this.idLow = id.getLeastSignificantBits();
+        }
+    }
+
+    private final Path directory;
+    private final long fsyncIntervalMs;
+    private final long snapshotIntervalMs;
+    private final MoveJournal journal;
+    private final Map<String, Entry> games = new ConcurrentHashMap<>();
+    private ScheduledExecutorService background;
+
+    @Autowired
+    public JournalGameRepository(
+            @Value("${chess.journal.dir:data/journal}") String directory,
+            @Value("${chess.journal.segment-size-mb:64}") int segmentSizeMb,
+            @Value("${chess.journal.fsync-interval-ms:10}") long fsyncIntervalMs,
+            @Value("${chess.journal.snapshot-interval-ms:300000}") long snapshotIntervalMs) {
+        this(Paths.get(directory), segmentSizeMb * 1024 * 1024, fsyncIntervalMs, snapshotIntervalMs);
+    }
+
+    public JournalGameRepository(Path directory, int segmentBytes, long fsyncIntervalMs, long snapshotIntervalMs) {
+        this.directory = directory;
+        this.fsyncIntervalMs = fsyncIntervalMs;
+        this.snapshotIntervalMs = snapshotIntervalMs;
+        this.journal = new MoveJournal(directory, segmentBytes);
+    }
+
+    /** Recovers all games and starts the background fsync and snapshot tasks. */
+    @PostConstruct
+    public void open() throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        Map<UUID, MoveHistory> moves = new HashMap<>();
+        Map<UUID, Integer> draws = new HashMap<>();
+        long fromSequence = readLatestSnapshot(moves, draws);
+        journal.open(fromSequence, (type, idHigh, idLow, ply, payload) -> apply(moves, draws, type, new UUID(idHigh, idLow), ply, payload));
+
+        List<Map.Entry<UUID, MoveHistory>> recovered = new ArrayList<>(moves.entrySet());
+        recovered.parallelStream().forEach(recoveredGame -> {
+            Game game = new Game(recoveredGame.getKey().toString());
+            MoveHistory history = recoveredGame.getValue();
+            for (int ply = 0; ply < history.size(); ply++) {
+                game.makeMove(MoveHistory.packedMove(history.get(ply)));
+            }
+            Entry entry = new Entry(game, recoveredGame.getKey());
+            entry.journaledPly = history.size();
+            if (draws.getOrDefault(recoveredGame.getKey(), -1) == history.size()) {
+                game.setStatus(Game.GameStatus.DRAW);
+                entry.journaledDraw = true;
+            }
+            games.put(game.getId(), entry);
+        });
+        log.info("Recovered {} games from {} in {} ms", games.size(), directory, (System.nanoTime() - start) / 1_000_000L);
+
+        background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        background.scheduleWithFixedDelay(this::flushQuietly, fsyncIntervalMs, fsyncIntervalMs, TimeUnit.MILLISECONDS);
+        if (snapshotIntervalMs > 0) {
+            background.scheduleWithFixedDelay(this::snapshotQuietly, snapshotIntervalMs, snapshotIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Stops the background tasks, then writes a final snapshot so the next start replays little. */
+    @PreDestroy
+    public void close() throws IOException {
+        if (background != null) {
+            background.shutdown();
+            try {
+                background.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        snapshot();
+        journal.close();
+    }
+
+    @Override
+    public Game save(Game game) {
+        Entry entry = games.get(game.getId());
+        if (entry == null) {
+            entry = new Entry(game, UUID.fromString(game.getId()));
+            Entry existing = games.putIfAbsent(game.getId(), entry);
+            if (existing != null) {
+                entry = existing;
+            } else {
+                journal.append(MoveJournal.CREATE, entry.idHigh, entry.idLow, 0, 0);
+            }
+        }
+        int moveCount = entry.game.getMoveCount();
+        if (moveCount < entry.journaledPly) {
+            journal.append(MoveJournal.TRUNCATE, entry.idHigh, entry.idLow, moveCount, 0);
+            entry.journaledPly = moveCount;
+            entry.journaledDraw = false;
+        }
+        for (int ply = entry.journaledPly; ply < moveCount; ply++) {
+            journal.append(MoveJournal.MOVE, entry.idHigh, entry.idLow, ply, entry.game.getHistoryEntry(ply));
+            entry.journaledDraw = false;
+        }
+        entry.journaledPly = moveCount;
+        // Draws by rule are journaled too: telling them apart would cost a check of the rules on every save
+        if (entry.game.getStatus() == Game.GameStatus.DRAW && !entry.journaledDraw) {
+            journal.append(MoveJournal.DRAW, entry.idHigh, entry.idLow, moveCount, 0);
+            entry.journaledDraw = true;
+        }
+        return entry.game;
+    }
+
+    @Override
+    public Optional<Game> findById(String id) {
+        Entry entry = games.get(id);
+        return entry == null ? Optional.empty() : Optional.of(entry.game);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        Entry entry = games.remove(id);
+        if (entry != null) {
+            journal.append(MoveJournal.DELETE, entry.idHigh, entry.idLow, 0, 0);
+        }
+    }
+
+    public int getGameCount() {
+        return games.size();
+    }
+
+    public long getAppendedRecords() {
+        return journal.getAppendedRecords();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("chess.games.live", this, JournalGameRepository::getGameCount)
+                .description("Games in memory as live objects")
+                .register(registry);
+        FunctionCounter.builder("chess.journal.records", this, JournalGameRepository::getAppendedRecords)
+                .description("Records appended to the move journal")
+                .register(registry);
+    }
+
+    /**
+     * Writes a snapshot of every game and deletes the journal segments it
+     * covers. Appends carry on meanwhile: the journal is rolled first, so any
+     * move not in the snapshot is in the new segment, and replay skips the
+     * moves that are in both.
+     */
+    public void snapshot() throws IOException {
+        long sequence = journal.roll();
+        Path temporary = directory.resolve(SNAPSHOT_PREFIX + sequence + ".tmp");
+        int count = 0;
+        try (CheckedOutputStream checked = new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16), new CRC32C());
+                DataOutputStream out = new DataOutputStream(checked)) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(sequence);
+            for (Entry entry : games.values()) {
+                Game copy = entry.game.snapshot();
+                out.writeBoolean(true);
+                out.writeLong(entry.idHigh);
+                out.writeLong(entry.idLow);
+                out.writeInt(copy.getMoveCount());
+                for (int ply = 0; ply < copy.getMoveCount(); ply++) {
+                    out.writeInt(copy.getHistoryEntry(ply));
+                }
+                out.writeBoolean(copy.getStatus() == Game.GameStatus.DRAW);
+                count++;
+            }
+            out.writeBoolean(false);
+            out.flush();
+            out.writeInt((int) checked.getChecksum().getValue());
+        }
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Path target = directory.resolve(SNAPSHOT_PREFIX + String.format("%012d", sequence) + SNAPSHOT_SUFFIX);
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+
+        // The snapshot is durable: older snapshots and segments are no longer needed
+        for (Path old : snapshotFiles()) {
+            if (!old.equals(target)) {
+                Files.deleteIfExists(old);
+            }
+        }
+        journal.deleteBefore(sequence);
+        log.info("Snapshot of {} games written to {}", count, target);
+    }
+
+    /**
+     * Loads the newest snapshot into {@code moves}, and the move counts at
+     * which games were drawn into {@code draws}; returns the first journal
+     * segment after it.
+     */
+    private long readLatestSnapshot(Map<UUID, MoveHistory> moves, Map<UUID, Integer> draws) throws IOException {
+        List<Path> snapshots = snapshotFiles();
+        if (snapshots.isEmpty()) {
+            return 0;
+        }
+        Path latest = snapshots.get(snapshots.size() - 1);
+        try (CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(latest), 1 << 16), new CRC32C());
+                DataInputStream in = new DataInputStream(checked)) {
+            int version = in.readInt() == SNAPSHOT_MAGIC ? in.readInt() : -1;
+            if (version < 1 || version > SNAPSHOT_VERSION) {
+                throw new IOException("Not a game snapshot: " + latest);
+            }
+            long sequence = in.readLong();
+            while (in.readBoolean()) {
+                UUID id = new UUID(in.readLong(), in.readLong());
+                int count = in.readInt();
+                MoveHistory history = new MoveHistory(count);
+                for (int ply = 0; ply < count; ply++) {
+                    history.add(in.readInt());
+                }
+                moves.put(id, history);
+                if (version >= 2 && in.readBoolean()) {
+                    draws.put(id, count);
+                }
+            }
+            int expected = (int) checked.getChecksum().getValue();
+            if (in.readInt() != expected) {
+                throw new IOException("Corrupt game snapshot: " + latest);
+            }
+            return sequence;
+        }
+    }
+
+    private static void apply(Map<UUID, MoveHistory> moves, Map<UUID, Integer> draws, byte type, UUID id, int ply,
+            int payload) {
+        switch (type) {
+            case MoveJournal.CREATE:
+                moves.putIfAbsent(id, new MoveHistory());
+                break;
+            case MoveJournal.MOVE: {
+                MoveHistory history = moves.get(id);
+                // Moves up to the snapshot appear in both; anything else out of order is a gap
+                if (history != null && ply == history.size()) {
+                    history.add(payload);
+                    draws.remove(id);
+                } else if (history != null && ply > history.size()) {
+                    log.warn("Journal gap in game {} at ply {}", id, ply);
+                }
+                break;
+            }
+            case MoveJournal.TRUNCATE: {
+                MoveHistory history = moves.get(id);
+                while (history != null && history.size() > ply) {
+                    history.removeLast();
+                    draws.remove(id);
+                }
+                break;
+            }
+            case MoveJournal.DRAW:
+                // Holds only while the game stays at this ply; replay checks that at the end
+                if (moves.containsKey(id)) {
+                    draws.put(id, ply);
+                }
+                break;
+            case MoveJournal.DELETE:
+                moves.remove(id);
+                draws.remove(id);
+                break;
+            default:
+                log.warn("Unknown journal record type {}", type);
+        }
+    }
+
+    private List<Path> snapshotFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+        return files;
+    }
+
+    private void flushQuietly() {
+        try {
+            // Map the next segment here, so saves never wait for a file to be created
+            journal.prepareSegment();
+            journal.flush();
+        } catch (IOException | RuntimeException e) {
+            log.error("Journal fsync failed", e);
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Game snapshot failed", e);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.gdt.chess.repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of fixed-size records in memory-mapped segment files.
+ *
+ * A record is 32 bytes: type (1 byte, then 3 reserved), ply (int), game id as
+ * the two halves of a UUID (2 longs), payload (int) and a CRC32C of the first
+ * 28 bytes. Segments are pre-sized files named by an increasing sequence
+ * number; unused space is zero, and a zero type or bad checksum marks the end
+ * of the data.
+ *
+ * {@link #append} only copies the record into the mapping. Nothing reaches
+ * the disk until {@link #flush()}, which a background thread calls to commit
+ * every record appended since the previous flush with one fsync. The same
+ * thread calls {@link #prepareSegment()} to create and map the next segment
+ * ahead of time, so a full segment is replaced by swapping a reference; if
+ * appends outrun it, records wait in memory, in order, until it catches up.
+ */
+public final class MoveJournal implements AutoCloseable {
+
+    public static final int RECORD_BYTES = 32;
+
+    public static final byte CREATE = 1;
+    public static final byte MOVE = 2;
+    public static final byte DELETE = 3;
+    /** The game was taken back to {@code ply} moves. */
+    public static final byte TRUNCATE = 4;
+    /** The game was declared drawn at {@code ply} moves, which replaying them would not show. */
+    public static final byte DRAW = 5;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /** Receives the records of a segment in order. */
+    @FunctionalInterface
+    public interface RecordHandler {
+        void record(byte type, long idHigh, long idLow, int ply, int payload);
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+
+    private final ByteBuffer scratch = ByteBuffer.allocate(RECORD_BYTES);
+    private final CRC32C crc = new CRC32C();
+
+    private long segmentSequence;
+    private MappedByteBuffer segment;
+    // The segment after the current one, mapped ahead by prepareSegment(), or null
+    private MappedByteBuffer spare;
+    // Records appended while neither segment had room, oldest first
+    private byte[] overflow = new byte[0];
+    private int overflowBytes;
+    // Full segments not yet forced to disk by flush()
+    private final List<MappedByteBuffer> retired = new ArrayList<>();
+    private volatile boolean dirty;
+    private long appendedRecords;
+
+    public MoveJournal(Path directory, int segmentBytes) {
+        if (segmentBytes < RECORD_BYTES || segmentBytes % RECORD_BYTES != 0) {
+            throw new IllegalArgumentException("Segment size must be a multiple of " + RECORD_BYTES + ": " + segmentBytes);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * Replays every record in segments numbered {@code fromSequence} and up,
+     * then starts a fresh segment to append to. Appending never resumes in an
+     * old segment, where a crash may have left torn records behind the last
+     * valid one.
+     */
+    public synchronized void open(long fromSequence, RecordHandler handler) throws IOException {
+        Files.createDirectories(directory);
+        long last = fromSequence - 1;
+        for (long sequence : segmentSequences()) {
+            if (sequence < fromSequence) {
+                continue;
+            }
+            last = sequence;
+            try (FileChannel channel = FileChannel.open(segmentPath(sequence), StandardOpenOption.READ)) {
+                replay(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), handler);
+            }
+        }
+        segmentSequence = last + 1;
+        segment = map(segmentSequence);
+        spare = map(segmentSequence + 1);
+    }
+
+    /**
+     * Appends a record. Never touches the file system: a full segment is
+     * replaced by the spare, and without a spare the record is held in memory
+     * until {@link #prepareSegment()} has mapped one.
+     */
+    public synchronized void append(byte type, long idHigh, long idLow, int ply, int payload) {
+        scratch.clear();
+        scratch.put(type).put((byte) 0).put((byte) 0).put((byte) 0)
+                .putInt(ply).putLong(idHigh).putLong(idLow).putInt(payload);
+        crc.reset();
+        crc.update(scratch.array(), 0, RECORD_BYTES - 4);
+        scratch.putInt((int) crc.getValue());
+        // Behind held records, a record must wait its turn too
+        if (overflowBytes == 0 && (segment.remaining() >= RECORD_BYTES || nextSegment())) {
+            segment.put(scratch.array(), 0, RECORD_BYTES);
+        } else {
+            if (overflowBytes == overflow.length) {
+                overflow = Arrays.copyOf(overflow, Math.max(64 * RECORD_BYTES, 2 * overflow.length));
+            }
+            System.arraycopy(scratch.array(), 0, overflow, overflowBytes, RECORD_BYTES);
+            overflowBytes += RECORD_BYTES;
+        }
+        appendedRecords++;
+        dirty = true;
+    }
+
+    /**
+     * Writes records held in memory into the segments and makes sure a spare
+     * segment is mapped, creating files as needed. Called by the background
+     * thread; appends carry on while it creates and maps a file.
+     */
+    public void prepareSegment() throws IOException {
+        while (true) {
+            long next;
+            synchronized (this) {
+                drainOverflow();
+                if (spare != null) {
+                    return;
+                }
+                next = segmentSequence + 1;
+            }
+            MappedByteBuffer mapped = map(next);
+            synchronized (this) {
+                // Another caller may have got there first; then this mapping is simply dropped
+                if (spare == null && segmentSequence + 1 == next) {
+                    spare = mapped;
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts a new segment and returns its sequence number. Records appended
+     * from now on are all in that segment or later ones.
+     */
+    public long roll() throws IOException {
+        long sequence = -1;
+        while (sequence < 0) {
+            prepareSegment();
+            synchronized (this) {
+                if (overflowBytes == 0 && nextSegment()) {
+                    sequence = segmentSequence;
+                }
+            }
+        }
+        // And a spare after the new one
+        prepareSegment();
+        return sequence;
+    }
+
+    /** Records held in memory because no segment had room; they are not in any file yet. */
+    public synchronized int getOverflowRecords() {
+        return overflowBytes / RECORD_BYTES;
+    }
+
+    /** Forces everything appended so far to disk. Returns false if there was nothing to write. */
+    public boolean flush() {
+        List<MappedByteBuffer> toForce;
+        MappedByteBuffer current;
+        synchronized (this) {
+            if (!dirty && retired.isEmpty()) {
+                return false;
+            }
+            dirty = false;
+            toForce = new ArrayList<>(retired);
+            retired.clear();
+            current = segment;
+        }
+        // msync outside the lock, so appends carry on while the disk catches up
+        for (MappedByteBuffer buffer : toForce) {
+            buffer.force();
+        }
+        current.force();
+        return true;
+    }
+
+    /** Deletes the segments numbered below {@code sequence}, e.g. once a snapshot covers them. */
+    public void deleteBefore(long sequence) throws IOException {
+        for (long old : segmentSequences()) {
+            if (old < sequence) {
+                Files.deleteIfExists(segmentPath(old));
+            }
+        }
+    }
+
+    public synchronized long getAppendedRecords() {
+        return appendedRecords;
+    }
+
+    public synchronized long getSegmentSequence() {
+        return segmentSequence;
+    }
+
+    @Override
+    public void close() {
+        if (segment != null) {
+            flush();
+        }
+    }
+
+    /** Retires the current segment for the spare; false if there is no spare yet. Holds the monitor. */
+    private boolean nextSegment() {
+        if (spare == null) {
+            return false;
+        }
+        retired.add(segment);
+        segment = spare;
+        spare = null;
+        segmentSequence++;
+        return true;
+    }
+
+    /** Copies held records into the segments while there is room. Holds the monitor. */
+    private void drainOverflow() {
+        int offset = 0;
+        while (offset < overflowBytes && (segment.remaining() >= RECORD_BYTES || nextSegment())) {
+            int length = Math.min(overflowBytes - offset, segment.remaining() / RECORD_BYTES * RECORD_BYTES);
+            segment.put(overflow, offset, length);
+            offset += length;
+        }
+        overflowBytes -= offset;
+        if (overflowBytes == 0) {
+            overflow = new byte[0];
+        } else {
+            System.arraycopy(overflow, offset, overflow, 0, overflowBytes);
+        }
+    }
+
+    private void replay(ByteBuffer buffer, RecordHandler handler) {
+        byte[] record = new byte[RECORD_BYTES];
+        ByteBuffer view = ByteBuffer.wrap(record);
+        CRC32C check = new CRC32C();
+        int offset = 0;
+        while (offset + RECORD_BYTES <= buffer.limit()) {
+            buffer.get(offset, record);
+            check.reset();
+            check.update(record, 0, RECORD_BYTES - 4);
+            // A zero type is unused space; a bad checksum is a record torn by a crash
+            if (record[0] == 0 || view.getInt(RECORD_BYTES - 4) != (int) check.getValue()) {
+                break;
+            }
+            handler.record(record[0], view.getLong(8), view.getLong(16), view.getInt(4), view.getInt(24));
+            offset += RECORD_BYTES;
+        }
+    }
+
+    private MappedByteBuffer map(long sequence) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(sequence),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    private List<Long> segmentSequences() throws IOException {
+        List<Long> sequences = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                sequences.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        sequences.sort(null);
+        return sequences;
+    }
+
+    private Path segmentPath(long sequence) {
+        return directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+    }
+}
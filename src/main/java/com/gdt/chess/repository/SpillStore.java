@@ -0,0 +1,265 @@
+package com.gdt.chess.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Hibernated games kept off the heap, for {@link InMemoryGameRepository}
+ * once its heap budget for them is spent.
+ *
+ * The bytes of each game are appended to a data file and read back with
+ * positional reads. The index from game id to record is an open-addressing
+ * hash table in a memory-mapped file, so neither part grows the heap however
+ * many games there are. A slot is 24 bytes: the game id as the two halves of
+ * a UUID, then the record's offset in the data file (40 bits) and length (24
+ * bits); a location of 0 marks a free slot and -1 a removed game. Replacing
+ * or removing a game leaves its old record behind as garbage, which
+ * {@link #compact()} reclaims once it outweighs the live records.
+ *
+ * The files are scratch space, deleted on {@link #close()}.
+ */
+final class SpillStore implements Closeable {
+
+    private static final int SLOT_BYTES = 24;
+    private static final long FREE = 0L;
+    private static final long REMOVED = -1L;
+    private static final int LENGTH_BITS = 24;
+    private static final int MIN_SLOTS = 1 << 12;
+    // A mapping holds at most 2 GB
+    private static final int MAX_SLOTS = 1 << 26;
+    // Garbage below this is not worth a rewrite
+    private static final long MIN_COMPACT_BYTES = 1L << 20;
+
+    private final Path directory;
+    private int generation;
+    private Path dataPath;
+    private FileChannel data;
+    private long dataBytes;
+    private long liveBytes;
+    private Path indexPath;
+    private MappedByteBuffer index;
+    private int slots;
+    private int used;
+    private int removed;
+
+    SpillStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        dataPath = nextPath(".dat");
+        data = FileChannel.open(dataPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        indexPath = nextPath(".idx");
+        slots = MIN_SLOTS;
+        index = mapIndex(indexPath, slots);
+    }
+
+    /** Stores the bytes of a game, replacing any stored before. */
+    synchronized void put(long idHigh, long idLow, byte[] bytes) throws IOException {
+        if (bytes.length == 0 || bytes.length >= 1 << LENGTH_BITS) {
+            throw new IllegalArgumentException("Cannot spill " + bytes.length + " bytes");
+        }
+        if (used + removed + 1 > slots / 4 * 3) {
+            resize();
+        }
+        long offset = dataBytes;
+        write(data, ByteBuffer.wrap(bytes), offset);
+        dataBytes += bytes.length;
+        liveBytes += bytes.length;
+        int slot = find(idHigh, idLow);
+        long location = location(slot);
+        if (location == FREE) {
+            // Removed slots are not reused; resize() clears them out
+            index.putLong(slot * SLOT_BYTES, idHigh);
+            index.putLong(slot * SLOT_BYTES + 8, idLow);
+            used++;
+        } else {
+            liveBytes -= length(location);
+        }
+        index.putLong(slot * SLOT_BYTES + 16, offset << LENGTH_BITS | bytes.length);
+    }
+
+    /** The bytes stored for a game, or null. */
+    synchronized byte[] get(long idHigh, long idLow) throws IOException {
+        long location = location(find(idHigh, idLow));
+        if (location == FREE || location == REMOVED) {
+            return null;
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(length(location));
+        long offset = location >>> LENGTH_BITS;
+        while (bytes.hasRemaining()) {
+            if (data.read(bytes, offset + bytes.position()) < 0) {
+                throw new IOException("Spill file " + dataPath + " ends early");
+            }
+        }
+        return bytes.array();
+    }
+
+    /** Forgets a game; returns whether one was stored. */
+    synchronized boolean remove(long idHigh, long idLow) {
+        int slot = find(idHigh, idLow);
+        long location = location(slot);
+        if (location == FREE || location == REMOVED) {
+            return false;
+        }
+        liveBytes -= length(location);
+        index.putLong(slot * SLOT_BYTES + 16, REMOVED);
+        used--;
+        removed++;
+        return true;
+    }
+
+    synchronized int size() {
+        return used;
+    }
+
+    /** Bytes of the live records, the garbage in the data file not counted. */
+    synchronized long getBytes() {
+        return liveBytes;
+    }
+
+    /** Bytes of the data file, garbage included. */
+    synchronized long getFileBytes() {
+        return dataBytes;
+    }
+
+    /**
+     * Rewrites the data file without its garbage once that is more than the
+     * live records. Blocks other calls meanwhile, so it is for a background
+     * thread; returns whether it rewrote the file.
+     */
+    synchronized boolean compact() throws IOException {
+        long garbage = dataBytes - liveBytes;
+        if (garbage <= liveBytes || garbage < MIN_COMPACT_BYTES) {
+            return false;
+        }
+        Path compactedPath = nextPath(".dat");
+        FileChannel compacted = FileChannel.open(compactedPath, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long offset = 0;
+        try {
+            for (int slot = 0; slot < slots; slot++) {
+                long location = location(slot);
+                if (location == FREE || location == REMOVED) {
+                    continue;
+                }
+                int length = length(location);
+                long from = location >>> LENGTH_BITS;
+                long copied = 0;
+                while (copied < length) {
+                    copied += data.transferTo(from + copied, length - copied, compacted.position(offset + copied));
+                }
+                offset += length;
+            }
+        } catch (IOException | RuntimeException e) {
+            compacted.close();
+            Files.deleteIfExists(compactedPath);
+            throw e;
+        }
+        // Every record copied: only now point the index at the new file, in the same order
+        offset = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            long location = location(slot);
+            if (location != FREE && location != REMOVED) {
+                index.putLong(slot * SLOT_BYTES + 16, offset << LENGTH_BITS | length(location));
+                offset += length(location);
+            }
+        }
+        data.close();
+        Files.deleteIfExists(dataPath);
+        data = compacted;
+        dataPath = compactedPath;
+        dataBytes = offset;
+        return true;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        data.close();
+        Files.deleteIfExists(dataPath);
+        // The mapping itself goes when it is garbage collected
+        Files.deleteIfExists(indexPath);
+    }
+
+    /** The slot of the game, or the free slot where it would go. */
+    private int find(long idHigh, long idLow) {
+        int mask = slots - 1;
+        int slot = hash(idHigh, idLow) & mask;
+        while (true) {
+            long location = location(slot);
+            if (location == FREE) {
+                return slot;
+            }
+            if (location != REMOVED && index.getLong(slot * SLOT_BYTES) == idHigh
+                    && index.getLong(slot * SLOT_BYTES + 8) == idLow) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /** Rehashes into a new index, twice the size unless removed slots alone make up the load. */
+    private void resize() throws IOException {
+        int newSlots = used + 1 > slots / 2 ? slots * 2 : slots;
+        if (newSlots > MAX_SLOTS) {
+            throw new IOException("Spill index full: " + used + " games");
+        }
+        MappedByteBuffer old = index;
+        int oldSlots = slots;
+        Path oldPath = indexPath;
+        indexPath = nextPath(".idx");
+        index = mapIndex(indexPath, newSlots);
+        slots = newSlots;
+        removed = 0;
+        for (int slot = 0; slot < oldSlots; slot++) {
+            long location = old.getLong(slot * SLOT_BYTES + 16);
+            if (location == FREE || location == REMOVED) {
+                continue;
+            }
+            long idHigh = old.getLong(slot * SLOT_BYTES);
+            long idLow = old.getLong(slot * SLOT_BYTES + 8);
+            int target = find(idHigh, idLow);
+            index.putLong(target * SLOT_BYTES, idHigh);
+            index.putLong(target * SLOT_BYTES + 8, idLow);
+            index.putLong(target * SLOT_BYTES + 16, location);
+        }
+        Files.deleteIfExists(oldPath);
+    }
+
+    private long location(int slot) {
+        return index.getLong(slot * SLOT_BYTES + 16);
+    }
+
+    private static int length(long location) {
+        return (int) (location & ((1L << LENGTH_BITS) - 1));
+    }
+
+    private static int hash(long idHigh, long idLow) {
+        long h = idHigh * 0x9E3779B97F4A7C15L ^ idLow;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private Path nextPath(String suffix) {
+        return directory.resolve("spill-" + generation++ + suffix);
+    }
+
+    private static MappedByteBuffer mapIndex(Path path, int slots) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // A new file reads as zeros: every slot free
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) slots * SLOT_BYTES);
+        }
+    }
+
+    private static void write(FileChannel channel, ByteBuffer bytes, long offset) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes, offset + bytes.position());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.gdt.chess.service;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Meters of the move pipeline and the engine, exported on
+ * {@code /actuator/prometheus}. Every meter is registered up front and kept
+ * in an array indexed by enum ordinal, so recording is a clock read and an
+ * update of an existing meter: no tag lookup and no allocation on the paths
+ * being measured.
+ */
+@Component
+public class ChessMetrics {
+
+    /** The steps of playing a move, timed one by one as {@code chess.move.stage}. */
+    public enum Stage {
+        /** Finding the game in the repository. */
+        LOOKUP,
+        /** Waiting for the game's write lock. */
+        LOCK,
+        /** Reading the squares and the promotion piece. */
+        PARSE,
+        /** Looking the move up among the legal moves. */
+        VALIDATE,
+        /** Playing the move on the game, status detection included. */
+        APPLY,
+        SAVE,
+        /** Handing the move to spectators. */
+        PUBLISH
+    }
+
+    /** Read-only validation calls behind the API, timed as {@code chess.validation}. */
+    public enum Validation {
+        VALID_MOVES, LEGAL_MOVES
+    }
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private Timer move;
+    private final Timer[] stages = new Timer[Stage.values().length];
+    private final Timer[] validations = new Timer[Validation.values().length];
+    private final Counter[] rejections = new Counter[MoveError.values().length];
+    private Timer search;
+    private Counter searchNodes;
+    private DistributionSummary searchNps;
+
+    @PostConstruct
+    public void start() {
+        move = Timer.builder("chess.move")
+                .description("Moves played, from lookup to publish")
+                .publishPercentileHistogram()
+                .register(registry);
+        // Prometheus needs every series of a name to be the same type, so all stages get the histogram
+        for (Stage stage : Stage.values()) {
+            stages[stage.ordinal()] = Timer.builder("chess.move.stage")
+                    .description("Time spent in each step of playing a move")
+                    .tag("stage", tagValue(stage))
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+        for (Validation validation : Validation.values()) {
+            validations[validation.ordinal()] = Timer.builder("chess.validation")
+                    .description("Legal move queries")
+                    .tag("query", tagValue(validation))
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+        for (MoveError error : MoveError.values()) {
+            rejections[error.ordinal()] = Counter.builder("chess.move.rejected")
+                    .description("Moves not played, by reason")
+                    .tag("reason", tagValue(error))
+                    .register(registry);
+        }
+        search = Timer.builder("chess.engine.search")
+                .description("Best-move searches")
+                .register(registry);
+        searchNodes = Counter.builder("chess.engine.nodes")
+                .description("Nodes searched by the main search threads")
+                .register(registry);
+        searchNps = DistributionSummary.builder("chess.engine.nps")
+                .description("Nodes per second of each search")
+                .register(registry);
+    }
+
+    /** Records the time since {@code startNanos} for a stage and returns the current time for the next one. */
+    public long lap(Stage stage, long startNanos) {
+        long now = System.nanoTime();
+        stages[stage.ordinal()].record(now - startNanos, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    /** Records a whole move that began at {@code startNanos}. */
+    public void movePlayed(long startNanos) {
+        move.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void moveRejected(MoveError error) {
+        rejections[error.ordinal()].increment();
+    }
+
+    public void validated(Validation validation, long startNanos) {
+        validations[validation.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void searched(long nodes, long nps, long timeMs) {
+        search.record(timeMs, TimeUnit.MILLISECONDS);
+        searchNodes.increment(nodes);
+        searchNps.record(nps);
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
@@ -1,15 +1,23 @@
 package com.gdt.chess.service;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.locks.StampedLock;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.gdt.chess.model.Bitboards;
+import com.gdt.chess.model.Board;
 import com.gdt.chess.model.Game;
 import com.gdt.chess.model.Move;
-import com.gdt.chess.model.Piece;
+import com.gdt.chess.model.PackedMove;
 import com.gdt.chess.model.Position;
+import com.gdt.chess.model.enums.Color;
+import com.gdt.chess.model.enums.PieceType;
 import com.gdt.chess.repository.GameRepository;
+import com.gdt.chess.service.ChessMetrics.Stage;
+import com.gdt.chess.tablebase.Tablebases;
 
 @Service
 public class ChessService {
@@ -20,52 +28,229 @@ public class ChessService {
     @Autowired
     private MoveValidationService moveValidationService;
 
+    @Autowired
+    private GameEventBroadcaster eventBroadcaster;
+
+    @Autowired
+    private ChessMetrics metrics;
+
+    @Autowired
+    private Tablebases tablebases;
+
     public Game createGame() {
         Game game = new Game();
         return gameRepository.save(game);
     }
 
+    /**
+     * A consistent snapshot of the game. Changes made to it are not saved,
+     * and later moves do not show up in it.
+     */
     public Optional<Game> getGame(String gameId) {
-        return gameRepository.findById(gameId);
+        return gameRepository.findById(gameId).map(Game::snapshot);
+    }
+
+    /** {@link Game#getVersion()} of the game, without taking a snapshot. */
+    public Optional<String> getGameVersion(String gameId) {
+        return gameRepository.findById(gameId).map(Game::getVersion);
     }
 
+    /** Deletes the game and ends the move streams of its spectators. */
     public void deleteGame(String gameId) {
         gameRepository.deleteById(gameId);
+        eventBroadcaster.close(gameId);
     }
 
     public Move makeMove(String gameId, String from, String to) throws IllegalMoveException {
-        Game game = gameRepository.findById(gameId)
-                .orElseThrow(() -> new IllegalArgumentException("Game not found"));
-        
-        Position fromPos = Position.fromChessNotation(from);
-        Position toPos = Position.fromChessNotation(to);
-        
-        Piece piece = game.getBoard().getPiece(fromPos);
-        if (piece == null) {
-            throw new IllegalMoveException("No piece at position " + from);
+        return makeMove(gameId, from, to, null);
+    }
+
+    /**
+     * Plays a move given in chess notation. {@code promotion} names the piece a
+     * pawn reaching the last rank becomes ("q", "r", "b", "n" or the full piece
+     * name); it defaults to a queen.
+     *
+     * Moves on the same game are serialized by the game's own lock, from the
+     * turn check to the save, so two concurrent requests cannot both pass
+     * validation. Moves on different games never wait for each other. The
+     * repository cannot evict a game while its lock is held, so after locking
+     * we only check that the instance is still the current one.
+     */
+    public Move makeMove(String gameId, String from, String to, String promotion) throws IllegalMoveException {
+        long start = System.nanoTime();
+        while (true) {
+            Game game = gameRepository.findById(gameId).orElse(null);
+            if (game == null) {
+                metrics.moveRejected(MoveError.GAME_NOT_FOUND);
+                throw new IllegalArgumentException("Game not found");
+            }
+            long lap = metrics.lap(Stage.LOOKUP, start);
+
+            StampedLock lock = game.getLock();
+            long stamp = lock.writeLock();
+            try {
+                // The repository may have evicted this instance before we got the lock
+                if (gameRepository.findById(gameId).orElse(null) == game) {
+                    Move move = makeMove(game, from, to, promotion, metrics.lap(Stage.LOCK, lap));
+                    metrics.movePlayed(start);
+                    return move;
+                }
+            } catch (IllegalMoveException e) {
+                metrics.moveRejected(e.getError());
+                throw e;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
         }
+    }
+
+    /**
+     * Plays the commands on one game in order, holding the game's lock once
+     * for all of them; their game ids are ignored. Once a command fails, the
+     * ones after it are skipped, since they were meant for a position that
+     * will not arise. The results are in the order of the commands.
+     */
+    public List<MoveResult> makeMoves(String gameId, List<MoveCommand> commands) {
+        List<MoveResult> results = new ArrayList<>(commands.size());
+        long start = System.nanoTime();
+        while (true) {
+            Game game = gameRepository.findById(gameId).orElse(null);
+            if (game == null) {
+                for (int i = 0; i < commands.size(); i++) {
+                    metrics.moveRejected(MoveError.GAME_NOT_FOUND);
+                    results.add(MoveResult.failed(gameId, MoveError.GAME_NOT_FOUND, "Game not found"));
+                }
+                return results;
+            }
+            long lap = metrics.lap(Stage.LOOKUP, start);
+
+            StampedLock lock = game.getLock();
+            long stamp = lock.writeLock();
+            try {
+                if (gameRepository.findById(gameId).orElse(null) != game) {
+                    continue;
+                }
+                lap = metrics.lap(Stage.LOCK, lap);
+                MoveError failure = null;
+                for (MoveCommand command : commands) {
+                    if (failure != null) {
+                        metrics.moveRejected(MoveError.SKIPPED);
+                        results.add(MoveResult.failed(gameId, MoveError.SKIPPED, "Skipped after an earlier move failed"));
+                        continue;
+                    }
+                    if (command == null) {
+                        failure = MoveError.INVALID_COMMAND;
+                        metrics.moveRejected(failure);
+                        results.add(MoveResult.failed(gameId, failure, "Null command"));
+                        continue;
+                    }
+                    long moveStart = System.nanoTime();
+                    try {
+                        results.add(MoveResult.played(gameId,
+                                makeMove(game, command.getFrom(), command.getTo(), command.getPromotion(), moveStart)));
+                        metrics.movePlayed(moveStart);
+                    } catch (IllegalMoveException e) {
+                        failure = e.getError();
+                        metrics.moveRejected(e.getError());
+                        results.add(MoveResult.failed(gameId, e.getError(), e.getMessage()));
+                    }
+                }
+                return results;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Plays a move on a locked game; {@code lap} is when the parse stage
+     * began. A move into a position the tablebases show as drawn ends the
+     * game in a draw.
+     */
+    private Move makeMove(Game game, String from, String to, String promotion, long lap) throws IllegalMoveException {
+        if (game.getStatus().isOver()) {
+            throw new IllegalMoveException(MoveError.GAME_OVER, "The game is over: " + game.getStatus());
+        }
+        Position fromPos;
+        Position toPos;
+        try {
+            fromPos = Position.fromChessNotation(from);
+            toPos = Position.fromChessNotation(to);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalMoveException(MoveError.INVALID_SQUARE, "Invalid position " + from + " -> " + to);
+        }
+        Board board = game.getBoard();
+        if (!board.isPositionValid(fromPos) || !board.isPositionValid(toPos)) {
+            throw new IllegalMoveException(MoveError.INVALID_SQUARE, "Invalid position " + from + " -> " + to);
+        }
+        int fromSquare = Bitboards.square(fromPos);
+        int toSquare = Bitboards.square(toPos);
         
-        if (piece.getColor() != game.getCurrentTurn()) {
-            throw new IllegalMoveException("It's not " + piece.getColor() + "'s turn");
+        int pieceCode = board.pieceAt(fromSquare);
+        if (pieceCode == Bitboards.NO_PIECE) {
+            throw new IllegalMoveException(MoveError.NO_PIECE, "No piece at position " + from);
         }
         
-        Move move = new Move.Builder(fromPos, toPos, piece)
-                .capturedPiece(game.getBoard().getPiece(toPos))
-                .build();
+        Color color = Bitboards.colorOf(pieceCode);
+        if (color != game.getCurrentTurn()) {
+            throw new IllegalMoveException(MoveError.WRONG_TURN, "It's not " + color + "'s turn");
+        }
+        PieceType promotionType = parsePromotion(promotion);
+        lap = metrics.lap(Stage.PARSE, lap);
         
-        if (!moveValidationService.isValidMove(game, move)) {
-            throw new IllegalMoveException("Invalid move");
+        int packedMove = moveValidationService.findLegalMove(board, fromSquare, toSquare, promotionType);
+        lap = metrics.lap(Stage.VALIDATE, lap);
+        if (packedMove == PackedMove.NONE) {
+            throw new IllegalMoveException(MoveError.ILLEGAL_MOVE, "Invalid move");
         }
         
-        game.makeMove(move);
+        int entry = game.makeMove(packedMove);
+        tablebases.adjudicate(game);
+        lap = metrics.lap(Stage.APPLY, lap);
         gameRepository.save(game);
+        lap = metrics.lap(Stage.SAVE, lap);
+        eventBroadcaster.publish(game.getId(), game.getMoveCount() - 1, entry);
+        metrics.lap(Stage.PUBLISH, lap);
         
-        return move;
+        // Move objects are only built for the REST response
+        return Move.fromHistory(entry);
+    }
+
+    private PieceType parsePromotion(String promotion) throws IllegalMoveException {
+        if (promotion == null || promotion.isEmpty()) {
+            return PieceType.QUEEN;
+        }
+        switch (promotion.toLowerCase()) {
+            case "q": case "queen": return PieceType.QUEEN;
+            case "r": case "rook": return PieceType.ROOK;
+            case "b": case "bishop": return PieceType.BISHOP;
+            case "n": case "knight": return PieceType.KNIGHT;
+            default: throw new IllegalMoveException(MoveError.INVALID_PROMOTION, "Invalid promotion piece " + promotion);
+        }
     }
 
     public List<Move> getMoveHistory(String gameId) {
         Game game = gameRepository.findById(gameId)
                 .orElseThrow(() -> new IllegalArgumentException("Game not found"));
-        return game.getMoveHistory();
+        return game.snapshot().getMoveHistory();
+    }
+
+    /**
+     * The moves played from {@code since} on. Only those entries are copied
+     * from the game, so polling a long game costs as much as the new moves.
+     */
+    public MoveHistoryPage getMoveHistory(String gameId, int since) {
+        if (since < 0) {
+            throw new IllegalArgumentException("since must not be negative");
+        }
+        Game game = gameRepository.findById(gameId)
+                .orElseThrow(() -> new IllegalArgumentException("Game not found"));
+        int[] entries = game.getHistoryEntries(since);
+        List<Move> moves = new ArrayList<>(entries.length);
+        for (int entry : entries) {
+            moves.add(Move.fromHistory(entry));
+        }
+        int moveCount = entries.length > 0 ? since + entries.length : Math.min(since, game.getMoveCount());
+        return new MoveHistoryPage(since, moveCount, moves);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,236 @@
+package com.gdt.chess.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.gdt.chess.model.Game;
+import com.gdt.chess.repository.GameRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pushes every move of a game to its spectators.
+ *
+ * {@link #publish} runs on the thread that played the move and never blocks:
+ * it only offers the event to each subscriber's bounded queue. A small pool
+ * of sender threads does the actual, possibly slow, writes. A subscriber
+ * whose queue overflows loses the queued events and is marked behind; its
+ * sender then catches it up from the game's history instead, so a slow
+ * client receives every move, just later and in one burst. The same catch-up
+ * serves clients that resume from an earlier move after a reconnect.
+ */
+@Service
+public class GameEventBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(GameEventBroadcaster.class);
+
+    // Events a sender writes to one subscriber before giving others a turn
+    private static final int MAX_EVENTS_PER_TURN = 256;
+
+    /** Where a subscriber's events are written, e.g. an SSE connection. */
+    @FunctionalInterface
+    public interface EventSink {
+        void send(MoveEvent event) throws IOException;
+
+        /** The broadcaster dropped the subscription: the client failed or the game is gone. */
+        default void close() {
+        }
+    }
+
+    /** A spectator of one game. */
+    public final class Subscription {
+        private final String gameId;
+        private final EventSink sink;
+        private final BlockingQueue<MoveEvent> queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // Events were dropped, or the client resumes from an earlier move: read the history
+        private volatile boolean behind = true;
+        private volatile boolean cancelled;
+        // Only touched by the sender that holds "scheduled"
+        private int nextPly;
+
+        private Subscription(String gameId, int fromPly, EventSink sink) {
+            this.gameId = gameId;
+            this.nextPly = fromPly;
+            this.sink = sink;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+        }
+
+        public void cancel() {
+            cancelled = true;
+            subscribers.computeIfPresent(gameId, (id, list) -> {
+                list.remove(this);
+                return list.isEmpty() ? null : list;
+            });
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Value("${chess.stream.queue-size:64}")
+    private int queueSize;
+
+    @Value("${chess.stream.sender-threads:4}")
+    private int senderThreads;
+
+    private final Map<String, List<Subscription>> subscribers = new ConcurrentHashMap<>();
+    private ExecutorService senders;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger count = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "event-sender-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        senders.shutdownNow();
+    }
+
+    /**
+     * Subscribes to the moves of a game, starting with the move at
+     * {@code fromPly}; moves already played from there on are sent first.
+     */
+    public Subscription subscribe(String gameId, int fromPly, EventSink sink) {
+        Subscription subscription = new Subscription(gameId, Math.max(0, fromPly), sink);
+        subscribers.compute(gameId, (id, list) -> {
+            List<Subscription> result = list == null ? new CopyOnWriteArrayList<>() : list;
+            result.add(subscription);
+            return result;
+        });
+        schedule(subscription);
+        return subscription;
+    }
+
+    /** Announces the move just played at {@code ply}; call with the game's write lock held. */
+    public void publish(String gameId, int ply, int historyEntry) {
+        List<Subscription> list = subscribers.get(gameId);
+        if (list == null) {
+            return;
+        }
+        MoveEvent event = MoveEvent.of(ply, historyEntry);
+        for (Subscription subscription : list) {
+            if (!subscription.queue.offer(event)) {
+                subscription.behind = true;
+            }
+            schedule(subscription);
+        }
+    }
+
+    /** Drops every subscriber of a game, e.g. once it is deleted; their sinks are closed. */
+    public void close(String gameId) {
+        List<Subscription> list = subscribers.remove(gameId);
+        if (list == null) {
+            return;
+        }
+        for (Subscription subscription : list) {
+            subscription.cancelled = true;
+            subscription.queue.clear();
+            subscription.sink.close();
+        }
+    }
+
+    public int getSubscriberCount(String gameId) {
+        List<Subscription> list = subscribers.get(gameId);
+        return list == null ? 0 : list.size();
+    }
+
+    private void schedule(Subscription subscription) {
+        if (subscription.cancelled || !subscription.scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            senders.execute(() -> run(subscription));
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            subscription.scheduled.set(false);
+        }
+    }
+
+    private void run(Subscription subscription) {
+        try {
+            drain(subscription);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Dropping subscriber of game {}: {}", subscription.gameId, e.toString());
+            drop(subscription);
+        } finally {
+            subscription.scheduled.set(false);
+        }
+        // Events that arrived after the last poll, but before "scheduled" was cleared
+        if (subscription.behind || !subscription.queue.isEmpty()) {
+            schedule(subscription);
+        }
+    }
+
+    private void drain(Subscription subscription) throws IOException {
+        for (int sent = 0; sent < MAX_EVENTS_PER_TURN && !subscription.cancelled; ) {
+            if (subscription.behind) {
+                // Cleared first: whatever is published from now on is either queued or in the history read next
+                subscription.behind = false;
+                subscription.queue.clear();
+                sent += catchUp(subscription);
+                continue;
+            }
+            MoveEvent event = subscription.queue.poll();
+            if (event == null) {
+                return;
+            }
+            if (event.getPly() < subscription.nextPly) {
+                continue;
+            }
+            if (event.getPly() > subscription.nextPly) {
+                subscription.behind = true;
+                continue;
+            }
+            subscription.sink.send(event);
+            subscription.nextPly++;
+            sent++;
+        }
+    }
+
+    private static void drop(Subscription subscription) {
+        subscription.cancel();
+        subscription.sink.close();
+    }
+
+    private int catchUp(Subscription subscription) throws IOException {
+        Optional<Game> game = gameRepository.findById(subscription.gameId).map(Game::snapshot);
+        if (game.isEmpty()) {
+            drop(subscription);
+            return 0;
+        }
+        int moveCount = game.get().getMoveCount();
+        int sent = 0;
+        for (; subscription.nextPly < moveCount; subscription.nextPly++, sent++) {
+            subscription.sink.send(MoveEvent.of(subscription.nextPly, game.get().getHistoryEntry(subscription.nextPly)));
+        }
+        return sent;
+    }
+}
@@ -6,7 +6,19 @@ public class IllegalMoveException extends Exception {
 	 */
 	private static final long serialVersionUID = 1L;
 
+	private final MoveError error;
+
 	public IllegalMoveException(String message) {
+        this(MoveError.ILLEGAL_MOVE, message);
+    }
+
+	public IllegalMoveException(MoveError error, String message) {
         super(message);
+        this.error = error;
+    }
+
+	/** Why the move was refused, for clients that act on it. */
+	public MoveError getError() {
+        return error;
     }
 }
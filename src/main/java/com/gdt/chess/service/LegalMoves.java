@@ -0,0 +1,63 @@
+package com.gdt.chess.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.gdt.chess.model.Game.GameStatus;
+import com.gdt.chess.model.PackedMove;
+import com.gdt.chess.model.Position;
+import com.gdt.chess.model.enums.Color;
+import com.gdt.chess.movegen.MoveList;
+
+import lombok.Getter;
+
+/**
+ * Every legal move of the side to move in one position, grouped by origin
+ * square, and what the position means for that side. Immutable, so one
+ * instance serves every request for the same position.
+ */
+@Getter
+public class LegalMoves {
+    private final Color sideToMove;
+    /** ACTIVE or CHECK while the side to move has a move, else CHECKMATE, STALEMATE or DRAW. */
+    private final GameStatus status;
+    /** Target squares by origin square, both in chess notation; a pawn promotion is listed once. */
+    private final Map<String, List<String>> moves;
+
+    private LegalMoves(Color sideToMove, GameStatus status, Map<String, List<String>> moves) {
+        this.sideToMove = sideToMove;
+        this.status = status;
+        this.moves = moves;
+    }
+
+    /** Groups generated moves, which come origin by origin, e.g. from {@link com.gdt.chess.movegen.MoveGenerator}. */
+    static LegalMoves of(Color sideToMove, boolean inCheck, MoveList legal) {
+        GameStatus status;
+        if (legal.isEmpty()) {
+            status = inCheck ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+        } else {
+            status = inCheck ? GameStatus.CHECK : GameStatus.ACTIVE;
+        }
+        Map<String, List<String>> moves = new LinkedHashMap<>();
+        for (int i = 0; i < legal.size(); i++) {
+            int move = legal.get(i);
+            List<String> targets = moves.computeIfAbsent(
+                    Position.of(PackedMove.from(move)).toChessNotation(), from -> new ArrayList<>());
+            String to = Position.of(PackedMove.to(move)).toChessNotation();
+            // The four promotions share a target square
+            if (targets.isEmpty() || !targets.get(targets.size() - 1).equals(to)) {
+                targets.add(to);
+            }
+        }
+        moves.replaceAll((from, targets) -> Collections.unmodifiableList(targets));
+        return new LegalMoves(sideToMove, status, Collections.unmodifiableMap(moves));
+    }
+
+    /** A drawn game: no move may be played, whatever the position allows. */
+    public static LegalMoves drawn(Color sideToMove) {
+        return new LegalMoves(sideToMove, GameStatus.DRAW, Collections.emptyMap());
+    }
+}
@@ -0,0 +1,109 @@
+package com.gdt.chess.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Plays many moves, possibly across many games, for one request.
+ *
+ * Commands are grouped by game in the order given; each group is played by
+ * {@link ChessService#makeMoves} under one hold of its game's lock, and
+ * different games run in parallel on a shared pool.
+ */
+@Service
+public class MoveBatchService {
+
+    @Autowired
+    private ChessService chessService;
+
+    @Value("${chess.batch.max-commands:10000}")
+    private int maxCommands;
+
+    // 0 = one per CPU
+    @Value("${chess.batch.threads:0}")
+    private int threads;
+
+    private ExecutorService pool;
+
+    @PostConstruct
+    public void start() {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(size, runnable -> {
+            Thread thread = new Thread(runnable, "move-batch-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    /** Plays the commands; the results are in the order of the commands. */
+    public List<MoveResult> makeMoves(List<MoveCommand> commands) {
+        if (commands.size() > maxCommands) {
+            throw new IllegalArgumentException("At most " + maxCommands + " moves per batch");
+        }
+        MoveResult[] results = new MoveResult[commands.size()];
+        Map<String, List<Integer>> byGame = new LinkedHashMap<>();
+        for (int i = 0; i < commands.size(); i++) {
+            MoveCommand command = commands.get(i);
+            if (command == null) {
+                results[i] = MoveResult.failed(null, MoveError.INVALID_COMMAND, "Null command");
+            } else if (command.getGameId() == null) {
+                results[i] = MoveResult.failed(null, MoveError.INVALID_COMMAND, "Missing gameId");
+            } else {
+                byGame.computeIfAbsent(command.getGameId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+
+        if (byGame.size() == 1) {
+            Map.Entry<String, List<Integer>> only = byGame.entrySet().iterator().next();
+            play(only.getKey(), only.getValue(), commands, results);
+        } else {
+            CompletableFuture<?>[] games = new CompletableFuture<?>[byGame.size()];
+            int next = 0;
+            for (Map.Entry<String, List<Integer>> game : byGame.entrySet()) {
+                games[next++] = CompletableFuture.runAsync(
+                        () -> play(game.getKey(), game.getValue(), commands, results), pool);
+            }
+            CompletableFuture.allOf(games).join();
+        }
+        return Arrays.asList(results);
+    }
+
+    /** Plays a sequence of moves on one game. */
+    public List<MoveResult> makeMoves(String gameId, List<MoveCommand> commands) {
+        if (commands.size() > maxCommands) {
+            throw new IllegalArgumentException("At most " + maxCommands + " moves per batch");
+        }
+        return chessService.makeMoves(gameId, commands);
+    }
+
+    private void play(String gameId, List<Integer> indices, List<MoveCommand> commands, MoveResult[] results) {
+        List<MoveCommand> group = new ArrayList<>(indices.size());
+        for (int index : indices) {
+            group.add(commands.get(index));
+        }
+        List<MoveResult> played = chessService.makeMoves(gameId, group);
+        for (int i = 0; i < indices.size(); i++) {
+            results[indices.get(i)] = played.get(i);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.gdt.chess.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/** One move of a batch: squares in chess notation and an optional promotion piece. */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MoveCommand {
+    /** Ignored by the single-game batch endpoint, which takes the game from the path. */
+    private String gameId;
+    private String from;
+    private String to;
+    private String promotion;
+}
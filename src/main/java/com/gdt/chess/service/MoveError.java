@@ -0,0 +1,23 @@
+package com.gdt.chess.service;
+
+/** Why a move was not played. */
+public enum MoveError {
+    /** The command is null or, in a batch across games, has no game id. */
+    INVALID_COMMAND,
+    /** No game with the given id. */
+    GAME_NOT_FOUND,
+    /** The game has ended in checkmate, stalemate or a draw. */
+    GAME_OVER,
+    /** A square is missing or not in chess notation, e.g. "i9". */
+    INVALID_SQUARE,
+    /** No piece on the starting square. */
+    NO_PIECE,
+    /** The piece belongs to the side not to move. */
+    WRONG_TURN,
+    /** The piece cannot move there, or the move leaves its king in check. */
+    ILLEGAL_MOVE,
+    /** The promotion piece is not one of q, r, b or n. */
+    INVALID_PROMOTION,
+    /** Not tried, because an earlier move of the same game in the batch failed. */
+    SKIPPED
+}
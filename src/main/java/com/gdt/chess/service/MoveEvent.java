@@ -0,0 +1,53 @@
+package com.gdt.chess.service;
+
+import com.gdt.chess.model.Bitboards;
+import com.gdt.chess.model.MoveHistory;
+import com.gdt.chess.model.PackedMove;
+import com.gdt.chess.model.Position;
+
+import lombok.Getter;
+
+/**
+ * One move pushed to the spectators of a game: enough to apply it to a
+ * board the client already has, and no more.
+ */
+@Getter
+public class MoveEvent {
+    /** Index of the move in the game, counting from 0; also the SSE event id. */
+    private final int ply;
+    /** Long algebraic notation, e.g. "e2e4" or "e7e8q". */
+    private final String move;
+    private final String from;
+    private final String to;
+    private final String piece;
+    private final String color;
+    /** Type of the captured piece, or null. */
+    private final String captured;
+    /** Type the pawn promoted to, or null. */
+    private final String promotion;
+
+    private MoveEvent(int ply, String move, String from, String to, String piece, String color, String captured,
+            String promotion) {
+        this.ply = ply;
+        this.move = move;
+        this.from = from;
+        this.to = to;
+        this.piece = piece;
+        this.color = color;
+        this.captured = captured;
+        this.promotion = promotion;
+    }
+
+    /** The event of the {@link MoveHistory} entry played at {@code ply}. */
+    public static MoveEvent of(int ply, int entry) {
+        int packed = MoveHistory.packedMove(entry);
+        int moved = MoveHistory.movedPiece(entry);
+        int capturedPiece = MoveHistory.capturedPiece(entry);
+        return new MoveEvent(ply, PackedMove.toUci(packed),
+                Position.of(PackedMove.from(packed)).toChessNotation(),
+                Position.of(PackedMove.to(packed)).toChessNotation(),
+                Bitboards.typeOf(moved).name(), Bitboards.colorOf(moved).name(),
+                capturedPiece == Bitboards.NO_PIECE ? null : Bitboards.typeOf(capturedPiece).name(),
+                PackedMove.isPromotion(packed) ? PackedMove.promotionType(packed).name() : null);
+    }
+}
@@ -0,0 +1,23 @@
+package com.gdt.chess.service;
+
+import java.util.List;
+
+import com.gdt.chess.model.Move;
+
+import lombok.Getter;
+
+/** The moves of a game from a given ply on, and how many moves it has in all. */
+@Getter
+public class MoveHistoryPage {
+    /** Ply of the first move in {@code moves}, as requested. */
+    private final int since;
+    /** Moves in the game when the page was read; pass it as {@code since} to get the next page. */
+    private final int moveCount;
+    private final List<Move> moves;
+
+    public MoveHistoryPage(int since, int moveCount, List<Move> moves) {
+        this.since = since;
+        this.moveCount = moveCount;
+        this.moves = moves;
+    }
+}
@@ -0,0 +1,35 @@
+package com.gdt.chess.service;
+
+import com.gdt.chess.model.Move;
+
+import lombok.Getter;
+
+/** Outcome of one {@link MoveCommand}: the move played, or why it was not. */
+@Getter
+public class MoveResult {
+    private final String gameId;
+    /** The move played, or null. */
+    private final Move move;
+    /** Why the move was not played, or null. */
+    private final MoveError error;
+    private final String message;
+
+    private MoveResult(String gameId, Move move, MoveError error, String message) {
+        this.gameId = gameId;
+        this.move = move;
+        this.error = error;
+        this.message = message;
+    }
+
+    public static MoveResult played(String gameId, Move move) {
+        return new MoveResult(gameId, move, null, null);
+    }
+
+    public static MoveResult failed(String gameId, MoveError error, String message) {
+        return new MoveResult(gameId, null, error, message);
+    }
+
+    public boolean isOk() {
+        return error == null;
+    }
+}
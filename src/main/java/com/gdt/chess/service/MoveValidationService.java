@@ -2,154 +2,109 @@ package com.gdt.chess.service;
 
 import com.gdt.chess.model.*;
 import com.gdt.chess.model.enums.PieceType;
+import com.gdt.chess.movegen.MoveGenerator;
+import com.gdt.chess.movegen.MoveList;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PostConstruct;
+
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Move legality on top of {@link MoveGenerator}. Checking a move, or listing
+ * the targets of a square, generates only the legal moves of the piece on the
+ * origin square (check, pins, castling and en passant included) and looks the
+ * candidate up among them.
+ *
+ * The full {@link LegalMoves} of a position are kept in a small cache keyed
+ * by its Zobrist key, so every hint request for a position after the first
+ * is a lookup; playing a move changes the key, which retires the entry.
+ */
 @Service
 public class MoveValidationService {
 
-    public boolean isValidMove(Game game, Move move) {
-        // This is a simplified implementation
-        // A complete implementation would check piece-specific movement rules,
-        // check for check/checkmate, castling, en passant, etc.
-        
-        Piece piece = move.getPiece();
-        Position from = move.getFrom();
-        Position to = move.getTo();
-        Board board = game.getBoard();
-        
-        // Basic checks
-        if (!board.isPositionValid(to)) {
-            return false;
-        }
-        
-        Piece targetPiece = board.getPiece(to);
-        if (targetPiece != null && targetPiece.getColor() == piece.getColor()) {
-            return false; // Can't capture own piece
-        }
-        
-        // Delegate to piece-specific validation methods
-        switch (piece.getType()) {
-            case PAWN:
-                return isValidPawnMove(board, from, to, piece);
-            case KNIGHT:
-                return isValidKnightMove(from, to);
-            case BISHOP:
-                return isValidBishopMove(board, from, to);
-            case ROOK:
-                return isValidRookMove(board, from, to);
-            case QUEEN:
-                return isValidQueenMove(board, from, to);
-            case KING:
-                return isValidKingMove(from, to);
-            default:
-                return false;
-        }
-    }
-    
-    // Piece-specific movement validation methods
-    private boolean isValidPawnMove(Board board, Position from, Position to, Piece pawn) {
-        int rowDiff = to.getRow() - from.getRow();
-        int colDiff = Math.abs(to.getCol() - from.getCol());
-        
-        // Determine direction: WHITE moves up (negative row), BLACK moves down (positive row)
-        int direction = pawn.getColor() == com.gdt.chess.model.enums.Color.WHITE ? -1 : 1;
-        
-        Piece targetPiece = board.getPiece(to);
-        
-        // Forward move (no capture)
-        if (colDiff == 0 && targetPiece == null) {
-            // First move: can move 2 squares (WHITE from row 6, BLACK from row 1)
-            boolean isFirstMove = (pawn.getColor() == com.gdt.chess.model.enums.Color.WHITE && from.getRow() == 6) ||
-                                  (pawn.getColor() == com.gdt.chess.model.enums.Color.BLACK && from.getRow() == 1);
-            if (isFirstMove && rowDiff == 2 * direction) {
-                // Verify path is clear for 2-square move
-                Position intermediatePos = new Position(from.getRow() + direction, from.getCol());
-                return board.getPiece(intermediatePos) == null;
-            }
-            // Regular move: 1 square forward
-            return rowDiff == direction;
-        }
-        
-        // Diagonal capture: exactly 1 square diagonally
-        if (colDiff == 1 && rowDiff == direction && targetPiece != null) {
-            return true;
+    // Generation scratch space, one per request thread
+    private static final ThreadLocal<MoveList> MOVE_LISTS = ThreadLocal.withInitial(MoveList::new);
+
+    private static final class CachedMoves {
+        final long key;
+        final LegalMoves legalMoves;
+
+        CachedMoves(long key, LegalMoves legalMoves) {
+            this.key = key;
+            this.legalMoves = legalMoves;
         }
-        
-        return false;
     }
-    
-    private boolean isValidKnightMove(Position from, Position to) {
-        int rowDiff = Math.abs(to.getRow() - from.getRow());
-        int colDiff = Math.abs(to.getCol() - from.getCol());
-        // Knight moves in L-shape: 2 squares in one direction, 1 in perpendicular
-        return (rowDiff == 2 && colDiff == 1) || (rowDiff == 1 && colDiff == 2);
+
+    @Value("${chess.legal-moves.cache-size:4096}")
+    private int cacheSize;
+
+    // Direct-mapped by key; entries are immutable, so racing reads see a whole entry or the old one
+    private CachedMoves[] cache;
+    private int cacheMask;
+
+    @PostConstruct
+    public void start() {
+        int size = Integer.highestOneBit(Math.max(1, cacheSize));
+        cache = new CachedMoves[size];
+        cacheMask = size - 1;
     }
-    
-    private boolean isValidBishopMove(Board board, Position from, Position to) {
-        int rowDiff = Math.abs(to.getRow() - from.getRow());
-        int colDiff = Math.abs(to.getCol() - from.getCol());
-        
-        // Bishop moves diagonally
-        if (rowDiff != colDiff || rowDiff == 0) {
+
+    public boolean isValidMove(Game game, Move move) {
+        Board board = game.getBoard();
+        if (!board.isPositionValid(move.getFrom()) || !board.isPositionValid(move.getTo())) {
             return false;
         }
-        
-        // Check path is clear
-        return isPathClear(board, from, to);
-    }
-    
-    private boolean isValidRookMove(Board board, Position from, Position to) {
-        int rowDiff = Math.abs(to.getRow() - from.getRow());
-        int colDiff = Math.abs(to.getCol() - from.getCol());
-        
-        // Rook moves horizontally or vertically
-        if ((rowDiff == 0 && colDiff > 0) || (colDiff == 0 && rowDiff > 0)) {
-            // Check path is clear
-            return isPathClear(board, from, to);
-        }
-        return false;
-    }
-    
-    private boolean isValidQueenMove(Board board, Position from, Position to) {
-        // Queen moves like rook (straight) or bishop (diagonal)
-        return isValidRookMove(board, from, to) || isValidBishopMove(board, from, to);
-    }
-    
-    private boolean isValidKingMove(Position from, Position to) {
-        int rowDiff = Math.abs(to.getRow() - from.getRow());
-        int colDiff = Math.abs(to.getCol() - from.getCol());
-        // King moves 1 square in any direction
-        return rowDiff <= 1 && colDiff <= 1 && (rowDiff > 0 || colDiff > 0);
+        PieceType promotion = move.getPromotionType() != null ? move.getPromotionType() : PieceType.QUEEN;
+        return findLegalMove(board, Bitboards.square(move.getFrom()), Bitboards.square(move.getTo()), promotion) != PackedMove.NONE;
     }
-    
+
     /**
-     * Helper method to check if path between two positions is clear (no pieces in the way).
-     * Used for rook, bishop, and queen moves.
+     * Returns the legal {@link PackedMove} from {@code from} to {@code to}, or
+     * {@link PackedMove#NONE}. Pawn moves to the last rank promote to
+     * {@code promotion}.
      */
-    private boolean isPathClear(Board board, Position from, Position to) {
-        int rowStep = Integer.compare(to.getRow(), from.getRow());
-        int colStep = Integer.compare(to.getCol(), from.getCol());
-        
-        int currentRow = from.getRow() + rowStep;
-        int currentCol = from.getCol() + colStep;
-        
-        while (currentRow != to.getRow() || currentCol != to.getCol()) {
-            Position intermediatePos = new Position(currentRow, currentCol);
-            if (board.getPiece(intermediatePos) != null) {
-                return false; // Path is blocked
-            }
-            currentRow += rowStep;
-            currentCol += colStep;
+    public int findLegalMove(Board board, int from, int to, PieceType promotion) {
+        MoveList moves = MOVE_LISTS.get();
+        MoveGenerator.generateLegalMoves(board, moves, Bitboards.bit(from));
+        return moves.find(from, to, promotion.ordinal());
+    }
+
+    /** Every legal move in the position, with its status; computed once per position. */
+    public LegalMoves getLegalMoves(Board board) {
+        long key = board.getZobristKey();
+        int slot = (int) (key ^ (key >>> 32)) & cacheMask;
+        CachedMoves cached = cache[slot];
+        if (cached != null && cached.key == key) {
+            return cached.legalMoves;
         }
-        return true; // Path is clear
+        MoveList moves = MOVE_LISTS.get();
+        MoveGenerator.generateLegalMoves(board, moves);
+        LegalMoves legalMoves = LegalMoves.of(board.getSideToMove(), MoveGenerator.isInCheck(board), moves);
+        cache[slot] = new CachedMoves(key, legalMoves);
+        return legalMoves;
     }
 
     public List<Position> getValidMoves(Game game, Position position) {
         List<Position> validMoves = new ArrayList<>();
-        // Implementation would determine all valid moves for the piece at position
+        Board board = game.getBoard();
+        if (!board.isPositionValid(position)) {
+            return validMoves;
+        }
+        MoveList moves = MOVE_LISTS.get();
+        MoveGenerator.generateLegalMoves(board, moves, Bitboards.bit(Bitboards.square(position)));
+        // Promotions yield four moves to the same square; report each square once
+        long targets = 0L;
+        for (int i = 0; i < moves.size(); i++) {
+            targets |= Bitboards.bit(PackedMove.to(moves.get(i)));
+        }
+        while (targets != 0) {
+            int square = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            validMoves.add(Position.of(square));
+        }
         return validMoves;
     }
 }
@@ -0,0 +1,36 @@
+package com.gdt.chess.service;
+
+import com.gdt.chess.model.Game;
+
+import lombok.Getter;
+
+/** Outcome of importing one game of a PGN archive: the new game, or why it was rejected. */
+@Getter
+public class PgnImportResult {
+    /** Number of the game in the archive, counting from 1. */
+    private final long game;
+    private final String gameId;
+    private final int moveCount;
+    private final Game.GameStatus status;
+    private final String error;
+
+    private PgnImportResult(long game, String gameId, int moveCount, Game.GameStatus status, String error) {
+        this.game = game;
+        this.gameId = gameId;
+        this.moveCount = moveCount;
+        this.status = status;
+        this.error = error;
+    }
+
+    public static PgnImportResult imported(long game, Game imported) {
+        return new PgnImportResult(game, imported.getId(), imported.getMoveCount(), imported.getStatus(), null);
+    }
+
+    public static PgnImportResult rejected(long game, String error) {
+        return new PgnImportResult(game, null, 0, null, error);
+    }
+
+    public boolean isOk() {
+        return error == null;
+    }
+}
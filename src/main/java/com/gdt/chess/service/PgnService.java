@@ -0,0 +1,129 @@
+package com.gdt.chess.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gdt.chess.model.Game;
+import com.gdt.chess.pgn.PgnGame;
+import com.gdt.chess.pgn.PgnPipeline;
+import com.gdt.chess.pgn.PgnReader;
+import com.gdt.chess.pgn.PgnWriter;
+import com.gdt.chess.repository.GameRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Bulk PGN import and export. Both stream: games are read, parsed and
+ * checked, or looked up and written, in parallel on a shared pool, and the
+ * results go out in input order as they are ready, so neither side of a
+ * transfer is ever held in memory whole.
+ */
+@Service
+public class PgnService {
+
+    private static final byte[] NEWLINE = { '\n' };
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // 0 = one per CPU
+    @Value("${chess.pgn.threads:0}")
+    private int threads;
+
+    // Games handed to a thread at a time
+    @Value("${chess.pgn.batch-size:64}")
+    private int batchSize;
+
+    private ExecutorService pool;
+    private PgnPipeline pipeline;
+
+    @PostConstruct
+    public void start() {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(size, runnable -> {
+            Thread thread = new Thread(runnable, "pgn-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pipeline = new PgnPipeline(pool, size, batchSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Imports every game of a PGN stream as a new game, and writes one
+     * {@link PgnImportResult} per game to {@code out} as a line of JSON.
+     * A rejected game does not stop the import. Returns the number of games
+     * read.
+     */
+    public long importGames(InputStream in, OutputStream out) throws IOException {
+        OutputStream buffered = new BufferedOutputStream(out, 1 << 16);
+        long games = pipeline.run(new PgnReader(in)::next, this::importGame, result -> {
+            buffered.write(objectMapper.writeValueAsBytes(result));
+            buffered.write(NEWLINE);
+        });
+        buffered.flush();
+        return games;
+    }
+
+    /** The game in PGN export format. Call on a snapshot, or with the game's lock held. */
+    public String toPgn(Game game) {
+        return PgnWriter.format(PgnGame.of(game));
+    }
+
+    /**
+     * Writes the games to {@code out} in PGN export format, in the order
+     * given; ids of games that do not exist are skipped. Returns the number
+     * of games written.
+     */
+    public long exportGames(List<String> gameIds, OutputStream out) throws IOException {
+        OutputStream buffered = new BufferedOutputStream(out, 1 << 16);
+        Iterator<String> ids = gameIds.iterator();
+        long[] written = new long[1];
+        pipeline.run(() -> ids.hasNext() ? Objects.toString(ids.next(), "") : null, (index, id) -> exportGame(id), pgn -> {
+            if (pgn != null) {
+                buffered.write(pgn);
+                written[0]++;
+            }
+        });
+        buffered.flush();
+        return written[0];
+    }
+
+    private PgnImportResult importGame(long index, byte[] text) {
+        try {
+            Game game = PgnGame.parse(text).toGame();
+            gameRepository.save(game);
+            return PgnImportResult.imported(index, game);
+        } catch (IllegalArgumentException e) {
+            return PgnImportResult.rejected(index, e.getMessage());
+        }
+    }
+
+    private byte[] exportGame(String gameId) {
+        return gameRepository.findById(gameId)
+                .map(game -> PgnWriter.toBytes(PgnGame.of(game.snapshot())))
+                .orElse(null);
+    }
+}
@@ -0,0 +1,218 @@
+package com.gdt.chess.tablebase;
+
+import java.util.Arrays;
+
+import com.gdt.chess.model.Bitboards;
+import com.gdt.chess.model.enums.PieceType;
+import com.gdt.chess.movegen.Attacks;
+
+/**
+ * The endgames with tables: a king and the given pieces against a lone king.
+ *
+ * Positions are numbered from the point of view of the side with the pieces,
+ * called White here; a position with Black as the strong side is first
+ * turned around (ranks mirrored, colours swapped). Symmetry then reduces the
+ * two kings to one of the 462 pairs that cannot be mapped onto each other by
+ * rotating or reflecting the board, or, with a pawn, to one of the 1806
+ * pairs with the white king on files a to d, since only the mirror between
+ * the a and h files keeps a pawn's direction. Each further piece takes 64
+ * squares, a pawn 48. The index is
+ *
+ * <pre>
+ * ((kings * squares(piece 0) + square of piece 0) * squares(piece 1) + ...)
+ * </pre>
+ *
+ * When both kings stand on the long diagonal a1-h8, two reflections keep the
+ * king pair; of the indices they give, the smallest is the position's. Indices
+ * whose squares overlap or that are not smallest in that sense are never
+ * looked up.
+ */
+public enum Material {
+    KQK(PieceType.QUEEN),
+    KRK(PieceType.ROOK),
+    KPK(PieceType.PAWN),
+    KBNK(PieceType.BISHOP, PieceType.KNIGHT);
+
+    private static final int NONE = -1;
+
+    // values() copies its array on every call, and probes look the material up each time
+    private static final Material[] ALL = values();
+
+    // Board symmetries: bit 0 mirrors the ranks, bit 1 the files, bit 2 swaps ranks and files
+    private static final int[][] TRANSFORMS = new int[8][64];
+    // Index of each canonical king pair, white king * 64 + black king, or NONE
+    private static final int[] PAWNLESS_KINGS = new int[64 * 64];
+    private static final int[] PAWN_KINGS = new int[64 * 64];
+    private static final int[] PAWNLESS_PAIRS;
+    private static final int[] PAWN_PAIRS;
+
+    static {
+        for (int t = 0; t < 8; t++) {
+            for (int square = 0; square < 64; square++) {
+                int row = (t & 1) != 0 ? 7 - Bitboards.row(square) : Bitboards.row(square);
+                int col = (t & 2) != 0 ? 7 - Bitboards.col(square) : Bitboards.col(square);
+                TRANSFORMS[t][square] = (t & 4) != 0 ? Bitboards.square(col, row) : Bitboards.square(row, col);
+            }
+        }
+        PAWNLESS_PAIRS = numberKingPairs(PAWNLESS_KINGS, false);
+        PAWN_PAIRS = numberKingPairs(PAWN_KINGS, true);
+    }
+
+    private final PieceType[] pieces;
+    private final boolean pawns;
+    private final int size;
+
+    Material(PieceType... pieces) {
+        this.pieces = pieces;
+        boolean anyPawn = false;
+        for (PieceType piece : pieces) {
+            anyPawn |= piece == PieceType.PAWN;
+        }
+        this.pawns = anyPawn;
+        int count = anyPawn ? 1806 : 462;
+        for (PieceType piece : pieces) {
+            count *= piece == PieceType.PAWN ? 48 : 64;
+        }
+        this.size = count;
+    }
+
+    /** The white pieces besides the king, in index order. */
+    public PieceType[] getPieces() {
+        return pieces.clone();
+    }
+
+    public int getPieceCount() {
+        return pieces.length;
+    }
+
+    PieceType piece(int i) {
+        return pieces[i];
+    }
+
+    public boolean hasPawns() {
+        return pawns;
+    }
+
+    /** Positions per side to move. */
+    public int getSize() {
+        return size;
+    }
+
+    /** The endgame of these white pieces besides the king, in any order, or null. */
+    public static Material of(PieceType... whitePieces) {
+        for (Material material : ALL) {
+            if (material.pieces.length == whitePieces.length && material.matches(whitePieces)) {
+                return material;
+            }
+        }
+        return null;
+    }
+
+    private boolean matches(PieceType[] whitePieces) {
+        long wanted = 0;
+        long given = 0;
+        for (int i = 0; i < pieces.length; i++) {
+            // At most two pieces, so four bits per type cannot overflow
+            wanted += 1L << (4 * pieces[i].ordinal());
+            given += 1L << (4 * whitePieces[i].ordinal());
+        }
+        return wanted == given;
+    }
+
+    /**
+     * Index of a position with White's king, Black's king and White's other
+     * pieces (in the order of {@link #getPieces()}) on the given squares, or
+     * -1 if the kings touch or stand on the same square. Squares of pieces
+     * must be distinct and pawns on ranks 2 to 7, which is not checked.
+     */
+    public int index(int whiteKing, int blackKing, int[] squares) {
+        if (pawns) {
+            // Exactly one of the two keeps the white king on files a to d
+            int t = Bitboards.col(whiteKing) < 4 ? 0 : 2;
+            return index(t, whiteKing, blackKing, squares);
+        }
+        int best = NONE;
+        for (int t = 0; t < 8; t++) {
+            int index = index(t, whiteKing, blackKing, squares);
+            if (index != NONE && (best == NONE || index < best)) {
+                best = index;
+            }
+        }
+        return best;
+    }
+
+    private int index(int t, int whiteKing, int blackKing, int[] squares) {
+        int[] transform = TRANSFORMS[t];
+        int kings = (pawns ? PAWN_KINGS : PAWNLESS_KINGS)[transform[whiteKing] * 64 + transform[blackKing]];
+        if (kings == NONE) {
+            return NONE;
+        }
+        int index = kings;
+        for (int i = 0; i < pieces.length; i++) {
+            int square = transform[squares[i]];
+            index = pieces[i] == PieceType.PAWN ? index * 48 + square - 8 : index * 64 + square;
+        }
+        return index;
+    }
+
+    /**
+     * Squares of the position numbered {@code index}: White's pieces into
+     * {@code squares}, and the white king and black king as the return
+     * value, {@code whiteKing * 64 + blackKing}.
+     */
+    public int decode(int index, int[] squares) {
+        for (int i = pieces.length - 1; i >= 0; i--) {
+            if (pieces[i] == PieceType.PAWN) {
+                squares[i] = index % 48 + 8;
+                index /= 48;
+            } else {
+                squares[i] = index % 64;
+                index /= 64;
+            }
+        }
+        return (pawns ? PAWN_PAIRS : PAWNLESS_PAIRS)[index];
+    }
+
+    /** A square as seen from the other side: ranks mirrored, as when the colours are swapped. */
+    public static int flip(int square) {
+        return square ^ 56;
+    }
+
+    /**
+     * Numbers the king pairs that are the smallest of their kind under the
+     * symmetries allowed, the white king first; returns the pairs by number.
+     */
+    private static int[] numberKingPairs(int[] numbers, boolean pawns) {
+        Arrays.fill(numbers, NONE);
+        int[] pairs = new int[64 * 64];
+        int count = 0;
+        for (int pair = 0; pair < 64 * 64; pair++) {
+            int whiteKing = pair / 64;
+            int blackKing = pair % 64;
+            if (blackKing == whiteKing || (Attacks.king(whiteKing) & Bitboards.bit(blackKing)) != 0) {
+                continue;
+            }
+            int smallest = Integer.MAX_VALUE;
+            for (int t = 0; t < 8; t++) {
+                int king = TRANSFORMS[t][whiteKing];
+                // With a pawn, the file mirror alone, the white king on files a to d
+                boolean allowed = pawns ? (t == 0 || t == 2) && Bitboards.col(king) < 4 : inTriangle(king);
+                if (allowed) {
+                    smallest = Math.min(smallest, king * 64 + TRANSFORMS[t][blackKing]);
+                }
+            }
+            if (smallest == pair) {
+                numbers[pair] = count;
+                pairs[count++] = pair;
+            }
+        }
+        return Arrays.copyOf(pairs, count);
+    }
+
+    /** The triangle a1-d1-d4. */
+    private static boolean inTriangle(int square) {
+        int file = Bitboards.col(square);
+        int rank = 7 - Bitboards.row(square);
+        return file < 4 && rank <= file;
+    }
+}
@@ -0,0 +1,176 @@
+package com.gdt.chess.tablebase;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+import com.gdt.chess.model.enums.Color;
+
+/**
+ * The table of one {@link Material}, memory-mapped from its file, so it
+ * costs no heap and a restart finds it ready.
+ *
+ * The values of {@link TablebaseGenerator} are packed into as few bits as the
+ * largest one needs, seven for every table here, and stored White to move
+ * first. The file is big-endian:
+ *
+ * <pre>
+ * int  magic "CTB1"
+ * int  format version
+ * int  material (ordinal)
+ * int  positions per side to move
+ * int  bits per value
+ * int  CRC32C of the values
+ * long reserved
+ * long values, a bit stream per side to move, each padded to a whole long
+ * </pre>
+ */
+public final class Tablebase implements Closeable {
+
+    private static final int MAGIC = 0x43544231; // "CTB1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+
+    private final Material material;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final int bits;
+    private final long mask;
+    private final int blackOffset;
+
+    private Tablebase(Material material, FileChannel channel, ByteBuffer buffer, int bits) {
+        this.material = material;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.bits = bits;
+        this.mask = (1L << bits) - 1;
+        this.blackOffset = HEADER_BYTES + words(material.getSize(), bits) * Long.BYTES;
+    }
+
+    /** Packs the values of a generated table into a file, replacing any file there at once. */
+    public static void write(Path path, Material material, byte[][] values) throws IOException {
+        int largest = 1;
+        for (byte[] side : values) {
+            for (byte value : side) {
+                largest = Math.max(largest, value & 0xFF);
+            }
+        }
+        int bits = 32 - Integer.numberOfLeadingZeros(largest);
+        int words = words(material.getSize(), bits);
+        ByteBuffer data = ByteBuffer.allocate(2 * words * Long.BYTES);
+        for (byte[] side : values) {
+            long word = 0;
+            int filled = 0;
+            for (byte value : side) {
+                word |= (long) (value & 0xFF) << filled;
+                filled += bits;
+                if (filled >= Long.SIZE) {
+                    data.putLong(word);
+                    filled -= Long.SIZE;
+                    // The bits of the value that did not fit
+                    word = filled > 0 ? (long) (value & 0xFF) >>> (bits - filled) : 0;
+                }
+            }
+            if (filled > 0) {
+                data.putLong(word);
+            }
+        }
+        data.flip();
+        CRC32C crc = new CRC32C();
+        crc.update(data.duplicate());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(material.ordinal()).putInt(material.getSize())
+                .putInt(bits).putInt((int) crc.getValue()).putLong(0L).flip();
+        // A name of its own, so that two processes building the same table do not write into one file
+        Path temporary = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName() + ".", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (header.hasRemaining() || data.hasRemaining()) {
+                    channel.write(new ByteBuffer[] { header, data });
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+    }
+
+    /** Maps a table file; fails if it is not a complete, intact table of {@code material}. */
+    public static Tablebase open(Path path, Material material) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException(path + " is not a tablebase: " + size + " bytes");
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int bits = buffer.getInt(16);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException(path + " is not a tablebase of this version");
+            }
+            if (buffer.getInt(8) != material.ordinal() || buffer.getInt(12) != material.getSize()) {
+                throw new IOException(path + " is not a " + material + " table");
+            }
+            if (bits < 1 || bits > 8 || size != HEADER_BYTES + 2L * words(material.getSize(), bits) * Long.BYTES) {
+                throw new IOException(path + " is truncated or damaged: " + size + " bytes");
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(HEADER_BYTES, (int) size - HEADER_BYTES));
+            if ((int) crc.getValue() != buffer.getInt(20)) {
+                throw new IOException(path + " is damaged: checksum mismatch");
+            }
+            return new Tablebase(material, channel, buffer, bits);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Material getMaterial() {
+        return material;
+    }
+
+    /** Bits per stored value. */
+    public int getBits() {
+        return bits;
+    }
+
+    /** Bytes of the file, header included. */
+    public long getFileSize() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Stored value of a position, see {@link TablebaseGenerator}: 0 for a
+     * draw, otherwise the distance to mate in plies plus one.
+     */
+    public int value(Color sideToMove, int index) {
+        long bit = (long) index * bits;
+        int offset = (sideToMove == Color.WHITE ? HEADER_BYTES : blackOffset) + (int) (bit >>> 6) * Long.BYTES;
+        int shift = (int) (bit & 63);
+        long value = buffer.getLong(offset) >>> shift;
+        if (shift + bits > Long.SIZE) {
+            value |= buffer.getLong(offset + Long.BYTES) << (Long.SIZE - shift);
+        }
+        return (int) (value & mask);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // The mapping itself goes when it is garbage collected
+        channel.close();
+    }
+
+    private static int words(int values, int bits) {
+        return (int) (((long) values * bits + Long.SIZE - 1) / Long.SIZE);
+    }
+}
@@ -0,0 +1,467 @@
+package com.gdt.chess.tablebase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.gdt.chess.model.Bitboards;
+import com.gdt.chess.model.enums.Color;
+import com.gdt.chess.model.enums.PieceType;
+import com.gdt.chess.movegen.Attacks;
+
+/**
+ * Builds the table of one {@link Material} by retrograde analysis.
+ *
+ * Every position gets a value for each side to move: 0 for a draw (and for
+ * indices that are no position), otherwise the distance to mate in plies
+ * plus one. With White to move that is how fast White mates; with Black to
+ * move, how long Black lasts. A lone king can never win, so that is all there
+ * is to know.
+ *
+ * The analysis starts from the checkmates and works backwards one ply at a
+ * time. A White-to-move position is won in n + 1 once a move reaches a
+ * Black-to-move position lost in n; the predecessors are found by taking
+ * White's moves back. A Black-to-move position is lost once every king
+ * move reaches a won position and no capture is safe; it is checked when one
+ * of its successors is won, found by taking Black's king moves back. Since
+ * positions are decided in order of distance, the last successor decided is
+ * the longest, and the first move found for White the shortest. Moves that
+ * leave the table, pawn promotions, are looked up in tables already built and
+ * join the analysis at their distance; captures of White's pieces leave bare
+ * or insufficient material, a draw.
+ *
+ * Each ply is split among the threads of a pool. Threads only ever write the
+ * same value to a position, so races between them cost at most some
+ * duplicate work, which is sorted out between plies.
+ */
+public final class TablebaseGenerator {
+
+    /** Stored values of other tables, for moves that leave this one. */
+    @FunctionalInterface
+    public interface Lookup {
+        /** Stored value of a position of {@code material}, see the class comment. */
+        int value(Material material, Color sideToMove, int index);
+    }
+
+    public static final int WHITE = Color.WHITE.ordinal();
+    public static final int BLACK = Color.BLACK.ordinal();
+
+    /** Largest stored value; a byte per position during generation. */
+    public static final int MAX_VALUE = 255;
+
+    // Results of a look at Black's moves
+    private static final int NO_MOVE = 0;
+    private static final int ESCAPE = -1;
+
+    private final Material material;
+    private final ExecutorService pool;
+    private final int chunks;
+    private final Lookup lookup;
+    private final byte[][] values;
+
+    public TablebaseGenerator(Material material, ExecutorService pool, int threads, Lookup lookup) {
+        this.material = material;
+        this.pool = pool;
+        this.chunks = 4 * Math.max(1, threads);
+        this.lookup = lookup;
+        this.values = new byte[2][material.getSize()];
+    }
+
+    /** Runs the analysis; returns the values by side to move, {@link #WHITE} and {@link #BLACK}. */
+    public byte[][] generate() throws InterruptedException {
+        int size = material.getSize();
+        List<int[]> mates = new ArrayList<>();
+        List<int[]> conversions = new ArrayList<>();
+        for (Ints[] found : parallel(chunks, chunk -> {
+            Ints chunkMates = new Ints();
+            Ints chunkConversions = new Ints();
+            Scratch scratch = new Scratch(material.getPieceCount());
+            long end = (long) size * (chunk + 1) / chunks;
+            for (int index = (int) ((long) size * chunk / chunks); index < end; index++) {
+                initialize(index, scratch, chunkMates, chunkConversions);
+            }
+            return new Ints[] { chunkMates, chunkConversions };
+        })) {
+            mates.add(found[0].toArray());
+            conversions.add(found[1].toArray());
+        }
+
+        // Positions won by leaving the table, as pairs of (value, index), by value
+        int[] seeds = flatten(conversions);
+        long[] sorted = new long[seeds.length / 2];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = (long) seeds[2 * i] << 32 | seeds[2 * i + 1];
+        }
+        Arrays.sort(sorted);
+        int nextSeed = 0;
+
+        int[] lost = flatten(mates);
+        for (int value = 1; lost.length > 0 || nextSeed < sorted.length; value += 2) {
+            if (value + 2 > MAX_VALUE) {
+                throw new IllegalStateException(material + ": mates beyond " + (MAX_VALUE - 1) + " plies");
+            }
+            int[] current = lost;
+            int wonValue = value + 1;
+            int[] won = unique(parallel(chunks, chunk -> {
+                Ints found = new Ints();
+                Scratch scratch = new Scratch(material.getPieceCount());
+                for (int i = current.length * chunk / chunks; i < current.length * (chunk + 1) / chunks; i++) {
+                    retractWhite(current[i], wonValue, scratch, found);
+                }
+                return found;
+            }));
+            Ints seeded = new Ints();
+            seeded.addAll(won);
+            for (; nextSeed < sorted.length && (int) (sorted[nextSeed] >>> 32) == wonValue; nextSeed++) {
+                int index = (int) sorted[nextSeed];
+                if (values[WHITE][index] == 0) {
+                    values[WHITE][index] = (byte) wonValue;
+                    seeded.add(index);
+                }
+            }
+            int[] winning = seeded.toArray();
+            int lostValue = value + 2;
+            lost = unique(parallel(chunks, chunk -> {
+                Ints found = new Ints();
+                Scratch scratch = new Scratch(material.getPieceCount());
+                for (int i = winning.length * chunk / chunks; i < winning.length * (chunk + 1) / chunks; i++) {
+                    retractBlack(winning[i], lostValue, scratch, found);
+                }
+                return found;
+            }));
+        }
+        return values;
+    }
+
+    /** Marks the checkmates and collects the wins by promotion. */
+    private void initialize(int index, Scratch scratch, Ints mates, Ints conversions) {
+        if (!decode(index, scratch)) {
+            return;
+        }
+        int[] squares = scratch.squares;
+        int whiteKing = scratch.whiteKing;
+        int blackKing = scratch.blackKing;
+        long occupied = scratch.occupied;
+        boolean check = attacked(blackKing, whiteKing, squares, -1, occupied);
+        if (check && blackMoves(whiteKing, blackKing, squares, occupied) == NO_MOVE) {
+            values[BLACK][index] = 1;
+            mates.add(index);
+        }
+        if (check || !material.hasPawns()) {
+            // With Black in check, it is no position with White to move
+            return;
+        }
+        int best = 0;
+        for (int i = 0; i < squares.length; i++) {
+            int square = squares[i];
+            if (material.piece(i) != PieceType.PAWN || Bitboards.row(square) != 1
+                    || (occupied & Bitboards.bit(square - 8)) != 0) {
+                continue;
+            }
+            for (PieceType promotion : new PieceType[] { PieceType.QUEEN, PieceType.ROOK }) {
+                int value = promotionValue(i, promotion, scratch);
+                if (value > 0 && (best == 0 || value + 1 < best)) {
+                    best = value + 1;
+                }
+            }
+        }
+        if (best > 0) {
+            conversions.add(best);
+            conversions.add(index);
+        }
+    }
+
+    /** Stored value, with Black to move, of the position after pawn {@code i} promotes; 0 if not in a table. */
+    private int promotionValue(int i, PieceType promotion, Scratch scratch) {
+        PieceType[] pieces = material.getPieces();
+        pieces[i] = promotion;
+        Material target = Material.of(pieces);
+        if (target == null) {
+            return 0;
+        }
+        // Put the squares in the order of the other table's pieces
+        int[] squares = new int[pieces.length];
+        boolean[] used = new boolean[pieces.length];
+        for (int j = 0; j < squares.length; j++) {
+            for (int k = 0; k < pieces.length; k++) {
+                if (!used[k] && pieces[k] == target.piece(j)) {
+                    used[k] = true;
+                    squares[j] = k == i ? scratch.squares[k] - 8 : scratch.squares[k];
+                    break;
+                }
+            }
+        }
+        return lookup.value(target, Color.BLACK, target.index(scratch.whiteKing, scratch.blackKing, squares));
+    }
+
+    /** Every White-to-move position that reaches a lost position by one White move is won. */
+    private void retractWhite(int index, int wonValue, Scratch scratch, Ints found) {
+        decode(index, scratch);
+        int[] squares = scratch.squares;
+        int whiteKing = scratch.whiteKing;
+        int blackKing = scratch.blackKing;
+        long occupied = scratch.occupied;
+        long empty = ~occupied;
+
+        long origins = Attacks.king(whiteKing) & empty & ~Attacks.king(blackKing);
+        while (origins != 0) {
+            int origin = Long.numberOfTrailingZeros(origins);
+            origins &= origins - 1;
+            long before = occupied ^ Bitboards.bit(whiteKing) ^ Bitboards.bit(origin);
+            if (!attacked(blackKing, origin, squares, -1, before)) {
+                markWon(material.index(origin, blackKing, squares), wonValue, found);
+            }
+        }
+
+        for (int i = 0; i < squares.length; i++) {
+            int square = squares[i];
+            long pieceOrigins;
+            switch (material.piece(i)) {
+                case PAWN:
+                    pieceOrigins = 0;
+                    // A pawn came from one rank below, or two from its first rank
+                    if (Bitboards.row(square) < 6 && (occupied & Bitboards.bit(square + 8)) == 0) {
+                        pieceOrigins |= Bitboards.bit(square + 8);
+                        if (Bitboards.row(square) == 4 && (occupied & Bitboards.bit(square + 16)) == 0) {
+                            pieceOrigins |= Bitboards.bit(square + 16);
+                        }
+                    }
+                    break;
+                case KNIGHT:
+                    pieceOrigins = Attacks.knight(square) & empty;
+                    break;
+                case BISHOP:
+                    pieceOrigins = Attacks.bishop(square, occupied) & empty;
+                    break;
+                case ROOK:
+                    pieceOrigins = Attacks.rook(square, occupied) & empty;
+                    break;
+                default:
+                    pieceOrigins = Attacks.queen(square, occupied) & empty;
+                    break;
+            }
+            while (pieceOrigins != 0) {
+                int origin = Long.numberOfTrailingZeros(pieceOrigins);
+                pieceOrigins &= pieceOrigins - 1;
+                squares[i] = origin;
+                long before = occupied ^ Bitboards.bit(square) ^ Bitboards.bit(origin);
+                if (!attacked(blackKing, whiteKing, squares, -1, before)) {
+                    markWon(material.index(whiteKing, blackKing, squares), wonValue, found);
+                }
+            }
+            squares[i] = square;
+        }
+    }
+
+    private void markWon(int index, int wonValue, Ints found) {
+        if (values[WHITE][index] == 0) {
+            values[WHITE][index] = (byte) wonValue;
+            found.add(index);
+        }
+    }
+
+    /** Every Black-to-move position that reaches this won position by a king move may now be lost. */
+    private void retractBlack(int index, int lostValue, Scratch scratch, Ints found) {
+        decode(index, scratch);
+        int[] squares = scratch.squares;
+        int whiteKing = scratch.whiteKing;
+        long occupied = scratch.occupied ^ Bitboards.bit(scratch.blackKing);
+        long origins = Attacks.king(scratch.blackKing) & ~occupied & ~Attacks.king(whiteKing);
+        while (origins != 0) {
+            int origin = Long.numberOfTrailingZeros(origins);
+            origins &= origins - 1;
+            int previous = material.index(whiteKing, origin, squares);
+            if (values[BLACK][previous] != 0) {
+                continue;
+            }
+            int worst = blackMoves(whiteKing, origin, squares, occupied | Bitboards.bit(origin));
+            if (worst > 0) {
+                values[BLACK][previous] = (byte) lostValue;
+                found.add(previous);
+            }
+        }
+    }
+
+    /**
+     * Looks at Black's king moves: {@link #NO_MOVE} without any, {@link #ESCAPE}
+     * if a capture is safe or a move reaches a position not (yet) won for
+     * White, else the largest stored value of the positions reached.
+     */
+    private int blackMoves(int whiteKing, int blackKing, int[] squares, long occupied) {
+        long without = occupied ^ Bitboards.bit(blackKing);
+        long targets = Attacks.king(blackKing) & ~Attacks.king(whiteKing) & ~Bitboards.bit(whiteKing);
+        int worst = NO_MOVE;
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if ((without & Bitboards.bit(target)) != 0) {
+                int captured = 0;
+                while (squares[captured] != target) {
+                    captured++;
+                }
+                if (!attacked(target, whiteKing, squares, captured, without)) {
+                    return ESCAPE;
+                }
+            } else if (!attacked(target, whiteKing, squares, -1, without)) {
+                int value = values[WHITE][material.index(whiteKing, target, squares)] & 0xFF;
+                if (value == 0) {
+                    return ESCAPE;
+                }
+                worst = Math.max(worst, value);
+            }
+        }
+        return worst;
+    }
+
+    /** Whether White attacks {@code target}, leaving out piece {@code skip}. */
+    private boolean attacked(int target, int whiteKing, int[] squares, int skip, long occupied) {
+        long bit = Bitboards.bit(target);
+        if ((Attacks.king(whiteKing) & bit) != 0) {
+            return true;
+        }
+        for (int i = 0; i < squares.length; i++) {
+            if (i == skip) {
+                continue;
+            }
+            long attacks;
+            switch (material.piece(i)) {
+                case PAWN:
+                    attacks = Attacks.pawn(WHITE, squares[i]);
+                    break;
+                case KNIGHT:
+                    attacks = Attacks.knight(squares[i]);
+                    break;
+                case BISHOP:
+                    attacks = Attacks.bishop(squares[i], occupied);
+                    break;
+                case ROOK:
+                    attacks = Attacks.rook(squares[i], occupied);
+                    break;
+                default:
+                    attacks = Attacks.queen(squares[i], occupied);
+                    break;
+            }
+            if ((attacks & bit) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Unpacks an index into {@code scratch}; false unless it is the index of
+     * a position: pieces on distinct squares, and the index its own.
+     */
+    private boolean decode(int index, Scratch scratch) {
+        int kings = material.decode(index, scratch.squares);
+        int whiteKing = kings / 64;
+        int blackKing = kings % 64;
+        long occupied = Bitboards.bit(whiteKing) | Bitboards.bit(blackKing);
+        for (int square : scratch.squares) {
+            if ((occupied & Bitboards.bit(square)) != 0) {
+                return false;
+            }
+            occupied |= Bitboards.bit(square);
+        }
+        scratch.whiteKing = whiteKing;
+        scratch.blackKing = blackKing;
+        scratch.occupied = occupied;
+        return material.index(whiteKing, blackKing, scratch.squares) == index;
+    }
+
+    /** Runs {@code count} tasks on the pool and returns their results in order. */
+    private <T> List<T> parallel(int count, Task<T> task) throws InterruptedException {
+        List<Callable<T>> calls = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int chunk = i;
+            calls.add(() -> task.run(chunk));
+        }
+        List<T> results = new ArrayList<>(count);
+        for (Future<T> future : pool.invokeAll(calls)) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
+        return results;
+    }
+
+    /** The indices found by all tasks, each once. */
+    private static int[] unique(List<Ints> found) {
+        int[] all = flatten(found.stream().map(Ints::toArray).toList());
+        Arrays.sort(all);
+        int count = 0;
+        for (int i = 0; i < all.length; i++) {
+            if (count == 0 || all[count - 1] != all[i]) {
+                all[count++] = all[i];
+            }
+        }
+        return Arrays.copyOf(all, count);
+    }
+
+    private static int[] flatten(List<int[]> arrays) {
+        int length = 0;
+        for (int[] array : arrays) {
+            length += array.length;
+        }
+        int[] all = new int[length];
+        int at = 0;
+        for (int[] array : arrays) {
+            System.arraycopy(array, 0, all, at, array.length);
+            at += array.length;
+        }
+        return all;
+    }
+
+    @FunctionalInterface
+    private interface Task<T> {
+        T run(int chunk);
+    }
+
+    /** One position being looked at, per task. */
+    private static final class Scratch {
+        final int[] squares;
+        int whiteKing;
+        int blackKing;
+        long occupied;
+
+        Scratch(int pieces) {
+            this.squares = new int[pieces];
+        }
+    }
+
+    /** Growable list of ints. */
+    private static final class Ints {
+        private int[] data = new int[256];
+        private int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        void addAll(int[] values) {
+            for (int value : values) {
+                add(value);
+            }
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.gdt.chess.tablebase;
+
+import lombok.Getter;
+
+/** A legal move of a tablebase position and the outcome it leads to. */
+@Getter
+public class TablebaseMove {
+    /** Long algebraic notation of the move, e.g. "e7e8q". */
+    private final String move;
+    private final String san;
+    /** Outcome for the side playing the move. */
+    private final Wdl wdl;
+    /** Plies to mate with perfect play, counting this move; null for a draw. */
+    private final Integer dtm;
+    /** Moves to mate, negative when the side playing the move is mated; null for a draw. */
+    private final Integer mateIn;
+
+    public TablebaseMove(String move, String san, Wdl wdl, Integer dtm, Integer mateIn) {
+        this.move = move;
+        this.san = san;
+        this.wdl = wdl;
+        this.dtm = dtm;
+        this.mateIn = mateIn;
+    }
+}
@@ -0,0 +1,41 @@
+package com.gdt.chess.tablebase;
+
+import java.util.Collections;
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * What the tablebases know about a position: the outcome and distance to
+ * mate for the side to move, and every legal move with where it leads, best
+ * first. A position without a table has only {@code found} false.
+ */
+@Getter
+public class TablebaseResult {
+    private static final TablebaseResult NOT_FOUND = new TablebaseResult(false, null, null, null, null, Collections.emptyList());
+
+    /** Whether a loaded table covers the position. */
+    private final boolean found;
+    /** The endgame, e.g. "KPK", with the strong side's pieces first whichever colour it is. */
+    private final String material;
+    private final Wdl wdl;
+    /** Plies to mate with perfect play, 0 when checkmated; null for a draw. */
+    private final Integer dtm;
+    /** Moves to mate, negative when the side to move is being mated; null for a draw. */
+    private final Integer mateIn;
+    /** Every legal move, winning ones fastest first, then drawing ones, then losing ones slowest first. */
+    private final List<TablebaseMove> moves;
+
+    public TablebaseResult(boolean found, String material, Wdl wdl, Integer dtm, Integer mateIn, List<TablebaseMove> moves) {
+        this.found = found;
+        this.material = material;
+        this.wdl = wdl;
+        this.dtm = dtm;
+        this.mateIn = mateIn;
+        this.moves = moves;
+    }
+
+    public static TablebaseResult notFound() {
+        return NOT_FOUND;
+    }
+}
@@ -0,0 +1,381 @@
+package com.gdt.chess.tablebase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.gdt.chess.engine.Search;
+import com.gdt.chess.model.Bitboards;
+import com.gdt.chess.model.Board;
+import com.gdt.chess.model.Fen;
+import com.gdt.chess.model.Game;
+import com.gdt.chess.model.Game.GameStatus;
+import com.gdt.chess.model.PackedMove;
+import com.gdt.chess.model.San;
+import com.gdt.chess.model.enums.Color;
+import com.gdt.chess.model.enums.PieceType;
+import com.gdt.chess.movegen.MoveGenerator;
+import com.gdt.chess.movegen.MoveList;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Endgame tablebases for the materials in {@code chess.tablebase.materials},
+ * kept in {@code chess.tablebase.dir}; without a directory there are none.
+ *
+ * At startup a background thread maps the table files found there and
+ * builds, with {@code chess.tablebase.threads} threads, and writes the ones
+ * that are missing or damaged, so only the first start pays for them. Each
+ * table answers probes as soon as it is ready. KPK needs KQK and KRK for its
+ * promotions, so they are always built with it.
+ *
+ * The tables know nothing of the fifty-move rule or repetitions: a win is a
+ * win however long the mate takes.
+ */
+@Service
+public class Tablebases {
+
+    /** {@link #probe} of a position no loaded table covers. */
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private static final Logger log = LoggerFactory.getLogger(Tablebases.class);
+
+    private static final String SUFFIX = ".ctb";
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /** Scratch space for one probe, one per thread. */
+    private static final class Scratch {
+        final PieceType[][] types = { new PieceType[1], new PieceType[2] };
+        final int[][] squares = { new int[1], new int[2] };
+        final int[] found = new int[2];
+        final MoveList moves = new MoveList();
+    }
+
+    @Value("${chess.tablebase.dir:}")
+    private String dir;
+
+    @Value("${chess.tablebase.materials:KQK,KRK,KPK,KBNK}")
+    private String materials;
+
+    // 0 = one per CPU
+    @Value("${chess.tablebase.threads:0}")
+    private int threads;
+
+    @Value("${chess.tablebase.adjudicate:true}")
+    private boolean adjudicate;
+
+    private final AtomicReferenceArray<Tablebase> tables = new AtomicReferenceArray<>(Material.values().length);
+    private final AtomicInteger loadedCount = new AtomicInteger();
+    private final CountDownLatch done = new CountDownLatch(1);
+    private ExecutorService pool;
+    private Thread loader;
+
+    @PostConstruct
+    public void start() {
+        if (dir.isBlank()) {
+            done.countDown();
+            return;
+        }
+        Set<Material> wanted = EnumSet.noneOf(Material.class);
+        for (String name : materials.split(",")) {
+            if (!name.isBlank()) {
+                wanted.add(Material.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+            }
+        }
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(size, runnable -> {
+            Thread thread = new Thread(runnable, "tablebase-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        loader = new Thread(() -> {
+            try {
+                load(Path.of(dir), wanted, pool, size);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | RuntimeException e) {
+                log.error("Loading tablebases from {} failed", dir, e);
+            } finally {
+                done.countDown();
+            }
+        }, "tablebase-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (loader != null) {
+            loader.interrupt();
+            pool.shutdownNow();
+        }
+        for (int i = 0; i < tables.length(); i++) {
+            Tablebase table = tables.getAndSet(i, null);
+            if (table != null) {
+                try {
+                    table.close();
+                } catch (IOException e) {
+                    log.warn("Closing the {} table failed", table.getMaterial(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps the tables of {@code wanted} from {@code directory}, first building
+     * and writing those missing or damaged with {@code threads} tasks at a
+     * time on {@code pool}; blocks until done. Called at startup on a
+     * background thread, and by tools and benchmarks without one.
+     */
+    public void load(Path directory, Set<Material> wanted, ExecutorService pool, int threads)
+            throws IOException, InterruptedException {
+        Set<Material> all = EnumSet.copyOf(wanted);
+        if (all.contains(Material.KPK)) {
+            all.add(Material.KQK);
+            all.add(Material.KRK);
+        }
+        Files.createDirectories(directory);
+        // Declaration order is dependency order: the tables KPK promotes into come first
+        for (Material material : all) {
+            Path file = directory.resolve(material.name() + SUFFIX);
+            Tablebase table;
+            try {
+                table = Tablebase.open(file, material);
+            } catch (NoSuchFileException e) {
+                table = generate(file, material, pool, threads);
+            } catch (IOException e) {
+                log.warn("Rebuilding the {} table: {}", material, e.getMessage());
+                table = generate(file, material, pool, threads);
+            }
+            Tablebase previous = tables.getAndSet(material.ordinal(), table);
+            if (previous != null) {
+                previous.close();
+            } else {
+                loadedCount.incrementAndGet();
+            }
+            log.info("Tablebase {}: {} positions per side, {} bits each, {} bytes",
+                    material, material.getSize(), table.getBits(), table.getFileSize());
+        }
+    }
+
+    private Tablebase generate(Path file, Material material, ExecutorService pool, int threads)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        byte[][] values = new TablebaseGenerator(material, pool, threads, this::value).generate();
+        Tablebase.write(file, material, values);
+        log.info("Generated the {} table in {} ms", material, (System.nanoTime() - start) / 1_000_000L);
+        return Tablebase.open(file, material);
+    }
+
+    /** Stored value of a position of a loaded table, 0 when the table is not loaded. */
+    private int value(Material material, Color sideToMove, int index) {
+        Tablebase table = tables.get(material.ordinal());
+        return table != null ? table.value(sideToMove, index) : 0;
+    }
+
+    /** Waits until every table is loaded or has failed; false on timeout. */
+    public boolean awaitLoaded(long timeoutMs) throws InterruptedException {
+        return done.await(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Tables ready so far; a probe may be answered once this grows. */
+    public int getLoadedCount() {
+        return loadedCount.get();
+    }
+
+    public boolean isLoaded(Material material) {
+        return tables.get(material.ordinal()) != null;
+    }
+
+    /**
+     * The value of the position for the side to move, as a search score:
+     * {@code Search.MATE - n} when it mates in n plies, {@code -(Search.MATE - n)}
+     * when it is mated in n plies, 0 for a draw, or {@link #UNKNOWN} when no
+     * loaded table covers the position. Positions with castling rights are
+     * not covered. Allocates nothing.
+     */
+    public int probe(Board board) {
+        if (loadedCount.get() == 0 || board.getCastlingRights() != 0) {
+            return UNKNOWN;
+        }
+        int pieceCount = Long.bitCount(board.occupancy()) - 2;
+        if (pieceCount < 1 || pieceCount > 2) {
+            return UNKNOWN;
+        }
+        Color strong = Long.bitCount(board.occupancy(Color.WHITE)) > 1 ? Color.WHITE : Color.BLACK;
+        Color weak = strong == Color.WHITE ? Color.BLACK : Color.WHITE;
+        if (Long.bitCount(board.occupancy(weak)) != 1) {
+            return UNKNOWN;
+        }
+
+        Scratch scratch = SCRATCH.get();
+        PieceType[] types = scratch.types[pieceCount - 1];
+        int[] found = scratch.found;
+        long pieces = board.occupancy(strong) & ~board.pieces(PieceType.KING, strong);
+        for (int i = 0; i < pieceCount; i++) {
+            found[i] = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            types[i] = Bitboards.typeOf(board.pieceAt(found[i]));
+        }
+        Material material = Material.of(types);
+        Tablebase table = material != null ? tables.get(material.ordinal()) : null;
+        if (table == null) {
+            return UNKNOWN;
+        }
+
+        // Seen from the strong side, as White; in the table's order of pieces
+        boolean flip = strong == Color.BLACK;
+        int[] squares = scratch.squares[pieceCount - 1];
+        int used = 0;
+        for (int j = 0; j < pieceCount; j++) {
+            for (int k = 0; k < pieceCount; k++) {
+                if ((used & (1 << k)) == 0 && types[k] == material.piece(j)) {
+                    used |= 1 << k;
+                    squares[j] = flip ? Material.flip(found[k]) : found[k];
+                    break;
+                }
+            }
+        }
+        int whiteKing = Long.numberOfTrailingZeros(board.pieces(PieceType.KING, strong));
+        int blackKing = Long.numberOfTrailingZeros(board.pieces(PieceType.KING, weak));
+        int index = material.index(flip ? Material.flip(whiteKing) : whiteKing,
+                flip ? Material.flip(blackKing) : blackKing, squares);
+        if (index < 0) {
+            return UNKNOWN;
+        }
+        boolean strongToMove = board.getSideToMove() == strong;
+        int value = table.value(strongToMove ? Color.WHITE : Color.BLACK, index);
+        if (value == 0) {
+            return 0;
+        }
+        int plies = value - 1;
+        return strongToMove ? Search.MATE - plies : -(Search.MATE - plies);
+    }
+
+    /**
+     * The best move of a covered position: the fastest mate when winning,
+     * the longest resistance when losing, any drawing move otherwise; or
+     * {@link PackedMove#NONE} when the position is not covered or has no
+     * move. Leaves the board as it was.
+     */
+    public int bestMove(Board board) {
+        if (probe(board) == UNKNOWN) {
+            return PackedMove.NONE;
+        }
+        MoveList moves = SCRATCH.get().moves;
+        MoveGenerator.generateLegalMoves(board, moves);
+        int best = PackedMove.NONE;
+        int bestScore = -Search.INFINITY;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int score = scoreAfter(board, move);
+            if (score != UNKNOWN && score > bestScore) {
+                best = move;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    /** Score of a move for the side playing it, one ply further from mate than the position it reaches. */
+    private int scoreAfter(Board board, int move) {
+        board.makeMove(move);
+        try {
+            int score = probe(board);
+            if (score == UNKNOWN) {
+                // Captures and minor promotions leave material that cannot mate
+                return board.hasInsufficientMaterial() ? 0 : UNKNOWN;
+            }
+            return score > 0 ? -score + 1 : score < 0 ? -score - 1 : 0;
+        } finally {
+            board.unmakeMove();
+        }
+    }
+
+    /** The position and each of its legal moves as a covered table sees them. */
+    public TablebaseResult getResult(Board board) {
+        int score = probe(board);
+        if (score == UNKNOWN) {
+            return TablebaseResult.notFound();
+        }
+        Board copy = new Board(board);
+        MoveList legal = new MoveList();
+        MoveGenerator.generateLegalMoves(copy, legal);
+        MoveList scratch = new MoveList();
+        List<int[]> scored = new ArrayList<>(legal.size());
+        for (int i = 0; i < legal.size(); i++) {
+            int moveScore = scoreAfter(copy, legal.get(i));
+            if (moveScore != UNKNOWN) {
+                scored.add(new int[] { legal.get(i), moveScore });
+            }
+        }
+        scored.sort(Comparator.comparingInt((int[] entry) -> entry[1]).reversed());
+        List<TablebaseMove> moves = new ArrayList<>(scored.size());
+        for (int[] entry : scored) {
+            moves.add(new TablebaseMove(PackedMove.toUci(entry[0]), San.toSan(copy, entry[0], scratch),
+                    wdl(entry[1]), dtm(entry[1]), mateIn(entry[1])));
+        }
+        return new TablebaseResult(true, materialName(board), wdl(score), dtm(score), mateIn(score), moves);
+    }
+
+    /**
+     * Declares the game drawn when it is still on, adjudication is enabled
+     * and a table shows that neither side can win any more; returns whether
+     * it did. The caller holds the game's write lock.
+     */
+    public boolean adjudicate(Game game) {
+        if (!adjudicate || game.getStatus().isOver() || probe(game.getBoard()) != 0) {
+            return false;
+        }
+        game.setStatus(GameStatus.DRAW);
+        return true;
+    }
+
+    private static Wdl wdl(int score) {
+        return score > 0 ? Wdl.WIN : score < 0 ? Wdl.LOSS : Wdl.DRAW;
+    }
+
+    private static Integer dtm(int score) {
+        return score == 0 ? null : Search.MATE - Math.abs(score);
+    }
+
+    private static Integer mateIn(int score) {
+        if (score > 0) {
+            return (Search.MATE - score + 1) / 2;
+        }
+        return score < 0 ? -(Search.MATE + score) / 2 : null;
+    }
+
+    /** "KPK" and the like, the side with the pieces first. */
+    private static String materialName(Board board) {
+        Color strong = Long.bitCount(board.occupancy(Color.WHITE)) > 1 ? Color.WHITE : Color.BLACK;
+        StringBuilder name = new StringBuilder("K");
+        for (PieceType type : new PieceType[] { PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT, PieceType.PAWN }) {
+            for (int i = Long.bitCount(board.pieces(type, strong)); i > 0; i--) {
+                name.append(Fen.letter(type, Color.WHITE));
+            }
+        }
+        return name.append('K').toString();
+    }
+}
@@ -0,0 +1,6 @@
+package com.gdt.chess.tablebase;
+
+/** Outcome with perfect play, for the side to move. */
+public enum Wdl {
+    WIN, DRAW, LOSS
+}
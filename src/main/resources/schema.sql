@@ -0,0 +1,14 @@
+-- Tables of the jdbc game store (chess.repository.type=jdbc)
+CREATE TABLE IF NOT EXISTS games (
+    id VARCHAR(36) PRIMARY KEY,
+    status VARCHAR(16) NOT NULL,
+    move_count INT NOT NULL
+);
+
+-- One row per ply; entry is the packed MoveHistory entry of the move
+CREATE TABLE IF NOT EXISTS moves (
+    game_id VARCHAR(36) NOT NULL,
+    ply INT NOT NULL,
+    entry INT NOT NULL,
+    PRIMARY KEY (game_id, ply)
+);
@@ -0,0 +1,256 @@
+package com.gdt.chess.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gdt.chess.model.DrawnGames;
+import com.gdt.chess.model.GameBinary;
+import com.gdt.chess.service.ChessService;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ChessControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ChessService chessService;
+
+    @Test
+    void gameIsAvailableInEveryForm() throws Exception {
+        String gameId = chessService.createGame().getId();
+        chessService.makeMove(gameId, "e2", "e4");
+        String fen = "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1";
+
+        mockMvc.perform(get("/api/chess/games/{id}", gameId).accept(ChessController.FEN_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(content().string(fen));
+        mockMvc.perform(get("/api/chess/games/{id}", gameId).accept(ChessController.COMPACT_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fen").value(fen))
+                .andExpect(jsonPath("$.moves[0]").value("e2e4"))
+                .andExpect(jsonPath("$.status").value("ACTIVE"));
+        mockMvc.perform(get("/api/chess/games/{id}", gameId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(gameId))
+                .andExpect(jsonPath("$.moveHistory[0].from.row").value(6));
+
+        byte[] binary = mockMvc.perform(get("/api/chess/games/{id}", gameId).accept(ChessController.BINARY_VALUE))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        ByteBuffer buffer = ByteBuffer.wrap(binary);
+        assertEquals(GameBinary.VERSION, buffer.get(0));
+        // e4 is square 36, the first nibble of byte 18 + 18: a white pawn, code 0, stored as 1
+        assertEquals(0x10, buffer.get(18 + 18) & 0xF0);
+        assertEquals(1, buffer.get(50)); // black to move
+        assertEquals(1, buffer.getShort(57)); // one move
+        assertEquals(61, binary.length);
+    }
+
+    @Test
+    void matchingEtagGetsNotModified() throws Exception {
+        String gameId = chessService.createGame().getId();
+        String etag = mockMvc.perform(get("/api/chess/games/{id}", gameId).accept(ChessController.FEN_VALUE))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/chess/games/{id}", gameId).accept(ChessController.FEN_VALUE)
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().bytes(new byte[0]));
+        // Each form has its own tag
+        mockMvc.perform(get("/api/chess/games/{id}", gameId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+
+        chessService.makeMove(gameId, "g1", "f3");
+        String changed = mockMvc.perform(get("/api/chess/games/{id}", gameId).accept(ChessController.FEN_VALUE)
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, changed);
+    }
+
+    @Test
+    void sinceReturnsOnlyNewMoves() throws Exception {
+        String gameId = chessService.createGame().getId();
+        chessService.makeMove(gameId, "e2", "e4");
+        chessService.makeMove(gameId, "e7", "e5");
+        chessService.makeMove(gameId, "g1", "f3");
+
+        mockMvc.perform(get("/api/chess/games/{id}/moves", gameId).param("since", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.since").value(2))
+                .andExpect(jsonPath("$.moveCount").value(3))
+                .andExpect(jsonPath("$.moves.length()").value(1))
+                .andExpect(jsonPath("$.moves[0].to.row").value(5));
+        mockMvc.perform(get("/api/chess/games/{id}/moves", gameId).param("since", "3"))
+                .andExpect(jsonPath("$.moveCount").value(3))
+                .andExpect(jsonPath("$.moves.length()").value(0));
+        mockMvc.perform(get("/api/chess/games/{id}/moves", gameId).param("since", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void longPollWakesOnNextMove() throws Exception {
+        String gameId = chessService.createGame().getId();
+        chessService.makeMove(gameId, "e2", "e4");
+
+        MvcResult waiting = mockMvc.perform(get("/api/chess/games/{id}/moves", gameId)
+                .param("since", "1").param("wait", "10000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        Thread.sleep(100);
+        // Still waiting: no move after ply 1 yet
+        assertThrows(IllegalStateException.class, () -> waiting.getAsyncResult(0));
+        chessService.makeMove(gameId, "c7", "c5");
+
+        mockMvc.perform(asyncDispatch(waiting))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.moveCount").value(2))
+                .andExpect(jsonPath("$.moves[0].from.col").value(2));
+    }
+
+    @Test
+    void unknownGameIsNotFound() throws Exception {
+        mockMvc.perform(get("/api/chess/games/{id}", "no-such-game").accept(ChessController.BINARY_VALUE))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void batchReportsEachMoveAndSkipsTheRestOfAFailedGame() throws Exception {
+        String first = chessService.createGame().getId();
+        String second = chessService.createGame().getId();
+        String body = "["
+                + "{\"gameId\":\"" + first + "\",\"from\":\"e2\",\"to\":\"e4\"},"
+                + "{\"gameId\":\"" + second + "\",\"from\":\"e7\",\"to\":\"e5\"},"
+                + "{\"gameId\":\"" + first + "\",\"from\":\"e7\",\"to\":\"e5\"},"
+                + "{\"gameId\":\"" + second + "\",\"from\":\"d2\",\"to\":\"d4\"},"
+                + "{\"gameId\":\"missing\",\"from\":\"e2\",\"to\":\"e4\"},"
+                + "{\"gameId\":\"" + first + "\",\"from\":\"z9\",\"to\":\"e4\"},"
+                + "{\"from\":\"e2\",\"to\":\"e4\"},"
+                + "null]";
+
+        mockMvc.perform(post("/api/chess/moves/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(8))
+                .andExpect(jsonPath("$[0].error").doesNotExist())
+                .andExpect(jsonPath("$[0].move.from.row").value(6))
+                .andExpect(jsonPath("$[1].error").value("WRONG_TURN"))
+                .andExpect(jsonPath("$[2].gameId").value(first))
+                .andExpect(jsonPath("$[2].error").doesNotExist())
+                .andExpect(jsonPath("$[3].error").value("SKIPPED"))
+                .andExpect(jsonPath("$[4].error").value("GAME_NOT_FOUND"))
+                .andExpect(jsonPath("$[5].error").value("INVALID_SQUARE"))
+                .andExpect(jsonPath("$[6].error").value("INVALID_COMMAND"))
+                .andExpect(jsonPath("$[7].error").value("INVALID_COMMAND"));
+        assertEquals(2, chessService.getGame(first).orElseThrow().getMoveCount());
+        assertEquals(0, chessService.getGame(second).orElseThrow().getMoveCount());
+
+        mockMvc.perform(post("/api/chess/games/{id}/moves/batch", second).contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"from\":\"d2\",\"to\":\"d4\"},{\"from\":\"d7\",\"to\":\"d5\"},null,{\"from\":\"g1\",\"to\":\"f3\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].gameId").value(second))
+                .andExpect(jsonPath("$[1].error").doesNotExist())
+                .andExpect(jsonPath("$[2].error").value("INVALID_COMMAND"))
+                .andExpect(jsonPath("$[3].error").value("SKIPPED"));
+        mockMvc.perform(post("/api/chess/games/{id}/moves/batch", "missing").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"from\":\"d2\",\"to\":\"d4\"}]"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void legalMovesAreGroupedByOriginWithStatus() throws Exception {
+        String gameId = chessService.createGame().getId();
+        mockMvc.perform(get("/api/chess/games/{id}/legal-moves", gameId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sideToMove").value("WHITE"))
+                .andExpect(jsonPath("$.status").value("ACTIVE"))
+                .andExpect(jsonPath("$.moves.length()").value(10))
+                .andExpect(jsonPath("$.moves.e2[1]").value("e4"))
+                .andExpect(jsonPath("$.moves.g1.length()").value(2));
+
+        // Fool's mate
+        chessService.makeMove(gameId, "f2", "f3");
+        chessService.makeMove(gameId, "e7", "e5");
+        chessService.makeMove(gameId, "g2", "g4");
+        mockMvc.perform(get("/api/chess/games/{id}/legal-moves", gameId))
+                .andExpect(jsonPath("$.sideToMove").value("BLACK"))
+                .andExpect(jsonPath("$.moves.d8.length()").value(4));
+        chessService.makeMove(gameId, "d8", "h4");
+        mockMvc.perform(get("/api/chess/games/{id}/legal-moves", gameId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("CHECKMATE"))
+                .andExpect(jsonPath("$.moves.length()").value(0));
+        mockMvc.perform(get("/api/chess/games/{id}/legal-moves", "missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void drawnGameHasNoLegalMoves() throws Exception {
+        String gameId = chessService.createGame().getId();
+        for (String[] move : DrawnGames.FIFTY_MOVES) {
+            chessService.makeMove(gameId, move[0], move[1], move[2]);
+        }
+        // The knights could still move, but the fifty-move rule has ended the game
+        mockMvc.perform(get("/api/chess/games/{id}/legal-moves", gameId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("DRAW"))
+                .andExpect(jsonPath("$.moves.length()").value(0));
+    }
+
+    @Test
+    void pgnArchivesAreImportedAndExported() throws Exception {
+        String archive = "[Event \"Scholar's mate\"]\n\n1. e4 e5 2. Bc4 Nc6 3. Qh5 Nf6 4. Qxf7# 1-0\n\n"
+                + "[Event \"Illegal\"]\n\n1. e4 e5 2. e5 *\n";
+        String lines = mockMvc.perform(post("/api/chess/games/import")
+                        .contentType(ChessController.PGN_VALUE)
+                        .content(archive))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        String[] results = lines.split("\n");
+        assertEquals(2, results.length);
+        JsonNode mate = new ObjectMapper().readTree(results[0]);
+        assertEquals(1, mate.get("game").asInt());
+        assertEquals(7, mate.get("moveCount").asInt());
+        assertEquals("CHECKMATE", mate.get("status").asText());
+        JsonNode illegal = new ObjectMapper().readTree(results[1]);
+        assertEquals("Illegal move: e5 at ply 3", illegal.get("error").asText());
+
+        String gameId = mate.get("gameId").asText();
+        String pgn = "[Event \"?\"]\n[Site \"?\"]\n[Date \"????.??.??\"]\n[Round \"?\"]\n[White \"?\"]\n"
+                + "[Black \"?\"]\n[Result \"1-0\"]\n\n1. e4 e5 2. Bc4 Nc6 3. Qh5 Nf6 4. Qxf7# 1-0\n\n";
+        mockMvc.perform(get("/api/chess/games/{id}", gameId).accept(ChessController.PGN_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(content().string(pgn));
+        mockMvc.perform(post("/api/chess/games/export")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"" + gameId + "\", \"no-such-game\", \"" + gameId + "\"]"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(pgn + pgn));
+    }
+}
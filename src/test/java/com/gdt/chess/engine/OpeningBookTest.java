@@ -0,0 +1,174 @@
+package com.gdt.chess.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.gdt.chess.model.Board;
+import com.gdt.chess.model.Fen;
+import com.gdt.chess.model.Game;
+import com.gdt.chess.model.San;
+import com.gdt.chess.movegen.MoveList;
+import com.gdt.chess.pgn.PgnGame;
+
+@SpringBootTest
+class OpeningBookTest {
+
+    // Each line adds its moves to the book with weight 1; castling and a transposition included
+    private static final String[] LINES = {
+        "1. e4 e5 2. Nf3 Nc6 3. Bb5 a6 4. Ba4 Nf6 5. O-O *",
+        "1. e4 e5 2. Nf3 Nc6 3. Bc4 *",
+        "1. e4 c5 *",
+        "1. d4 Nf6 2. e4 *",
+        "1. e4 Nf6 2. d4 *",
+    };
+
+    @Autowired
+    private OpeningBook openingBook;
+
+    @Autowired
+    private SearchEngine searchEngine;
+
+    @DynamicPropertySource
+    static void book(DynamicPropertyRegistry registry) throws IOException {
+        Path book = Files.createTempFile("book", ".bin");
+        book.toFile().deleteOnExit();
+        writeBook(book, PolyglotKey.standard(), LINES);
+        registry.add("chess.book.path", book::toString);
+    }
+
+    @Test
+    void bookMovesAreWeightedAndDecoded() {
+        List<BookMove> start = openingBook.getMoves(new Board());
+        assertEquals(2, start.size());
+        assertEquals("e2e4", start.get(0).getMove());
+        assertEquals("e4", start.get(0).getSan());
+        assertEquals(4, start.get(0).getWeight());
+        assertEquals(0.8, start.get(0).getProbability(), 1e-9);
+        assertEquals("d4", start.get(1).getSan());
+
+        // Castling is stored as the king taking its rook
+        List<BookMove> castle = openingBook.getMoves(play("1. e4 e5 2. Nf3 Nc6 3. Bb5 a6 4. Ba4 Nf6 *"));
+        assertEquals("e1g1", castle.get(0).getMove());
+        assertEquals("O-O", castle.get(0).getSan());
+
+        assertTrue(openingBook.getMoves(play("1. a4 *")).isEmpty());
+    }
+
+    @Test
+    void standardKeysMatchThePolyglotReference() {
+        // From the key examples of the Polyglot book format
+        assertEquals(0x463b96181691fc9cL, PolyglotKey.standard().hash(new Board()));
+        assertEquals(0x823c9b50fd114196L, PolyglotKey.standard().hash(play("1. e4 *")));
+        assertEquals(0x22a48b5a8e47ff78L, PolyglotKey.standard().hash(play("1. e4 d5 2. e5 f5 *")));
+        assertEquals(0x00fdd303c946bdd9L, PolyglotKey.standard().hash(play("1. e4 d5 2. e5 f5 3. Ke2 Kf7 *")));
+        assertEquals(0x5c3f9b829b279560L, PolyglotKey.standard().hash(play("1. a4 b5 2. h4 b4 3. c4 bxc3 4. Ra3 *")));
+    }
+
+    @Test
+    void bookWrittenWithItsOwnTableIsReadWithIt(@TempDir Path directory) throws IOException {
+        SplittableRandom random = new SplittableRandom(1);
+        ByteBuffer table = ByteBuffer.allocate(PolyglotKey.TABLE_SIZE * Long.BYTES);
+        while (table.hasRemaining()) {
+            table.putLong(random.nextLong());
+        }
+        Path random64 = Files.write(directory.resolve("random64.bin"), table.array());
+        PolyglotKey keys = PolyglotKey.load(random64);
+        Path path = directory.resolve("book.bin");
+        writeBook(path, keys, LINES);
+
+        MoveList moves = new MoveList();
+        int[] weights = new int[MoveList.CAPACITY];
+        try (PolyglotBook book = PolyglotBook.open(path, keys)) {
+            assertEquals(2, book.probe(new Board(), moves, weights));
+        }
+        try (PolyglotBook book = PolyglotBook.open(path, PolyglotKey.standard())) {
+            assertEquals(0, book.probe(new Board(), moves, weights));
+        }
+    }
+
+    @Test
+    void polyglotKeyOnlyCountsACapturableEnPassantSquare() {
+        // Transpositions meet, although a different pawn made the last double step
+        assertEquals(PolyglotKey.standard().hash(play("1. e4 Nf6 2. d4 *")),
+                PolyglotKey.standard().hash(play("1. d4 Nf6 2. e4 *")));
+
+        // After 1. e4 d5 2. e5 f5 the e5 pawn can take en passant; after 2... h5 nothing can
+        String capturable = "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq ";
+        String notCapturable = "rnbqkbnr/ppp1ppp1/8/3pP2p/8/8/PPPP1PPP/RNBQKBNR w KQkq ";
+        assertNotEquals(PolyglotKey.standard().hash(Fen.parse(capturable + "f6 0 3")),
+                PolyglotKey.standard().hash(Fen.parse(capturable + "- 0 3")));
+        assertEquals(PolyglotKey.standard().hash(Fen.parse(notCapturable + "h6 0 3")),
+                PolyglotKey.standard().hash(Fen.parse(notCapturable + "- 0 3")));
+    }
+
+    @Test
+    void engineAnswersFromTheBookBeforeSearching() throws Exception {
+        Game game = new Game();
+        SearchResult fromBook = searchEngine.findBestMove(game, SearchLimits.depth(1));
+        assertTrue(fromBook.isBook());
+        assertEquals(0, fromBook.getNodes());
+        assertTrue(fromBook.getBestMove().equals("e2e4") || fromBook.getBestMove().equals("d2d4"));
+
+        SearchResult searched = searchEngine.findBestMove(game, SearchLimits.depth(1), 1, false);
+        assertFalse(searched.isBook());
+        assertTrue(searched.getNodes() > 0);
+
+        game.makeMove(San.parse(game.getBoard(), "a4", new MoveList()));
+        assertFalse(searchEngine.findBestMove(game, SearchLimits.depth(1)).isBook());
+    }
+
+    private static Board play(String pgn) {
+        Board board = new Board();
+        for (int move : PgnGame.parse(pgn).getMoves()) {
+            board.makeMove(move);
+        }
+        return board;
+    }
+
+    /** Adds up the lines into (key, move, weight) entries and writes them sorted, as Polyglot expects. */
+    static void writeBook(Path path, PolyglotKey keys, String[] lines) {
+        List<long[]> entries = new ArrayList<>();
+        for (String line : lines) {
+            Board board = new Board();
+            for (int move : PgnGame.parse(line).getMoves()) {
+                long key = keys.hash(board);
+                int bookMove = PolyglotBook.encodeMove(move);
+                long[] entry = entries.stream().filter(e -> e[0] == key && e[1] == bookMove).findFirst().orElse(null);
+                if (entry == null) {
+                    entries.add(new long[] { key, bookMove, 1 });
+                } else {
+                    entry[2]++;
+                }
+                board.makeMove(move);
+            }
+        }
+        entries.sort((a, b) -> Long.compareUnsigned(a[0], b[0]));
+        ByteBuffer buffer = ByteBuffer.allocate(entries.size() * PolyglotBook.ENTRY_BYTES);
+        for (long[] entry : entries) {
+            buffer.putLong(entry[0]).putShort((short) entry[1]).putShort((short) entry[2]).putInt(0);
+        }
+        try {
+            Files.write(path, buffer.array());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.gdt.chess.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import com.gdt.chess.model.Board;
+import com.gdt.chess.model.Fen;
+
+class SearchTest {
+
+    private SearchResult search(String fen, SearchLimits limits) {
+        Board board = Fen.parse(fen);
+        long key = board.getZobristKey();
+        SearchResult result = new Search(board, new long[0], new TranspositionTable(1), new AtomicBoolean()).search(limits);
+        // The search makes and unmakes moves on the board it is given
+        assertEquals(fen, Fen.toFen(board));
+        assertEquals(key, board.getZobristKey());
+        return result;
+    }
+
+    @Test
+    void findsMateInOne() {
+        SearchResult result = search("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1", SearchLimits.depth(4));
+        assertEquals("a1a8", result.getBestMove());
+        assertEquals(1, result.getMateIn());
+    }
+
+    @Test
+    void findsMateInThree() {
+        // 1. Qxh8+ Kxh8 2. Bf6+ Kg8 3. Re8#
+        SearchResult result = search("r1b3kr/ppp1Bp1p/1b6/n2P4/2p3q1/2Q2N2/P4PPP/RN2R1K1 w - - 1 1", SearchLimits.depth(6));
+        assertEquals("c3h8", result.getBestMove());
+        assertEquals(3, result.getMateIn());
+    }
+
+    @Test
+    void winsHangingQueen() {
+        SearchResult result = search("rnb1kbnr/pppp1ppp/8/4p1q1/3P4/2N5/PPP1PPPP/R1BQKBNR w KQkq - 0 1", SearchLimits.depth(4));
+        assertEquals("c1g5", result.getBestMove());
+    }
+
+    @Test
+    void stopsAtNodeLimit() {
+        SearchResult result = search(Fen.START_POSITION, SearchLimits.of(0, 0, 20_000));
+        // Limits are polled every few thousand nodes
+        assertTrue(result.getNodes() < 25_000, "nodes " + result.getNodes());
+        assertTrue(result.getPv().size() >= 1);
+    }
+
+    @Test
+    void parallelSearchAgreesWithSingleThread() {
+        String fen = "r1b3kr/ppp1Bp1p/1b6/n2P4/2p3q1/2Q2N2/P4PPP/RN2R1K1 w - - 1 1";
+        Board board = Fen.parse(fen);
+        ExecutorService helperPool = Executors.newFixedThreadPool(3);
+        try {
+            SearchResult result = ParallelSearch.search(board, new long[0], new TranspositionTable(1),
+                    SearchLimits.depth(6), 3, helperPool);
+            assertEquals("c3h8", result.getBestMove());
+            assertEquals(3, result.getMateIn());
+            assertEquals(4, result.getThreads());
+            assertEquals(fen, Fen.toFen(board));
+        } finally {
+            helperPool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.gdt.chess.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.gdt.chess.movegen.MoveGenerator;
+import com.gdt.chess.movegen.MoveList;
+import com.gdt.chess.movegen.PerftPosition;
+
+class BoardTest {
+
+    @Test
+    void unmakeRestoresEveryPositionExactly() {
+        for (PerftPosition position : PerftPosition.values()) {
+            walk(Fen.parse(position.fen()), 3);
+        }
+    }
+
+    private void walk(Board board, int depth) {
+        if (depth == 0) {
+            return;
+        }
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegalMoves(board, moves);
+        String before = describe(board);
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            walk(board, depth - 1);
+            assertEquals(moves.get(i), board.unmakeMove());
+            assertEquals(before, describe(board), PackedMove.toUci(moves.get(i)));
+        }
+    }
+
+    private String describe(Board board) {
+        StringBuilder sb = new StringBuilder(Fen.toFen(board)).append(' ').append(board.getZobristKey()).append(' ');
+        for (int square = 0; square < 64; square++) {
+            sb.append(board.hasMoved(square) ? '1' : '0');
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void clocksFollowCapturesAndPawnMoves() {
+        Board board = Fen.parse("4k3/8/8/8/8/8/4P3/R3K3 w - - 7 20");
+        board.makeMove(PackedMove.of(Bitboards.square(7, 0), Bitboards.square(6, 0), PackedMove.QUIET));
+        assertEquals(8, board.getHalfmoveClock());
+        assertEquals(20, board.getFullmoveNumber());
+        board.makeMove(PackedMove.of(Bitboards.square(0, 4), Bitboards.square(0, 3), PackedMove.QUIET));
+        assertEquals(21, board.getFullmoveNumber());
+        board.makeMove(PackedMove.of(Bitboards.square(6, 4), Bitboards.square(4, 4), PackedMove.DOUBLE_PAWN_PUSH));
+        assertEquals(0, board.getHalfmoveClock());
+
+        board.unmakeMove();
+        board.unmakeMove();
+        board.unmakeMove();
+        assertEquals("4k3/8/8/8/8/8/4P3/R3K3 w - - 7 20", Fen.toFen(board));
+        assertThrows(IllegalStateException.class, board::unmakeMove);
+    }
+
+    @Test
+    void insufficientMaterialNeedsNoMateToBePossible() {
+        assertTrue(Fen.parse("4k3/8/8/8/8/8/8/4K3 w - - 0 1").hasInsufficientMaterial());
+        assertTrue(Fen.parse("4k3/8/8/8/8/8/8/4KN2 w - - 0 1").hasInsufficientMaterial());
+        // Bishops on c1 and f8 are both on dark squares
+        assertTrue(Fen.parse("4kb2/8/8/8/8/8/8/2B1K3 w - - 0 1").hasInsufficientMaterial());
+        assertFalse(Fen.parse("4k1b1/8/8/8/8/8/8/2B1K3 w - - 0 1").hasInsufficientMaterial());
+        assertFalse(Fen.parse("4k3/8/8/8/8/8/8/2BNK3 w - - 0 1").hasInsufficientMaterial());
+        assertFalse(Fen.parse("4k3/8/8/8/8/8/4P3/4K3 w - - 0 1").hasInsufficientMaterial());
+        assertFalse(Fen.parse(Fen.START_POSITION).hasInsufficientMaterial());
+    }
+}
@@ -0,0 +1,125 @@
+package com.gdt.chess.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.gdt.chess.model.enums.PieceType;
+import com.gdt.chess.movegen.MoveGenerator;
+import com.gdt.chess.movegen.MoveList;
+
+/**
+ * Games from the start position that end in a draw by rule on their last
+ * move, for tests that play them through the service. Each move is its from
+ * square, to square and promotion piece letter, or null. The moves are found
+ * by searching the rules once, rather than written out, as draws take long
+ * games to reach.
+ */
+public final class DrawnGames {
+
+    /** 100 plies without a capture or pawn move; no position occurs twice. */
+    public static final String[][] FIFTY_MOVES = fiftyMoves();
+
+    /**
+     * Captures until a king and a lone knight or bishop face the other king.
+     * The last move captures the other side's only piece but its king, so the
+     * tablebases, which only hold positions where one side has all the
+     * pieces, have no say on the way.
+     */
+    public static final String[][] LONE_MINOR_PIECE = loneMinorPiece();
+
+    private DrawnGames() {
+    }
+
+    private static String[][] fiftyMoves() {
+        Game game = new Game();
+        List<Integer> moves = new ArrayList<>();
+        if (!quietMoves(game, moves, 100)) {
+            throw new IllegalStateException("No fifty-move draw found");
+        }
+        return toNotation(moves);
+    }
+
+    /** Depth-first search for plies of quiet piece moves that never repeat a position. */
+    private static boolean quietMoves(Game game, List<Integer> moves, int plies) {
+        if (moves.size() == plies) {
+            return game.getStatus() == Game.GameStatus.DRAW;
+        }
+        MoveList legal = new MoveList();
+        MoveGenerator.generateLegalMoves(game.getBoard(), legal);
+        for (int i = 0; i < legal.size(); i++) {
+            int move = legal.get(i);
+            if (PackedMove.isCapture(move) || Bitboards.typeOf(game.getBoard().pieceAt(PackedMove.from(move))) == PieceType.PAWN) {
+                continue;
+            }
+            game.makeMove(move);
+            boolean fresh = !seenBefore(game) && (game.getStatus() == Game.GameStatus.ACTIVE
+                    || moves.size() + 1 == plies);
+            moves.add(move);
+            if (fresh && quietMoves(game, moves, plies)) {
+                return true;
+            }
+            moves.remove(moves.size() - 1);
+            game.unmakeMove();
+        }
+        return false;
+    }
+
+    private static boolean seenBefore(Game game) {
+        int current = game.getMoveCount();
+        for (int ply = current - 1; ply >= 0; ply--) {
+            if (game.getPositionKey(ply) == game.getPositionKey(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String[][] loneMinorPiece() {
+        // Random games that capture whenever they can, until one trades down to a minor piece
+        for (long seed = 0; seed < 1000; seed++) {
+            Random random = new Random(seed);
+            Game game = new Game();
+            List<Integer> moves = new ArrayList<>();
+            MoveList legal = new MoveList();
+            MoveList captures = new MoveList();
+            while (!game.getStatus().isOver()) {
+                legal.clear();
+                captures.clear();
+                MoveGenerator.generateLegalMoves(game.getBoard(), legal);
+                for (int i = 0; i < legal.size(); i++) {
+                    if (PackedMove.isCapture(legal.get(i))) {
+                        captures.add(legal.get(i));
+                    }
+                }
+                MoveList from = captures.isEmpty() ? legal : captures;
+                int move = from.get(random.nextInt(from.size()));
+                game.makeMove(move);
+                moves.add(move);
+            }
+            Board board = game.getBoard();
+            if (game.getStatus() == Game.GameStatus.DRAW && Long.bitCount(board.occupancy()) == 3
+                    && board.hasInsufficientMaterial() && bothSidesHadAPiece(game)) {
+                return toNotation(moves);
+            }
+        }
+        throw new IllegalStateException("No game down to a lone minor piece found");
+    }
+
+    /** Whether each side had a king and one piece before the last move; takes that move back. */
+    private static boolean bothSidesHadAPiece(Game game) {
+        game.unmakeMove();
+        Board board = game.getBoard();
+        return Long.bitCount(board.occupancy(0)) == 2 && Long.bitCount(board.occupancy(1)) == 2;
+    }
+
+    private static String[][] toNotation(List<Integer> moves) {
+        String[][] notation = new String[moves.size()][];
+        for (int i = 0; i < notation.length; i++) {
+            String uci = PackedMove.toUci(moves.get(i));
+            notation[i] = new String[] { uci.substring(0, 2), uci.substring(2, 4),
+                    uci.length() > 4 ? uci.substring(4) : null };
+        }
+        return notation;
+    }
+}
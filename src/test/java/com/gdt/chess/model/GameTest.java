@@ -0,0 +1,117 @@
+package com.gdt.chess.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.gdt.chess.model.enums.Color;
+import com.gdt.chess.model.enums.PieceType;
+import com.gdt.chess.movegen.MoveGenerator;
+import com.gdt.chess.movegen.MoveList;
+
+class GameTest {
+
+    @Test
+    void historyEntriesDescribeMovesAsPlayed() {
+        Game game = new Game();
+        play(game, "e2", "e4");
+        play(game, "a7", "a6");
+        play(game, "e4", "e5");
+        play(game, "d7", "d5");
+        play(game, "e5", "d6"); // en passant
+        play(game, "c7", "d6");
+
+        List<Move> history = game.getMoveHistory();
+        assertEquals(6, history.size());
+        assertEquals(6, game.getMoveCount());
+
+        Move first = history.get(0);
+        assertEquals("e2", first.getFrom().toChessNotation());
+        // Later moves by the same pawn do not change how the first move reads
+        assertEquals("e4", first.getPiece().getPosition().toChessNotation());
+        assertNull(first.getCapturedPiece());
+
+        Move enPassant = history.get(4);
+        assertTrue(enPassant.isEnPassant());
+        assertEquals(PieceType.PAWN, enPassant.getCapturedPiece().getType());
+        assertEquals(Color.BLACK, enPassant.getCapturedPiece().getColor());
+        assertEquals("d5", enPassant.getCapturedPiece().getPosition().toChessNotation());
+
+        Move recapture = history.get(5);
+        assertEquals(Color.WHITE, recapture.getCapturedPiece().getColor());
+        assertEquals("d6", recapture.getCapturedPiece().getPosition().toChessNotation());
+    }
+
+    @Test
+    void unmakeMoveRestoresHistoryAndPosition() {
+        Game game = new Game();
+        long start = game.getZobristKey();
+        play(game, "g1", "f3");
+        int entry = game.unmakeMove();
+
+        assertEquals("g1f3", PackedMove.toUci(MoveHistory.packedMove(entry)));
+        assertEquals(Bitboards.pieceCode(PieceType.KNIGHT, Color.WHITE), MoveHistory.movedPiece(entry));
+        assertEquals(Bitboards.NO_PIECE, MoveHistory.capturedPiece(entry));
+        assertEquals(0, game.getMoveCount());
+        assertEquals(start, game.getZobristKey());
+        assertEquals(1, game.getPositionKeys().length);
+    }
+
+    @Test
+    void statusFollowsCheckAndMate() {
+        Game game = new Game();
+        play(game, "e2", "e4");
+        play(game, "f7", "f6");
+        play(game, "d2", "d4");
+        play(game, "g7", "g5");
+        assertEquals(Game.GameStatus.ACTIVE, game.getStatus());
+        play(game, "d1", "h5");
+        assertEquals(Game.GameStatus.CHECKMATE, game.getStatus());
+        assertTrue(game.getStatus().isOver());
+
+        game.unmakeMove();
+        play(game, "f1", "b5");
+        assertEquals(Game.GameStatus.ACTIVE, game.getStatus());
+        play(game, "c7", "c6");
+        play(game, "b5", "c6");
+        play(game, "b8", "c6");
+        play(game, "d4", "d5");
+        play(game, "c6", "b4");
+        play(game, "h2", "h3");
+        play(game, "b4", "c2");
+        assertEquals(Game.GameStatus.CHECK, game.getStatus());
+    }
+
+    @Test
+    void thirdRepetitionIsADraw() {
+        Game game = new Game();
+        for (int cycle = 0; cycle < 2; cycle++) {
+            play(game, "g1", "f3");
+            play(game, "g8", "f6");
+            play(game, "f3", "g1");
+            assertEquals(Game.GameStatus.ACTIVE, game.getStatus());
+            play(game, "f6", "g8");
+        }
+        // The start position, for the third time
+        assertTrue(game.isThreefoldRepetition());
+        assertEquals(Game.GameStatus.DRAW, game.getStatus());
+
+        game.unmakeMove();
+        assertEquals(Game.GameStatus.ACTIVE, game.getStatus());
+        play(game, "e7", "e5");
+        assertEquals(0, game.getHalfmoveClock());
+        assertEquals(Game.GameStatus.ACTIVE, game.getStatus());
+    }
+
+    private void play(Game game, String from, String to) {
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegalMoves(game.getBoard(), moves);
+        int packed = moves.find(Bitboards.square(Position.fromChessNotation(from)),
+                Bitboards.square(Position.fromChessNotation(to)), PieceType.QUEEN.ordinal());
+        game.makeMove(packed);
+    }
+}
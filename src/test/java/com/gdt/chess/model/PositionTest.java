@@ -0,0 +1,29 @@
+package com.gdt.chess.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class PositionTest {
+
+    @Test
+    void boardSquaresAreInterned() {
+        for (int square = 0; square < 64; square++) {
+            Position position = Position.of(square);
+            assertSame(position, Position.of(position.getRow(), position.getCol()));
+            assertSame(position, Position.of(position.toChessNotation()));
+            assertEquals(square, Bitboards.square(position));
+        }
+        assertEquals("a8", Position.of(0).toChessNotation());
+        assertEquals("h1", Position.of(63).toChessNotation());
+    }
+
+    @Test
+    void offBoardNotationStillParses() {
+        Position position = Position.fromChessNotation("i9");
+        assertFalse(new Board().isPositionValid(position));
+        assertEquals(new Position(-1, 8), position);
+    }
+}
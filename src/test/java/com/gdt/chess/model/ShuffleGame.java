@@ -0,0 +1,35 @@
+package com.gdt.chess.model;
+
+/**
+ * A long game for tests that just need many legal moves: the king's knights
+ * go out and back, then each side pushes a pawn. The pawn moves keep
+ * positions from repeating three times, so the game is never drawn, and
+ * nothing is ever captured.
+ */
+public final class ShuffleGame {
+
+    private static final String[][] PAWNS = {
+            { "a2", "a3", "a7", "a6" }, { "h2", "h3", "h7", "h6" }, { "b2", "b3", "b7", "b6" },
+            { "e2", "e3", "e7", "e6" }, { "d2", "d3", "d7", "d6" }, { "c2", "c3", "c7", "c6" },
+            { "a3", "a4", "a6", "a5" }, { "h3", "h4", "h6", "h5" }, { "b3", "b4", "b6", "b5" },
+            { "e3", "e4", "e6", "e5" }, { "d3", "d4", "d6", "d5" }, { "c3", "c4", "c6", "c5" } };
+
+    /** From and to square of every move, 72 in all. */
+    public static final String[][] MOVES = new String[PAWNS.length * 6][];
+
+    static {
+        for (int round = 0; round < PAWNS.length; round++) {
+            String[] pawns = PAWNS[round];
+            int ply = round * 6;
+            MOVES[ply] = new String[] { "g1", "f3" };
+            MOVES[ply + 1] = new String[] { "g8", "f6" };
+            MOVES[ply + 2] = new String[] { "f3", "g1" };
+            MOVES[ply + 3] = new String[] { "f6", "g8" };
+            MOVES[ply + 4] = new String[] { pawns[0], pawns[1] };
+            MOVES[ply + 5] = new String[] { pawns[2], pawns[3] };
+        }
+    }
+
+    private ShuffleGame() {
+    }
+}
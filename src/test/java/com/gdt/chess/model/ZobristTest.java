@@ -0,0 +1,58 @@
+package com.gdt.chess.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.gdt.chess.model.enums.PieceType;
+import com.gdt.chess.movegen.MoveGenerator;
+import com.gdt.chess.movegen.MoveList;
+
+class ZobristTest {
+
+    @Test
+    void incrementalKeyMatchesRecomputationThroughoutTree() {
+        // Kiwipete exercises castling rights, en passant and promotions
+        walk(Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"), 3);
+        walk(Fen.parse("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"), 4);
+    }
+
+    private void walk(Board board, int depth) {
+        assertEquals(Zobrist.compute(board), board.getZobristKey(), Fen.toFen(board));
+        if (depth == 0) {
+            return;
+        }
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegalMoves(board, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            Board child = new Board(board);
+            child.makeMove(moves.get(i));
+            walk(child, depth - 1);
+        }
+    }
+
+    @Test
+    void transpositionsShareKeyAndHistoryIsRecorded() {
+        Game game = new Game();
+        long start = game.getZobristKey();
+        play(game, "g1", "f3");
+        play(game, "g8", "f6");
+        play(game, "f3", "g1");
+        assertNotEquals(start, game.getZobristKey());
+        play(game, "f6", "g8");
+
+        assertEquals(start, game.getZobristKey());
+        assertEquals(5, game.getPositionKeys().length);
+        assertEquals(game.getPositionKey(0), game.getPositionKey(4));
+        assertEquals(Zobrist.compute(new Board()), start);
+    }
+
+    private void play(Game game, String from, String to) {
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegalMoves(game.getBoard(), moves);
+        int packed = moves.find(Bitboards.square(Position.fromChessNotation(from)),
+                Bitboards.square(Position.fromChessNotation(to)), PieceType.QUEEN.ordinal());
+        game.makeMove(Move.of(game.getBoard(), packed));
+    }
+}
@@ -0,0 +1,59 @@
+package com.gdt.chess.movegen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import com.gdt.chess.model.Board;
+import com.gdt.chess.model.Fen;
+
+class PerftTest {
+
+    // Deepest level of each position is left to the benchmark profile
+    @ParameterizedTest
+    @EnumSource(PerftPosition.class)
+    void matchesPublishedNodeCounts(PerftPosition position) {
+        Perft perft = new Perft();
+        for (int depth = 1; depth < position.maxDepth(); depth++) {
+            assertEquals(position.nodes(depth), perft.count(Fen.parse(position.fen()), depth),
+                    position + " depth " + depth);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(PerftPosition.class)
+    void fenRoundTrips(PerftPosition position) {
+        assertEquals(position.fen(), Fen.toFen(Fen.parse(position.fen())));
+    }
+
+    @ParameterizedTest
+    @EnumSource(PerftPosition.class)
+    void hasLegalMoveAgreesWithGeneration(PerftPosition position) {
+        assertHasLegalMoveAgrees(Fen.parse(position.fen()), Math.min(3, position.maxDepth() - 1));
+    }
+
+    @Test
+    void hasLegalMoveFindsMateAndStalemate() {
+        // Fool's mate, a queen stalemate and a king boxed in by its opponent's pawn
+        assertFalse(MoveGenerator.hasLegalMove(Fen.parse("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3")));
+        assertFalse(MoveGenerator.hasLegalMove(Fen.parse("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1")));
+        assertFalse(MoveGenerator.hasLegalMove(Fen.parse("k7/P7/K7/8/8/8/8/8 b - - 0 1")));
+    }
+
+    private static void assertHasLegalMoveAgrees(Board board, int depth) {
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegalMoves(board, moves);
+        assertEquals(!moves.isEmpty(), MoveGenerator.hasLegalMove(board), Fen.toFen(board));
+        if (depth == 0) {
+            return;
+        }
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            assertHasLegalMoveAgrees(board, depth - 1);
+            board.unmakeMove();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.gdt.chess.pgn;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import com.gdt.chess.model.Game;
+
+class PgnGameTest {
+
+    // Morphy - Duke of Brunswick and Count Isouard, Paris 1858, with some of everything PGN allows
+    static final String OPERA_GAME = "[Event \"Paris \\\"Opera\\\"\"]\n"
+            + "[Site \"Paris FRA\"]\n"
+            + "[Date \"1858.??.??\"]\n"
+            + "[White \"Morphy, Paul\"]\n"
+            + "[Black \"Duke Karl / Count Isouard\"]\n"
+            + "[Result \"1-0\"]\n"
+            + "\n"
+            + "1.e4 e5 2. Nf3 d6 {Philidor Defence} 3. d4 Bg4 $6 4. dxe5 Bxf3 5. Qxf3 dxe5\n"
+            + "6. Bc4 Nf6 7. Qb3 Qe7 8. Nc3 (8. Qxb7 Qb4+ 9. Qxb4 Bxb4+) 8... c6 9. Bg5 b5\n"
+            + "; a line comment\n"
+            + "10. Nxb5 cxb5 11. Bxb5+ Nbd7 12. O-O-O Rd8 13. Rxd7 Rxd7 14. Rd1 Qe6\n"
+            + "15. Bxd7+ Nxd7 16. Qb8+! Nxb8 17. Rd8# 1-0\n";
+
+    @Test
+    void gameIsReadCheckedAndWrittenBackInExportFormat() {
+        PgnGame game = PgnGame.parse(OPERA_GAME);
+        assertEquals(33, game.getMoveCount());
+        assertEquals(PgnGame.WHITE_WINS, game.getResult());
+        assertEquals("Paris \"Opera\"", game.getTags().get("Event"));
+        assertEquals(Game.GameStatus.CHECKMATE, game.toGame().getStatus());
+
+        String pgn = PgnWriter.format(game);
+        assertTrue(pgn.startsWith("[Event \"Paris \\\"Opera\\\"\"]\n[Site \"Paris FRA\"]\n[Date \"1858.??.??\"]\n[Round \"?\"]\n"), pgn);
+        assertTrue(pgn.contains("11. Bxb5+ Nbd7 12. O-O-O Rd8"), pgn);
+        assertTrue(pgn.endsWith("17. Rd8# 1-0\n\n"), pgn);
+        for (String line : pgn.split("\n")) {
+            assertTrue(line.length() <= 79, line);
+        }
+
+        PgnGame reread = PgnGame.parse(pgn);
+        assertArrayEquals(game.getMoves(), reread.getMoves());
+        assertEquals(pgn, PgnWriter.format(reread));
+    }
+
+    @Test
+    void promotionsAndSetUpPositionsAreSupported() {
+        PgnGame game = PgnGame.parse("[FEN \"8/P7/8/8/8/8/8/k6K w - - 0 1\"]\n1. a8Q+ Kb2 2. Qb7+ *");
+        assertEquals(3, game.getMoveCount());
+        assertEquals(PgnGame.UNFINISHED, game.getResult());
+        String pgn = PgnWriter.format(game);
+        assertTrue(pgn.contains("[FEN \"8/P7/8/8/8/8/8/k6K w - - 0 1\"]"), pgn);
+        assertTrue(pgn.contains("1. a8=Q+ Kb2 2. Qb7+ *"), pgn);
+        // Games of the service always start from the initial position
+        assertThrows(IllegalArgumentException.class, game::toGame);
+    }
+
+    @Test
+    void illegalAmbiguousAndUnfinishedGamesAreRejected() {
+        IllegalArgumentException illegal = assertThrows(IllegalArgumentException.class,
+                () -> PgnGame.parse("1. e4 e5 2. Ke3 *"));
+        assertEquals("Illegal move: Ke3 at ply 3", illegal.getMessage());
+        IllegalArgumentException ambiguous = assertThrows(IllegalArgumentException.class,
+                () -> PgnGame.parse("1. Nf3 Nf6 2. Nc3 Nc6 3. Nd4 Nd5 4. Nb5 *"));
+        assertEquals("Ambiguous move: Nb5 at ply 7", ambiguous.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> PgnGame.parse("1. e4 e5 2. Nf3"));
+        assertThrows(IllegalArgumentException.class, () -> PgnGame.parse("[Event \"x\" 1. e4 *"));
+    }
+
+    @Test
+    void readerSplitsAStreamIntoGames() throws Exception {
+        String archive = OPERA_GAME + "\n"
+                + "[Event \"Second\"]\n\n1. d4 { a comment over lines\n[not a tag] } d5 1/2-1/2\n"
+                + "[Event \"Third\"]\n1. c4 *\n\n";
+        try (PgnReader reader = new PgnReader(new ByteArrayInputStream(archive.getBytes(StandardCharsets.UTF_8)))) {
+            assertEquals(33, PgnGame.parse(reader.next()).getMoveCount());
+            PgnGame second = PgnGame.parse(reader.next());
+            assertEquals("Second", second.getTags().get("Event"));
+            assertEquals(2, second.getMoveCount());
+            assertEquals("Third", PgnGame.parse(reader.next()).getTags().get("Event"));
+            assertNull(reader.next());
+            assertEquals(archive.length(), reader.getBytesRead());
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.gdt.chess.repository;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.gdt.chess.model.Game;
+import com.gdt.chess.model.Zobrist;
+import com.gdt.chess.model.ShuffleGame;
+import com.gdt.chess.service.ChessService;
+import com.gdt.chess.service.IllegalMoveException;
+
+@SpringBootTest(properties = { "chess.cache.max-games=32", "chess.cache.idle-timeout-ms=50",
+        "chess.cache.max-hibernated-mb=1" })
+class InMemoryGameRepositoryTest {
+
+    @Autowired
+    private ChessService chessService;
+
+    @Autowired
+    private InMemoryGameRepository repository;
+
+    @Test
+    void gamesOverCapacityAreHibernatedAndRestored() throws IllegalMoveException {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String id = chessService.createGame().getId();
+            for (int ply = 0; ply < i % 7; ply++) {
+                chessService.makeMove(id, ShuffleGame.MOVES[ply][0], ShuffleGame.MOVES[ply][1]);
+            }
+            ids.add(id);
+        }
+        assertTrue(repository.getLiveCount() <= 32);
+        assertTrue(repository.getHibernatedCount() > 0);
+
+        for (int i = 0; i < ids.size(); i++) {
+            Game game = chessService.getGame(ids.get(i)).orElseThrow();
+            assertEquals(i % 7, game.getMoveCount());
+            assertEquals(Zobrist.compute(game.getBoard()), game.getZobristKey());
+        }
+    }
+
+    @Test
+    void hibernatedGamesOverTheHeapBudgetSpill() throws IllegalMoveException {
+        // 1 MB holds a few thousand hibernated games; the rest go to the spill file
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 12_000; i++) {
+            String id = chessService.createGame().getId();
+            for (int ply = 0; ply < i % 5; ply++) {
+                chessService.makeMove(id, ShuffleGame.MOVES[ply][0], ShuffleGame.MOVES[ply][1]);
+            }
+            ids.add(id);
+        }
+        assertTrue(repository.getSpilledCount() > 0);
+        assertTrue(repository.getHibernatedBytes() <= 1024 * 1024);
+
+        for (int i = 0; i < ids.size(); i += 7) {
+            Game game = chessService.getGame(ids.get(i)).orElseThrow();
+            assertEquals(i % 5, game.getMoveCount());
+            assertEquals(Zobrist.compute(game.getBoard()), game.getZobristKey());
+        }
+        String spilled = ids.get(1);
+        chessService.deleteGame(spilled);
+        assertFalse(chessService.getGame(spilled).isPresent());
+    }
+
+    @Test
+    void idsThatAreNotUuidsWorkOnceGamesSpill() throws IllegalMoveException {
+        for (int i = 0; repository.getSpilledCount() == 0; i++) {
+            String id = chessService.createGame().getId();
+            chessService.makeMove(id, ShuffleGame.MOVES[i % 2][0], ShuffleGame.MOVES[i % 2][1]);
+        }
+        assertFalse(repository.findById("no-such-game").isPresent());
+        repository.deleteById("no-such-game");
+
+        // Evicted like any other game, but kept on the heap
+        repository.save(new Game("12345"));
+        chessService.makeMove("12345", "e2", "e4");
+        for (int i = 0; i < 64; i++) {
+            chessService.createGame();
+        }
+        assertEquals(1, repository.findById("12345").orElseThrow().getMoveCount());
+        repository.deleteById("12345");
+        assertFalse(repository.findById("12345").isPresent());
+    }
+
+    @Test
+    void spillFileIsCompacted(@TempDir Path directory) throws IOException {
+        try (SpillStore store = new SpillStore(directory)) {
+            byte[] bytes = new byte[100];
+            for (int round = 0; round < 3; round++) {
+                for (int i = 0; i < 10_000; i++) {
+                    Arrays.fill(bytes, (byte) (i + round));
+                    store.put(i, round, bytes);
+                }
+                // Replace the previous round
+                for (int i = 0; i < 10_000 && round > 0; i++) {
+                    store.remove(i, round - 1);
+                }
+            }
+            assertEquals(10_000, store.size());
+            assertEquals(3_000_000, store.getFileBytes());
+            assertTrue(store.compact());
+            assertEquals(1_000_000, store.getFileBytes());
+            for (int i = 0; i < 10_000; i += 97) {
+                Arrays.fill(bytes, (byte) (i + 2));
+                assertArrayEquals(bytes, store.get(i, 2));
+                assertNull(store.get(i, 1));
+            }
+        }
+    }
+
+    @Test
+    void idleGamesAreHibernated() throws Exception {
+        String id = chessService.createGame().getId();
+        chessService.makeMove(id, "e2", "e4");
+        Thread.sleep(100);
+        repository.evictIdle();
+        assertEquals(0, repository.getLiveCount());
+
+        chessService.makeMove(id, "e7", "e5");
+        assertEquals(2, chessService.getMoveHistory(id).size());
+        chessService.deleteGame(id);
+        assertFalse(chessService.getGame(id).isPresent());
+    }
+
+    @Test
+    void evictionDoesNotLoseConcurrentMoves() throws Exception {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ids.add(chessService.createGame().getId());
+        }
+        AtomicInteger[] played = new AtomicInteger[ids.size()];
+        for (int i = 0; i < played.length; i++) {
+            played[i] = new AtomicInteger();
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int seed = t;
+                writers.add(pool.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        int game = (i * 7 + seed * 13) % ids.size();
+                        String[] move = ShuffleGame.MOVES[played[game].get() % ShuffleGame.MOVES.length];
+                        try {
+                            chessService.makeMove(ids.get(game), move[0], move[1]);
+                            played[game].incrementAndGet();
+                        } catch (IllegalMoveException e) {
+                            // Another writer moved this game first
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(played[i].get(), chessService.getGame(ids.get(i)).orElseThrow().getMoveCount());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.gdt.chess.repository;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.gdt.chess.model.Bitboards;
+import com.gdt.chess.model.Game;
+import com.gdt.chess.model.Position;
+import com.gdt.chess.model.enums.PieceType;
+import com.gdt.chess.movegen.MoveGenerator;
+import com.gdt.chess.movegen.MoveList;
+import com.gdt.chess.service.ChessService;
+import com.gdt.chess.service.IllegalMoveException;
+
+@SpringBootTest(properties = "chess.repository.type=jdbc")
+class JdbcGameRepositoryTest {
+
+    private static final String[][] MOVES = {
+            { "e2", "e4" }, { "e7", "e5" }, { "g1", "f3" }, { "b8", "c6" }, { "f1", "b5" }, { "a7", "a6" } };
+
+    @Autowired
+    private ChessService chessService;
+
+    @Autowired
+    private JdbcGameRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void movesAreWrittenBehind() throws IllegalMoveException {
+        String gameId = chessService.createGame().getId();
+        for (String[] move : MOVES) {
+            chessService.makeMove(gameId, move[0], move[1]);
+        }
+
+        awaitTrue(() -> storedMoveCount(gameId) == MOVES.length);
+        Integer entry = jdbcTemplate.queryForObject(
+                "SELECT entry FROM moves WHERE game_id = ? AND ply = 2", Integer.class, gameId);
+        assertEquals(chessService.getGame(gameId).orElseThrow().getHistoryEntry(2), entry);
+        assertEquals("ACTIVE", jdbcTemplate.queryForObject("SELECT status FROM games WHERE id = ?", String.class, gameId));
+        assertTrue(repository.getFlushes() > 0);
+    }
+
+    @Test
+    void gameMissingFromMemoryIsLoaded() {
+        // Played before a restart: only the database has it
+        String gameId = UUID.randomUUID().toString();
+        Game original = new Game(gameId);
+        MoveList legal = new MoveList();
+        for (String[] move : MOVES) {
+            legal.clear();
+            MoveGenerator.generateLegalMoves(original.getBoard(), legal);
+            original.makeMove(legal.find(Bitboards.square(Position.of(move[0])),
+                    Bitboards.square(Position.of(move[1])), PieceType.QUEEN.ordinal()));
+        }
+        jdbcTemplate.update("INSERT INTO games (id, status, move_count) VALUES (?, 'ACTIVE', ?)", gameId, MOVES.length);
+        for (int ply = 0; ply < MOVES.length; ply++) {
+            jdbcTemplate.update("INSERT INTO moves (game_id, ply, entry) VALUES (?, ?, ?)",
+                    gameId, ply, original.getHistoryEntry(ply));
+        }
+
+        Game loaded = repository.findById(gameId).orElseThrow();
+        assertEquals(MOVES.length, loaded.getMoveCount());
+        assertArrayEquals(original.getPositionKeys(), loaded.getPositionKeys());
+        assertSame(loaded, repository.findById(gameId).orElseThrow());
+        assertFalse(repository.findById(UUID.randomUUID().toString()).isPresent());
+    }
+
+    @Test
+    void deletedGameLeavesTheDatabase() throws IllegalMoveException {
+        String gameId = chessService.createGame().getId();
+        chessService.makeMove(gameId, "e2", "e4");
+        awaitTrue(() -> storedMoveCount(gameId) == 1);
+
+        chessService.deleteGame(gameId);
+        assertFalse(repository.findById(gameId).isPresent());
+        awaitTrue(() -> jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM games WHERE id = ?", Integer.class, gameId) == 0);
+        assertEquals(0, storedMoveCount(gameId));
+    }
+
+    @Test
+    void gameOnlyInTheDatabaseIsDeleted() {
+        // Played before a restart and never loaded since
+        String gameId = UUID.randomUUID().toString();
+        jdbcTemplate.update("INSERT INTO games (id, status, move_count) VALUES (?, 'ACTIVE', 0)", gameId);
+
+        repository.deleteById(gameId);
+        assertFalse(repository.findById(gameId).isPresent());
+        awaitTrue(() -> jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM games WHERE id = ?", Integer.class, gameId) == 0);
+        assertFalse(repository.findById(gameId).isPresent());
+    }
+
+    private int storedMoveCount(String gameId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM moves WHERE game_id = ?", Integer.class, gameId);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Not written within 10 s");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
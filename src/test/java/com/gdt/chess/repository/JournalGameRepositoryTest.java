@@ -0,0 +1,239 @@
+package com.gdt.chess.repository;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.gdt.chess.model.Game;
+import com.gdt.chess.movegen.MoveGenerator;
+import com.gdt.chess.movegen.MoveList;
+
+class JournalGameRepositoryTest {
+
+    // Small segments, so that a few games already span several of them
+    private static final int SEGMENT_BYTES = 64 * MoveJournal.RECORD_BYTES;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void gamesSurviveRestart() throws IOException {
+        JournalGameRepository repository = open();
+        List<Game> games = playRandomGames(repository, 20, 30, new Random(1));
+        Game taken = games.get(3);
+        taken.unmakeMove();
+        taken.unmakeMove();
+        repository.save(taken);
+        repository.deleteById(games.get(7).getId());
+        repository.close();
+
+        JournalGameRepository reopened = open();
+        assertEquals(19, reopened.getGameCount());
+        assertFalse(reopened.findById(games.get(7).getId()).isPresent());
+        for (Game game : games) {
+            if (game != games.get(7)) {
+                assertSameGame(game, reopened.findById(game.getId()).orElseThrow());
+            }
+        }
+        reopened.close();
+    }
+
+    @Test
+    void recoversFromSnapshotAndJournalTail() throws IOException {
+        JournalGameRepository repository = open();
+        Random random = new Random(2);
+        List<Game> games = playRandomGames(repository, 10, 20, random);
+        repository.snapshot();
+        // Moves after the snapshot are only in the journal
+        for (Game game : games) {
+            playRandomMoves(repository, game, 5, random);
+        }
+        Game created = playRandomGames(repository, 1, 4, random).get(0);
+        games.get(0).unmakeMove();
+        repository.save(games.get(0));
+        // No close(): as if the process died, with only the background fsync done
+
+        JournalGameRepository reopened = new JournalGameRepository(directory, SEGMENT_BYTES, 10, 0);
+        reopened.open();
+        assertEquals(11, reopened.getGameCount());
+        assertSameGame(created, reopened.findById(created.getId()).orElseThrow());
+        for (Game game : games) {
+            assertSameGame(game, reopened.findById(game.getId()).orElseThrow());
+        }
+        reopened.close();
+    }
+
+    @Test
+    void declaredDrawsSurviveRestart() throws IOException {
+        JournalGameRepository repository = open();
+        List<Game> games = playRandomGames(repository, 3, 10, new Random(6));
+        for (Game game : games) {
+            // As the tablebases would: a draw the rules do not see
+            game.setStatus(Game.GameStatus.DRAW);
+            repository.save(game);
+        }
+        repository.snapshot();
+        // Only in the snapshot, in the journal tail, and taken back after the draw
+        Game inJournal = playRandomGames(repository, 1, 10, new Random(7)).get(0);
+        inJournal.setStatus(Game.GameStatus.DRAW);
+        repository.save(inJournal);
+        Game takenBack = games.get(2);
+        takenBack.unmakeMove();
+        repository.save(takenBack);
+        // No close(): the snapshot and the journal after it
+
+        JournalGameRepository reopened = new JournalGameRepository(directory, SEGMENT_BYTES, 10, 0);
+        reopened.open();
+        assertEquals(Game.GameStatus.DRAW, reopened.findById(games.get(0).getId()).orElseThrow().getStatus());
+        assertEquals(Game.GameStatus.DRAW, reopened.findById(inJournal.getId()).orElseThrow().getStatus());
+        Game recovered = reopened.findById(takenBack.getId()).orElseThrow();
+        assertSameGame(takenBack, recovered);
+        assertFalse(recovered.getStatus().isOver());
+        reopened.close();
+
+        // Now all in the snapshot close() wrote
+        JournalGameRepository again = open();
+        assertEquals(Game.GameStatus.DRAW, again.findById(games.get(1).getId()).orElseThrow().getStatus());
+        assertEquals(Game.GameStatus.DRAW, again.findById(inJournal.getId()).orElseThrow().getStatus());
+        assertFalse(again.findById(takenBack.getId()).orElseThrow().getStatus().isOver());
+        again.close();
+    }
+
+    @Test
+    void tornRecordEndsReplay() throws IOException {
+        JournalGameRepository repository = open();
+        Game game = playRandomGames(repository, 1, 12, new Random(3)).get(0);
+        // The process "crashes" without closing, and the last record was torn
+        Path segment = currentSegment();
+        int lastRecord = 12 * MoveJournal.RECORD_BYTES;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] { 2, 0, 0, 0, 7 }), lastRecord);
+        }
+
+        JournalGameRepository reopened = open();
+        Game recovered = reopened.findById(game.getId()).orElseThrow();
+        assertEquals(11, recovered.getMoveCount());
+        game.unmakeMove();
+        assertSameGame(game, recovered);
+
+        // Appends go to a fresh segment, after the torn one
+        playRandomMoves(reopened, recovered, 3, new Random(4));
+        reopened.close();
+        JournalGameRepository again = open();
+        assertSameGame(recovered, again.findById(game.getId()).orElseThrow());
+        again.close();
+    }
+
+    @Test
+    void snapshotDeletesCoveredSegments() throws IOException {
+        JournalGameRepository repository = open();
+        playRandomGames(repository, 10, 20, new Random(5));
+        // Records wait in memory until the background thread has mapped segments for them
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (segmentCount() <= 3 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertTrue(segmentCount() > 3);
+        repository.snapshot();
+        // The segment being appended to and its spare
+        assertEquals(2, segmentCount());
+        repository.close();
+    }
+
+    @Test
+    void appendsNeverWaitForANewSegment() throws IOException {
+        MoveJournal journal = new MoveJournal(directory, SEGMENT_BYTES);
+        journal.open(0, (type, idHigh, idLow, ply, payload) -> { });
+        // With no background thread, three segments' worth fill the current one and the spare, then wait in memory
+        int records = 3 * SEGMENT_BYTES / MoveJournal.RECORD_BYTES;
+        for (int ply = 0; ply < records; ply++) {
+            journal.append(MoveJournal.MOVE, 1, 2, ply, ply);
+        }
+        assertEquals(2, segmentCount());
+        assertEquals(records / 3, journal.getOverflowRecords());
+        journal.prepareSegment();
+        assertEquals(0, journal.getOverflowRecords());
+        journal.close();
+
+        List<Integer> plies = new ArrayList<>();
+        MoveJournal reopened = new MoveJournal(directory, SEGMENT_BYTES);
+        reopened.open(0, (type, idHigh, idLow, ply, payload) -> plies.add(ply));
+        reopened.close();
+        assertEquals(records, plies.size());
+        for (int ply = 0; ply < records; ply++) {
+            assertEquals(ply, plies.get(ply));
+        }
+    }
+
+    private JournalGameRepository open() throws IOException {
+        JournalGameRepository repository = new JournalGameRepository(directory, SEGMENT_BYTES, 10, 0);
+        repository.open();
+        return repository;
+    }
+
+    private static List<Game> playRandomGames(JournalGameRepository repository, int count, int plies, Random random) {
+        List<Game> games = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Game game = repository.save(new Game());
+            playRandomMoves(repository, game, plies, random);
+            games.add(game);
+        }
+        return games;
+    }
+
+    private static void playRandomMoves(JournalGameRepository repository, Game game, int plies, Random random) {
+        MoveList moves = new MoveList();
+        for (int ply = 0; ply < plies; ply++) {
+            moves.clear();
+            MoveGenerator.generateLegalMoves(game.getBoard(), moves);
+            if (moves.isEmpty()) {
+                break;
+            }
+            game.makeMove(moves.get(random.nextInt(moves.size())));
+            repository.save(game);
+        }
+    }
+
+    private static void assertSameGame(Game expected, Game actual) {
+        assertEquals(expected.getMoveCount(), actual.getMoveCount());
+        assertArrayEquals(expected.getPositionKeys(), actual.getPositionKeys());
+        for (int ply = 0; ply < expected.getMoveCount(); ply++) {
+            assertEquals(expected.getHistoryEntry(ply), actual.getHistoryEntry(ply));
+        }
+    }
+
+    /** The segment being appended to; the newest is the spare mapped ahead of it. */
+    private Path currentSegment() throws IOException {
+        List<Path> segments = segments();
+        return segments.get(segments.size() - 2);
+    }
+
+    private int segmentCount() throws IOException {
+        return segments().size();
+    }
+
+    private List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "journal-*.log")) {
+            files.forEach(segments::add);
+        }
+        segments.sort(null);
+        return segments;
+    }
+}
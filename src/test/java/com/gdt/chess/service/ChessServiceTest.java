@@ -0,0 +1,141 @@
+package com.gdt.chess.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.gdt.chess.model.DrawnGames;
+import com.gdt.chess.model.Game;
+import com.gdt.chess.model.PackedMove;
+import com.gdt.chess.model.ShuffleGame;
+import com.gdt.chess.model.Zobrist;
+import com.gdt.chess.movegen.MoveGenerator;
+import com.gdt.chess.movegen.MoveList;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest
+class ChessServiceTest {
+
+    @Autowired
+    private ChessService chessService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void concurrentMovesOnOneGameAreSerialized() throws Exception {
+        String gameId = chessService.createGame().getId();
+        AtomicInteger played = new AtomicInteger();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                writers.add(pool.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        String[] move = ShuffleGame.MOVES[i % ShuffleGame.MOVES.length];
+                        try {
+                            chessService.makeMove(gameId, move[0], move[1]);
+                            played.incrementAndGet();
+                        } catch (IllegalMoveException e) {
+                            // Another writer got there first
+                        }
+                    }
+                    return null;
+                }));
+            }
+            List<Future<?>> readers = new ArrayList<>();
+            for (int t = 0; t < 2; t++) {
+                readers.add(pool.submit(() -> {
+                    while (writing.get()) {
+                        assertConsistent(chessService.getGame(gameId).orElseThrow());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            writing.set(false);
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Game game = chessService.getGame(gameId).orElseThrow();
+        assertConsistent(game);
+        assertEquals(played.get(), game.getMoveCount());
+        assertEquals(played.get(), chessService.getMoveHistory(gameId).size());
+    }
+
+    @Test
+    void movesAreTimedByStageAndRejectionsCounted() throws Exception {
+        String gameId = chessService.createGame().getId();
+        long moves = registry.get("chess.move").timer().count();
+        long applied = registry.get("chess.move.stage").tag("stage", "apply").timer().count();
+        double wrongTurn = registry.get("chess.move.rejected").tag("reason", "wrong-turn").counter().count();
+
+        chessService.makeMove(gameId, "e2", "e4");
+        chessService.makeMove(gameId, "e7", "e5");
+        assertThrows(IllegalMoveException.class, () -> chessService.makeMove(gameId, "e5", "e4"));
+
+        assertEquals(moves + 2, registry.get("chess.move").timer().count());
+        assertEquals(applied + 2, registry.get("chess.move.stage").tag("stage", "apply").timer().count());
+        assertEquals(wrongTurn + 1, registry.get("chess.move.rejected").tag("reason", "wrong-turn").counter().count());
+        for (ChessMetrics.Stage stage : ChessMetrics.Stage.values()) {
+            assertTrue(registry.get("chess.move.stage").tag("stage", stage.name().toLowerCase().replace('_', '-'))
+                    .timer().count() >= 2, stage.name());
+        }
+    }
+
+    @Test
+    void fiftyMovesWithoutCaptureOrPawnMoveEndTheGame() throws Exception {
+        assertDrawnOnLastMove(DrawnGames.FIFTY_MOVES);
+    }
+
+    @Test
+    void loneMinorPieceEndsTheGame() throws Exception {
+        assertDrawnOnLastMove(DrawnGames.LONE_MINOR_PIECE);
+    }
+
+    private void assertDrawnOnLastMove(String[][] moves) throws IllegalMoveException {
+        String gameId = chessService.createGame().getId();
+        for (String[] move : moves) {
+            assertFalse(chessService.getGame(gameId).orElseThrow().getStatus().isOver());
+            chessService.makeMove(gameId, move[0], move[1], move[2]);
+        }
+        Game game = chessService.getGame(gameId).orElseThrow();
+        assertEquals(Game.GameStatus.DRAW, game.getStatus());
+
+        // The position still has moves, but none may be played
+        MoveList legal = new MoveList();
+        MoveGenerator.generateLegalMoves(game.getBoard(), legal);
+        String next = PackedMove.toUci(legal.get(0));
+        IllegalMoveException e = assertThrows(IllegalMoveException.class,
+                () -> chessService.makeMove(gameId, next.substring(0, 2), next.substring(2, 4)));
+        assertEquals(MoveError.GAME_OVER, e.getError());
+        assertEquals(moves.length, chessService.getGame(gameId).orElseThrow().getMoveCount());
+    }
+
+    private static void assertConsistent(Game game) {
+        assertEquals(game.getMoveCount() + 1, game.getPositionKeys().length);
+        assertEquals(Zobrist.compute(game.getBoard()), game.getZobristKey());
+        assertEquals(game.getPositionKey(game.getMoveCount()), game.getZobristKey());
+    }
+}
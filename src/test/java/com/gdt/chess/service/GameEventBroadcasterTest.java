@@ -0,0 +1,129 @@
+package com.gdt.chess.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.gdt.chess.model.ShuffleGame;
+
+@SpringBootTest(properties = "chess.stream.queue-size=4")
+class GameEventBroadcasterTest {
+
+    @Autowired
+    private ChessService chessService;
+
+    @Autowired
+    private GameEventBroadcaster broadcaster;
+
+    @Test
+    void spectatorsReceiveEveryMoveInOrder() throws Exception {
+        String gameId = chessService.createGame().getId();
+        List<MoveEvent> first = new CopyOnWriteArrayList<>();
+        List<MoveEvent> second = new CopyOnWriteArrayList<>();
+        broadcaster.subscribe(gameId, 0, first::add);
+        broadcaster.subscribe(gameId, 0, second::add);
+
+        play(gameId, 0, 8);
+        awaitSize(first, 8);
+        awaitSize(second, 8);
+        assertPlies(first, 0, 8);
+        assertPlies(second, 0, 8);
+        assertEquals("g1f3", first.get(0).getMove());
+        assertEquals("KNIGHT", first.get(0).getPiece());
+        assertEquals("WHITE", first.get(0).getColor());
+    }
+
+    @Test
+    void resumeReplaysMissedMoves() throws Exception {
+        String gameId = chessService.createGame().getId();
+        play(gameId, 0, 5);
+        List<MoveEvent> events = new CopyOnWriteArrayList<>();
+        GameEventBroadcaster.Subscription subscription = broadcaster.subscribe(gameId, 2, events::add);
+        play(gameId, 5, 7);
+
+        awaitSize(events, 5);
+        assertPlies(events, 2, 7);
+        subscription.cancel();
+        assertEquals(0, broadcaster.getSubscriberCount(gameId));
+    }
+
+    @Test
+    void slowSpectatorDoesNotBlockMovesAndCatchesUp() throws Exception {
+        String gameId = chessService.createGame().getId();
+        CountDownLatch release = new CountDownLatch(1);
+        List<MoveEvent> events = new CopyOnWriteArrayList<>();
+        broadcaster.subscribe(gameId, 0, event -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            events.add(event);
+        });
+
+        // Far more moves than the spectator's queue holds, while it is stuck on the first one
+        long start = System.nanoTime();
+        play(gameId, 0, 40);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        release.countDown();
+
+        awaitSize(events, 40);
+        assertPlies(events, 0, 40);
+    }
+
+    @Test
+    void deletingAGameClosesItsSubscriptions() throws Exception {
+        String gameId = chessService.createGame().getId();
+        CountDownLatch closed = new CountDownLatch(2);
+        GameEventBroadcaster.EventSink sink = new GameEventBroadcaster.EventSink() {
+            @Override
+            public void send(MoveEvent event) {
+            }
+
+            @Override
+            public void close() {
+                closed.countDown();
+            }
+        };
+        GameEventBroadcaster.Subscription subscription = broadcaster.subscribe(gameId, 0, sink);
+        broadcaster.subscribe(gameId, 0, sink);
+        play(gameId, 0, 2);
+        assertEquals(2, broadcaster.getSubscriberCount(gameId));
+
+        chessService.deleteGame(gameId);
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+        assertTrue(subscription.isCancelled());
+        assertEquals(0, broadcaster.getSubscriberCount(gameId));
+    }
+
+    private void play(String gameId, int fromPly, int toPly) throws IllegalMoveException {
+        for (int ply = fromPly; ply < toPly; ply++) {
+            String[] move = ShuffleGame.MOVES[ply % ShuffleGame.MOVES.length];
+            chessService.makeMove(gameId, move[0], move[1]);
+        }
+    }
+
+    private static void assertPlies(List<MoveEvent> events, int fromPly, int toPly) {
+        assertEquals(toPly - fromPly, events.size());
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(fromPly + i, events.get(i).getPly());
+        }
+    }
+
+    private static void awaitSize(List<MoveEvent> events, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (events.size() < size && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        // Anything extra would show up as a wrong size in assertPlies
+        Thread.sleep(50);
+    }
+}
@@ -0,0 +1,195 @@
+package com.gdt.chess.tablebase;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.gdt.chess.engine.Search;
+import com.gdt.chess.model.Bitboards;
+import com.gdt.chess.model.Board;
+import com.gdt.chess.model.Fen;
+import com.gdt.chess.model.PackedMove;
+import com.gdt.chess.model.enums.Color;
+import com.gdt.chess.model.enums.PieceType;
+import com.gdt.chess.movegen.Attacks;
+import com.gdt.chess.movegen.MoveGenerator;
+import com.gdt.chess.movegen.MoveList;
+
+@SpringBootTest
+class TablebaseTest {
+
+    private static Path directory;
+
+    @Autowired
+    private Tablebases tablebases;
+
+    @DynamicPropertySource
+    static void tablebases(DynamicPropertyRegistry registry) throws IOException {
+        directory = Files.createTempDirectory("tablebases");
+        directory.toFile().deleteOnExit();
+        registry.add("chess.tablebase.dir", directory::toString);
+    }
+
+    @BeforeEach
+    void awaitTables() throws InterruptedException {
+        assertTrue(tablebases.awaitLoaded(120_000));
+        for (Material material : Material.values()) {
+            assertTrue(tablebases.isLoaded(material), material + " not loaded");
+        }
+    }
+
+    @Test
+    void symmetryLeavesTheKnownNumberOfKingPairs() {
+        assertEquals(462 * 64, Material.KQK.getSize());
+        assertEquals(1806 * 48, Material.KPK.getSize());
+        // Mirrored and rotated positions share one index
+        int[] queen = { Bitboards.square(6, 2) };
+        int index = Material.KQK.index(Bitboards.square(7, 1), Bitboards.square(2, 5), queen);
+        int[] mirrored = { Bitboards.square(6, 5) };
+        assertEquals(index, Material.KQK.index(Bitboards.square(7, 6), Bitboards.square(2, 2), mirrored));
+        int[] rotated = { Bitboards.square(1, 5) };
+        assertEquals(index, Material.KQK.index(Bitboards.square(0, 6), Bitboards.square(5, 2), rotated));
+    }
+
+    @Test
+    void knownPositions() {
+        // Qb8 mates at once
+        assertEquals(Search.MATE - 1, tablebases.probe(Fen.parse("7k/8/6K1/8/8/8/8/1Q6 w - - 0 1")));
+        assertEquals("b1b8", PackedMove.toUci(tablebases.bestMove(Fen.parse("7k/8/6K1/8/8/8/8/1Q6 w - - 0 1"))));
+        // The same with colours swapped and Black to move
+        assertEquals(Search.MATE - 1, tablebases.probe(Fen.parse("1q6/8/8/8/8/6k1/8/7K b - - 0 1")));
+        // Checkmated, and stalemated
+        assertEquals(-Search.MATE, tablebases.probe(Fen.parse("R6k/8/6K1/8/8/8/8/8 b - - 0 1")));
+        assertEquals(0, tablebases.probe(Fen.parse("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1")));
+        // Black to move takes the undefended queen
+        assertEquals(0, tablebases.probe(Fen.parse("8/8/8/8/8/2K5/6Qk/8 b - - 0 1")));
+
+        // KPK: the opposition decides
+        assertEquals(0, tablebases.probe(Fen.parse("8/8/8/8/8/4k3/4P3/4K3 w - - 0 1")));
+        assertTrue(tablebases.probe(Fen.parse("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1")) > 0);
+        assertTrue(tablebases.probe(Fen.parse("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1")) < 0);
+        // A rook pawn with the defending king in the corner is a draw
+        assertEquals(0, tablebases.probe(Fen.parse("7k/8/6K1/7P/8/8/8/8 w - - 0 1")));
+
+        // KBNK: the longest mate is 33 moves
+        TablebaseResult result = tablebases.getResult(Fen.parse("8/8/8/3k4/8/8/8/KBN5 w - - 0 1"));
+        assertTrue(result.isFound());
+        assertEquals("KBNK", result.getMaterial());
+        assertEquals(Wdl.WIN, result.getWdl());
+        assertTrue(result.getMateIn() > 20 && result.getMateIn() <= 33, "mate in " + result.getMateIn());
+        assertEquals(result.getDtm(), result.getMoves().get(0).getDtm());
+
+        // Not covered: other material, castling rights
+        assertEquals(Tablebases.UNKNOWN, tablebases.probe(new Board()));
+        assertEquals(Tablebases.UNKNOWN, tablebases.probe(Fen.parse("4k3/8/8/8/8/8/8/4K2R w K - 0 1")));
+        assertFalse(tablebases.getResult(new Board()).isFound());
+    }
+
+    @Test
+    void everyValueFollowsFromTheMoves() {
+        SplittableRandom random = new SplittableRandom(25);
+        for (Material material : Material.values()) {
+            int checked = 0;
+            while (checked < 3000) {
+                Board board = randomPosition(material, random);
+                if (board == null) {
+                    continue;
+                }
+                assertEquals(oneMoveDeeper(board), tablebases.probe(board), Fen.toFen(board));
+                checked++;
+            }
+        }
+    }
+
+    @Test
+    void tablesArePersisted() throws IOException {
+        for (Material material : Material.values()) {
+            Path file = directory.resolve(material.name() + ".ctb");
+            assertTrue(Files.exists(file));
+            try (Tablebase table = Tablebase.open(file, material)) {
+                assertTrue(table.getBits() <= 7);
+                assertEquals(Files.size(file), table.getFileSize());
+            }
+        }
+        Path damaged = directory.resolve("damaged.ctb");
+        byte[] bytes = Files.readAllBytes(directory.resolve("KQK.ctb"));
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(damaged, bytes);
+        assertThrowsIo(damaged, Material.KQK);
+        assertThrowsIo(directory.resolve("KQK.ctb"), Material.KRK);
+    }
+
+    private static void assertThrowsIo(Path file, Material material) {
+        try (Tablebase table = Tablebase.open(file, material)) {
+            assertNotEquals(material, table.getMaterial(), "opened " + file);
+        } catch (IOException expected) {
+            // As it should
+        }
+    }
+
+    /** The value of the position from its moves and the tables' values one ply on. */
+    private int oneMoveDeeper(Board board) {
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegalMoves(board, moves);
+        if (moves.isEmpty()) {
+            return MoveGenerator.isInCheck(board) ? -Search.MATE : 0;
+        }
+        int best = -Search.INFINITY;
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            int score = tablebases.probe(board);
+            if (score == Tablebases.UNKNOWN) {
+                assertTrue(board.hasInsufficientMaterial(), Fen.toFen(board));
+                score = 0;
+            }
+            board.unmakeMove();
+            best = Math.max(best, score > 0 ? -score + 1 : score < 0 ? -score - 1 : 0);
+        }
+        return best;
+    }
+
+    /** A legal position of the material, either colour strong and either to move; null if the draw was illegal. */
+    private static Board randomPosition(Material material, SplittableRandom random) {
+        Color strong = random.nextBoolean() ? Color.WHITE : Color.BLACK;
+        Color weak = strong == Color.WHITE ? Color.BLACK : Color.WHITE;
+        Board board = Fen.parse("8/8/8/8/8/8/8/8 " + (random.nextBoolean() ? "w" : "b") + " - - 0 1");
+        board.put(random.nextInt(64), Bitboards.pieceCode(PieceType.KING, strong));
+        int weakKing = random.nextInt(64);
+        if (board.pieceAt(weakKing) != Bitboards.NO_PIECE) {
+            return null;
+        }
+        board.put(weakKing, Bitboards.pieceCode(PieceType.KING, weak));
+        for (PieceType type : material.getPieces()) {
+            int square = random.nextInt(64);
+            int row = Bitboards.row(square);
+            if (board.pieceAt(square) != Bitboards.NO_PIECE || (type == PieceType.PAWN && (row == 0 || row == 7))) {
+                return null;
+            }
+            board.put(square, Bitboards.pieceCode(type, strong));
+        }
+        // Reparse, so the board's keys and state are those of a real position
+        Board position = Fen.parse(Fen.toFen(board));
+        if ((Bitboards.bit(Long.numberOfTrailingZeros(position.pieces(PieceType.KING, strong)))
+                & Attacks.king(Long.numberOfTrailingZeros(position.pieces(PieceType.KING, weak)))) != 0) {
+            return null;
+        }
+        // The side that just moved must not be in check
+        position.makeNullMove();
+        boolean illegal = MoveGenerator.isInCheck(position);
+        position.unmakeNullMove();
+        return illegal ? null : position;
+    }
+}